@@ -23,6 +23,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.EventRecord;
 import com.streamsets.pipeline.api.Record;
@@ -50,6 +51,7 @@ import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 public class AmazonS3Target extends BaseTarget {
@@ -69,6 +71,7 @@ public class AmazonS3Target extends BaseTarget {
 
   private FileHelper fileHelper;
   private TransferManager transferManager;
+  private ExecutorService partUploadExecutor;
   private ELEval bucketEval;
   private ELEval partitionEval;
   private ELEval timeDriverEval;
@@ -127,7 +130,19 @@ public class AmazonS3Target extends BaseTarget {
     if (!isErrorStage && getContext().getService(DataFormatGeneratorService.class).isWholeFileFormat()) {
       fileHelper = new WholeFileHelper(getContext(), s3TargetConfigBean, transferManager, issues);
     } else {
-      fileHelper = new DefaultFileHelper(getContext(), s3TargetConfigBean, transferManager, isErrorStage);
+      if (s3TargetConfigBean.streamingUpload) {
+        partUploadExecutor = Executors.newFixedThreadPool(
+            s3TargetConfigBean.tmConfig.threadPoolSize,
+            new ThreadFactoryBuilder().setNameFormat("S3 Part Upload-%d").setDaemon(true).build()
+        );
+      }
+      fileHelper = new DefaultFileHelper(
+          getContext(),
+          s3TargetConfigBean,
+          transferManager,
+          partUploadExecutor,
+          isErrorStage
+      );
     }
 
     this.errorRecordHandler = new DefaultErrorRecordHandler(getContext());
@@ -142,6 +157,9 @@ public class AmazonS3Target extends BaseTarget {
       // don't shut down s3 client again since it's already closed by s3Config.destroy().
       transferManager.shutdownNow(false);
     }
+    if (partUploadExecutor != null) {
+      partUploadExecutor.shutdownNow();
+    }
     super.destroy();
   }
 
@@ -163,7 +181,7 @@ public class AmazonS3Target extends BaseTarget {
       for (UploadMetadata upload : uploads) {
         try {
           // Wait for given object to fully upload
-          upload.getUpload().waitForCompletion();
+          upload.waitForCompletion();
           if (!isErrorStage) {
             // Propagate events associated with this upload
             for (EventRecord event : upload.getEvents()) {
@@ -35,6 +35,7 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 import java.util.zip.GZIPOutputStream;
 
 final class DefaultFileHelper extends FileHelper {
@@ -43,15 +44,34 @@ final class DefaultFileHelper extends FileHelper {
 
   private int fileCount = 0;
   private final boolean isErrorStage;
+  private final ExecutorService partUploadExecutor;
+  private final PartBufferPool partBufferPool;
 
   DefaultFileHelper(
       Target.Context context,
       S3TargetConfigBean s3TargetConfigBean,
       TransferManager transferManager,
       boolean isErrorStage
+  ) {
+    this(context, s3TargetConfigBean, transferManager, null, isErrorStage);
+  }
+
+  /**
+   * @param partUploadExecutor Executor for streaming uploads, if null objects are fully buffered in memory and
+   *                           uploaded through the TransferManager.
+   */
+  DefaultFileHelper(
+      Target.Context context,
+      S3TargetConfigBean s3TargetConfigBean,
+      TransferManager transferManager,
+      ExecutorService partUploadExecutor,
+      boolean isErrorStage
   ) {
     super(context, s3TargetConfigBean, transferManager);
     this.isErrorStage = isErrorStage;
+    this.partUploadExecutor = partUploadExecutor;
+    this.partBufferPool = partUploadExecutor == null ? null :
+        new PartBufferPool(s3TargetConfigBean.uploadPartSize, s3TargetConfigBean.maxBufferedParts);
   }
 
   private String getUniqueDateWithIncrementalFileName(String keyPrefix) {
@@ -75,20 +95,106 @@ final class DefaultFileHelper extends FileHelper {
     //For uniqueness
     keyPrefix += System.currentTimeMillis() + "-";
 
+    if (partUploadExecutor != null) {
+      return handleStreaming(recordIterator, bucket, keyPrefix);
+    }
+
     List<UploadMetadata> uploads = new ArrayList<>();
-    List<Record> records = new ArrayList<>();
 
     ByRefByteArrayOutputStream bOut = new ByRefByteArrayOutputStream();
     // wrap with gzip compression output stream if required
     OutputStream out = (s3TargetConfigBean.compress)? new GZIPOutputStream(bOut) : bOut;
 
-    DataGenerator generator;
+    DataGenerator generator = createGenerator(out);
+    List<Record> records = writeRecords(recordIterator, generator);
+    generator.close();
+
+    // upload file on Amazon S3 only if at least one record was successfully written to the stream
+    if (records.size() > 0) {
+      String fileName = getUniqueDateWithIncrementalFileName(keyPrefix);
+
+      //Create and issue file close event record, but the events are thrown after the batch completion.
+      EventRecord eventRecord = createObjectWrittenEvent(bucket, fileName, records.size());
+
+      // Avoid making a copy of the internal buffer maintained by the ByteArrayOutputStream by using
+      // ByRefByteArrayOutputStream
+      ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bOut.getInternalBuffer(), 0, bOut.size());
+      Upload upload = doUpload(bucket, fileName, byteArrayInputStream, getObjectMetadata());
+      uploads.add(new UploadMetadata(
+        upload,
+        bucket,
+        records,
+        ImmutableList.of(eventRecord)
+      ));
+    }
+
+    return uploads;
+  }
+
+  /**
+   * Uploads the records in parts while they are being generated, so only a bounded number of parts is kept in
+   * memory instead of the whole object.
+   */
+  private List<UploadMetadata> handleStreaming(
+      Iterator<Record> recordIterator,
+      String bucket,
+      String keyPrefix
+  ) throws IOException, StageException {
+    List<UploadMetadata> uploads = new ArrayList<>();
+
+    StreamingUploadOutputStream sOut = new StreamingUploadOutputStream(
+        s3TargetConfigBean.s3Config.getS3Client(),
+        partUploadExecutor,
+        partBufferPool,
+        bucket,
+        () -> getUniqueDateWithIncrementalFileName(keyPrefix),
+        getObjectMetadata(),
+        getSSECustomerKey()
+    );
+
+    List<Record> records;
+    try {
+      // wrap with gzip compression output stream if required
+      OutputStream out = (s3TargetConfigBean.compress)? new GZIPOutputStream(sOut) : sOut;
+      DataGenerator generator = createGenerator(out);
+      records = writeRecords(recordIterator, generator);
+      generator.close();
+    } catch (IOException | StageException | RuntimeException e) {
+      sOut.abort();
+      throw e;
+    }
+
+    // upload file on Amazon S3 only if at least one record was successfully written to the stream
+    if (records.size() > 0) {
+      String fileName = sOut.getKey();
+      EventRecord eventRecord = createObjectWrittenEvent(bucket, fileName, records.size());
+      uploads.add(new UploadMetadata(
+          sOut.finish(),
+          bucket,
+          records,
+          ImmutableList.of(eventRecord)
+      ));
+    } else {
+      sOut.abort();
+    }
+
+    return uploads;
+  }
+
+  private DataGenerator createGenerator(OutputStream out) throws IOException, StageException {
     if (isErrorStage) {
-      generator = context.getService(SdcRecordGeneratorService.class).getGenerator(out);
+      return context.getService(SdcRecordGeneratorService.class).getGenerator(out);
     }
     else {
-      generator = context.getService(DataFormatGeneratorService.class).getGenerator(out);
+      return context.getService(DataFormatGeneratorService.class).getGenerator(out);
     }
+  }
+
+  /**
+   * Writes all records to the generator, returning those that were written successfully.
+   */
+  private List<Record> writeRecords(Iterator<Record> recordIterator, DataGenerator generator) throws StageException {
+    List<Record> records = new ArrayList<>();
     Record currentRecord;
 
     while (recordIterator.hasNext()) {
@@ -116,33 +222,16 @@ final class DefaultFileHelper extends FileHelper {
         );
       }
     }
-    generator.close();
-
-    // upload file on Amazon S3 only if at least one record was successfully written to the stream
-    if (records.size() > 0) {
-      String fileName = getUniqueDateWithIncrementalFileName(keyPrefix);
-
-      //Create and issue file close event record, but the events are thrown after the batch completion.
-      EventRecord eventRecord = S3Events.S3_OBJECT_WRITTEN
-          .create(context)
-          .with(BUCKET, bucket)
-          .with(OBJECT_KEY, fileName)
-          .with(RECORD_COUNT, records.size())
-          .create();
-
-      // Avoid making a copy of the internal buffer maintained by the ByteArrayOutputStream by using
-      // ByRefByteArrayOutputStream
-      ByteArrayInputStream byteArrayInputStream = new ByteArrayInputStream(bOut.getInternalBuffer(), 0, bOut.size());
-      Upload upload = doUpload(bucket, fileName, byteArrayInputStream, getObjectMetadata());
-      uploads.add(new UploadMetadata(
-        upload,
-        bucket,
-        records,
-        ImmutableList.of(eventRecord)
-      ));
-    }
+    return records;
+  }
 
-    return uploads;
+  private EventRecord createObjectWrittenEvent(String bucket, String fileName, int recordCount) {
+    return S3Events.S3_OBJECT_WRITTEN
+        .create(context)
+        .with(BUCKET, bucket)
+        .with(OBJECT_KEY, fileName)
+        .with(RECORD_COUNT, recordCount)
+        .create();
   }
 
   /**
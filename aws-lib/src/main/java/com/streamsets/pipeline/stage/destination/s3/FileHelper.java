@@ -20,12 +20,14 @@ import com.amazonaws.services.s3.Headers;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectRequest;
 import com.amazonaws.services.s3.model.SSEAlgorithm;
+import com.amazonaws.services.s3.model.SSECustomerKey;
 import com.amazonaws.services.s3.transfer.TransferManager;
 import com.amazonaws.services.s3.transfer.Upload;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.Target;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.aws.SseOption;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import org.slf4j.Logger;
@@ -100,6 +102,18 @@ abstract class FileHelper {
     return metadata;
   }
 
+  /**
+   * Returns customer provided encryption key if configured, it has to be passed explicitly with each uploaded part
+   * of a multipart upload.
+   */
+  protected SSECustomerKey getSSECustomerKey() throws StageException {
+    if (s3TargetConfigBean.sseConfig.useSSE && s3TargetConfigBean.sseConfig.encryption == SseOption.CUSTOMER) {
+      return new SSECustomerKey(s3TargetConfigBean.sseConfig.customerKey.get())
+          .withMd5(s3TargetConfigBean.sseConfig.customerKeyMd5.get());
+    }
+    return null;
+  }
+
   Upload doUpload(String bucket, String fileName, InputStream is, ObjectMetadata metadata) {
     final PutObjectRequest putObjectRequest = new PutObjectRequest(
         bucket,
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.s3;
+
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fixed size pool of part buffers used by {@link StreamingUploadOutputStream}.
+ *
+ * At most maxBuffers buffers are handed out at any time, acquiring another one blocks until a part upload
+ * finishes and releases its buffer. This bounds the memory used by a destination regardless of batch size.
+ */
+final class PartBufferPool {
+  private final int partSize;
+  private final Semaphore available;
+  private final ConcurrentLinkedQueue<byte[]> free;
+
+  PartBufferPool(int partSize, int maxBuffers) {
+    Utils.checkArgument(partSize > 0, "partSize must be greater than zero");
+    Utils.checkArgument(maxBuffers > 0, "maxBuffers must be greater than zero");
+    this.partSize = partSize;
+    this.available = new Semaphore(maxBuffers);
+    this.free = new ConcurrentLinkedQueue<>();
+  }
+
+  int getPartSize() {
+    return partSize;
+  }
+
+  byte[] acquire() throws InterruptedIOException {
+    try {
+      available.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting for a free upload part buffer");
+    }
+    byte[] buffer = free.poll();
+    return buffer != null ? buffer : new byte[partSize];
+  }
+
+  void release(byte[] buffer) {
+    free.offer(buffer);
+    available.release();
+  }
+}
@@ -119,6 +119,49 @@ public class S3TargetConfigBean {
   )
   public boolean compress;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "true",
+      label = "Streaming Upload",
+      description = "Uploads objects in parts while records are being written instead of buffering whole objects " +
+          "in memory. Not used for the whole file data format.",
+      displayPosition = 8040,
+      group = "ADVANCED"
+  )
+  public boolean streamingUpload = true;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "8388608",
+      label = "Streaming Part Size",
+      description = "Size in bytes of the parts uploaded while streaming. Objects smaller than one part are uploaded " +
+          "with a single request.",
+      displayPosition = 8050,
+      group = "ADVANCED",
+      min = 5 * 1024 * 1024,
+      max = Integer.MAX_VALUE,
+      dependsOn = "streamingUpload",
+      triggeredByValue = "true"
+  )
+  public int uploadPartSize = 8 * 1024 * 1024;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "4",
+      label = "Max Buffered Parts",
+      description = "Maximum number of parts held in memory, either being filled or uploading. Bounds the memory used " +
+          "by the destination to this number times the part size.",
+      displayPosition = 8060,
+      group = "ADVANCED",
+      min = 1,
+      dependsOn = "streamingUpload",
+      triggeredByValue = "true"
+  )
+  public int maxBufferedParts = 4;
+
   public List<Stage.ConfigIssue> init(Stage.Context context, List<Stage.ConfigIssue> issues, boolean isErrorStage) {
     boolean isWholeFileFormat;
     if (isErrorStage) {
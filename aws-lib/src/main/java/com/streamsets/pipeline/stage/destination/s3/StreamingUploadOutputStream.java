@@ -0,0 +1,290 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.s3;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.SSECustomerKey;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Output stream that uploads an S3 object in parts while it is being written.
+ *
+ * Data is collected in buffers from a {@link PartBufferPool}. Once a buffer is full it is uploaded as a part of a
+ * multipart upload on the given executor, so parts upload in parallel with record generation and with each other.
+ * Objects that never fill a single part are uploaded with a single put request.
+ *
+ * All S3 requests are issued asynchronously; failures are reported from {@link PendingUpload#waitForCompletion()},
+ * the same way as for uploads issued through the TransferManager. Instances are not thread safe.
+ */
+final class StreamingUploadOutputStream extends OutputStream {
+  private static final Logger LOG = LoggerFactory.getLogger(StreamingUploadOutputStream.class);
+
+  private final AmazonS3 s3Client;
+  private final ExecutorService executor;
+  private final PartBufferPool pool;
+  private final String bucket;
+  private final Supplier<String> keySupplier;
+  private final ObjectMetadata metadata;
+  private final SSECustomerKey sseCustomerKey;
+
+  private final List<CompletableFuture<PartETag>> parts = new ArrayList<>();
+  private String key;
+  private CompletableFuture<String> uploadId;
+  private byte[] buffer;
+  private int position;
+  private boolean finished;
+
+  /**
+   * @param keySupplier Supplies the object key, invoked at most once, when the key is first needed.
+   * @param metadata Object metadata (may be null).
+   * @param sseCustomerKey Customer provided encryption key that has to be sent with every part (may be null).
+   */
+  StreamingUploadOutputStream(
+      AmazonS3 s3Client,
+      ExecutorService executor,
+      PartBufferPool pool,
+      String bucket,
+      Supplier<String> keySupplier,
+      ObjectMetadata metadata,
+      SSECustomerKey sseCustomerKey
+  ) {
+    this.s3Client = s3Client;
+    this.executor = executor;
+    this.pool = pool;
+    this.bucket = bucket;
+    this.keySupplier = keySupplier;
+    this.metadata = metadata;
+    this.sseCustomerKey = sseCustomerKey;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    ensureBuffer();
+    buffer[position++] = (byte) b;
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      ensureBuffer();
+      int count = Math.min(len, buffer.length - position);
+      System.arraycopy(b, off, buffer, position, count);
+      position += count;
+      off += count;
+      len -= count;
+    }
+  }
+
+  /**
+   * No-op, the object is not uploaded until either {@link #finish()} or {@link #abort()} is called. This allows
+   * wrapping streams (gzip, data generators) to be closed normally.
+   */
+  @Override
+  public void close() {
+  }
+
+  /**
+   * Returns true if any part of the object was already handed over for upload.
+   */
+  boolean isMultipart() {
+    return uploadId != null;
+  }
+
+  /**
+   * Returns the object key, it is resolved on the first call if no part was uploaded yet.
+   */
+  String getKey() {
+    if (key == null) {
+      key = keySupplier.get();
+    }
+    return key;
+  }
+
+  /**
+   * Uploads the remaining data and completes the object once all parts are uploaded.
+   */
+  PendingUpload finish() {
+    Utils.checkState(!finished, "Upload already finished");
+    finished = true;
+    CompletableFuture<?> result;
+    if (!isMultipart()) {
+      result = putObject(buffer, position);
+    } else {
+      if (position > 0) {
+        dispatchPart();
+      }
+      CompletableFuture<?>[] all = parts.toArray(new CompletableFuture<?>[parts.size()]);
+      result = CompletableFuture.allOf(all).thenCombineAsync(uploadId, (ignored, id) -> {
+        List<PartETag> eTags = new ArrayList<>(parts.size());
+        for (CompletableFuture<PartETag> part : parts) {
+          eTags.add(part.join());
+        }
+        return s3Client.completeMultipartUpload(new CompleteMultipartUploadRequest(bucket, key, id, eTags));
+      }, executor);
+      abortOnFailure(result);
+    }
+    buffer = null;
+    position = 0;
+    return new PendingUpload(result);
+  }
+
+  /**
+   * Discards the object, parts that were already uploaded are removed from S3.
+   */
+  void abort() {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    if (buffer != null) {
+      pool.release(buffer);
+      buffer = null;
+    }
+    if (isMultipart()) {
+      CompletableFuture<?>[] all = parts.toArray(new CompletableFuture<?>[parts.size()]);
+      CompletableFuture.allOf(all).whenCompleteAsync((ignored, error) -> abortMultipartUpload(), executor);
+    }
+  }
+
+  private void ensureBuffer() throws IOException {
+    Utils.checkState(!finished, "Upload already finished");
+    if (buffer == null) {
+      buffer = pool.acquire();
+      position = 0;
+    } else if (position == buffer.length) {
+      dispatchPart();
+      buffer = pool.acquire();
+      position = 0;
+    }
+  }
+
+  private void dispatchPart() {
+    if (uploadId == null) {
+      String objectKey = getKey();
+      uploadId = CompletableFuture.supplyAsync(() -> {
+        InitiateMultipartUploadRequest request = new InitiateMultipartUploadRequest(bucket, objectKey, metadata);
+        LOG.debug("Started multipart upload of object {} into Amazon S3", objectKey);
+        return s3Client.initiateMultipartUpload(request).getUploadId();
+      }, executor);
+    }
+    final byte[] partBuffer = buffer;
+    final int partSize = position;
+    final int partNumber = parts.size() + 1;
+    CompletableFuture<PartETag> part = uploadId.thenApplyAsync(id -> {
+      UploadPartRequest request = new UploadPartRequest()
+          .withBucketName(bucket)
+          .withKey(key)
+          .withUploadId(id)
+          .withPartNumber(partNumber)
+          .withInputStream(new ByteArrayInputStream(partBuffer, 0, partSize))
+          .withPartSize(partSize)
+          .withSSECustomerKey(sseCustomerKey);
+      return s3Client.uploadPart(request).getPartETag();
+    }, executor);
+    // Buffer goes back to the pool whatever the outcome is, including failure to initiate the upload
+    part.whenComplete((eTag, error) -> pool.release(partBuffer));
+    parts.add(part);
+    buffer = null;
+    position = 0;
+  }
+
+  private CompletableFuture<?> putObject(byte[] data, int length) {
+    String objectKey = getKey();
+    final byte[] objectBuffer = data != null ? data : new byte[0];
+    CompletableFuture<?> result = CompletableFuture.supplyAsync(() -> {
+      ObjectMetadata objectMetadata = metadata != null ? metadata : new ObjectMetadata();
+      objectMetadata.setContentLength(length);
+      return s3Client.putObject(new PutObjectRequest(
+          bucket,
+          objectKey,
+          new ByteArrayInputStream(objectBuffer, 0, length),
+          objectMetadata
+      ));
+    }, executor);
+    if (data != null) {
+      result.whenComplete((ignored, error) -> pool.release(data));
+    }
+    return result;
+  }
+
+  private void abortOnFailure(CompletableFuture<?> result) {
+    result.whenCompleteAsync((ignored, error) -> {
+      if (error != null) {
+        abortMultipartUpload();
+      }
+    }, executor);
+  }
+
+  private void abortMultipartUpload() {
+    if (uploadId.isCompletedExceptionally()) {
+      // Nothing was created on S3
+      return;
+    }
+    String id = uploadId.join();
+    LOG.debug("Aborting multipart upload {} of object {}", id, key);
+    try {
+      s3Client.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, id));
+    } catch (AmazonClientException e) {
+      LOG.warn("Failed to abort multipart upload {} of object {}: {}", id, key, e.toString(), e);
+    }
+  }
+
+  /**
+   * Handle for an upload issued by {@link #finish()}.
+   */
+  static final class PendingUpload {
+    private final CompletableFuture<?> result;
+
+    private PendingUpload(CompletableFuture<?> result) {
+      this.result = result;
+    }
+
+    /**
+     * Waits until the object is fully uploaded, rethrowing the failure of any of the underlying requests.
+     */
+    void waitForCompletion() throws InterruptedException {
+      try {
+        result.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof AmazonClientException) {
+          throw (AmazonClientException) cause;
+        }
+        throw new AmazonClientException(cause.toString(), cause);
+      }
+    }
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.destination.s3;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.services.s3.transfer.Upload;
 import com.streamsets.pipeline.api.EventRecord;
 import com.streamsets.pipeline.api.Record;
@@ -28,6 +29,11 @@ public class UploadMetadata {
    */
   private final Upload upload;
 
+  /**
+   * Upload issued by {@link StreamingUploadOutputStream}, set instead of upload.
+   */
+  private final StreamingUploadOutputStream.PendingUpload streamingUpload;
+
   /**
    * Calculated bucket for this upload.
    */
@@ -52,15 +58,43 @@ public class UploadMetadata {
     List<EventRecord> events
   ) {
     this.upload = upload;
+    this.streamingUpload = null;
+    this.bucket = bucket;
+    this.records = records;
+    this.events = events;
+  }
+
+  UploadMetadata(
+    StreamingUploadOutputStream.PendingUpload streamingUpload,
+    String bucket,
+    List<Record> records,
+    List<EventRecord> events
+  ) {
+    this.upload = null;
+    this.streamingUpload = streamingUpload;
     this.bucket = bucket;
     this.records = records;
     this.events = events;
   }
 
+  /**
+   * Returns the TransferManager upload, null if the object was uploaded through a streaming upload.
+   */
   public Upload getUpload() {
     return upload;
   }
 
+  /**
+   * Waits for the object to be fully uploaded.
+   */
+  public void waitForCompletion() throws AmazonClientException, InterruptedException {
+    if (upload != null) {
+      upload.waitForCompletion();
+    } else {
+      streamingUpload.waitForCompletion();
+    }
+  }
+
   public String getBucket() {
     return bucket;
   }
@@ -94,6 +94,7 @@ public abstract class AbstractAmazonS3Source extends BasePushSource {
   public void produce(Map<String, String> lastSourceOffset, int maxBatchSize) throws StageException {
     int batchSize = Math.min(s3ConfigBean.basicConfig.maxBatchSize, maxBatchSize);
 
+    spooler.restoreListingIndex(lastSourceOffset.get(S3Constants.LISTING_INDEX_OFFSET_KEY));
     amazonS3Source.handleOffset(lastSourceOffset, getContext());
 
     executorService = new SafeScheduledExecutorService(numberOfThreads, S3Constants.AMAZON_S3_THREAD_PREFIX);
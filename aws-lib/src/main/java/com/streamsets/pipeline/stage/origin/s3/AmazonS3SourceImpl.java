@@ -82,8 +82,12 @@ public class AmazonS3SourceImpl extends AbstractAmazonS3Source implements Amazon
     List<S3Offset> unorderedListOfOffsets = new ArrayList<>();
     AntPathMatcher pathMatcher = new AntPathMatcher(s3ConfigBean.s3Config.delimiter);
     String prefixPattern = s3ConfigBean.s3Config.commonPrefix + s3ConfigBean.s3FileConfig.prefixPattern;
-    for (String offset : lastSourceOffset.values()) {
-      S3Offset s3Offset = S3Offset.fromString(offset);
+    for (Map.Entry<String, String> entry : lastSourceOffset.entrySet()) {
+      if (S3Constants.LISTING_INDEX_OFFSET_KEY.equals(entry.getKey())) {
+        // Not an object offset, restored by the spooler
+        continue;
+      }
+      S3Offset s3Offset = S3Offset.fromString(entry.getValue());
       if (pathMatcher.match(prefixPattern, s3Offset.getKey())) {
         unorderedListOfOffsets.add(s3Offset);
       }
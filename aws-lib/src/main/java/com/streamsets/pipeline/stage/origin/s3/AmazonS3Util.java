@@ -42,6 +42,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 @InterfaceAudience.Private
 @InterfaceStability.Unstable
@@ -186,7 +190,198 @@ public class AmazonS3Util {
     return new ArrayList<>(treeSet);
   }
 
-  private static boolean isEligible(S3ObjectSummary s, S3Offset s3Offset) {
+  /**
+   * Lists objects from AmazonS3 in chronological order, same as {@link #listObjectsChronologically}, but using the
+   * given index to avoid listing the whole common prefix every time.
+   *
+   * The listed prefix is split into partitions (the first level of prefixes below it) which are listed in parallel,
+   * each one continuing after the last key listed from it. Partitions that didn't get any new object within the full
+   * rescan interval are skipped, and everything is listed from scratch once per full rescan interval to pick up
+   * objects that were added with keys sorting before already listed ones.
+   *
+   * @param s3Client
+   * @param s3ConfigBean
+   * @param pathMatcher glob patterns to match file name against
+   * @param s3Offset current offset which provides the timestamp of the previous object
+   * @param fetchSize number of objects to fetch in one go
+   * @param index index of previously listed objects, updated by this method
+   * @param executor executor used to list partitions in parallel
+   * @return
+   * @throws AmazonClientException
+   */
+  static List<S3ObjectSummary> listObjectsIncrementally(
+      AmazonS3 s3Client,
+      S3ConfigBean s3ConfigBean,
+      AntPathMatcher pathMatcher,
+      S3Offset s3Offset,
+      int fetchSize,
+      S3ListingIndex index,
+      ExecutorService executor
+  ) {
+    long now = System.currentTimeMillis();
+    long rescanInterval = TimeUnit.SECONDS.toMillis(s3ConfigBean.s3FileConfig.fullRescanIntervalSecs);
+    String bucket = s3ConfigBean.s3Config.bucket;
+    String delimiter = s3ConfigBean.s3Config.delimiter;
+    String listingPrefix = s3ConfigBean.s3Config.commonPrefix +
+        getStaticPrefix(s3ConfigBean.s3FileConfig.prefixPattern, delimiter);
+
+    boolean fullScan = index.needsFullScan(now, rescanInterval);
+    if (fullScan) {
+      index.startFullScan(now);
+    }
+
+    // Objects directly under the listing prefix, common prefixes are the partitions that are listed separately
+    ListObjectsRequest request = new ListObjectsRequest()
+        .withBucketName(bucket)
+        .withPrefix(listingPrefix)
+        .withDelimiter(delimiter)
+        .withMarker(index.getTopMarker())
+        .withMaxKeys(BATCH_SIZE);
+    ObjectListing objectListing;
+    do {
+      objectListing = s3Client.listObjects(request);
+      for (S3ObjectSummary s : objectListing.getObjectSummaries()) {
+        if (isMatchingAndEligible(s, s3ConfigBean, pathMatcher, s3Offset)) {
+          index.offer(s);
+        }
+      }
+      for (String partition : objectListing.getCommonPrefixes()) {
+        index.addPartition(partition, now);
+      }
+      index.setTopMarker(getLastListed(objectListing));
+      request.setMarker(objectListing.getNextMarker());
+    } while (objectListing.isTruncated());
+
+    List<S3ListingIndex.Partition> partitions = index.getPartitionsToList(now, rescanInterval);
+    List<Future<PartitionListing>> futures = new ArrayList<>(partitions.size());
+    for (S3ListingIndex.Partition partition : partitions) {
+      futures.add(executor.submit(() -> listPartition(
+          s3Client,
+          s3ConfigBean,
+          partition,
+          s3Offset,
+          s3ConfigBean.s3FileConfig.maxIndexedObjects
+      )));
+    }
+    try {
+      for (int i = 0; i < partitions.size(); i++) {
+        PartitionListing listing = futures.get(i).get();
+        for (S3ObjectSummary s : listing.candidates) {
+          index.offer(s);
+        }
+        if (listing.truncated) {
+          index.markTruncated();
+        }
+        // During full scan everything is listed again, so nothing can be told about new objects
+        index.updatePartition(partitions.get(i), listing.lastKey, !fullScan && listing.lastKey != null, now);
+      }
+    } catch (InterruptedException e) {
+      futures.forEach(future -> future.cancel(true));
+      Thread.currentThread().interrupt();
+      throw new AmazonClientException("Interrupted while listing objects", e);
+    } catch (ExecutionException e) {
+      futures.forEach(future -> future.cancel(true));
+      if (e.getCause() instanceof AmazonClientException) {
+        throw (AmazonClientException) e.getCause();
+      }
+      throw new AmazonClientException(e.getCause().toString(), e.getCause());
+    }
+    index.finishScan();
+
+    index.prune(s3Offset);
+    return index.oldest(fetchSize);
+  }
+
+  private static class PartitionListing {
+    private final TreeSet<S3ObjectSummary> candidates = new TreeSet<>(S3ListingIndex.CHRONOLOGICAL);
+    private String lastKey;
+    private boolean truncated;
+  }
+
+  private static PartitionListing listPartition(
+      AmazonS3 s3Client,
+      S3ConfigBean s3ConfigBean,
+      S3ListingIndex.Partition partition,
+      S3Offset s3Offset,
+      int maxCandidates
+  ) {
+    // AntPathMatcher caches patterns internally, use own instance per listing thread
+    AntPathMatcher pathMatcher = new AntPathMatcher(s3ConfigBean.s3Config.delimiter);
+    PartitionListing result = new PartitionListing();
+    ListObjectsRequest request = new ListObjectsRequest()
+        .withBucketName(s3ConfigBean.s3Config.bucket)
+        .withPrefix(partition.getPrefix())
+        .withMarker(partition.getMarker())
+        .withMaxKeys(BATCH_SIZE);
+    ObjectListing objectListing = s3Client.listObjects(request);
+    while (true) {
+      for (S3ObjectSummary s : objectListing.getObjectSummaries()) {
+        result.lastKey = s.getKey();
+        if (isMatchingAndEligible(s, s3ConfigBean, pathMatcher, s3Offset)) {
+          result.candidates.add(s);
+          if (result.candidates.size() > maxCandidates) {
+            result.candidates.pollLast();
+            result.truncated = true;
+          }
+        }
+      }
+      if (!objectListing.isTruncated()) {
+        break;
+      }
+      objectListing = s3Client.listNextBatchOfObjects(objectListing);
+    }
+    return result;
+  }
+
+  private static boolean isMatchingAndEligible(
+      S3ObjectSummary s,
+      S3ConfigBean s3ConfigBean,
+      AntPathMatcher pathMatcher,
+      S3Offset s3Offset
+  ) {
+    String remainingPrefix = s.getKey().substring(s3ConfigBean.s3Config.commonPrefix.length());
+    // Empty remaining prefix is the "folder" object itself, see listObjectsChronologically
+    return !remainingPrefix.isEmpty() &&
+        pathMatcher.match(s3ConfigBean.s3FileConfig.prefixPattern, remainingPrefix) &&
+        isEligible(s, s3Offset);
+  }
+
+  /**
+   * Returns the last key or common prefix in the listing (whichever sorts later), null for an empty listing.
+   */
+  private static String getLastListed(ObjectListing objectListing) {
+    String last = null;
+    List<S3ObjectSummary> summaries = objectListing.getObjectSummaries();
+    if (!summaries.isEmpty()) {
+      last = summaries.get(summaries.size() - 1).getKey();
+    }
+    List<String> prefixes = objectListing.getCommonPrefixes();
+    if (!prefixes.isEmpty()) {
+      String lastPrefix = prefixes.get(prefixes.size() - 1);
+      if (last == null || lastPrefix.compareTo(last) > 0) {
+        last = lastPrefix;
+      }
+    }
+    return last;
+  }
+
+  /**
+   * Returns the part of the prefix pattern before the first wildcard, up to and including the last delimiter.
+   */
+  @VisibleForTesting
+  static String getStaticPrefix(String prefixPattern, String delimiter) {
+    int wildcard = prefixPattern.length();
+    for (char c : new char[] {'*', '?', '{'}) {
+      int index = prefixPattern.indexOf(c);
+      if (index >= 0 && index < wildcard) {
+        wildcard = index;
+      }
+    }
+    int lastDelimiter = prefixPattern.lastIndexOf(delimiter, wildcard - 1);
+    return lastDelimiter < 0 ? "" : prefixPattern.substring(0, lastDelimiter + delimiter.length());
+  }
+
+  static boolean isEligible(S3ObjectSummary s, S3Offset s3Offset) {
 
     //The object is eligible if
     //1. The timestamp is greater than that of the current object in offset
@@ -26,6 +26,8 @@ public class S3Constants {
   static final String EMPTY = "";
   static final String AMAZON_S3_THREAD_PREFIX = "Amazon S3 Runner - ";
   static final String AMAZON_S3_METRICS = "Amazon S3 Metrics for Thread - ";
+  static final String AMAZON_S3_LISTING_THREAD_PREFIX = "Amazon S3 Listing - ";
+  static final String LISTING_INDEX_OFFSET_KEY = "s3ListingIndex";
 
   static final long DEFAULT_FETCH_SIZE = 1024 * 1024L;
   static final String BUCKET = "bucket";
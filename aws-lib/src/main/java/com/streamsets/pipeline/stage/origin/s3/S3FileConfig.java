@@ -53,6 +53,69 @@ public class S3FileConfig {
   @ValueChooserModel(ObjectOrderingChooseValues.class)
   public ObjectOrdering objectOrdering = ObjectOrdering.LEXICOGRAPHICAL;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Incremental Listing",
+      description = "Keeps an index of listed objects so that each listing only continues after the last listed key " +
+          "of every partition instead of listing the whole common prefix. Objects whose key sorts before the last " +
+          "listed key of their partition are found by the next full rescan.",
+      displayPosition = 111,
+      group = "#0",
+      dependsOn = "objectOrdering",
+      triggeredByValue = "TIMESTAMP"
+  )
+  public boolean incrementalListing = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "4",
+      label = "Listing Threads",
+      description = "Number of threads listing partitions (first level of key prefixes under the common prefix) " +
+          "in parallel",
+      displayPosition = 112,
+      group = "#0",
+      min = 1,
+      max = 64,
+      dependsOn = "incrementalListing",
+      triggeredByValue = "true"
+  )
+  public int listingThreads = 4;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "3600",
+      label = "Full Rescan Interval (secs)",
+      description = "How often the whole common prefix is listed again. Partitions without new objects for longer " +
+          "than this interval are only listed during full rescans.",
+      displayPosition = 113,
+      group = "#0",
+      min = 1,
+      max = Integer.MAX_VALUE,
+      dependsOn = "incrementalListing",
+      triggeredByValue = "true"
+  )
+  public int fullRescanIntervalSecs = 3600;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "10000",
+      label = "Max Indexed Objects",
+      description = "Maximum number of listed but not yet processed objects kept in the index. The index is " +
+          "persisted with the pipeline offset.",
+      displayPosition = 114,
+      group = "#0",
+      min = 1,
+      max = Integer.MAX_VALUE,
+      dependsOn = "incrementalListing",
+      triggeredByValue = "true"
+  )
+  public int maxIndexedObjects = 10000;
+
   @ConfigDef(
     required = true,
     type = ConfigDef.Type.NUMBER,
@@ -0,0 +1,315 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.s3;
+
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Index used by incremental listing (see {@link AmazonS3Util#listObjectsIncrementally}).
+ *
+ * For each partition (first level prefix under the listed prefix) it remembers the last listed key, so that the next
+ * listing can continue right after it, and when the partition last produced a new object, so that dormant partitions
+ * can be skipped. Objects that were already listed but not yet handed over for processing are kept in a bounded set
+ * ordered the same way as {@link AmazonS3Util#listObjectsChronologically} orders them.
+ *
+ * The index is serialized to JSON so that it can be stored along with the source offsets. To keep the offset small,
+ * pending objects are not serialized: the markers are rewound to just before the pending objects instead, so that
+ * they are listed again after a restart. Not thread safe.
+ */
+class S3ListingIndex {
+
+  static final Comparator<S3ObjectSummary> CHRONOLOGICAL = (o1, o2) -> {
+    int result = o1.getLastModified().compareTo(o2.getLastModified());
+    if (result != 0) {
+      return result;
+    }
+    return o1.getKey().compareTo(o2.getKey());
+  };
+
+  private static final String TOP_MARKER = "topMarker";
+  private static final String LAST_FULL_SCAN = "lastFullScan";
+  private static final String TRUNCATED = "truncated";
+  private static final String PARTITIONS = "partitions";
+  private static final String PREFIX = "prefix";
+  private static final String MARKER = "marker";
+  private static final String LAST_NEW_OBJECT = "lastNewObject";
+  private static final String RESUMED = "resumed";
+
+  static class Partition {
+    private final String prefix;
+    private String marker;
+    private long lastNewObject;
+    // marker was rewound to objects that were pending when the index was saved, list even if dormant
+    private boolean resumed;
+
+    Partition(String prefix, String marker, long lastNewObject) {
+      this.prefix = prefix;
+      this.marker = marker;
+      this.lastNewObject = lastNewObject;
+    }
+
+    String getPrefix() {
+      return prefix;
+    }
+
+    String getMarker() {
+      return marker;
+    }
+
+    long getLastNewObject() {
+      return lastNewObject;
+    }
+  }
+
+  private final int maxPending;
+  private final TreeMap<String, Partition> partitions;
+  private final Map<String, S3ObjectSummary> pendingByKey;
+  private final TreeSet<S3ObjectSummary> pending;
+  private String topMarker;
+  private long lastFullScan;
+  private boolean truncated;
+  private boolean fullScanInProgress;
+  private boolean dirty;
+
+  S3ListingIndex(int maxPending) {
+    Utils.checkArgument(maxPending > 0, "maxPending must be greater than zero");
+    this.maxPending = maxPending;
+    this.partitions = new TreeMap<>();
+    this.pendingByKey = new HashMap<>();
+    this.pending = new TreeSet<>(CHRONOLOGICAL);
+  }
+
+  /**
+   * Returns true if the next listing has to start from scratch: nothing was listed yet, the rescan interval elapsed
+   * or objects were dropped from the bounded pending set and everything that was kept has been processed.
+   */
+  boolean needsFullScan(long now, long rescanIntervalMillis) {
+    return lastFullScan == 0 || now - lastFullScan >= rescanIntervalMillis || (truncated && pending.isEmpty());
+  }
+
+  void startFullScan(long now) {
+    lastFullScan = now;
+    truncated = false;
+    topMarker = null;
+    for (Partition partition : partitions.values()) {
+      partition.marker = null;
+    }
+    fullScanInProgress = true;
+    dirty = true;
+  }
+
+  void finishScan() {
+    fullScanInProgress = false;
+  }
+
+  /**
+   * Returns partitions that could contain new objects: all of them during a full scan, otherwise those that produced
+   * a new object within the rescan interval.
+   */
+  List<Partition> getPartitionsToList(long now, long rescanIntervalMillis) {
+    List<Partition> result = new ArrayList<>();
+    for (Partition partition : partitions.values()) {
+      if (fullScanInProgress || partition.marker == null || partition.resumed ||
+          now - partition.lastNewObject < rescanIntervalMillis) {
+        result.add(partition);
+      }
+    }
+    return result;
+  }
+
+  String getTopMarker() {
+    return topMarker;
+  }
+
+  void setTopMarker(String topMarker) {
+    if (topMarker != null && !topMarker.equals(this.topMarker)) {
+      this.topMarker = topMarker;
+      dirty = true;
+    }
+  }
+
+  void addPartition(String prefix, long now) {
+    if (!partitions.containsKey(prefix)) {
+      partitions.put(prefix, new Partition(prefix, null, now));
+      dirty = true;
+    }
+  }
+
+  /**
+   * Records that partition was listed up to given key (null if nothing was listed).
+   */
+  void updatePartition(Partition partition, String lastListedKey, boolean foundNewObjects, long now) {
+    partition.resumed = false;
+    if (lastListedKey != null && !lastListedKey.equals(partition.marker)) {
+      partition.marker = lastListedKey;
+      dirty = true;
+    }
+    if (foundNewObjects) {
+      partition.lastNewObject = now;
+      dirty = true;
+    }
+  }
+
+  /**
+   * Adds listed object that is eligible for processing. If the pending set is full the newest object is dropped.
+   */
+  void offer(S3ObjectSummary summary) {
+    S3ObjectSummary previous = pendingByKey.put(summary.getKey(), summary);
+    if (previous != null) {
+      // Object was overwritten since it was listed
+      pending.remove(previous);
+    }
+    pending.add(summary);
+    dirty = true;
+    if (pending.size() > maxPending) {
+      S3ObjectSummary dropped = pending.pollLast();
+      pendingByKey.remove(dropped.getKey());
+      truncated = true;
+    }
+  }
+
+  /**
+   * Records that some eligible objects were dropped before they could be offered.
+   */
+  void markTruncated() {
+    truncated = true;
+    dirty = true;
+  }
+
+  /**
+   * Removes pending objects that are no longer eligible given the current offset.
+   */
+  void prune(S3Offset s3Offset) {
+    Iterator<S3ObjectSummary> iterator = pending.iterator();
+    while (iterator.hasNext()) {
+      S3ObjectSummary summary = iterator.next();
+      if (!AmazonS3Util.isEligible(summary, s3Offset)) {
+        iterator.remove();
+        pendingByKey.remove(summary.getKey());
+        dirty = true;
+      }
+    }
+  }
+
+  /**
+   * Returns up to count oldest pending objects, they stay in the index until pruned.
+   */
+  List<S3ObjectSummary> oldest(int count) {
+    List<S3ObjectSummary> result = new ArrayList<>(Math.min(count, pending.size()));
+    for (S3ObjectSummary summary : pending) {
+      if (result.size() == count) {
+        break;
+      }
+      result.add(summary);
+    }
+    return result;
+  }
+
+  Collection<Partition> getPartitions() {
+    return partitions.values();
+  }
+
+  int getPendingCount() {
+    return pending.size();
+  }
+
+  /**
+   * Returns true if the index changed since the last call.
+   */
+  boolean clearDirty() {
+    boolean wasDirty = dirty;
+    dirty = false;
+    return wasDirty;
+  }
+
+  String toJson() {
+    // Rewind markers so that the pending objects are listed again
+    String top = topMarker;
+    Map<String, String> markers = new HashMap<>();
+    for (S3ObjectSummary summary : pending) {
+      String key = summary.getKey();
+      Map.Entry<String, Partition> partition = partitions.floorEntry(key);
+      if (partition != null && key.startsWith(partition.getKey())) {
+        String marker = markers.getOrDefault(partition.getKey(), partition.getValue().marker);
+        markers.put(partition.getKey(), rewind(marker, key));
+      } else {
+        top = rewind(top, key);
+      }
+    }
+
+    JSONObject json = new JSONObject();
+    json.put(TOP_MARKER, top == null ? JSONObject.NULL : top);
+    json.put(LAST_FULL_SCAN, lastFullScan);
+    json.put(TRUNCATED, truncated);
+
+    JSONArray partitionArray = new JSONArray();
+    for (Partition partition : partitions.values()) {
+      String marker = markers.getOrDefault(partition.prefix, partition.marker);
+      JSONObject p = new JSONObject();
+      p.put(PREFIX, partition.prefix);
+      p.put(MARKER, marker == null ? JSONObject.NULL : marker);
+      p.put(LAST_NEW_OBJECT, partition.lastNewObject);
+      p.put(RESUMED, partition.resumed || markers.containsKey(partition.prefix));
+      partitionArray.put(p);
+    }
+    json.put(PARTITIONS, partitionArray);
+    return json.toString();
+  }
+
+  /**
+   * Returns marker from which a listing includes given key again. Key without its last character sorts right before
+   * it, the few objects that might be listed in addition are filtered by the offset as any other processed object.
+   */
+  private static String rewind(String marker, String key) {
+    String before = key.substring(0, key.length() - 1);
+    return marker == null || marker.compareTo(before) <= 0 ? marker : before;
+  }
+
+  static S3ListingIndex fromJson(String jsonString, int maxPending) {
+    S3ListingIndex index = new S3ListingIndex(maxPending);
+    JSONObject json = new JSONObject(jsonString);
+    index.topMarker = json.isNull(TOP_MARKER) ? null : json.getString(TOP_MARKER);
+    index.lastFullScan = json.getLong(LAST_FULL_SCAN);
+    index.truncated = json.getBoolean(TRUNCATED);
+
+    JSONArray partitionArray = json.getJSONArray(PARTITIONS);
+    for (int i = 0; i < partitionArray.length(); i++) {
+      JSONObject p = partitionArray.getJSONObject(i);
+      String prefix = p.getString(PREFIX);
+      Partition partition = new Partition(
+          prefix,
+          p.isNull(MARKER) ? null : p.getString(MARKER),
+          p.getLong(LAST_NEW_OBJECT)
+      );
+      partition.resumed = p.optBoolean(RESUMED);
+      index.partitions.put(prefix, partition);
+    }
+    return index;
+  }
+}
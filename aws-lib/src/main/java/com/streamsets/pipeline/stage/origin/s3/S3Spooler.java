@@ -27,6 +27,7 @@ import com.streamsets.pipeline.api.BatchContext;
 import com.streamsets.pipeline.api.PushSource;
 import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.config.PostProcessingOptions;
+import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
 import com.streamsets.pipeline.lib.util.AntPathMatcher;
 import com.streamsets.pipeline.stage.lib.aws.AWSUtil;
 import org.slf4j.Logger;
@@ -35,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -61,6 +63,8 @@ public class S3Spooler {
   private volatile S3ObjectSummary currentObject;
   private ArrayBlockingQueue<S3ObjectSummary> objectQueue;
   private Meter spoolQueueMeter;
+  private S3ListingIndex listingIndex;
+  private ExecutorService listingExecutor;
 
   public void init() {
     try {
@@ -68,6 +72,13 @@ public class S3Spooler {
       objectQueue = new ArrayBlockingQueue<>(s3ConfigBean.s3FileConfig.poolSize);
       spoolQueueMeter = context.createMeter("spoolQueue");
       pathMatcher = new AntPathMatcher(s3ConfigBean.s3Config.delimiter);
+      if (isIncrementalListing()) {
+        listingIndex = new S3ListingIndex(s3ConfigBean.s3FileConfig.maxIndexedObjects);
+        listingExecutor = new SafeScheduledExecutorService(
+            s3ConfigBean.s3FileConfig.listingThreads,
+            S3Constants.AMAZON_S3_LISTING_THREAD_PREFIX
+        );
+      }
     } catch (Exception ex) {
       throw new RuntimeException(ex);
     }
@@ -78,6 +89,33 @@ public class S3Spooler {
       objectQueue.clear();
       objectQueue = null;
     }
+    if (listingExecutor != null) {
+      listingExecutor.shutdownNow();
+      listingExecutor = null;
+    }
+  }
+
+  private boolean isIncrementalListing() {
+    return s3ConfigBean.s3FileConfig.incrementalListing &&
+        s3ConfigBean.s3FileConfig.objectOrdering == ObjectOrdering.TIMESTAMP &&
+        AWSUtil.containsWildcard(s3ConfigBean.s3FileConfig.prefixPattern);
+  }
+
+  /**
+   * Restores listing index saved along with the source offsets, if incremental listing is used.
+   */
+  void restoreListingIndex(String savedIndex) {
+    if (listingIndex == null || savedIndex == null) {
+      return;
+    }
+    try {
+      listingIndex = S3ListingIndex.fromJson(savedIndex, s3ConfigBean.s3FileConfig.maxIndexedObjects);
+      LOG.debug("Restored listing index with {} partitions", listingIndex.getPartitions().size());
+    } catch (RuntimeException ex) {
+      // The index is only an optimization, starting over with a full listing is always safe
+      LOG.warn("Can't restore listing index, the next listing will be a full listing: {}", ex.toString(), ex);
+      listingIndex = new S3ListingIndex(s3ConfigBean.s3FileConfig.maxIndexedObjects);
+    }
   }
 
   private void findAndQueueObjects(
@@ -98,12 +136,26 @@ public class S3Spooler {
       ObjectOrdering objectOrdering = s3ConfigBean.s3FileConfig.objectOrdering;
       switch (objectOrdering) {
         case TIMESTAMP:
-          s3ObjectSummaries = AmazonS3Util.listObjectsChronologically(s3Client,
-              s3ConfigBean,
-              pathMatcher,
-              s3offset,
-              objectQueue.remainingCapacity()
-          );
+          if (listingIndex != null) {
+            s3ObjectSummaries = AmazonS3Util.listObjectsIncrementally(s3Client,
+                s3ConfigBean,
+                pathMatcher,
+                s3offset,
+                objectQueue.remainingCapacity(),
+                listingIndex,
+                listingExecutor
+            );
+            if (listingIndex.clearDirty()) {
+              context.commitOffset(S3Constants.LISTING_INDEX_OFFSET_KEY, listingIndex.toJson());
+            }
+          } else {
+            s3ObjectSummaries = AmazonS3Util.listObjectsChronologically(s3Client,
+                s3ConfigBean,
+                pathMatcher,
+                s3offset,
+                objectQueue.remainingCapacity()
+            );
+          }
           break;
         case LEXICOGRAPHICAL:
           s3ObjectSummaries = AmazonS3Util.listObjectsLexicographically(s3Client,
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.s3;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.IOUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestStreamingUploadOutputStream {
+
+  private ExecutorService executor;
+  private AmazonS3 s3;
+  private Map<Integer, String> uploadedParts;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(3);
+    s3 = Mockito.mock(AmazonS3.class);
+    uploadedParts = new ConcurrentHashMap<>();
+
+    InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+    initiateResult.setUploadId("upload-1");
+    Mockito.when(s3.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+        .thenReturn(initiateResult);
+    Mockito.when(s3.uploadPart(Mockito.any(UploadPartRequest.class))).thenAnswer(invocation -> {
+      UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+      // Buffer goes back to the pool once the request returns, so it has to be read right away
+      uploadedParts.put(
+          request.getPartNumber(),
+          IOUtils.toString(request.getInputStream())
+      );
+      UploadPartResult result = new UploadPartResult();
+      result.setPartNumber(request.getPartNumber());
+      result.setETag("etag-" + request.getPartNumber());
+      return result;
+    });
+    Mockito.when(s3.completeMultipartUpload(Mockito.any(CompleteMultipartUploadRequest.class)))
+        .thenReturn(new CompleteMultipartUploadResult());
+    Mockito.when(s3.putObject(Mockito.any(PutObjectRequest.class))).thenReturn(new PutObjectResult());
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private StreamingUploadOutputStream createStream(PartBufferPool pool, AtomicInteger keyRequests) {
+    return new StreamingUploadOutputStream(s3, executor, pool, "bucket", () -> {
+      keyRequests.incrementAndGet();
+      return "key";
+    }, null, null);
+  }
+
+  @Test
+  public void testSmallObjectUsesSinglePut() throws Exception {
+    AtomicInteger keyRequests = new AtomicInteger();
+    StreamingUploadOutputStream out = createStream(new PartBufferPool(10, 2), keyRequests);
+    out.write("hello".getBytes(StandardCharsets.UTF_8));
+    out.close();
+    Assert.assertFalse(out.isMultipart());
+    Assert.assertEquals("key", out.getKey());
+    out.finish().waitForCompletion();
+
+    ArgumentCaptor<PutObjectRequest> captor = ArgumentCaptor.forClass(PutObjectRequest.class);
+    Mockito.verify(s3).putObject(captor.capture());
+    Assert.assertEquals(5, captor.getValue().getMetadata().getContentLength());
+    Mockito.verify(s3, Mockito.never()).initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class));
+    Assert.assertEquals(1, keyRequests.get());
+  }
+
+  @Test
+  public void testMultipartUpload() throws Exception {
+    AtomicInteger keyRequests = new AtomicInteger();
+    // Only two buffers for 4 parts, writer has to wait for uploads to return buffers
+    StreamingUploadOutputStream out = createStream(new PartBufferPool(10, 2), keyRequests);
+    String data = "0123456789abcdefghijABCDEFGHIJxyz";
+    for (byte b : data.getBytes(StandardCharsets.UTF_8)) {
+      out.write(b);
+    }
+    Assert.assertTrue(out.isMultipart());
+    out.finish().waitForCompletion();
+
+    Assert.assertEquals(4, uploadedParts.size());
+    StringBuilder uploaded = new StringBuilder();
+    for (int i = 1; i <= 4; i++) {
+      uploaded.append(uploadedParts.get(i));
+    }
+    Assert.assertEquals(data, uploaded.toString());
+
+    ArgumentCaptor<CompleteMultipartUploadRequest> captor = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+    Mockito.verify(s3).completeMultipartUpload(captor.capture());
+    Assert.assertEquals("upload-1", captor.getValue().getUploadId());
+    Assert.assertEquals(4, captor.getValue().getPartETags().size());
+    Assert.assertEquals("etag-4", captor.getValue().getPartETags().get(3).getETag());
+    Mockito.verify(s3, Mockito.never()).putObject(Mockito.any(PutObjectRequest.class));
+    Assert.assertEquals(1, keyRequests.get());
+  }
+
+  @Test
+  public void testFailedPartAbortsUpload() throws Exception {
+    Mockito.doThrow(new AmazonClientException("boom")).when(s3).uploadPart(Mockito.any(UploadPartRequest.class));
+    PartBufferPool pool = new PartBufferPool(4, 1);
+    StreamingUploadOutputStream out = createStream(pool, new AtomicInteger());
+    out.write("0123456789".getBytes(StandardCharsets.UTF_8));
+    try {
+      out.finish().waitForCompletion();
+      Assert.fail("Expected AmazonClientException");
+    } catch (AmazonClientException e) {
+      Assert.assertEquals("boom", e.getMessage());
+    }
+    Mockito.verify(s3, Mockito.timeout(5000)).abortMultipartUpload(Mockito.any(AbortMultipartUploadRequest.class));
+    Mockito.verify(s3, Mockito.never()).completeMultipartUpload(Mockito.any(CompleteMultipartUploadRequest.class));
+
+    // All buffers were returned to the pool
+    pool.release(pool.acquire());
+  }
+}
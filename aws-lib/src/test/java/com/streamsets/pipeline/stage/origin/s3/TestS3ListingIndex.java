@@ -0,0 +1,254 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.s3;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.streamsets.pipeline.lib.util.AntPathMatcher;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class TestS3ListingIndex {
+
+  private static final S3Offset START = new S3Offset(S3Constants.EMPTY, S3Constants.ZERO, S3Constants.EMPTY, S3Constants.ZERO);
+
+  private ExecutorService executor;
+  private Map<String, Long> objects;
+  private List<ListObjectsRequest> requests;
+  private AmazonS3 s3Client;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+    objects = new ConcurrentSkipListMap<>();
+    requests = new CopyOnWriteArrayList<>();
+    s3Client = Mockito.mock(AmazonS3.class);
+    // Minimal in-memory implementation of (non paginated) listing
+    Mockito.when(s3Client.listObjects(Mockito.any(ListObjectsRequest.class))).thenAnswer(invocation -> {
+      ListObjectsRequest request = (ListObjectsRequest) invocation.getArguments()[0];
+      requests.add(request);
+      ObjectListing listing = new ObjectListing();
+      for (Map.Entry<String, Long> entry : objects.entrySet()) {
+        String key = entry.getKey();
+        if (!key.startsWith(request.getPrefix()) ||
+            (request.getMarker() != null && key.compareTo(request.getMarker()) <= 0)) {
+          continue;
+        }
+        if (request.getDelimiter() != null) {
+          int index = key.indexOf(request.getDelimiter(), request.getPrefix().length());
+          if (index >= 0) {
+            String commonPrefix = key.substring(0, index + 1);
+            if (!listing.getCommonPrefixes().contains(commonPrefix) &&
+                (request.getMarker() == null || commonPrefix.compareTo(request.getMarker()) > 0)) {
+              listing.getCommonPrefixes().add(commonPrefix);
+            }
+            continue;
+          }
+        }
+        listing.getObjectSummaries().add(summary(key, entry.getValue()));
+      }
+      return listing;
+    });
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static S3ObjectSummary summary(String key, long lastModified) {
+    S3ObjectSummary summary = new S3ObjectSummary();
+    summary.setBucketName("bucket");
+    summary.setKey(key);
+    summary.setLastModified(new Date(lastModified));
+    summary.setETag("etag");
+    return summary;
+  }
+
+  private static S3ConfigBean createConfig() {
+    S3ConfigBean config = new S3ConfigBean();
+    config.s3FileConfig = new S3FileConfig();
+    config.s3FileConfig.objectOrdering = ObjectOrdering.TIMESTAMP;
+    config.s3FileConfig.incrementalListing = true;
+    config.s3FileConfig.prefixPattern = "logs/**/*.txt";
+    config.s3Config = new S3ConnectionSourceConfig();
+    config.s3Config.bucket = "bucket";
+    config.s3Config.commonPrefix = "";
+    config.s3Config.delimiter = "/";
+    return config;
+  }
+
+  private List<String> list(S3ConfigBean config, S3ListingIndex index, S3Offset offset, int fetchSize) {
+    List<String> keys = new ArrayList<>();
+    for (S3ObjectSummary s : AmazonS3Util.listObjectsIncrementally(
+        s3Client,
+        config,
+        new AntPathMatcher("/"),
+        offset,
+        fetchSize,
+        index,
+        executor
+    )) {
+      keys.add(s.getKey());
+    }
+    return keys;
+  }
+
+  private static S3Offset processed(String key, long timestamp) {
+    return new S3Offset(key, S3Constants.MINUS_ONE, "etag", String.valueOf(timestamp));
+  }
+
+  @Test
+  public void testStaticPrefix() {
+    Assert.assertEquals("logs/", AmazonS3Util.getStaticPrefix("logs/**/*.txt", "/"));
+    Assert.assertEquals("a/b/", AmazonS3Util.getStaticPrefix("a/b/c*", "/"));
+    Assert.assertEquals("", AmazonS3Util.getStaticPrefix("*.txt", "/"));
+    Assert.assertEquals("", AmazonS3Util.getStaticPrefix("a?/b", "/"));
+  }
+
+  @Test
+  public void testIncrementalListing() {
+    objects.put("logs/a/1.txt", 10L);
+    objects.put("logs/a/2.txt", 30L);
+    objects.put("logs/b/1.txt", 20L);
+    objects.put("logs/b/skip.csv", 5L);
+    objects.put("other/1.txt", 1L);
+
+    S3ConfigBean config = createConfig();
+    S3ListingIndex index = new S3ListingIndex(100);
+
+    // Full listing, everything under the static prefix of the pattern only
+    List<String> keys = list(config, index, START, 2);
+    Assert.assertEquals(Arrays.asList("logs/a/1.txt", "logs/b/1.txt"), keys);
+    for (ListObjectsRequest request : requests) {
+      Assert.assertTrue(request.getPrefix().startsWith("logs/"));
+    }
+
+    keys = list(config, index, processed("logs/b/1.txt", 20L), 2);
+    Assert.assertEquals(Arrays.asList("logs/a/2.txt"), keys);
+
+    // New object in existing partition, listing continues after the last listed key of each partition
+    objects.put("logs/b/x.txt", 40L);
+    requests.clear();
+    keys = list(config, index, processed("logs/a/2.txt", 30L), 10);
+    Assert.assertEquals(Arrays.asList("logs/b/x.txt"), keys);
+    for (ListObjectsRequest request : requests) {
+      if (request.getPrefix().equals("logs/a/")) {
+        Assert.assertEquals("logs/a/2.txt", request.getMarker());
+      } else if (request.getPrefix().equals("logs/b/")) {
+        Assert.assertEquals("logs/b/skip.csv", request.getMarker());
+      }
+    }
+
+    // Index survives serialization
+    S3ListingIndex restored = S3ListingIndex.fromJson(index.toJson(), 100);
+    objects.put("logs/c/1.txt", 50L);
+    keys = list(config, restored, processed("logs/b/x.txt", 40L), 10);
+    Assert.assertEquals(Arrays.asList("logs/c/1.txt"), keys);
+  }
+
+  @Test
+  public void testPendingObjectsAreNotSerialized() {
+    for (int i = 0; i < 10; i++) {
+      objects.put("logs/a/" + i + ".txt", 10L + i);
+    }
+    objects.put("top.txt", 5L);
+
+    S3ConfigBean config = createConfig();
+    config.s3FileConfig.prefixPattern = "**/*.txt";
+    S3ListingIndex index = new S3ListingIndex(100);
+    Assert.assertEquals(Arrays.asList("top.txt", "logs/a/0.txt"), list(config, index, START, 2));
+
+    // Only the markers, rewound to the oldest pending objects, are saved
+    String json = index.toJson();
+    Assert.assertFalse(json.contains("logs/a/5.txt"));
+    Assert.assertTrue(json.contains("\"logs/a/0.tx\""));
+    Assert.assertTrue(json.contains("\"top.tx\""));
+
+    // Pending objects are listed again after restore
+    S3ListingIndex restored = S3ListingIndex.fromJson(json, 100);
+    List<String> keys = list(config, restored, processed("logs/a/0.txt", 10L), 100);
+    List<String> expected = new ArrayList<>();
+    for (int i = 1; i < 10; i++) {
+      expected.add("logs/a/" + i + ".txt");
+    }
+    Assert.assertEquals(expected, keys);
+  }
+
+  @Test
+  public void testResumedPartitionIsListedWhenDormant() {
+    S3ListingIndex index = new S3ListingIndex(10);
+    index.addPartition("p/", 0L);
+    index.startFullScan(0L);
+    index.updatePartition(index.getPartitions().iterator().next(), "p/3", false, 0L);
+    index.finishScan();
+    index.offer(summary("p/2", 10L));
+    Assert.assertTrue(index.getPartitionsToList(1_000_000L, 60_000L).isEmpty());
+
+    S3ListingIndex restored = S3ListingIndex.fromJson(index.toJson(), 10);
+    List<S3ListingIndex.Partition> partitions = restored.getPartitionsToList(1_000_000L, 60_000L);
+    Assert.assertEquals(1, partitions.size());
+    Assert.assertEquals("p/", partitions.get(0).getMarker());
+
+    // Back to normal once listed
+    restored.updatePartition(partitions.get(0), "p/3", false, 1_000_000L);
+    Assert.assertTrue(restored.getPartitionsToList(1_000_000L, 60_000L).isEmpty());
+  }
+
+  @Test
+  public void testTruncatedIndexForcesFullScan() {
+    S3ListingIndex index = new S3ListingIndex(2);
+    index.startFullScan(1000L);
+    index.finishScan();
+    index.offer(summary("c", 30L));
+    index.offer(summary("a", 10L));
+    index.offer(summary("b", 20L));
+    Assert.assertEquals(2, index.getPendingCount());
+    List<S3ObjectSummary> oldest = index.oldest(10);
+    Assert.assertEquals("a", oldest.get(0).getKey());
+    Assert.assertEquals("b", oldest.get(1).getKey());
+    Assert.assertFalse(index.needsFullScan(1001L, 60_000L));
+
+    // Object that was dropped has to be found by a full scan once everything kept was processed
+    index.prune(processed("b", 20L));
+    Assert.assertEquals(0, index.getPendingCount());
+    Assert.assertTrue(index.needsFullScan(1001L, 60_000L));
+  }
+
+  @Test
+  public void testOverwrittenObjectReplacesPending() {
+    S3ListingIndex index = new S3ListingIndex(10);
+    index.offer(summary("a", 10L));
+    index.offer(summary("a", 50L));
+    Assert.assertEquals(1, index.getPendingCount());
+    Assert.assertEquals(50L, index.oldest(1).get(0).getLastModified().getTime());
+  }
+}
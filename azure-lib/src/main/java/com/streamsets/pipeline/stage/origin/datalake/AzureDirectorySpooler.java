@@ -37,7 +37,7 @@ public class AzureDirectorySpooler extends DirectorySpooler {
 
     public DirectorySpooler build() {
       checkArguments();
-      return new AzureDirectorySpooler(
+      return configureDiscovery(new AzureDirectorySpooler(
           context,
           spoolDir,
           maxSpoolFiles,
@@ -52,7 +52,7 @@ public class AzureDirectorySpooler extends DirectorySpooler {
           processSubdirectories,
           spoolingPeriodSec,
           fs
-      );
+      ));
     }
   }
 
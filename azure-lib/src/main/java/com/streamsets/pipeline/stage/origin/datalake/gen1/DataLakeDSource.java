@@ -27,7 +27,7 @@ import com.streamsets.pipeline.lib.dirspooler.SpoolDirConfigBean;
 import com.streamsets.pipeline.stage.conf.DataLakeSourceGroups;
 
 @StageDef(
-    version = 2,
+    version = 3,
     label = "Azure Data Lake Storage Gen1",
     description = "Reads data from Azure Data Lake Storage Gen1",
     icon = "data-lake-store-gen1.png",
@@ -46,6 +46,8 @@ import com.streamsets.pipeline.stage.conf.DataLakeSourceGroups;
     "dataLakeConfig.hdfsConfDir",
     "dataLakeConfig.hdfsConfigs",
     "spoolDirConfig.allowLateDirectory",
+    "spoolDirConfig.useFileSystemEvents",
+    "spoolDirConfig.reconcilePeriod",
     "spoolDirConfig.dataFormatConfig.verifyChecksum",
     "spoolDirConfig.dataFormatConfig.avroSchemaSource",
     "spoolDirConfig.dataFormatConfig.avroSchema",
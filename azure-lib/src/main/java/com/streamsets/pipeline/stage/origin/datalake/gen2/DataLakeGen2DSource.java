@@ -27,7 +27,7 @@ import com.streamsets.pipeline.api.base.configurablestage.DPushSource;
 import com.streamsets.pipeline.lib.dirspooler.SpoolDirConfigBean;
 
 @StageDef(
-    version = 2,
+    version = 3,
     label = "Azure Data Lake Storage Gen2",
     description = "Reads data from Azure Data Lake Storage Gen2",
     icon = "data-lake-store-gen2.png",
@@ -46,6 +46,8 @@ import com.streamsets.pipeline.lib.dirspooler.SpoolDirConfigBean;
     "dataLakeGen2SourceConfigBean.hdfsConfDir",
     "dataLakeGen2SourceConfigBean.hdfsConfigs",
     "conf.allowLateDirectory",
+    "conf.useFileSystemEvents",
+    "conf.reconcilePeriod",
     "conf.dataFormatConfig.verifyChecksum",
     "conf.dataFormatConfig.avroSchemaSource",
     "conf.dataFormatConfig.avroSchema",
@@ -53,4 +53,16 @@ public class TestDataLakeSourceUpgrader {
 
     UpgraderTestUtils.assertExists(configs, dataFormatPrefix + "preserveRootElement", false);
   }
+
+  @Test
+  public void testV2toV3() {
+    Mockito.doReturn(2).when(context).getFromVersion();
+    Mockito.doReturn(3).when(context).getToVersion();
+
+    configs = upgrader.upgrade(configs, context);
+
+    UpgraderTestUtils.assertExists(configs, "spoolDirConfig.useFileSystemEvents", false);
+    UpgraderTestUtils.assertExists(configs, "spoolDirConfig.reconcilePeriod", 600);
+    UpgraderTestUtils.assertExists(configs, "spoolDirConfig.fileIndexDir", "");
+  }
 }
@@ -15,10 +15,9 @@
  */
 package com.streamsets.pipeline.lib.dirspooler;
 
+import com.streamsets.pipeline.lib.io.ReadAheadInputStream;
 import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
 
-import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
@@ -66,8 +65,7 @@ public class LocalFile implements WrappedFile {
   }
 
   public InputStream getInputStream() throws IOException {
-    File file = new File(filePath.toString());
-    return new FileInputStream(file);
+    return new ReadAheadInputStream(filePath, 0);
   }
 
   public Map<String, Object> getFileMetadata() throws IOException {
@@ -0,0 +1,178 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link FileEventWatcher} for the local file system backed by a NIO {@link WatchService}.
+ */
+class LocalFileEventWatcher implements FileEventWatcher {
+  private static final Logger LOG = LoggerFactory.getLogger(LocalFileEventWatcher.class);
+
+  // How long a file must not see any events before it's considered completely written
+  private static final long SETTLE_MILLIS = 100;
+
+  private final LocalFileSystem fs;
+  private final boolean recursive;
+  private final WatchService watchService;
+  // Files with events that might still be written to, with time of their last event
+  private final Map<Path, Long> pending;
+
+  LocalFileEventWatcher(LocalFileSystem fs, Path dir, boolean recursive) throws IOException {
+    this.fs = fs;
+    this.recursive = recursive;
+    this.pending = new LinkedHashMap<>();
+    this.watchService = dir.getFileSystem().newWatchService();
+    try {
+      register(dir, false);
+    } catch (IOException ex) {
+      watchService.close();
+      throw ex;
+    }
+  }
+
+  private void register(Path dir, boolean addExisting) throws IOException {
+    if (recursive) {
+      Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+        @Override
+        public FileVisitResult preVisitDirectory(Path subDir, BasicFileAttributes attrs) throws IOException {
+          registerDirectory(subDir, addExisting);
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } else {
+      registerDirectory(dir, addExisting);
+    }
+  }
+
+  private void registerDirectory(Path dir, boolean addExisting) throws IOException {
+    dir.register(
+        watchService,
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_MODIFY,
+        StandardWatchEventKinds.OVERFLOW
+    );
+    if (addExisting) {
+      // Files created in a new directory before it was registered don't generate any events
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+        for (Path file : files) {
+          addPending(file, System.currentTimeMillis());
+        }
+      }
+    }
+  }
+
+  private void addPending(Path file, long eventTime) {
+    if (!Files.isDirectory(file) && fs.patternMatches(file.getFileName().toString())) {
+      pending.put(file, eventTime);
+    }
+  }
+
+  @Override
+  public List<WrappedFile> poll(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+    long waitMillis = unit.toMillis(timeout);
+    if (!pending.isEmpty()) {
+      waitMillis = Math.min(waitMillis, SETTLE_MILLIS);
+    }
+
+    boolean overflow = false;
+    WatchKey key = watchService.poll(waitMillis, TimeUnit.MILLISECONDS);
+    while (key != null) {
+      Path dir = (Path) key.watchable();
+      long eventTime = System.currentTimeMillis();
+      for (WatchEvent<?> event : key.pollEvents()) {
+        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+          overflow = true;
+          continue;
+        }
+        Path child = dir.resolve((Path) event.context());
+        if (recursive && event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+          try {
+            register(child, true);
+          } catch (NoSuchFileException ex) {
+            LOG.debug("Directory '{}' was removed before it could be watched", child);
+          }
+        } else {
+          addPending(child, eventTime);
+        }
+      }
+      if (!key.reset()) {
+        LOG.debug("Directory '{}' is no longer watched", dir);
+      }
+      key = watchService.poll();
+    }
+
+    if (overflow) {
+      pending.clear();
+      return null;
+    }
+    return takeSettled();
+  }
+
+  /**
+   * Removes files that are no longer being written to from the pending ones and returns them.
+   */
+  private List<WrappedFile> takeSettled() throws IOException {
+    List<WrappedFile> files = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    Iterator<Map.Entry<Path, Long>> it = pending.entrySet().iterator();
+    while (it.hasNext()) {
+      Map.Entry<Path, Long> entry = it.next();
+      if (now - entry.getValue() < SETTLE_MILLIS) {
+        continue;
+      }
+      Path file = entry.getKey();
+      try {
+        // SDC-3551: Same as for directory scans pick up only files with mtime strictly less than the current time.
+        long time = Math.max(fs.getLastModifiedTime(file), fs.getChangedTime(file));
+        if (time < now) {
+          files.add(fs.getFile(file.toString()));
+          it.remove();
+        }
+      } catch (NoSuchFileException ex) {
+        LOG.debug("File '{}' was removed before it could be queued", file);
+        it.remove();
+      }
+    }
+    return files;
+  }
+
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}
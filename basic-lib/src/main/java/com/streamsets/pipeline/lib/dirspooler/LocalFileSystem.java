@@ -16,6 +16,7 @@
 package com.streamsets.pipeline.lib.dirspooler;
 
 import com.streamsets.pipeline.lib.io.DirectoryPathCreationWatcher;
+import com.streamsets.pipeline.lib.io.ReadAheadInputStream;
 import com.streamsets.pipeline.lib.io.fileref.AbstractSpoolerFileRef;
 import com.streamsets.pipeline.lib.io.fileref.LocalFileRef;
 import com.streamsets.pipeline.stage.common.HeaderAttributeConstants;
@@ -116,11 +117,11 @@ public class LocalFileSystem implements WrappedFileSystem {
     return getFileTimeProperty(filePath, HeaderAttributeConstants.LAST_CHANGE_TIME);
   }
 
-  private long getLastModifiedTime(Path filePath) throws IOException {
+  long getLastModifiedTime(Path filePath) throws IOException {
     return Files.getLastModifiedTime(filePath).toMillis();
   }
 
-  private long getChangedTime(Path filePath) throws IOException {
+  long getChangedTime(Path filePath) throws IOException {
     return ((FileTime) Files.getAttribute(filePath, "unix:ctime")).toMillis();
   }
 
@@ -337,6 +338,19 @@ public class LocalFileSystem implements WrappedFileSystem {
     return !watcher.find().isEmpty();
   }
 
+  @Override
+  public void prefetch(WrappedFile file) {
+    ReadAheadInputStream.prefetch(Paths.get(file.getAbsolutePath()));
+  }
+
+  @Override
+  public FileEventWatcher watch(WrappedFile dirPath, boolean recursive) throws IOException {
+    if (SpoolDirUtil.isGlobPattern(dirPath.getAbsolutePath())) {
+      return null;
+    }
+    return new LocalFileEventWatcher(this, Paths.get(dirPath.getAbsolutePath()), recursive);
+  }
+
   public AbstractSpoolerFileRef.Builder getFileRefBuilder() {
     return new LocalFileRef.Builder();
   }
@@ -18,9 +18,14 @@ package com.streamsets.pipeline.stage.processor.aggregation;
 import com.streamsets.pipeline.api.Label;
 import com.streamsets.pipeline.stage.processor.aggregation.aggregator.Aggregator;
 import com.streamsets.pipeline.stage.processor.aggregation.aggregator.CountAggregator;
+import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DistinctCountAggregator;
 import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleAvgAggregator;
 import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleMaxAggregator;
+import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleMedianAggregator;
 import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleMinAggregator;
+import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleP90Aggregator;
+import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleP95Aggregator;
+import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleP99Aggregator;
 import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleStdDevAggregator;
 import com.streamsets.pipeline.stage.processor.aggregation.aggregator.DoubleSumAggregator;
 import com.streamsets.pipeline.stage.processor.aggregation.aggregator.LongAvgAggregator;
@@ -39,6 +44,11 @@ public enum AggregationFunction implements Label {
   MAX_INTEGER("MAX (int)", LongMaxAggregator.class),
   SUM_DOUBLE("SUM (double)", DoubleSumAggregator.class),
   SUM_INTEGER("SUM (int)", LongSumAggregator.class),
+  DISTINCT_COUNT("DISTINCT COUNT (approx)", DistinctCountAggregator.class),
+  MEDIAN_DOUBLE("MEDIAN (approx)", DoubleMedianAggregator.class),
+  P90_DOUBLE("90th PERCENTILE (approx)", DoubleP90Aggregator.class),
+  P95_DOUBLE("95th PERCENTILE (approx)", DoubleP95Aggregator.class),
+  P99_DOUBLE("99th PERCENTILE (approx)", DoubleP99Aggregator.class),
   ;
 
   private final String label;
@@ -71,6 +71,17 @@ public abstract class Aggregator<A extends Aggregator, T> {
     return valueType;
   }
 
+  /**
+   * Returns the type values should be converted to before being processed by this aggregator.
+   * <p/>
+   * By default it is the type of the aggregated value.
+   *
+   * @return the type values should be converted to before being processed by this aggregator.
+   */
+  public Class<?> getInputType() {
+    return getValueType();
+  }
+
   /**
    * Returns the name of the aggregator.
    * @return the name of the aggregator.
@@ -91,4 +91,13 @@ public abstract class AggregatorData<A extends Aggregator, T> {
    */
   public abstract void aggregate(Aggregator.Aggregatable<A> aggregatable);
 
+  /**
+   * Invoked by the AggregatorDataProvider when the time window of the data closes.
+   * <p/>
+   * Implementations backed by striped accumulators that are expensive to read can merge them here into their final
+   * value. Most implementations use JDK adders that are merged on read and do not need to do anything.
+   */
+  public void close() {
+  }
+
 }
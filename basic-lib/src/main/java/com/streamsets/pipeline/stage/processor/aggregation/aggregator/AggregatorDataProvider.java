@@ -197,6 +197,12 @@ public class AggregatorDataProvider {
     data = newData;
 
     Map<Aggregator, AggregatorData> oldData = result;
+    if (oldData != null) {
+      // merge striped accumulators of the closing window into their final values
+      for (AggregatorData aggregatorData : oldData.values()) {
+        aggregatorData.close();
+      }
+    }
     // In case of sliding window, aggregate the data windows to get the result
     result = aggregateDataWindows(result);
 
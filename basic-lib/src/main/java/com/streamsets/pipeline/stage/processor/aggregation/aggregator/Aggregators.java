@@ -41,7 +41,12 @@ public class Aggregators {
       LongMaxAggregator.class,
       DoubleStdDevAggregator.class,
       DoubleSumAggregator.class,
-      LongSumAggregator.class
+      LongSumAggregator.class,
+      DistinctCountAggregator.class,
+      DoubleMedianAggregator.class,
+      DoubleP90Aggregator.class,
+      DoubleP95Aggregator.class,
+      DoubleP99Aggregator.class
   );
 
   private static final Map<Class<? extends SimpleAggregator>, Constructor<? extends SimpleAggregator>> CONSTRUCTORS =
@@ -118,6 +123,21 @@ public class Aggregators {
     }
   }
 
+  /**
+   * Returns the type values should be converted to before being processed by an aggregator.
+   *
+   * @param klass the aggregator class.
+   * @return the type values should be converted to before being processed by an aggregator.
+   */
+  <A extends SimpleAggregator> Class<?> getAggregatorInputType(Class<A> klass) {
+    try {
+      A aggregator = (A) CONSTRUCTORS.get(klass).newInstance("forAggregatorTypeDiscoveryOnly");
+      return aggregator.getInputType();
+    } catch (Exception ex) {
+      throw new RuntimeException(ex);
+    }
+  }
+
   /**
    * Creates an AggregatorData.
    *
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
+
+import com.streamsets.pipeline.api.impl.Utils;
+
+/**
+ * Approximate Distinct Count Aggregator, backed by a {@link HyperLogLog} sketch.
+ * <p/>
+ * Unlike the other aggregators it accepts values of any type.
+ */
+public class DistinctCountAggregator extends SimpleAggregator<DistinctCountAggregator, Object> {
+
+  public static class DistinctCountAggregatable implements Aggregatable<DistinctCountAggregator> {
+    private String name;
+    private byte[] registers;
+    private long count;
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    public DistinctCountAggregatable setName(String name) {
+      this.name = name;
+      return this;
+    }
+
+    public byte[] getRegisters() {
+      return registers;
+    }
+
+    public DistinctCountAggregatable setRegisters(byte[] registers) {
+      this.registers = registers;
+      return this;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public DistinctCountAggregatable setCount(long count) {
+      this.count = count;
+      return this;
+    }
+  }
+
+  private class Data extends AggregatorData<DistinctCountAggregator, Object> {
+    private final HyperLogLog sketch = new HyperLogLog();
+
+    public Data(String name, long time) {
+      super(name, time);
+    }
+
+    @Override
+    public String getName() {
+      return DistinctCountAggregator.this.getName();
+    }
+
+    @Override
+    public void process(Object value) {
+      sketch.offer(value);
+    }
+
+    @Override
+    public Long get() {
+      return sketch.cardinality();
+    }
+
+    @Override
+    public Aggregatable<DistinctCountAggregator> getAggregatable() {
+      return new DistinctCountAggregatable().setName(getName()).setRegisters(sketch.getRegisters()).setCount(get());
+    }
+
+    @Override
+    public void aggregate(Aggregatable<DistinctCountAggregator> aggregatable) {
+      Utils.checkNotNull(aggregatable, "aggregatable");
+      Utils.checkArgument(
+          getName().equals(aggregatable.getName()),
+          Utils.formatL("Aggregable '{}' does not match this aggregation '{}", aggregatable.getName(), getName())
+      );
+      Utils.checkArgument(aggregatable instanceof DistinctCountAggregatable, Utils.formatL(
+          "Aggregatable '{}' is a '{}' it should be '{}'",
+          getName(),
+          aggregatable.getClass().getSimpleName(),
+          DistinctCountAggregatable.class.getSimpleName()
+      ));
+      sketch.merge(((DistinctCountAggregatable) aggregatable).getRegisters());
+    }
+  }
+
+  public DistinctCountAggregator(String name) {
+    super(Long.class, name);
+  }
+
+  @Override
+  public Class<?> getInputType() {
+    return Object.class;
+  }
+
+  @Override
+  public AggregatorData createAggregatorData(long timeWindowMillis) {
+    return new Data(getName(), timeWindowMillis);
+  }
+
+}
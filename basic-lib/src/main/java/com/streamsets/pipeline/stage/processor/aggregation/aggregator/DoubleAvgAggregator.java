@@ -17,6 +17,9 @@ package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
 import com.streamsets.pipeline.api.impl.Utils;
 
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Double Average Aggregator.
  */
@@ -67,8 +70,8 @@ public class DoubleAvgAggregator extends SimpleAggregator<DoubleAvgAggregator, D
   }
 
   private class Data extends AggregatorData<DoubleAvgAggregator, Double> {
-    private long count;
-    private double total;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder total = new DoubleAdder();
 
     public Data(String name, long time) {
       super(name, time);
@@ -82,24 +85,21 @@ public class DoubleAvgAggregator extends SimpleAggregator<DoubleAvgAggregator, D
     @Override
     public void process(Double value) {
       if (value != null) {
-        synchronized (this) {
-          total += value;
-          count++;
-        }
+        total.add(value);
+        count.increment();
       }
     }
 
     @Override
-    public synchronized Double get() {
-      return (count == 0) ? null : total / count;
+    public Double get() {
+      long currentCount = count.sum();
+      return (currentCount == 0) ? null : total.sum() / currentCount;
     }
 
     @Override
     public Aggregatable<DoubleAvgAggregator> getAggregatable() {
       DoubleAvgAggregatable aggregatable = new DoubleAvgAggregatable().setName(getName());
-      synchronized (this) {
-        aggregatable.setCount(count).setTotal(total).setAverage(get());
-      }
+      aggregatable.setCount(count.sum()).setTotal(total.sum()).setAverage(get());
       return aggregatable;
     }
 
@@ -116,10 +116,8 @@ public class DoubleAvgAggregator extends SimpleAggregator<DoubleAvgAggregator, D
           aggregatable.getClass().getSimpleName(),
           DoubleAvgAggregatable.class.getSimpleName()
       ));
-      synchronized (this) {
-        count += ((DoubleAvgAggregatable) aggregatable).getCount();
-        total += ((DoubleAvgAggregatable) aggregatable).getTotal();
-      }
+      count.add(((DoubleAvgAggregatable) aggregatable).getCount());
+      total.add(((DoubleAvgAggregatable) aggregatable).getTotal());
     }
   }
 
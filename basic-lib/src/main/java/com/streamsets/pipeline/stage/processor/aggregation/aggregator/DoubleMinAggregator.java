@@ -17,6 +17,8 @@ package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
 import com.streamsets.pipeline.api.impl.Utils;
 
+import java.util.concurrent.atomic.DoubleAccumulator;
+
 /**
  * Double Minimum Aggregator.
  */
@@ -47,7 +49,8 @@ public class DoubleMinAggregator extends SimpleAggregator<DoubleMinAggregator, D
   }
 
   private class Data extends AggregatorData<DoubleMinAggregator, Double> {
-    private Double current;
+    private final DoubleAccumulator current = new DoubleAccumulator(Math::min, Double.POSITIVE_INFINITY);
+    private volatile boolean hasValue;
 
     public Data(String name, long time) {
       super(name, time);
@@ -61,19 +64,16 @@ public class DoubleMinAggregator extends SimpleAggregator<DoubleMinAggregator, D
     @Override
     public void process(Double value) {
       if (value != null) {
-        synchronized (this) {
-          if (current == null) {
-            current = value;
-          } else if (value < current) {
-            current = value;
-          }
+        current.accumulate(value);
+        if (!hasValue) {
+          hasValue = true;
         }
       }
     }
 
     @Override
-    public synchronized Double get() {
-      return current;
+    public Double get() {
+      return hasValue ? current.get() : null;
     }
 
     @Override
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
+
+/**
+ * Double approximate 95th percentile Aggregator.
+ */
+public class DoubleP95Aggregator extends DoublePercentileAggregator<DoubleP95Aggregator> {
+
+  public DoubleP95Aggregator(String name) {
+    super(name);
+  }
+
+  @Override
+  protected double getQuantile() {
+    return 0.95;
+  }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
+
+import com.streamsets.pipeline.api.impl.Utils;
+
+/**
+ * Base class for approximate percentile aggregators, backed by {@link TDigest} sketches.
+ * <p/>
+ * To avoid all the pipeline runners contending on a single digest, values are added to one of several digest
+ * stripes picked by thread. Stripes are merged when reading the value and, for good, when the time window closes.
+ */
+public abstract class DoublePercentileAggregator<A extends DoublePercentileAggregator>
+    extends SimpleAggregator<A, Double> {
+
+  private static final int STRIPES = stripes();
+
+  private static int stripes() {
+    int stripes = 1;
+    while (stripes < Runtime.getRuntime().availableProcessors() && stripes < 16) {
+      stripes <<= 1;
+    }
+    return stripes;
+  }
+
+  public static class DoublePercentileAggregatable implements Aggregatable<DoublePercentileAggregator> {
+    private String name;
+    private double[] means;
+    private double[] weights;
+    private double min;
+    private double max;
+    private Double percentile;
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    public DoublePercentileAggregatable setName(String name) {
+      this.name = name;
+      return this;
+    }
+
+    public double[] getMeans() {
+      return means;
+    }
+
+    public DoublePercentileAggregatable setMeans(double[] means) {
+      this.means = means;
+      return this;
+    }
+
+    public double[] getWeights() {
+      return weights;
+    }
+
+    public DoublePercentileAggregatable setWeights(double[] weights) {
+      this.weights = weights;
+      return this;
+    }
+
+    public double getMin() {
+      return min;
+    }
+
+    public DoublePercentileAggregatable setMin(double min) {
+      this.min = min;
+      return this;
+    }
+
+    public double getMax() {
+      return max;
+    }
+
+    public DoublePercentileAggregatable setMax(double max) {
+      this.max = max;
+      return this;
+    }
+
+    public Double getPercentile() {
+      return percentile;
+    }
+
+    public DoublePercentileAggregatable setPercentile(Double percentile) {
+      this.percentile = percentile;
+      return this;
+    }
+  }
+
+  private class Data extends AggregatorData<A, Double> {
+    private final TDigest[] stripes;
+    private volatile TDigest merged;
+
+    public Data(String name, long time) {
+      super(name, time);
+      stripes = new TDigest[STRIPES];
+      for (int i = 0; i < stripes.length; i++) {
+        stripes[i] = new TDigest();
+      }
+    }
+
+    @Override
+    public String getName() {
+      return DoublePercentileAggregator.this.getName();
+    }
+
+    @Override
+    public void process(Double value) {
+      if (value != null) {
+        TDigest merged = this.merged;
+        if (merged == null) {
+          TDigest stripe = stripes[(int) Thread.currentThread().getId() & (stripes.length - 1)];
+          synchronized (stripe) {
+            // close() publishes the merged digest while holding all stripe locks, re-checking under the lock makes
+            // sure the value doesn't go to a stripe that has already been merged
+            merged = this.merged;
+            if (merged == null) {
+              stripe.add(value);
+              return;
+            }
+          }
+        }
+        synchronized (merged) {
+          merged.add(value);
+        }
+      }
+    }
+
+    private TDigest merge() {
+      TDigest digest = new TDigest();
+      TDigest merged = this.merged;
+      if (merged != null) {
+        synchronized (merged) {
+          digest.add(merged);
+        }
+      } else {
+        for (TDigest stripe : stripes) {
+          synchronized (stripe) {
+            digest.add(stripe);
+          }
+        }
+      }
+      return digest;
+    }
+
+    @Override
+    public Double get() {
+      TDigest digest = merge();
+      return (digest.getTotalWeight() == 0) ? null : digest.quantile(getQuantile());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Aggregatable<A> getAggregatable() {
+      TDigest digest = merge();
+      return (Aggregatable) new DoublePercentileAggregatable()
+          .setName(getName())
+          .setMeans(digest.getMeans())
+          .setWeights(digest.getWeights())
+          .setMin(digest.getMin())
+          .setMax(digest.getMax())
+          .setPercentile((digest.getTotalWeight() == 0) ? null : digest.quantile(getQuantile()));
+    }
+
+    @Override
+    public void aggregate(Aggregatable<A> aggregatable) {
+      Utils.checkNotNull(aggregatable, "aggregatable");
+      Utils.checkArgument(
+          getName().equals(aggregatable.getName()),
+          Utils.formatL("Aggregable '{}' does not match this aggregation '{}", aggregatable.getName(), getName())
+      );
+      Utils.checkArgument(aggregatable instanceof DoublePercentileAggregatable, Utils.formatL(
+          "Aggregatable '{}' is a '{}' it should be '{}'",
+          getName(),
+          aggregatable.getClass().getSimpleName(),
+          DoublePercentileAggregatable.class.getSimpleName()
+      ));
+      DoublePercentileAggregatable other = (DoublePercentileAggregatable) aggregatable;
+      TDigest merged = this.merged;
+      if (merged == null) {
+        synchronized (stripes[0]) {
+          // same as in process()
+          merged = this.merged;
+          if (merged == null) {
+            stripes[0].add(other.getMeans(), other.getWeights(), other.getMin(), other.getMax());
+            return;
+          }
+        }
+      }
+      synchronized (merged) {
+        merged.add(other.getMeans(), other.getWeights(), other.getMin(), other.getMax());
+      }
+    }
+
+    @Override
+    public void close() {
+      if (merged == null) {
+        closeStripes(0, new TDigest());
+      }
+    }
+
+    // Merges the stripes while holding all their locks, the merged digest is published before any of them is released
+    private void closeStripes(int index, TDigest digest) {
+      if (index == stripes.length) {
+        // stripes[0] lock serializes concurrent closes, only the first one publishes
+        if (merged == null) {
+          merged = digest;
+        }
+        return;
+      }
+      synchronized (stripes[index]) {
+        digest.add(stripes[index]);
+        closeStripes(index + 1, digest);
+      }
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name name of the aggregator.
+   */
+  protected DoublePercentileAggregator(String name) {
+    super(Double.class, name);
+  }
+
+  /**
+   * Returns the quantile computed by the aggregator, between 0 and 1.
+   */
+  protected abstract double getQuantile();
+
+  @Override
+  public AggregatorData createAggregatorData(long timeWindowMillis) {
+    return new Data(getName(), timeWindowMillis);
+  }
+
+}
@@ -17,6 +17,9 @@ package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
 import com.streamsets.pipeline.api.impl.Utils;
 
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Double Standard Deviation Aggregator.
  */
@@ -77,9 +80,9 @@ public class DoubleStdDevAggregator extends SimpleAggregator<DoubleStdDevAggrega
   }
 
   private class Data extends AggregatorData<DoubleStdDevAggregator, Double> {
-    private long count;
-    private double total;
-    private double totalSquare;
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder total = new DoubleAdder();
+    private final DoubleAdder totalSquare = new DoubleAdder();
 
     public Data(String name, long time) {
       super(name, time);
@@ -93,25 +96,31 @@ public class DoubleStdDevAggregator extends SimpleAggregator<DoubleStdDevAggrega
     @Override
     public void process(Double value) {
       if (value != null) {
-        synchronized (this) {
-          count++;
-          total += value;
-          totalSquare += value * value;
-        }
+        total.add(value);
+        totalSquare.add(value * value);
+        count.increment();
       }
     }
 
     @Override
-    public synchronized Double get() {
+    public Double get() {
+      return stdDev(count.sum(), total.sum(), totalSquare.sum());
+    }
+
+    private double stdDev(long count, double total, double totalSquare) {
       return (count < 2) ? -1 : Math.sqrt((count * totalSquare - total * total) / (count * (count - 1)));
     }
 
     @Override
     public Aggregatable<DoubleStdDevAggregator> getAggregatable() {
       DoubleStdDevAggregatable aggregatable = new DoubleStdDevAggregatable().setName(getName());
-      synchronized (this) {
-        aggregatable.setCount(count).setTotal(total).setTotalSquare(totalSquare).setStdDev(get());
-      }
+      long currentCount = count.sum();
+      double currentTotal = total.sum();
+      double currentTotalSquare = totalSquare.sum();
+      aggregatable.setCount(currentCount)
+          .setTotal(currentTotal)
+          .setTotalSquare(currentTotalSquare)
+          .setStdDev(stdDev(currentCount, currentTotal, currentTotalSquare));
       return aggregatable;
     }
 
@@ -128,11 +137,9 @@ public class DoubleStdDevAggregator extends SimpleAggregator<DoubleStdDevAggrega
           aggregatable.getClass().getSimpleName(),
           DoubleStdDevAggregatable.class.getSimpleName()
       ));
-      synchronized (this) {
-        count += ((DoubleStdDevAggregatable) aggregatable).getCount();
-        total += ((DoubleStdDevAggregatable) aggregatable).getTotal();
-        totalSquare += ((DoubleStdDevAggregatable) aggregatable).getTotalSquare();
-      }
+      count.add(((DoubleStdDevAggregatable) aggregatable).getCount());
+      total.add(((DoubleStdDevAggregatable) aggregatable).getTotal());
+      totalSquare.add(((DoubleStdDevAggregatable) aggregatable).getTotalSquare());
     }
   }
 
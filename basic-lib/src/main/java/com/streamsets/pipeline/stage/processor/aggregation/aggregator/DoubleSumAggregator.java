@@ -17,6 +17,9 @@ package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
 import com.streamsets.pipeline.api.impl.Utils;
 
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Double Average Aggregator.
  */
@@ -57,8 +60,8 @@ public class DoubleSumAggregator extends SimpleAggregator<DoubleSumAggregator, D
   }
 
   private class Data extends AggregatorData<DoubleSumAggregator, Double> {
-    private double sum;
-    private long count;
+    private final DoubleAdder sum = new DoubleAdder();
+    private final LongAdder count = new LongAdder();
 
     public Data(String name, long time) {
       super(name, time);
@@ -72,24 +75,20 @@ public class DoubleSumAggregator extends SimpleAggregator<DoubleSumAggregator, D
     @Override
     public void process(Double value) {
       if (value != null) {
-        synchronized (this) {
-          sum += value;
-          count++;
-        }
+        sum.add(value);
+        count.increment();
       }
     }
 
     @Override
-    public synchronized Double get() {
-      return (count == 0) ? null : sum;
+    public Double get() {
+      return (count.sum() == 0) ? null : sum.sum();
     }
 
     @Override
     public Aggregatable<DoubleSumAggregator> getAggregatable() {
       DoubleSumAggregatable aggregatable = new DoubleSumAggregatable().setName(getName());
-      synchronized (this) {
-        aggregatable.setCount(count).setSum(sum);
-      }
+      aggregatable.setCount(count.sum()).setSum(sum.sum());
       return aggregatable;
     }
 
@@ -106,10 +105,8 @@ public class DoubleSumAggregator extends SimpleAggregator<DoubleSumAggregator, D
           aggregatable.getClass().getSimpleName(),
           DoubleSumAggregatable.class.getSimpleName()
       ));
-      synchronized (this) {
-        sum += ((DoubleSumAggregatable) aggregatable).getSum();
-        count += ((DoubleSumAggregatable) aggregatable).getCount();
-      }
+      sum.add(((DoubleSumAggregatable) aggregatable).getSum());
+      count.add((long) ((DoubleSumAggregatable) aggregatable).getCount());
     }
   }
 
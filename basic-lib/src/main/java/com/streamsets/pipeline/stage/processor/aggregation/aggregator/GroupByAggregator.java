@@ -15,14 +15,14 @@
  */
 package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
-import com.google.common.collect.ImmutableMap;
 import com.streamsets.pipeline.api.impl.Utils;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Group-by Aggregator supporting all Simple Aggregators as group-by element.
@@ -53,14 +53,12 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
     }
   }
 
-  class Data extends AggregatorData<GroupByAggregator<A, T>, Map<String, T>> {
-    private final Map<String, AggregatorData<SimpleAggregator, Number>> groups;
-    private final ReentrantReadWriteLock rwLock;
+  class Data extends AggregatorData<GroupByAggregator, Map<String, T>> {
+    private final ConcurrentMap<String, AggregatorData<SimpleAggregator, Number>> groups;
 
     public Data(String name, long time) {
       super(name, time);
-      groups = new HashMap<>();
-      rwLock = new ReentrantReadWriteLock(true);
+      groups = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -77,72 +75,54 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
 
     @SuppressWarnings("unchecked")
     protected void process(String group, T value) {
-      AggregatorData aggregatorData;
-      rwLock.writeLock().lock();
-      try {
+      getOrCreate(group).process(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    private AggregatorData getOrCreate(String group) {
+      // lock-free lookup for existing groups, computeIfAbsent locks the hash bin even if the key is present
+      AggregatorData aggregatorData = groups.get(group);
+      if (aggregatorData == null) {
         aggregatorData = groups.computeIfAbsent(group,
             k -> GroupByAggregator.this.createElementAggregatorData(group, getTime())
         );
-      } finally {
-        rwLock.writeLock().unlock();
       }
-      aggregatorData.process(value);
+      return aggregatorData;
     }
 
-
     @Override
     @SuppressWarnings("unchecked")
     public Map<String, T> get() {
-      rwLock.readLock().lock();
-      try {
-        Map<String, T> map = new HashMap<>();
-        for (Map.Entry<String, AggregatorData<SimpleAggregator, Number>> group : groups.entrySet()) {
-          map.put(group.getKey(), (T) group.getValue().get());
-        }
-        return map;
-      } finally {
-        rwLock.readLock().unlock();
+      Map<String, T> map = new HashMap<>();
+      for (Map.Entry<String, AggregatorData<SimpleAggregator, Number>> group : groups.entrySet()) {
+        map.put(group.getKey(), (T) group.getValue().get());
       }
+      return map;
     }
 
     @SuppressWarnings("unchecked")
     public AggregatorData<SimpleAggregator, Number> getGroupByElementData(String groupName) {
-      rwLock.readLock().lock();
-      try {
-        return groups.get(groupName);
-      } finally {
-        rwLock.readLock().unlock();
-      }
+      return groups.get(groupName);
     }
 
     public Set<String> getGroupByElements() {
-      rwLock.readLock().lock();
-      try {
-        return new HashSet<>(groups.keySet());
-      } finally {
-        rwLock.readLock().unlock();
-      }
+      return new HashSet<>(groups.keySet());
     }
 
     @Override
-    @SuppressWarnings("unchecked")
-    public Aggregatable<GroupByAggregator<A, T>> getAggregatable() {
+    public Aggregatable<GroupByAggregator> getAggregatable() {
       GroupByAggregatable aggregatable = new GroupByAggregatable().setName(getName());
-      rwLock.readLock().lock();
-      try {
-        Map<String, Aggregatable> aggregatableGroups = new HashMap<>();
-        for (Map.Entry<String, AggregatorData<SimpleAggregator, Number>> group : groups.entrySet()) {
-          aggregatableGroups.put(group.getKey(), group.getValue().getAggregatable());
-        }
-        aggregatable.setGroups(aggregatableGroups);
-      } finally {
-        rwLock.readLock().unlock();
+      Map<String, Aggregatable> aggregatableGroups = new HashMap<>();
+      for (Map.Entry<String, AggregatorData<SimpleAggregator, Number>> group : groups.entrySet()) {
+        aggregatableGroups.put(group.getKey(), group.getValue().getAggregatable());
       }
-      return (Aggregatable) aggregatable;
+      aggregatable.setGroups(aggregatableGroups);
+      return aggregatable;
     }
 
     @Override
-    public void aggregate(Aggregatable aggregatable) {
+    @SuppressWarnings("unchecked")
+    public void aggregate(Aggregatable<GroupByAggregator> aggregatable) {
       Utils.checkNotNull(aggregatable, "aggregatable");
       Utils.checkArgument(getName().equals(aggregatable.getName()),
           Utils.formatL("Aggregable '{}' does not match this aggregation '{}", aggregatable.getName(), getName())
@@ -154,22 +134,22 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
           GroupByAggregatable.class.getSimpleName()
       ));
 
-      rwLock.writeLock().lock();
-      try {
-        for (Map.Entry<String, Aggregatable> entry : ((GroupByAggregatable) aggregatable).getGroups().entrySet()) {
-          AggregatorData aggregatorData = groups.computeIfAbsent(entry.getKey(),
-              groupByElementName -> GroupByAggregator.this.createElementAggregatorData(groupByElementName, getTime())
-          );
-          aggregatorData.aggregate(entry.getValue());
-        }
-      } finally {
-        rwLock.writeLock().unlock();
+      for (Map.Entry<String, Aggregatable> entry : ((GroupByAggregatable) aggregatable).getGroups().entrySet()) {
+        getOrCreate(entry.getKey()).aggregate(entry.getValue());
+      }
+    }
+
+    @Override
+    public void close() {
+      for (AggregatorData aggregatorData : groups.values()) {
+        aggregatorData.close();
       }
     }
   }
 
   private final Class<A> aggregatorKlass;
   private final Aggregators aggregators;
+  private final Class<?> inputType;
 
   /**
    * Group-by Aggregator constructor.
@@ -184,6 +164,12 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
     super(aggregators.getAggregatorUnit(aggregatorKlass), name);
     this.aggregators = aggregators;
     this.aggregatorKlass = aggregatorKlass;
+    this.inputType = aggregators.getAggregatorInputType(aggregatorKlass);
+  }
+
+  @Override
+  public Class<?> getInputType() {
+    return inputType;
   }
 
   /**
@@ -224,8 +210,9 @@ public class GroupByAggregator<A extends SimpleAggregator, T> extends Aggregator
    * @param group the group-by element.
    * @param value the value to process.
    */
+  @SuppressWarnings("unchecked")
   public void process(String group, T value) {
-    getData().process(ImmutableMap.of(group, value));
+    ((Data) getData()).process(group, value);
   }
 
 }
@@ -17,6 +17,8 @@ package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
 import com.streamsets.pipeline.api.impl.Utils;
 
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Long Average Aggregator.
  */
@@ -67,8 +69,8 @@ public class LongAvgAggregator extends SimpleAggregator<LongAvgAggregator, Long>
   }
 
   private class Data extends AggregatorData<LongAvgAggregator, Long> {
-    private long count;
-    private long total;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder total = new LongAdder();
 
     public Data(String name, long time) {
       super(name, time);
@@ -80,21 +82,22 @@ public class LongAvgAggregator extends SimpleAggregator<LongAvgAggregator, Long>
     }
 
     @Override
-    public synchronized void process(Long value) {
+    public void process(Long value) {
       if (value != null) {
-        total += value;
-        count++;
+        total.add(value);
+        count.increment();
       }
     }
 
     @Override
-    public synchronized Long get() {
-      return (count == 0) ? null : (long) Math.rint((double)total / count);
+    public Long get() {
+      long currentCount = count.sum();
+      return (currentCount == 0) ? null : (long) Math.rint((double) total.sum() / currentCount);
     }
 
     @Override
-    public synchronized Aggregatable<LongAvgAggregator> getAggregatable() {
-      return new LongAvgAggregatable().setName(getName()).setCount(count).setTotal(total).setAverage(get());
+    public Aggregatable<LongAvgAggregator> getAggregatable() {
+      return new LongAvgAggregatable().setName(getName()).setCount(count.sum()).setTotal(total.sum()).setAverage(get());
     }
 
     @Override
@@ -110,10 +113,8 @@ public class LongAvgAggregator extends SimpleAggregator<LongAvgAggregator, Long>
           aggregatable.getClass().getSimpleName(),
           LongAvgAggregatable.class.getSimpleName()
       ));
-      synchronized (this) {
-        count += ((LongAvgAggregatable) aggregatable).getCount();
-        total += ((LongAvgAggregatable) aggregatable).getTotal();
-      }
+      count.add(((LongAvgAggregatable) aggregatable).getCount());
+      total.add(((LongAvgAggregatable) aggregatable).getTotal());
     }
   }
 
@@ -17,6 +17,8 @@ package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
 
 import com.streamsets.pipeline.api.impl.Utils;
 
+import java.util.concurrent.atomic.LongAccumulator;
+
 /**
  * Long Maximum Aggregator.
  */
@@ -47,7 +49,8 @@ public class LongMaxAggregator extends SimpleAggregator<LongMaxAggregator, Long>
   }
 
   private class Data extends AggregatorData<LongMaxAggregator, Long> {
-    private Long current;
+    private final LongAccumulator current = new LongAccumulator(Math::max, Long.MIN_VALUE);
+    private volatile boolean hasValue;
 
     public Data(String name, long time) {
       super(name, time);
@@ -61,19 +64,16 @@ public class LongMaxAggregator extends SimpleAggregator<LongMaxAggregator, Long>
     @Override
     public void process(Long value) {
       if (value != null) {
-        synchronized (this) {
-          if (current == null) {
-            current = value;
-          } else if (value > current) {
-            current = value;
-          }
+        current.accumulate(value);
+        if (!hasValue) {
+          hasValue = true;
         }
       }
     }
 
     @Override
-    public synchronized Long get() {
-      return current;
+    public Long get() {
+      return hasValue ? current.get() : null;
     }
 
     @Override
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
+
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Merging t-digest for approximate quantiles in bounded memory.
+ * <p/>
+ * Values are buffered and periodically merged into a sorted list of centroids whose sizes are bounded by the
+ * arcsine scale function, which keeps the tails (where high percentiles live) very accurate. The number of centroids
+ * never exceeds {@code compression} regardless of the number of values added. Digests can be merged by adding the
+ * centroids of one to the other.
+ * <p/>
+ * Not thread safe.
+ */
+public final class TDigest {
+  public static final double DEFAULT_COMPRESSION = 100;
+
+  private final double compression;
+  private double[] means;
+  private double[] weights;
+  private int centroids;
+  private final double[] bufferMeans;
+  private final double[] bufferWeights;
+  private int buffered;
+  private double totalWeight;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+
+  public TDigest() {
+    this(DEFAULT_COMPRESSION);
+  }
+
+  public TDigest(double compression) {
+    Utils.checkArgument(compression >= 10, "compression must be at least 10");
+    this.compression = compression;
+    int capacity = (int) Math.ceil(compression) * 2 + 10;
+    means = new double[capacity];
+    weights = new double[capacity];
+    bufferMeans = new double[capacity * 5];
+    bufferWeights = new double[capacity * 5];
+  }
+
+  public void add(double value) {
+    add(value, 1);
+  }
+
+  public void add(double mean, double weight) {
+    if (Double.isNaN(mean) || weight <= 0) {
+      return;
+    }
+    if (buffered == bufferMeans.length) {
+      compress();
+    }
+    bufferMeans[buffered] = mean;
+    bufferWeights[buffered] = weight;
+    buffered++;
+    totalWeight += weight;
+    min = Math.min(min, mean);
+    max = Math.max(max, mean);
+  }
+
+  /**
+   * Adds all the centroids of another digest into this one.
+   */
+  public void add(TDigest other) {
+    other.compress();
+    for (int i = 0; i < other.centroids; i++) {
+      add(other.means[i], other.weights[i]);
+    }
+    if (other.centroids > 0) {
+      // centroid means are within the other digest range, keep its exact extremes
+      min = Math.min(min, other.min);
+      max = Math.max(max, other.max);
+    }
+  }
+
+  /**
+   * Adds centroids previously obtained from another digest via {@link #getMeans()}, {@link #getWeights()},
+   * {@link #getMin()} and {@link #getMax()}.
+   */
+  public void add(double[] means, double[] weights, double min, double max) {
+    Utils.checkArgument(means.length == weights.length, "means and weights must have the same length");
+    for (int i = 0; i < means.length; i++) {
+      add(means[i], weights[i]);
+    }
+    if (means.length > 0) {
+      this.min = Math.min(this.min, min);
+      this.max = Math.max(this.max, max);
+    }
+  }
+
+  public double getTotalWeight() {
+    return totalWeight;
+  }
+
+  public double getMin() {
+    return min;
+  }
+
+  public double getMax() {
+    return max;
+  }
+
+  /**
+   * Returns the centroid means, in ascending order.
+   */
+  public double[] getMeans() {
+    compress();
+    return Arrays.copyOf(means, centroids);
+  }
+
+  /**
+   * Returns the centroid weights, in the same order as {@link #getMeans()}.
+   */
+  public double[] getWeights() {
+    compress();
+    return Arrays.copyOf(weights, centroids);
+  }
+
+  /**
+   * Merges the buffered values into the centroids.
+   */
+  public void compress() {
+    if (buffered == 0) {
+      return;
+    }
+    int n = centroids + buffered;
+    double[] allMeans = new double[n];
+    double[] allWeights = new double[n];
+    System.arraycopy(means, 0, allMeans, 0, centroids);
+    System.arraycopy(weights, 0, allWeights, 0, centroids);
+    System.arraycopy(bufferMeans, 0, allMeans, centroids, buffered);
+    System.arraycopy(bufferWeights, 0, allWeights, centroids, buffered);
+    buffered = 0;
+
+    Integer[] order = new Integer[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+    double total = 0;
+    for (int i = 0; i < n; i++) {
+      total += allWeights[i];
+    }
+
+    int count = 0;
+    double soFar = 0;
+    double kLeft = scale(0);
+    double currentMean = allMeans[order[0]];
+    double currentWeight = allWeights[order[0]];
+    for (int i = 1; i < n; i++) {
+      double mean = allMeans[order[i]];
+      double weight = allWeights[order[i]];
+      double proposed = currentWeight + weight;
+      // a centroid can grow as long as it spans at most one unit of the scale function
+      if (scale((soFar + proposed) / total) - kLeft <= 1) {
+        currentMean += weight * (mean - currentMean) / proposed;
+        currentWeight = proposed;
+      } else {
+        count = append(count, currentMean, currentWeight);
+        soFar += currentWeight;
+        kLeft = scale(soFar / total);
+        currentMean = mean;
+        currentWeight = weight;
+      }
+    }
+    centroids = append(count, currentMean, currentWeight);
+  }
+
+  /**
+   * Scale function mapping quantiles to centroid indexes, steep near 0 and 1 so that centroids there stay small.
+   */
+  private double scale(double q) {
+    return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, q) - 1);
+  }
+
+  private int append(int index, double mean, double weight) {
+    if (index == means.length) {
+      means = Arrays.copyOf(means, index * 2);
+      weights = Arrays.copyOf(weights, index * 2);
+    }
+    means[index] = mean;
+    weights[index] = weight;
+    return index + 1;
+  }
+
+  /**
+   * Returns the estimated value at the given quantile, or NaN if the digest is empty.
+   *
+   * @param q quantile, between 0 and 1.
+   */
+  public double quantile(double q) {
+    Utils.checkArgument(q >= 0 && q <= 1, "quantile must be between 0 and 1");
+    compress();
+    if (centroids == 0) {
+      return Double.NaN;
+    }
+    if (centroids == 1) {
+      return means[0];
+    }
+    double index = q * totalWeight;
+    // interpolate between the centers of adjacent centroids, using min/max for the outer halves
+    double weightSoFar = weights[0] / 2;
+    if (index <= weightSoFar) {
+      return min + (means[0] - min) * (index / weightSoFar);
+    }
+    for (int i = 0; i < centroids - 1; i++) {
+      double delta = (weights[i] + weights[i + 1]) / 2;
+      if (weightSoFar + delta >= index) {
+        return means[i] + (means[i + 1] - means[i]) * ((index - weightSoFar) / delta);
+      }
+      weightSoFar += delta;
+    }
+    double tail = weights[centroids - 1] / 2;
+    double last = means[centroids - 1];
+    return Math.min(max, last + (max - last) * ((index - weightSoFar) / tail));
+  }
+
+}
@@ -30,7 +30,7 @@ import com.streamsets.pipeline.api.base.configurablestage.DProcessor;
 import java.util.List;
 
 @StageDef(
-    version = 1,
+    version = 2,
     label = "Record Deduplicator",
     description = "Separates unique and duplicate records based on field comparison",
     icon="dedup.png",
@@ -92,9 +92,57 @@ public class DeDupDProcessor extends DProcessor {
   @FieldSelectorModel
   public List<String> fieldsToCompare;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      defaultValue = "HEAP",
+      label = "Hash Store",
+      description = "Where to keep hashes of the compared records. Off-heap memory supports large windows without " +
+          "increasing the Java heap.",
+      displayPosition = 50,
+      group = "DE_DUP"
+  )
+  @ValueChooserModel(HashStoreChooserValues.class)
+  public HashStore hashStore;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.STRING,
+      defaultValue = "",
+      label = "Spill Directory",
+      description = "Directory for memory mapped files backing the off-heap store. Leave empty to keep the hashes " +
+          "in off-heap memory only.",
+      displayPosition = 60,
+      group = "DE_DUP",
+      dependsOn = "hashStore",
+      triggeredByValue = "OFF_HEAP"
+  )
+  public String spillDirectory;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Use Bloom Filter",
+      description = "Check a Bloom filter before searching the off-heap store",
+      displayPosition = 70,
+      group = "DE_DUP",
+      dependsOn = "hashStore",
+      triggeredByValue = "OFF_HEAP"
+  )
+  public boolean useBloomFilter;
+
   @Override
   protected Processor createProcessor() {
-    return new DeDupProcessor(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare);
+    return new DeDupProcessor(
+        recordCountWindow,
+        timeWindowSecs,
+        compareFields,
+        fieldsToCompare,
+        hashStore,
+        spillDirectory,
+        useBloomFilter
+    );
   }
 
 }
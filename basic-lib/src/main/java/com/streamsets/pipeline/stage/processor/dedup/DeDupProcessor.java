@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.processor.dedup;
 
+import com.codahale.metrics.Gauge;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.hash.HashCode;
@@ -31,6 +32,8 @@ import com.streamsets.pipeline.lib.queue.XEvictingQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -39,20 +42,34 @@ import java.util.concurrent.TimeUnit;
 
 public class DeDupProcessor extends RecordProcessor {
   private static final String CACHE_KEY = "cache";
+  private static final String OFF_HEAP_TABLE_KEY = "offHeapTable";
+  private static final String STORE_GAUGE_NAME = "Deduplication Store";
   private static final Logger LOG = LoggerFactory.getLogger(DeDupProcessor.class);
 
   private final  int recordCountWindow;
   private final  int timeWindowSecs;
   private final  SelectFields compareFields;
   private final  List<String> fieldsToCompare;
+  private final  HashStore hashStore;
+  private final  String spillDirectory;
+  private final  boolean useBloomFilter;
   private CacheCleaner cacheCleaner;
 
   public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
       SelectFields compareFields, List<String> fieldsToCompare) {
+    this(recordCountWindow, timeWindowSecs, compareFields, fieldsToCompare, HashStore.HEAP, null, false);
+  }
+
+  public DeDupProcessor(int recordCountWindow, int timeWindowSecs,
+      SelectFields compareFields, List<String> fieldsToCompare,
+      HashStore hashStore, String spillDirectory, boolean useBloomFilter) {
     this.recordCountWindow = recordCountWindow;
     this.timeWindowSecs = timeWindowSecs;
     this.compareFields = compareFields;
     this.fieldsToCompare = fieldsToCompare;
+    this.hashStore = hashStore;
+    this.spillDirectory = spillDirectory;
+    this.useBloomFilter = useBloomFilter;
   }
 
   private static final Object VOID = new Object();
@@ -61,6 +78,8 @@ public class DeDupProcessor extends RecordProcessor {
   private HashingUtil.RecordFunnel funnel;
   private Cache<HashCode, HashCode> hashCache;
   private XEvictingQueue<HashCode> hashBuffer;
+  private OffHeapHashTable offHeapTable;
+  private Gauge<Map<String, Object>> storeGauge;
   private String uniqueLane;
   private String duplicateLane;
 
@@ -81,6 +100,14 @@ public class DeDupProcessor extends RecordProcessor {
     if (compareFields == SelectFields.SPECIFIED_FIELDS && fieldsToCompare.isEmpty()) {
       issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "compareFields", Errors.DEDUP_02));
     }
+    File spillDir = null;
+    if (hashStore == HashStore.OFF_HEAP && spillDirectory != null && !spillDirectory.trim().isEmpty()) {
+      spillDir = new File(spillDirectory.trim());
+      if (!spillDir.isDirectory() || !spillDir.canWrite()) {
+        issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "spillDirectory", Errors.DEDUP_05,
+                                                  spillDirectory));
+      }
+    }
 
     if (issues.isEmpty()) {
       hasher = HashingUtil.getHasher(HashingUtil.HashType.MURMUR3_128);
@@ -92,26 +119,11 @@ public class DeDupProcessor extends RecordProcessor {
           '\u0000'
       ) : HashingUtil.getRecordFunnel(fieldsToCompare, false, true, '\u0000');
 
-      Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
-      synchronized (runnerSharedMap) {
-        if(!runnerSharedMap.containsKey(CACHE_KEY)) {
-          CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
-          if (timeWindowSecs > 0) {
-            cacheBuilder.expireAfterWrite(timeWindowSecs, TimeUnit.SECONDS);
-          }
-          if(LOG.isDebugEnabled()) {
-            cacheBuilder.recordStats();
-          }
-          hashCache = cacheBuilder.build();
-
-          runnerSharedMap.put(CACHE_KEY, hashCache);
-        } else {
-          hashCache = (Cache<HashCode, HashCode>) runnerSharedMap.get(CACHE_KEY);
-        }
+      if (hashStore == HashStore.OFF_HEAP) {
+        initOffHeapStore(spillDir, issues);
+      } else {
+        initHeapStore();
       }
-      cacheCleaner = new CacheCleaner(hashCache, "DeDupProcessor", 10 * 60 * 1000);
-
-      hashBuffer = XEvictingQueue.create(recordCountWindow);
       hashAttrName = getInfo() + ".hash";
       uniqueLane = getContext().getOutputLanes().get(OutputStreams.UNIQUE.ordinal());
       duplicateLane = getContext().getOutputLanes().get(OutputStreams.DUPLICATE.ordinal());
@@ -119,10 +131,59 @@ public class DeDupProcessor extends RecordProcessor {
     return issues;
   }
 
-  boolean duplicateCheck(Record record) throws ExecutionException {
+  @SuppressWarnings("unchecked")
+  private void initHeapStore() {
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    synchronized (runnerSharedMap) {
+      if(!runnerSharedMap.containsKey(CACHE_KEY)) {
+        CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
+        if (timeWindowSecs > 0) {
+          cacheBuilder.expireAfterWrite(timeWindowSecs, TimeUnit.SECONDS);
+        }
+        if(LOG.isDebugEnabled()) {
+          cacheBuilder.recordStats();
+        }
+        hashCache = cacheBuilder.build();
+
+        runnerSharedMap.put(CACHE_KEY, hashCache);
+      } else {
+        hashCache = (Cache<HashCode, HashCode>) runnerSharedMap.get(CACHE_KEY);
+      }
+    }
+    cacheCleaner = new CacheCleaner(hashCache, "DeDupProcessor", 10 * 60 * 1000);
+
+    hashBuffer = XEvictingQueue.create(recordCountWindow);
+  }
+
+  private void initOffHeapStore(File spillDir, List<ConfigIssue> issues) {
+    // The table and its windows are shared by all runners (as is the heap cache)
+    Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+    try {
+      synchronized (runnerSharedMap) {
+        offHeapTable = (OffHeapHashTable) runnerSharedMap.get(OFF_HEAP_TABLE_KEY);
+        if (offHeapTable == null) {
+          offHeapTable = new OffHeapHashTable(recordCountWindow, timeWindowSecs * 1000L, spillDir, useBloomFilter);
+          runnerSharedMap.put(OFF_HEAP_TABLE_KEY, offHeapTable);
+        }
+        offHeapTable.retain();
+      }
+    } catch (IOException ex) {
+      LOG.error("Can't allocate off-heap store", ex);
+      issues.add(getContext().createConfigIssue(Groups.DE_DUP.name(), "hashStore", Errors.DEDUP_06, ex.toString(),
+                                                ex));
+      return;
+    }
+    storeGauge = getContext().createGauge(STORE_GAUGE_NAME);
+  }
+
+  boolean duplicateCheck(Record record) throws ExecutionException, IOException {
     HashCode hash = hasher.hashObject(record, funnel);
     record.getHeader().setAttribute(hashAttrName, hash.toString());
 
+    if (offHeapTable != null) {
+      return offHeapDuplicateCheck(hash);
+    }
+
     HashCode hashInstance = hashCache.get(hash, () -> hash);
     // We are riding on the fact that if the instance is the same we just added and it is not a dup
     boolean dup = hashInstance != hash;
@@ -139,13 +200,43 @@ public class DeDupProcessor extends RecordProcessor {
     return dup;
   }
 
+  private boolean offHeapDuplicateCheck(HashCode hash) throws IOException {
+    byte[] bytes = hash.asBytes();
+    long hi = toLong(bytes, 0);
+    long lo = toLong(bytes, 8);
+
+    long now = timeWindowSecs > 0 ? System.currentTimeMillis() : 0;
+    return !offHeapTable.add(hi, lo, now);
+  }
+
+  private static long toLong(byte[] bytes, int offset) {
+    long value = 0;
+    for (int i = offset + 7; i >= offset; i--) {
+      value = (value << 8) | (bytes[i] & 0xFF);
+    }
+    return value;
+  }
+
+  private void updateStoreGauge() {
+    Map<String, Object> gauge = storeGauge.getValue();
+    gauge.put("Entries", offHeapTable.size());
+    gauge.put("Memory Used (bytes)", offHeapTable.getMemoryUsed());
+    gauge.put("Probes per Lookup", offHeapTable.getProbesPerLookup());
+    if (useBloomFilter) {
+      gauge.put("Bloom Filter False Positive Rate", offHeapTable.getBloomFalsePositiveRate());
+    }
+  }
+
   @Override
   public void process(Batch batch, BatchMaker batchMaker) throws StageException {
-    if (!batch.getRecords().hasNext()) {
+    if (cacheCleaner != null && !batch.getRecords().hasNext()) {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
     super.process(batch, batchMaker);
+    if (storeGauge != null) {
+      updateStoreGauge();
+    }
   }
 
   @Override
@@ -156,10 +247,24 @@ public class DeDupProcessor extends RecordProcessor {
       } else {
         batchMaker.addRecord(record, uniqueLane);
       }
-    } catch (IllegalArgumentException|ExecutionException e) {
+    } catch (IllegalArgumentException|ExecutionException|IOException e) {
       LOG.error("Error processing Record", e);
       throw new OnRecordErrorException(Errors.DEDUP_04, e.toString());
     }
   }
 
+  @Override
+  public void destroy() {
+    if (offHeapTable != null) {
+      Map<String, Object> runnerSharedMap = getContext().getStageRunnerSharedMap();
+      synchronized (runnerSharedMap) {
+        if (offHeapTable.release()) {
+          runnerSharedMap.remove(OFF_HEAP_TABLE_KEY);
+        }
+      }
+      offHeapTable = null;
+    }
+    super.destroy();
+  }
+
 }
@@ -31,6 +31,8 @@ public enum Errors implements ErrorCode {
   DEDUP_03("The estimated required memory for '{}' records is '{}'. The current maximum heap is '{}'. The " +
            "required memory must not exceed the maximum heap."),
   DEDUP_04("Error processing record. Reason: {}"),
+  DEDUP_05("Spill directory '{}' does not exist or is not writable"),
+  DEDUP_06("Can't allocate off-heap store: {}"),
   ;
 
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Off-heap FIFO of the hashes in an {@link OffHeapHashTable}, used to evict them from the table once they fall out of
+ * the record count window or (when enabled) the time window. Not thread safe, it's guarded by the table's lock.
+ */
+final class HashWindow implements Closeable {
+
+  private final OffHeapLongArray entries;
+  private final int stride;
+  private final long capacity;
+  private long head;
+  private long count;
+
+  HashWindow(long capacity, boolean withTimestamps, File spillDir) throws IOException {
+    this.capacity = capacity;
+    this.stride = withTimestamps ? 3 : 2;
+    this.entries = OffHeapLongArray.allocate(capacity * stride, spillDir);
+  }
+
+  /**
+   * Appends given hash, evicting the oldest one from the table if the window is full.
+   */
+  void add(long hi, long lo, long timestamp, OffHeapHashTable table) {
+    if (count == capacity) {
+      evictOldest(table);
+    }
+    long index = ((head + count) % capacity) * stride;
+    entries.set(index, hi);
+    entries.set(index + 1, lo);
+    if (stride == 3) {
+      entries.set(index + 2, timestamp);
+    }
+    count++;
+  }
+
+  /**
+   * Evicts all hashes added before given timestamp.
+   */
+  void expire(long olderThan, OffHeapHashTable table) {
+    while (count > 0 && entries.get(head * stride + 2) < olderThan) {
+      evictOldest(table);
+    }
+  }
+
+  private void evictOldest(OffHeapHashTable table) {
+    long index = head * stride;
+    table.remove(entries.get(index), entries.get(index + 1));
+    head = (head + 1) % capacity;
+    count--;
+  }
+
+  long getMemoryUsed() {
+    return entries.sizeInBytes();
+  }
+
+  @Override
+  public void close() {
+    entries.close();
+  }
+}
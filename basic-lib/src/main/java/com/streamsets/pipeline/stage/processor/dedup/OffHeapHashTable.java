@@ -0,0 +1,315 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Set of 128-bit hashes stored in an off-heap open-addressing (linear probing) table.
+ *
+ * Every slot is two longs, an all-zero slot is empty (the all-zero hash is remapped). Removal uses backward shift
+ * deletion so the table never degrades with tombstones. The table doubles when half full. Optionally a Bloom filter
+ * is consulted before probing the table so that hashes that were never seen don't have to be compared with the
+ * entries of the probe sequence, the filter is rebuilt periodically to get rid of bits of removed hashes.
+ *
+ * The set is shared by all pipeline runners, hence all methods are synchronized. The {@link HashWindow} that evicts
+ * hashes falling out of the record count and time windows is part of the table, so the windows apply to all runners
+ * together and hashes are expired no matter which runner added them.
+ */
+final class OffHeapHashTable implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapHashTable.class);
+
+  private static final int MIN_CAPACITY = 1024;
+  private static final int BLOOM_BITS_PER_ENTRY = 10;
+  private static final int BLOOM_HASHES = 7;
+
+  private final File spillDir;
+  private final long timeWindowMillis;
+  private final HashWindow window;
+
+  private OffHeapLongArray slots;
+  private long capacity;
+  private long mask;
+  private long size;
+
+  private OffHeapLongArray bloom;
+  private long bloomMask;
+  private long bloomInsertsSinceRebuild;
+
+  private long lookups;
+  private long probes;
+  private long absentLookups;
+  private long bloomFalsePositives;
+
+  private int references;
+
+  /**
+   * @param recordCountWindow maximum number of hashes in the set, the oldest one is evicted when exceeded
+   * @param timeWindowMillis hashes older than this are evicted, 0 to disable the time window
+   */
+  OffHeapHashTable(long recordCountWindow, long timeWindowMillis, File spillDir, boolean useBloomFilter)
+      throws IOException {
+    this.spillDir = spillDir;
+    this.timeWindowMillis = timeWindowMillis;
+    this.capacity = Math.max(MIN_CAPACITY, Long.highestOneBit(Math.max(1, recordCountWindow * 2 - 1)) << 1);
+    this.mask = capacity - 1;
+    this.slots = OffHeapLongArray.allocate(capacity * 2, spillDir);
+    try {
+      this.window = new HashWindow(recordCountWindow, timeWindowMillis > 0, spillDir);
+      if (useBloomFilter) {
+        allocateBloomFilter();
+      }
+    } catch (IOException | RuntimeException ex) {
+      close();
+      throw ex;
+    }
+  }
+
+  synchronized OffHeapHashTable retain() {
+    references++;
+    return this;
+  }
+
+  /**
+   * Drops one reference, the table is closed when the last one is released.
+   *
+   * @return true if the table was closed
+   */
+  synchronized boolean release() {
+    if (--references <= 0) {
+      close();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Adds given hash into the set, evicting hashes that fell out of the windows.
+   *
+   * @param now current time in milliseconds, ignored if there is no time window
+   * @return true if the hash was added, false if it was already present
+   */
+  synchronized boolean add(long hi, long lo, long now) throws IOException {
+    if (timeWindowMillis > 0) {
+      window.expire(now - timeWindowMillis, this);
+    }
+    if (!insert(hi, lo)) {
+      return false;
+    }
+    window.add(hi, lo, now, this);
+    return true;
+  }
+
+  /**
+   * Inserts given hash into the set, without recording it in the window.
+   *
+   * @return true if the hash was inserted, false if it was already present
+   */
+  synchronized boolean insert(long hi, long lo) throws IOException {
+    if (hi == 0 && lo == 0) {
+      lo = 1;
+    }
+    lookups++;
+
+    boolean mightContain = bloom == null || bloomMightContain(hi, lo);
+    long slot = lo & mask;
+    while (true) {
+      probes++;
+      long slotHi = slots.get(slot << 1);
+      long slotLo = slots.get((slot << 1) + 1);
+      if (slotHi == 0 && slotLo == 0) {
+        break;
+      }
+      if (mightContain && slotHi == hi && slotLo == lo) {
+        return false;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    absentLookups++;
+    if (bloom != null && mightContain) {
+      bloomFalsePositives++;
+    }
+
+    slots.set(slot << 1, hi);
+    slots.set((slot << 1) + 1, lo);
+    size++;
+    if (bloom != null) {
+      bloomAdd(hi, lo);
+    }
+
+    if (size * 2 > capacity) {
+      grow();
+    } else if (bloom != null && bloomInsertsSinceRebuild > capacity / 2) {
+      rebuildBloomFilter();
+    }
+    return true;
+  }
+
+  /**
+   * Removes given hash from the set if present.
+   */
+  synchronized void remove(long hi, long lo) {
+    if (hi == 0 && lo == 0) {
+      lo = 1;
+    }
+
+    long slot = lo & mask;
+    while (true) {
+      long slotHi = slots.get(slot << 1);
+      long slotLo = slots.get((slot << 1) + 1);
+      if (slotHi == 0 && slotLo == 0) {
+        return;
+      }
+      if (slotHi == hi && slotLo == lo) {
+        break;
+      }
+      slot = (slot + 1) & mask;
+    }
+    size--;
+
+    // Backward shift deletion - move up entries that would not be reachable any more
+    long hole = slot;
+    long next = slot;
+    while (true) {
+      next = (next + 1) & mask;
+      long nextHi = slots.get(next << 1);
+      long nextLo = slots.get((next << 1) + 1);
+      if (nextHi == 0 && nextLo == 0) {
+        break;
+      }
+      long ideal = nextLo & mask;
+      boolean reachable = (hole <= next) ? (hole < ideal && ideal <= next) : (hole < ideal || ideal <= next);
+      if (!reachable) {
+        slots.set(hole << 1, nextHi);
+        slots.set((hole << 1) + 1, nextLo);
+        hole = next;
+      }
+    }
+    slots.set(hole << 1, 0L);
+    slots.set((hole << 1) + 1, 0L);
+  }
+
+  synchronized long size() {
+    return size;
+  }
+
+  synchronized long getMemoryUsed() {
+    return slots.sizeInBytes() + window.getMemoryUsed() + (bloom == null ? 0 : bloom.sizeInBytes());
+  }
+
+  synchronized double getProbesPerLookup() {
+    return lookups == 0 ? 0 : (double) probes / lookups;
+  }
+
+  /**
+   * Ratio of hashes that were not in the set, but the Bloom filter claimed they might be.
+   */
+  synchronized double getBloomFalsePositiveRate() {
+    return absentLookups == 0 ? 0 : (double) bloomFalsePositives / absentLookups;
+  }
+
+  private void grow() throws IOException {
+    OffHeapLongArray oldSlots = slots;
+    long oldCapacity = capacity;
+
+    capacity = oldCapacity * 2;
+    mask = capacity - 1;
+    slots = OffHeapLongArray.allocate(capacity * 2, spillDir);
+    for (long i = 0; i < oldCapacity; i++) {
+      long hi = oldSlots.get(i << 1);
+      long lo = oldSlots.get((i << 1) + 1);
+      if (hi != 0 || lo != 0) {
+        long slot = lo & mask;
+        while (slots.get(slot << 1) != 0 || slots.get((slot << 1) + 1) != 0) {
+          slot = (slot + 1) & mask;
+        }
+        slots.set(slot << 1, hi);
+        slots.set((slot << 1) + 1, lo);
+      }
+    }
+    oldSlots.close();
+    LOG.debug("Deduplication table grown to {} slots", capacity);
+
+    if (bloom != null) {
+      bloom.close();
+      allocateBloomFilter();
+    }
+  }
+
+  private void allocateBloomFilter() throws IOException {
+    // Sized for the maximum number of entries the table holds before growing
+    long bits = Long.highestOneBit(Math.max(64, capacity / 2 * BLOOM_BITS_PER_ENTRY - 1)) << 1;
+    bloom = OffHeapLongArray.allocate(bits / Long.SIZE, null);
+    bloomMask = bits - 1;
+    populateBloomFilter();
+  }
+
+  private void rebuildBloomFilter() {
+    bloom.clear();
+    populateBloomFilter();
+  }
+
+  private void populateBloomFilter() {
+    for (long i = 0; i < capacity; i++) {
+      long hi = slots.get(i << 1);
+      long lo = slots.get((i << 1) + 1);
+      if (hi != 0 || lo != 0) {
+        bloomAdd(hi, lo);
+      }
+    }
+    bloomInsertsSinceRebuild = 0;
+  }
+
+  private void bloomAdd(long hi, long lo) {
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      long bit = (hi + i * lo) & bloomMask;
+      long word = bit >>> 6;
+      bloom.set(word, bloom.get(word) | (1L << bit));
+    }
+    bloomInsertsSinceRebuild++;
+  }
+
+  private boolean bloomMightContain(long hi, long lo) {
+    for (int i = 0; i < BLOOM_HASHES; i++) {
+      long bit = (hi + i * lo) & bloomMask;
+      if ((bloom.get(bit >>> 6) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (window != null) {
+      window.close();
+    }
+    if (slots != null) {
+      slots.close();
+      slots = null;
+    }
+    if (bloom != null) {
+      bloom.close();
+      bloom = null;
+    }
+  }
+}
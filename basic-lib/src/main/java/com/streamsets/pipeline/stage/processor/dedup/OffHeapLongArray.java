@@ -0,0 +1,171 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.streamsets.pipeline.api.impl.Utils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Array of longs that lives outside of the java heap.
+ *
+ * The array is split into segments as a single ByteBuffer can't address more than 2GB. Segments are either direct
+ * buffers or, when a spill directory is given, memory mapped regions of a temporary file so that the operating system
+ * can page them out. Newly allocated arrays are always zeroed.
+ *
+ * Direct segments are allocated as Netty buffers and released as soon as the array is closed rather than when the
+ * garbage collector gets to them, so the array must not be used after {@link #close()}. Java offers no way to unmap
+ * memory mapped segments, they are unmapped by the garbage collector. Their spill file is deleted on close, or on exit
+ * on platforms that don't allow deleting mapped files.
+ */
+final class OffHeapLongArray implements Closeable {
+  private static final Logger LOG = LoggerFactory.getLogger(OffHeapLongArray.class);
+
+  // 2^24 longs = 128MB per segment
+  private static final int SEGMENT_SHIFT = 24;
+  private static final int SEGMENT_MASK = (1 << SEGMENT_SHIFT) - 1;
+
+  private final long length;
+  private final File file;
+  private final RandomAccessFile raf;
+  // backing buffers of direct segments, null for mapped segments
+  private final ByteBuf[] buffers;
+  private ByteBuffer[] segments;
+
+  private OffHeapLongArray(long length, File file, RandomAccessFile raf, ByteBuf[] buffers, ByteBuffer[] segments) {
+    this.length = length;
+    this.file = file;
+    this.raf = raf;
+    this.buffers = buffers;
+    this.segments = segments;
+  }
+
+  /**
+   * Allocate new array of given length, memory mapped in a temporary file in spillDir if it's not null.
+   */
+  static OffHeapLongArray allocate(long length, File spillDir) throws IOException {
+    Utils.checkArgument(length > 0, Utils.format("Invalid length '{}'", length));
+    int segmentCount = (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+    ByteBuffer[] segments = new ByteBuffer[segmentCount];
+
+    if (spillDir == null) {
+      ByteBuf[] buffers = new ByteBuf[segmentCount];
+      try {
+        for (int i = 0; i < segmentCount; i++) {
+          int bytes = segmentBytes(length, i);
+          buffers[i] = Unpooled.directBuffer(bytes, bytes);
+          // Unlike ByteBuffer.allocateDirect, Netty doesn't zero the memory
+          buffers[i].setZero(0, bytes);
+          segments[i] = buffers[i].nioBuffer(0, bytes).order(ByteOrder.nativeOrder());
+        }
+      } catch (OutOfMemoryError ex) {
+        release(buffers);
+        throw ex;
+      }
+      return new OffHeapLongArray(length, null, null, buffers, segments);
+    }
+
+    File file = File.createTempFile("sdc-dedup-", ".spill", spillDir);
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      FileChannel channel = raf.getChannel();
+      for (int i = 0; i < segmentCount; i++) {
+        long position = ((long) i << SEGMENT_SHIFT) * Long.BYTES;
+        segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, segmentBytes(length, i))
+            .order(ByteOrder.nativeOrder());
+      }
+    } catch (IOException ex) {
+      raf.close();
+      deleteSpillFile(file);
+      throw ex;
+    }
+    return new OffHeapLongArray(length, file, raf, null, segments);
+  }
+
+  private static int segmentBytes(long length, int segment) {
+    long remaining = length - ((long) segment << SEGMENT_SHIFT);
+    return (int) Math.min(remaining, SEGMENT_MASK + 1L) * Long.BYTES;
+  }
+
+  long length() {
+    return length;
+  }
+
+  long sizeInBytes() {
+    return length * Long.BYTES;
+  }
+
+  long get(long index) {
+    return segments[(int) (index >>> SEGMENT_SHIFT)].getLong(((int) index & SEGMENT_MASK) << 3);
+  }
+
+  void set(long index, long value) {
+    segments[(int) (index >>> SEGMENT_SHIFT)].putLong(((int) index & SEGMENT_MASK) << 3, value);
+  }
+
+  void clear() {
+    for (ByteBuffer segment : segments) {
+      for (int i = 0; i < segment.capacity(); i += Long.BYTES) {
+        segment.putLong(i, 0L);
+      }
+    }
+  }
+
+  private static void release(ByteBuf[] buffers) {
+    for (ByteBuf buffer : buffers) {
+      if (buffer != null) {
+        buffer.release();
+      }
+    }
+  }
+
+  private static void deleteSpillFile(File file) {
+    if (!file.delete()) {
+      // Mapped files can't be deleted on some platforms until the garbage collector unmaps them
+      LOG.debug("Can't delete spill file '{}' yet, deleting it on exit", file);
+      file.deleteOnExit();
+    }
+  }
+
+  @Override
+  public void close() {
+    if (segments == null) {
+      return;
+    }
+    segments = null;
+    if (buffers != null) {
+      release(buffers);
+    }
+    if (raf != null) {
+      try {
+        raf.close();
+      } catch (IOException ex) {
+        LOG.warn("Can't close spill file '{}': {}", file, ex.toString(), ex);
+      }
+      deleteSpillFile(file);
+    }
+  }
+}
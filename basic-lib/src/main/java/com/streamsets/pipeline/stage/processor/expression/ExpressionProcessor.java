@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.processor.expression;
 
+import com.streamsets.datacollector.record.FieldPath;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
@@ -30,6 +31,7 @@ import com.streamsets.pipeline.lib.el.TimeNowEL;
 import com.streamsets.pipeline.lib.util.FieldRegexUtil;
 import com.streamsets.pipeline.lib.util.FieldUtils;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -41,6 +43,8 @@ public class ExpressionProcessor extends SingleLaneRecordProcessor {
   private final List<HeaderAttributeConfig> headerAttributeConfigs;
   private final List<FieldAttributeConfig> fieldAttributeConfigs;
   private final Map<String, ?> memoizedVars = new HashMap<>();
+  // Resolved fieldToSet for each expression config
+  private final List<FieldTarget> fieldsToSet = new ArrayList<>();
 
   private ELEval expressionEval;
   private ELVars expressionVars;
@@ -68,6 +72,7 @@ public class ExpressionProcessor extends SingleLaneRecordProcessor {
     for(ExpressionProcessorConfig expressionProcessorConfig : expressionProcessorConfigs) {
       ELUtils.validateExpression(expressionProcessorConfig.expression, getContext(),
         Groups.EXPRESSIONS.name(), "expressionProcessorConfigs", Errors.EXPR_00, issues);
+      fieldsToSet.add(new FieldTarget(expressionProcessorConfig.fieldToSet));
     }
 
     if(headerAttributeConfigs != null && !headerAttributeConfigs.isEmpty()) {
@@ -93,6 +98,47 @@ public class ExpressionProcessor extends SingleLaneRecordProcessor {
     return issues;
   }
 
+  /**
+   * Field set by an expression. Accessed through a compiled {@link FieldPath}, or through the record by its path if it
+   * contains wildcards or can't be compiled (invalid paths are then reported while processing records as before).
+   */
+  private static final class FieldTarget {
+    private final String path;
+    private final FieldPath fieldPath;
+
+    FieldTarget(String path) {
+      this.path = path;
+      this.fieldPath = compile(path);
+    }
+
+    private static FieldPath compile(String path) {
+      if (path == null || path.isEmpty() || FieldRegexUtil.hasWildCards(path)) {
+        return null;
+      }
+      try {
+        return FieldPath.compile(path);
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+    }
+
+    Field get(Record record) {
+      return fieldPath != null ? fieldPath.get(record) : record.get(path);
+    }
+
+    boolean has(Record record) {
+      return fieldPath != null ? fieldPath.has(record) : record.has(path);
+    }
+
+    void set(Record record, Field field) {
+      if (fieldPath != null) {
+        fieldPath.set(record, field);
+      } else {
+        record.set(path, field);
+      }
+    }
+  }
+
   private ELEval createExpressionEval(ELContext elContext) {
     return elContext.createELEval("expression");
   }
@@ -110,11 +156,13 @@ public class ExpressionProcessor extends SingleLaneRecordProcessor {
     RecordEL.setRecordInContext(expressionVars, record);
     TimeNowEL.setTimeNowInContext(expressionVars, new Date());
 
-    for(ExpressionProcessorConfig expressionProcessorConfig : expressionProcessorConfigs) {
+    for(int i = 0; i < expressionProcessorConfigs.size(); i++) {
+      ExpressionProcessorConfig expressionProcessorConfig = expressionProcessorConfigs.get(i);
       String fieldToSet = expressionProcessorConfig.fieldToSet;
       if(fieldToSet == null || fieldToSet.isEmpty()) {
         continue;
       }
+      FieldTarget target = fieldsToSet.get(i);
       Object result;
       try {
         result = expressionEval.eval(expressionVars, expressionProcessorConfig.expression, Object.class);
@@ -123,35 +171,35 @@ public class ExpressionProcessor extends SingleLaneRecordProcessor {
                                          record.getHeader().getSourceId(), e.toString(), e);
       }
 
+      boolean wildcards = FieldRegexUtil.hasWildCards(fieldToSet);
+      Field existingField = result == null || !wildcards ? target.get(record) : null;
       Field newField = null;
       // we want to preserve existing type info if we have it iff the result value is null.
-      if (result == null && record.has(fieldToSet)) {
-        newField = Field.create(record.get(fieldToSet).getType(), null);
+      if (result == null && existingField != null) {
+        newField = Field.create(existingField.getType(), null);
       } else {
         // otherwise, deduce type from result, even if it's null (which will result in coercion to string)
         newField = Field.create(FieldUtils.getTypeFromObject(result), result);
       }
 
-      if(FieldRegexUtil.hasWildCards(fieldToSet)) {
+      if(wildcards) {
         for(String field : FieldRegexUtil.getMatchingFieldPaths(fieldToSet, record.getEscapedFieldPaths())) {
           record.set(field, newField);
         }
+      } else if (existingField != null) {
+        target.set(record, newField);
       } else {
-        if (record.has(fieldToSet)) {
-          record.set(fieldToSet, newField);
-        } else {
-          //A new field will be created only if the parent field exists and supports creation of a new child field.
-          //For a new field can be created in the parent field which is a map or if the parent field is an array.
-          try {
-            record.set(fieldToSet, newField);
-          } catch (IllegalArgumentException e) {
-            throw new OnRecordErrorException(record, Errors.EXPR_04, record.getHeader().getSourceId(),
-                expressionProcessorConfig.fieldToSet, e.toString());
-          }
-          if (!record.has(fieldToSet)) {
-            throw new OnRecordErrorException(Errors.EXPR_02, record.getHeader().getSourceId(),
-              expressionProcessorConfig.fieldToSet);
-          }
+        //A new field will be created only if the parent field exists and supports creation of a new child field.
+        //For a new field can be created in the parent field which is a map or if the parent field is an array.
+        try {
+          target.set(record, newField);
+        } catch (IllegalArgumentException e) {
+          throw new OnRecordErrorException(record, Errors.EXPR_04, record.getHeader().getSourceId(),
+              expressionProcessorConfig.fieldToSet, e.toString());
+        }
+        if (!target.has(record)) {
+          throw new OnRecordErrorException(Errors.EXPR_02, record.getHeader().getSourceId(),
+            expressionProcessorConfig.fieldToSet);
         }
       }
     }
@@ -49,8 +49,11 @@ public class JsonParserProcessor extends SingleLaneRecordProcessor {
       if (value == null) {
         throw new OnRecordErrorException(Errors.JSONP_01, record.getHeader().getSourceId(), fieldPathToParse);
       }
-      try (OverrunReader reader = new OverrunReader(new StringReader(value), -1, false, removeCtrlChars)) {
-        JsonCharDataParser parser = new JsonCharDataParser(getContext(), "", reader, 0, Mode.MULTIPLE_OBJECTS, -1);
+      try (
+          OverrunReader reader = new OverrunReader(new StringReader(value), -1, false, removeCtrlChars);
+          // Closing the parser releases its symbol table back to the factory so field names stay canonical across records
+          JsonCharDataParser parser = new JsonCharDataParser(getContext(), "", reader, 0, Mode.MULTIPLE_OBJECTS, -1)
+      ) {
         Field parsed = parser.parseAsField();
         if (parsed != null) {
           record.set(parsedFieldPath, parsed);
@@ -822,4 +822,107 @@ public class TestDirectorySpooler {
 
     spooler.destroy();
   }
+
+  @Test
+  public void testFileSystemEvents() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+
+    DirectorySpooler.Builder builder = initializeAndGetBuilder()
+        .setMaxSpoolFiles(10)
+        .setSpoolingPeriodSec(600)
+        .useFileSystemEvents(true);
+
+    DirectorySpooler spooler = builder.build();
+    spooler.init("");
+    try {
+      Assert.assertNotNull(spooler.listener);
+
+      // New file is found long before the next directory scan
+      File logFile1 = new File(spoolDir, "x1.log").getAbsoluteFile();
+      new FileWriter(logFile1).close();
+      new FileWriter(new File(spoolDir, "y1.log")).close();
+
+      Assert.assertEquals(logFile1.getAbsolutePath(), spooler.poolForFile(intervalMillis, TimeUnit.MILLISECONDS).getAbsolutePath());
+      Assert.assertNull(spooler.poolForFile(1, TimeUnit.SECONDS));
+    } finally {
+      spooler.destroy();
+    }
+  }
+
+  @Test
+  public void testFileIndex() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+    File indexDir = new File(spoolDir.getParentFile(), "index").getAbsoluteFile();
+
+    File logFile1 = new File(spoolDir, "x1.log").getAbsoluteFile();
+    new FileWriter(logFile1).close();
+    File logFile2 = new File(spoolDir, "x2.log").getAbsoluteFile();
+    new FileWriter(logFile2).close();
+
+    DirectorySpooler spooler = initializeAndGetBuilder()
+        .setMaxSpoolFiles(10)
+        .setFileIndexDir(indexDir.getAbsolutePath())
+        .build();
+    spooler.init("");
+    Assert.assertEquals(logFile1.getAbsolutePath(), spooler.poolForFile(intervalMillis, TimeUnit.MILLISECONDS).getAbsolutePath());
+    spooler.destroy();
+
+    // File being processed and the queued ones are in the index
+    SpoolDirFileIndex index = new SpoolDirFileIndex(indexDir.getAbsolutePath(), "myPipeline-s", spoolDir.getAbsolutePath(), "x[0-9]*.log", false);
+    Assert.assertEquals(Arrays.asList("x1.log", "x2.log"), index.load());
+
+    // Index of differently configured origin is ignored
+    Assert.assertNull(new SpoolDirFileIndex(indexDir.getAbsolutePath(), "myPipeline-s", spoolDir.getAbsolutePath(), "*.log", false).load());
+
+    // Files from index that no longer exist are skipped on restart
+    assertTrue(logFile1.delete());
+    spooler = initializeAndGetBuilder()
+        .setMaxSpoolFiles(10)
+        .setFileIndexDir(indexDir.getAbsolutePath())
+        .build();
+    spooler.init("");
+    try {
+      Assert.assertEquals(logFile2.getAbsolutePath(), spooler.poolForFile(intervalMillis, TimeUnit.MILLISECONDS).getAbsolutePath());
+      Assert.assertNull(spooler.poolForFile(1, TimeUnit.SECONDS));
+    } finally {
+      spooler.destroy();
+    }
+  }
+
+  @Test
+  public void testFileIndexSkipsInitialScan() throws Exception {
+    assertTrue(spoolDir.mkdirs());
+    File indexDir = new File(spoolDir.getParentFile(), "index").getAbsoluteFile();
+
+    File logFile1 = new File(spoolDir, "x1.log").getAbsoluteFile();
+    new FileWriter(logFile1).close();
+
+    DirectorySpooler spooler = initializeAndGetBuilder()
+        .setMaxSpoolFiles(10)
+        .setSpoolingPeriodSec(600)
+        .setFileIndexDir(indexDir.getAbsolutePath())
+        .build();
+    spooler.init("");
+    spooler.destroy();
+
+    // File added while the origin was stopped is left to the next periodic scan
+    File logFile2 = new File(spoolDir, "x2.log").getAbsoluteFile();
+    new FileWriter(logFile2).close();
+
+    spooler = initializeAndGetBuilder()
+        .setMaxSpoolFiles(10)
+        .setSpoolingPeriodSec(600)
+        .setFileIndexDir(indexDir.getAbsolutePath())
+        .build();
+    spooler.init("");
+    try {
+      Assert.assertEquals(logFile1.getAbsolutePath(), spooler.poolForFile(intervalMillis, TimeUnit.MILLISECONDS).getAbsolutePath());
+      Assert.assertNull(spooler.poolForFile(1, TimeUnit.SECONDS));
+
+      spooler.finder.run();
+      Assert.assertEquals(logFile2.getAbsolutePath(), spooler.poolForFile(intervalMillis, TimeUnit.MILLISECONDS).getAbsolutePath());
+    } finally {
+      spooler.destroy();
+    }
+  }
 }
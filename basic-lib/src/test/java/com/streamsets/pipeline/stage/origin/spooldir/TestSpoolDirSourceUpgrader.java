@@ -107,4 +107,16 @@ public class TestSpoolDirSourceUpgrader {
 
     UpgraderTestUtils.assertExists(configs, dataFormatPrefix + "preserveRootElement", false);
   }
+
+  @Test
+  public void testV11ToV12() {
+    Mockito.doReturn(11).when(context).getFromVersion();
+    Mockito.doReturn(12).when(context).getToVersion();
+
+    configs = upgrader.upgrade(configs, context);
+
+    UpgraderTestUtils.assertExists(configs, "conf.useFileSystemEvents", false);
+    UpgraderTestUtils.assertExists(configs, "conf.reconcilePeriod", 600);
+    UpgraderTestUtils.assertExists(configs, "conf.fileIndexDir", "");
+  }
 }
@@ -80,4 +80,22 @@ public class TestAggregationFunction {
     Assert.assertEquals("SUM (int)", AggregationFunction.SUM_INTEGER.getLabel());
     Assert.assertEquals(LongSumAggregator.class, AggregationFunction.SUM_INTEGER.getAggregatorClass());
   }
+
+  @Test
+  public void testDistinctCount() {
+    Assert.assertEquals("DISTINCT COUNT (approx)", AggregationFunction.DISTINCT_COUNT.getLabel());
+    Assert.assertEquals(DistinctCountAggregator.class, AggregationFunction.DISTINCT_COUNT.getAggregatorClass());
+  }
+
+  @Test
+  public void testPercentiles() {
+    Assert.assertEquals("MEDIAN (approx)", AggregationFunction.MEDIAN_DOUBLE.getLabel());
+    Assert.assertEquals(DoubleMedianAggregator.class, AggregationFunction.MEDIAN_DOUBLE.getAggregatorClass());
+    Assert.assertEquals("90th PERCENTILE (approx)", AggregationFunction.P90_DOUBLE.getLabel());
+    Assert.assertEquals(DoubleP90Aggregator.class, AggregationFunction.P90_DOUBLE.getAggregatorClass());
+    Assert.assertEquals("95th PERCENTILE (approx)", AggregationFunction.P95_DOUBLE.getLabel());
+    Assert.assertEquals(DoubleP95Aggregator.class, AggregationFunction.P95_DOUBLE.getAggregatorClass());
+    Assert.assertEquals("99th PERCENTILE (approx)", AggregationFunction.P99_DOUBLE.getLabel());
+    Assert.assertEquals(DoubleP99Aggregator.class, AggregationFunction.P99_DOUBLE.getAggregatorClass());
+  }
 }
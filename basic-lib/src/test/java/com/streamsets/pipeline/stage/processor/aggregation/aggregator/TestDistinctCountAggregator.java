@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
+
+import com.streamsets.pipeline.stage.processor.aggregation.WindowType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestDistinctCountAggregator {
+
+  private static void assertApproximately(long expected, long actual) {
+    Assert.assertTrue("Expected ~" + expected + " got " + actual, Math.abs(expected - actual) <= expected * 0.05);
+  }
+
+  @Test
+  public void testAggregator() {
+    Aggregators aggregators = new Aggregators(2, WindowType.ROLLING);
+    DistinctCountAggregator aggregator = aggregators.createSimple("a", DistinctCountAggregator.class);
+    aggregators.start(1);
+
+    Aggregators aggregatorsA = new Aggregators(2, WindowType.ROLLING);
+    DistinctCountAggregator aggregatorA = aggregatorsA.createSimple("a", DistinctCountAggregator.class);
+    aggregatorsA.start(1);
+
+    Assert.assertEquals(Object.class, aggregator.getInputType());
+    Assert.assertEquals(0L, aggregator.get());
+
+    aggregator.process("x");
+    aggregator.process("x");
+    aggregator.process(1L);
+    aggregator.process(1.0d);
+    aggregator.process(null);
+    Assert.assertEquals(2L, aggregator.get());
+
+    for (int i = 0; i < 10000; i++) {
+      aggregator.process("value-" + i);
+    }
+    assertApproximately(10002, (Long) aggregator.get());
+
+    Assert.assertEquals("a", aggregator.getAggregatable().getName());
+    DistinctCountAggregator.DistinctCountAggregatable aggregatable =
+        (DistinctCountAggregator.DistinctCountAggregatable) aggregator.getAggregatable();
+    Assert.assertEquals(1 << HyperLogLog.DEFAULT_PRECISION, aggregatable.getRegisters().length);
+
+    // overlapping value sets, union has 15000 + 2 values
+    for (int i = 5000; i < 15000; i++) {
+      aggregatorA.process("value-" + i);
+    }
+    aggregatorA.aggregate(aggregatable);
+    assertApproximately(15002, (Long) aggregatorA.get());
+
+    aggregatorsA.stop();
+    aggregators.stop();
+  }
+
+  @Test
+  public void testConcurrentProcessing() throws Exception {
+    Aggregators aggregators = new Aggregators(2, WindowType.ROLLING);
+    DistinctCountAggregator aggregator = aggregators.createSimple("a", DistinctCountAggregator.class);
+    aggregators.start(1);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 20000; i++) {
+          aggregator.process(i);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertApproximately(20000, (Long) aggregator.get());
+    aggregators.stop();
+  }
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.aggregation.aggregator;
+
+import com.streamsets.pipeline.stage.processor.aggregation.WindowType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+public class TestDoublePercentileAggregator {
+
+  @Test
+  public void testAggregator() {
+    Aggregators aggregators = new Aggregators(2, WindowType.ROLLING);
+    DoubleMedianAggregator median = aggregators.createSimple("m", DoubleMedianAggregator.class);
+    DoubleP99Aggregator p99 = aggregators.createSimple("p", DoubleP99Aggregator.class);
+    aggregators.start(1);
+
+    Assert.assertNull(median.get());
+
+    median.process(5d);
+    Assert.assertEquals(5d, median.get(), 0);
+
+    List<Double> values = new ArrayList<>();
+    for (int i = 1; i <= 10000; i++) {
+      values.add((double) i);
+    }
+    Collections.shuffle(values, new Random(0));
+    for (Double value : values) {
+      median.process(value);
+      p99.process(value);
+    }
+    Assert.assertEquals(5000, median.get(), 50);
+    Assert.assertEquals(9900, p99.get(), 20);
+
+    // merging the closed window into a new aggregator keeps the distribution
+    Map<Aggregator, AggregatorData> closed = aggregators.roll(2);
+    Assert.assertEquals(9900, (Double) closed.get(p99).get(), 20);
+
+    Aggregators aggregatorsA = new Aggregators(2, WindowType.ROLLING);
+    DoubleP99Aggregator p99A = aggregatorsA.createSimple("p", DoubleP99Aggregator.class);
+    aggregatorsA.start(1);
+    for (int i = 10001; i <= 20000; i++) {
+      p99A.process((double) i);
+    }
+    p99A.aggregate(closed.get(p99).getAggregatable());
+    Assert.assertEquals(19800, p99A.get(), 40);
+
+    aggregatorsA.stop();
+    aggregators.stop();
+  }
+
+  @Test
+  public void testNoValueLostWhileClosing() throws Exception {
+    int threads = 4;
+    int valuesPerThread = 20000;
+    for (int run = 0; run < 20; run++) {
+      Aggregators aggregators = new Aggregators(2, WindowType.ROLLING);
+      DoubleMedianAggregator median = aggregators.createSimple("m", DoubleMedianAggregator.class);
+      aggregators.start(1);
+      AggregatorData<DoubleMedianAggregator, Double> data = median.getData();
+
+      CountDownLatch start = new CountDownLatch(1);
+      List<Thread> workers = new ArrayList<>();
+      for (int t = 0; t < threads; t++) {
+        Thread worker = new Thread(() -> {
+          try {
+            start.await();
+          } catch (InterruptedException ex) {
+            return;
+          }
+          for (int i = 0; i < valuesPerThread; i++) {
+            data.process(1d);
+          }
+        });
+        worker.start();
+        workers.add(worker);
+      }
+      start.countDown();
+      data.close();
+      for (Thread worker : workers) {
+        worker.join();
+      }
+
+      Aggregator.Aggregatable aggregatable = data.getAggregatable();
+      double totalWeight = 0;
+      for (double weight : ((DoublePercentileAggregator.DoublePercentileAggregatable) aggregatable).getWeights()) {
+        totalWeight += weight;
+      }
+      Assert.assertEquals(threads * valuesPerThread, totalWeight, 0);
+      aggregators.stop();
+    }
+  }
+
+  @Test
+  public void testTDigestExtremes() {
+    TDigest digest = new TDigest();
+    Assert.assertTrue(Double.isNaN(digest.quantile(0.5)));
+    Random random = new Random(1);
+    for (int i = 0; i < 100000; i++) {
+      digest.add(random.nextGaussian());
+    }
+    Assert.assertEquals(digest.getMin(), digest.quantile(0), 0);
+    Assert.assertEquals(digest.getMax(), digest.quantile(1), 0);
+    Assert.assertEquals(0, digest.quantile(0.5), 0.02);
+    Assert.assertEquals(2.326, digest.quantile(0.99), 0.05);
+    // centroid count is bounded by the compression, not by the number of values
+    Assert.assertTrue(digest.getMeans().length <= TDigest.DEFAULT_COMPRESSION);
+  }
+
+}
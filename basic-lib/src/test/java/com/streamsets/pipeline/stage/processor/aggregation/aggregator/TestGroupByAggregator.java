@@ -20,7 +20,10 @@ import com.streamsets.pipeline.stage.processor.aggregation.WindowType;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 public class TestGroupByAggregator {
 
@@ -70,4 +73,32 @@ public class TestGroupByAggregator {
     aggregators.stop();
   }
 
+  @Test
+  public void testConcurrentProcessing() throws Exception {
+    Aggregators aggregators = new Aggregators(2, WindowType.ROLLING);
+    GroupByAggregator<CountAggregator, Long> aggregator = aggregators.createGroupBy("g", CountAggregator.class);
+    aggregators.start(1);
+
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      Thread thread = new Thread(() -> {
+        for (int i = 0; i < 10000; i++) {
+          aggregator.process("group-" + (i % 10), 1L);
+        }
+      });
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    Map<String, Long> counts = aggregator.get();
+    Assert.assertEquals(10, counts.size());
+    for (Long count : counts.values()) {
+      Assert.assertEquals((Long) 8000L, count);
+    }
+    aggregators.stop();
+  }
+
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import com.streamsets.pipeline.api.Config;
+import com.streamsets.pipeline.upgrader.YamlStageUpgrader;
+import com.streamsets.pipeline.upgrader.YamlStageUpgraderLoader;
+import com.streamsets.testing.pipeline.stage.TestUpgraderContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TestDeDupDProcessorUpgrader {
+
+  @Test
+  public void testV1ToV2Upgrade() {
+    URL yamlResource = ClassLoader.getSystemClassLoader().getResource("upgrader/DeDupDProcessor.yaml");
+    YamlStageUpgrader upgrader = new YamlStageUpgraderLoader("stage", yamlResource).get();
+
+    List<Config> configs = new ArrayList<>();
+    configs.add(new Config("recordCountWindow", 1000));
+    configs = upgrader.upgrade(configs, new TestUpgraderContext("lib", "stage", "instance", 1, 2));
+
+    Assert.assertEquals(4, configs.size());
+    Assert.assertEquals("HEAP", find(configs, "hashStore").getValue());
+    Assert.assertEquals("", find(configs, "spillDirectory").getValue());
+    Assert.assertEquals(false, find(configs, "useBloomFilter").getValue());
+  }
+
+  private static Config find(List<Config> configs, String name) {
+    return configs.stream().filter(c -> c.getName().equals(name)).findFirst().orElse(null);
+  }
+}
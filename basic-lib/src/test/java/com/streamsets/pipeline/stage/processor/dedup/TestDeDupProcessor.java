@@ -27,6 +27,9 @@ import com.streamsets.pipeline.sdk.StageRunner;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
@@ -512,4 +515,75 @@ public class TestDeDupProcessor {
 //    }
 //  }
 
+  private ProcessorRunner createOffHeapRunner(int recordCountWindow, int timeWindowSecs, String spillDirectory,
+      boolean useBloomFilter) throws StageException {
+    Processor processor = new DeDupProcessor(recordCountWindow, timeWindowSecs, SelectFields.ALL_FIELDS,
+        Collections.EMPTY_LIST, HashStore.OFF_HEAP, spillDirectory, useBloomFilter);
+    ProcessorRunner runner = new ProcessorRunner.Builder(DeDupDProcessor.class, processor)
+        .addOutputLane("unique")
+        .addOutputLane("duplicate")
+        .build();
+    runner.runInit();
+    return runner;
+  }
+
+  @Test
+  public void testOffHeapDupWithinRecordTail() throws Exception {
+    ProcessorRunner runner = createOffHeapRunner(3, 0, "", false);
+    try {
+      List<Record> input = ImmutableList.of(
+          createRecordWithValue("a"),
+          createRecordWithValue("b"),
+          createRecordWithValue("a"),
+          createRecordWithValue("c"),
+          createRecordWithValue("d"),
+          createRecordWithValue("a")
+      );
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(5, output.getRecords().get("unique").size());
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testOffHeapDupOutsideTimeWindow() throws Exception {
+    ProcessorRunner runner = createOffHeapRunner(4, 1, "", false);
+    try {
+      StageRunner.Output output = runner.runProcess(ImmutableList.of(createRecordWithValue("a")));
+      Assert.assertEquals(1, output.getRecords().get("unique").size());
+
+      output = runner.runProcess(ImmutableList.of(createRecordWithValue("a")));
+      Assert.assertEquals(1, output.getRecords().get("duplicate").size());
+
+      Thread.sleep(1001);
+
+      output = runner.runProcess(ImmutableList.of(createRecordWithValue("a")));
+      Assert.assertEquals(1, output.getRecords().get("unique").size());
+      Assert.assertEquals(0, output.getRecords().get("duplicate").size());
+    } finally {
+      runner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testOffHeapSpillWithBloomFilter() throws Exception {
+    File spillDir = Files.createTempDirectory("dedup").toFile();
+    ProcessorRunner runner = createOffHeapRunner(5000, 0, spillDir.getAbsolutePath(), true);
+    try {
+      List<Record> input = new ArrayList<>();
+      for (int i = 0; i < 3000; i++) {
+        input.add(createRecordWithValue(String.valueOf(i % 2000)));
+      }
+      StageRunner.Output output = runner.runProcess(input);
+      Assert.assertEquals(2000, output.getRecords().get("unique").size());
+      Assert.assertEquals(1000, output.getRecords().get("duplicate").size());
+      Assert.assertEquals(2, spillDir.list().length);
+    } finally {
+      runner.runDestroy();
+    }
+    Assert.assertEquals(0, spillDir.list().length);
+    Assert.assertTrue(spillDir.delete());
+  }
 }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class TestOffHeapHashTable {
+
+  @Test
+  public void testAddRemoveAndGrow() throws Exception {
+    OffHeapHashTable table = new OffHeapHashTable(16, 0, null, true).retain();
+    try {
+      Random random = new Random(42);
+      long[] his = new long[5000];
+      long[] los = new long[5000];
+      for (int i = 0; i < his.length; i++) {
+        his[i] = random.nextLong();
+        // Force collisions into a handful of neighbouring slots
+        los[i] = (random.nextLong() & ~0xFFFL) | (i % 8);
+        Assert.assertTrue(table.insert(his[i], los[i]));
+      }
+      Assert.assertEquals(his.length, table.size());
+
+      for (int i = 0; i < his.length; i += 2) {
+        table.remove(his[i], los[i]);
+      }
+      Assert.assertEquals(his.length / 2, table.size());
+
+      for (int i = 0; i < his.length; i++) {
+        // Removed hashes can be added again, the others are still present
+        Assert.assertEquals(i % 2 == 0, table.insert(his[i], los[i]));
+      }
+      Assert.assertTrue(table.getProbesPerLookup() >= 1);
+      Assert.assertTrue(table.getBloomFalsePositiveRate() < 1);
+    } finally {
+      Assert.assertTrue(table.release());
+    }
+  }
+
+  @Test
+  public void testZeroHash() throws Exception {
+    OffHeapHashTable table = new OffHeapHashTable(16, 0, null, false).retain();
+    try {
+      Assert.assertTrue(table.insert(0, 0));
+      Assert.assertFalse(table.insert(0, 0));
+      table.remove(0, 0);
+      Assert.assertTrue(table.insert(0, 0));
+    } finally {
+      table.release();
+    }
+  }
+
+  @Test
+  public void testWindows() throws Exception {
+    OffHeapHashTable table = new OffHeapHashTable(2, 1000, null, false).retain();
+    try {
+      // Count window, the oldest hash is evicted no matter who added it
+      Assert.assertTrue(table.add(1, 1, 0));
+      Assert.assertTrue(table.add(2, 2, 0));
+      Assert.assertFalse(table.add(1, 1, 0));
+      Assert.assertTrue(table.add(3, 3, 0));
+      Assert.assertEquals(2, table.size());
+      Assert.assertTrue(table.add(1, 1, 0));
+
+      // Time window, everything older than a second is gone
+      Assert.assertFalse(table.add(1, 1, 999));
+      Assert.assertTrue(table.add(3, 3, 1001));
+      Assert.assertEquals(1, table.size());
+    } finally {
+      Assert.assertTrue(table.release());
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.dedup;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+public class TestOffHeapLongArray {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private static void assertZeroedAndWritable(OffHeapLongArray array) {
+    for (long i = 0; i < array.length(); i++) {
+      Assert.assertEquals(0L, array.get(i));
+      array.set(i, i * 31);
+    }
+    for (long i = 0; i < array.length(); i++) {
+      Assert.assertEquals(i * 31, array.get(i));
+    }
+  }
+
+  @Test
+  public void testDirect() throws Exception {
+    for (int i = 0; i < 10; i++) {
+      // Memory released by the previous iteration is likely to be reused, it still has to be zeroed
+      try (OffHeapLongArray array = OffHeapLongArray.allocate(1000, null)) {
+        assertZeroedAndWritable(array);
+      }
+    }
+  }
+
+  @Test
+  public void testSpillFileDeletedOnClose() throws Exception {
+    File spillDir = tempFolder.newFolder();
+    try (OffHeapLongArray array = OffHeapLongArray.allocate(1000, spillDir)) {
+      Assert.assertEquals(1, spillDir.list().length);
+      assertZeroedAndWritable(array);
+    }
+    Assert.assertEquals(0, spillDir.list().length);
+  }
+}
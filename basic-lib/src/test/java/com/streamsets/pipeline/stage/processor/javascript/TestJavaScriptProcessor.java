@@ -363,6 +363,18 @@ public class TestJavaScriptProcessor {
     ScriptingProcessorTestUtil.verifyNestedMap(JavaScriptDProcessor.class, processor);
   }
 
+  @Test
+  public void testUntouchedFieldsPreserved() throws Exception {
+    Processor processor = new JavaScriptProcessor(
+        ProcessingMode.BATCH,
+        "for (var i = 0; i < sdc.records.length; i++){\n" +
+            "  sdc.records[i].value.touched = 'changed';\n" +
+            "  sdc.output.write(sdc.records[i]);\n" +
+            "}"
+    );
+    ScriptingProcessorTestUtil.verifyUntouchedFieldsPreserved(JavaScriptDProcessor.class, processor);
+  }
+
   @Test
   public void testChangeFieldTypeFromScripting() throws Exception {
     Processor processor = new JavaScriptProcessor(
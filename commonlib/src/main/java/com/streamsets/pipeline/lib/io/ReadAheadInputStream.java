@@ -0,0 +1,331 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.io;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * <code>InputStream</code> over a local file that reads the following chunks of the file on a shared I/O thread pool
+ * while the current chunk is being consumed, so that reading from disk and parsing don't happen in lockstep.
+ * <p/>
+ * Chunks are either read into heap buffers or memory mapped (and loaded into memory by the I/O thread). Memory mapping
+ * avoids copying the data, but files must not be truncated while they are mapped.
+ * <p/>
+ * Instances are not thread safe.
+ */
+public class ReadAheadInputStream extends InputStream {
+  private static final Logger LOG = LoggerFactory.getLogger(ReadAheadInputStream.class);
+
+  static final int CHUNK_SIZE = Integer.parseInt(System.getProperty("ReadAheadInputStream.chunk.size", "1048576"));
+
+  static final int CHUNKS_AHEAD = Integer.parseInt(System.getProperty("ReadAheadInputStream.chunks.ahead", "2"));
+
+  // files at least this big are memory mapped, negative value disables memory mapping
+  static final long MMAP_THRESHOLD = Long.parseLong(System.getProperty("ReadAheadInputStream.mmap.threshold", "-1"));
+
+  // mapped regions are only released on GC, so they are kept big to stay well below the OS limit of mappings
+  static final int MMAP_CHUNK_SIZE = 64 * 1024 * 1024;
+
+  private static final int IO_THREADS = Integer.parseInt(System.getProperty(
+      "ReadAheadInputStream.io.threads",
+      String.valueOf(Math.max(2, Runtime.getRuntime().availableProcessors()))
+  ));
+
+  private static final ExecutorService IO_POOL = Executors.newFixedThreadPool(
+      IO_THREADS,
+      new ThreadFactoryBuilder().setNameFormat("read-ahead-io-%d").setDaemon(true).build()
+  );
+
+  private final Path path;
+  private final FileChannel channel;
+  private final int chunkSize;
+  private final int chunksAhead;
+  private final boolean mmap;
+  private final Deque<Chunk> ahead;
+  // heap buffers of consumed chunks, reused for the next reads
+  private final Queue<ByteBuffer> spare;
+
+  private long size;
+  private long nextChunkPosition;
+  private ByteBuffer current;
+  private boolean closed;
+
+  /**
+   * Creates a <code>ReadAheadInputStream</code> with the chunk configuration from system properties.
+   *
+   * @param path file to read.
+   * @param position position in bytes to start reading the file from.
+   */
+  public ReadAheadInputStream(Path path, long position) throws IOException {
+    this(path, position, CHUNK_SIZE, CHUNKS_AHEAD, MMAP_THRESHOLD);
+  }
+
+  /**
+   * Creates a <code>ReadAheadInputStream</code>.
+   *
+   * @param path file to read.
+   * @param position position in bytes to start reading the file from.
+   * @param chunkSize size of the chunks read at once.
+   * @param chunksAhead maximum number of chunks read in advance.
+   * @param mmapThreshold files at least this big are memory mapped, a negative value disables memory mapping.
+   */
+  public ReadAheadInputStream(Path path, long position, int chunkSize, int chunksAhead, long mmapThreshold)
+      throws IOException {
+    Utils.checkNotNull(path, "path");
+    Utils.checkArgument(position >= 0, "position must be equal or greater than zero");
+    Utils.checkArgument(chunkSize > 0, "chunkSize must be greater than zero");
+    Utils.checkArgument(chunksAhead > 0, "chunksAhead must be greater than zero");
+    this.path = path;
+    this.chunksAhead = chunksAhead;
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+    this.ahead = new ArrayDeque<>(chunksAhead);
+    this.spare = new ConcurrentLinkedQueue<>();
+    try {
+      size = channel.size();
+    } catch (IOException ex) {
+      channel.close();
+      throw ex;
+    }
+    this.mmap = mmapThreshold >= 0 && size >= mmapThreshold;
+    this.chunkSize = mmap ? Math.max(chunkSize, MMAP_CHUNK_SIZE) : chunkSize;
+    this.nextChunkPosition = position;
+    fillAhead();
+  }
+
+  /**
+   * Reads the beginning of given file on the I/O thread pool, so that it's already in the OS page cache once the file
+   * is opened. Errors are ignored.
+   */
+  public static void prefetch(Path path) {
+    IO_POOL.submit(() -> {
+      try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHUNK_SIZE, channel.size()));
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+          // NOP
+        }
+      } catch (IOException ex) {
+        LOG.debug("Could not prefetch '{}': {}", path, ex.toString());
+      }
+    });
+  }
+
+  /**
+   * Returns the position in the file of the next byte to be read.
+   */
+  public long getPosition() {
+    return nextChunkPosition - bufferedBytes();
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!ensureData()) {
+      return -1;
+    }
+    return current.get() & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (off < 0 || len < 0 || len > b.length - off) {
+      throw new IndexOutOfBoundsException();
+    }
+    if (len == 0) {
+      return 0;
+    }
+    if (!ensureData()) {
+      return -1;
+    }
+    int count = Math.min(len, current.remaining());
+    current.get(b, off, count);
+    return count;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    checkOpen();
+    if (n <= 0) {
+      return 0;
+    }
+    if (current != null && n <= current.remaining()) {
+      current.position(current.position() + (int) n);
+      return n;
+    }
+    // skipping past the current chunk, chunks read in advance are not needed anymore
+    long position = getPosition();
+    long newPosition = Math.min(position + n, Math.max(size, channel.size()));
+    discardChunks();
+    nextChunkPosition = newPosition;
+    fillAhead();
+    return newPosition - position;
+  }
+
+  @Override
+  public int available() throws IOException {
+    checkOpen();
+    return current == null ? 0 : current.remaining();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      discardChunks();
+      spare.clear();
+      channel.close();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Utils.format("ReadAheadInputStream[path='{}' position='{}' mmap='{}']", path, getPosition(), mmap);
+  }
+
+  @VisibleForTesting
+  int getBufferCapacity() {
+    return current == null ? 0 : current.capacity();
+  }
+
+  // IMPLEMENTATION
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException(Utils.format("Stream for '{}' is closed", path));
+    }
+  }
+
+  // bytes read from the file but not consumed yet
+  private long bufferedBytes() {
+    long buffered = current == null ? 0 : current.remaining();
+    for (Chunk chunk : ahead) {
+      buffered += chunk.length;
+    }
+    return buffered;
+  }
+
+  // returns false if the end of the file has been reached
+  private boolean ensureData() throws IOException {
+    checkOpen();
+    while (current == null || !current.hasRemaining()) {
+      recycle(current);
+      current = null;
+      if (ahead.isEmpty()) {
+        fillAhead();
+        if (ahead.isEmpty()) {
+          return false;
+        }
+      }
+      Chunk chunk = ahead.poll();
+      try {
+        current = chunk.data.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException(Utils.format("Interrupted while reading '{}'", path));
+      } catch (ExecutionException ex) {
+        if (ex.getCause() instanceof IOException) {
+          throw (IOException) ex.getCause();
+        }
+        throw new IOException(ex.getCause());
+      }
+      fillAhead();
+    }
+    return true;
+  }
+
+  private void fillAhead() throws IOException {
+    while (ahead.size() < chunksAhead) {
+      if (nextChunkPosition >= size) {
+        // file may still be growing
+        size = channel.size();
+        if (nextChunkPosition >= size) {
+          return;
+        }
+      }
+      int length = (int) Math.min(chunkSize, size - nextChunkPosition);
+      ahead.add(new Chunk(nextChunkPosition, length));
+      nextChunkPosition += length;
+    }
+  }
+
+  private void discardChunks() {
+    for (Chunk chunk : ahead) {
+      chunk.data.cancel(false);
+    }
+    ahead.clear();
+    current = null;
+  }
+
+  private void recycle(ByteBuffer buffer) {
+    if (buffer != null && !mmap && buffer.capacity() == chunkSize && spare.isEmpty()) {
+      buffer.clear();
+      spare.add(buffer);
+    }
+  }
+
+  private ByteBuffer readChunk(long position, int length) throws IOException {
+    if (mmap) {
+      MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+      // fault the pages in on the I/O thread instead of the reading thread
+      return mapped.load();
+    }
+    ByteBuffer buffer = spare.poll();
+    if (buffer == null) {
+      // small files and the last chunk of a file don't need a whole chunk, spare buffers are always a whole chunk
+      buffer = ByteBuffer.allocate(length);
+    }
+    buffer.clear().limit(length);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException(Utils.format("File '{}' got truncated while reading offset '{}'", path, position));
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Chunk of the file being read on the I/O thread pool.
+   */
+  private class Chunk {
+    private final int length;
+    private final Future<ByteBuffer> data;
+
+    Chunk(long position, int length) {
+      this.length = length;
+      this.data = IO_POOL.submit(() -> readChunk(position, length));
+    }
+  }
+}
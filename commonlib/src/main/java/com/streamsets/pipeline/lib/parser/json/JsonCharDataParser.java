@@ -58,7 +58,7 @@ public class JsonCharDataParser extends AbstractDataParser {
         readerOffset,
         maxObjectLen,
         mode,
-        Object.class
+        Field.class
     );
   }
 
@@ -98,7 +98,10 @@ public class JsonCharDataParser extends AbstractDataParser {
   @SuppressWarnings("unchecked")
   protected Field jsonToField(Object json, long offset) throws DataParserException {
     Field field;
-    if (json == null) {
+    if (json instanceof Field) {
+      // Reader built the field straight from the JSON tokens
+      field = (Field) json;
+    } else if (json == null) {
       field = Field.create(Field.Type.STRING, null);
     } else if (json instanceof List) {
       List jsonList = (List) json;
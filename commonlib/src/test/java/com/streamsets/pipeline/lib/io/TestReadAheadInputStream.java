@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.io;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+
+public class TestReadAheadInputStream {
+  private File testDir;
+
+  @Before
+  public void setUp() {
+    testDir = new File("target", UUID.randomUUID().toString());
+    Assert.assertTrue(testDir.mkdirs());
+  }
+
+  private byte[] createData(int size) {
+    byte[] data = new byte[size];
+    new Random(size).nextBytes(data);
+    return data;
+  }
+
+  @Test
+  public void testReadInChunks() throws IOException {
+    byte[] data = createData(100003);
+    Path path = Files.write(new File(testDir, "data.bin").toPath(), data);
+
+    for (int chunkSize : new int[] {1, 100, 4096, 200000}) {
+      try (ReadAheadInputStream is = new ReadAheadInputStream(path, 0, chunkSize, 3, -1)) {
+        Assert.assertArrayEquals(data, IOUtils.toByteArray(is));
+        Assert.assertEquals(data.length, is.getPosition());
+        Assert.assertEquals(-1, is.read());
+      }
+    }
+  }
+
+  @Test
+  public void testManySmallFiles() throws IOException {
+    for (int i = 1; i <= 1000; i++) {
+      byte[] data = createData(i);
+      Path path = Files.write(new File(testDir, "data-" + i + ".bin").toPath(), data);
+
+      try (ReadAheadInputStream is = new ReadAheadInputStream(path, 0)) {
+        Assert.assertEquals(data[0] & 0xFF, is.read());
+        // buffers are sized to the file, not to the chunk size
+        Assert.assertEquals(data.length, is.getBufferCapacity());
+        Assert.assertArrayEquals(Arrays.copyOfRange(data, 1, data.length), IOUtils.toByteArray(is));
+      }
+    }
+  }
+
+  @Test
+  public void testMemoryMapped() throws IOException {
+    byte[] data = createData(100003);
+    Path path = Files.write(new File(testDir, "data.bin").toPath(), data);
+
+    try (ReadAheadInputStream is = new ReadAheadInputStream(path, 10, 4096, 2, 0)) {
+      Assert.assertArrayEquals(Arrays.copyOfRange(data, 10, data.length), IOUtils.toByteArray(is));
+    }
+  }
+
+  @Test
+  public void testPositionAndSkip() throws IOException {
+    byte[] data = createData(10000);
+    Path path = Files.write(new File(testDir, "data.bin").toPath(), data);
+
+    try (ReadAheadInputStream is = new ReadAheadInputStream(path, 5, 100, 2, -1)) {
+      Assert.assertEquals(5, is.getPosition());
+      Assert.assertEquals(data[5] & 0xFF, is.read());
+
+      // within the current chunk
+      Assert.assertEquals(10, is.skip(10));
+      Assert.assertEquals(16, is.getPosition());
+
+      // past the chunks read ahead
+      Assert.assertEquals(5000, is.skip(5000));
+      Assert.assertEquals(5016, is.getPosition());
+      Assert.assertEquals(data[5016] & 0xFF, is.read());
+
+      // beyond the end of the file
+      Assert.assertEquals(data.length - 5017, is.skip(data.length));
+      Assert.assertEquals(-1, is.read());
+    }
+  }
+
+  @Test
+  public void testGrowingFile() throws IOException {
+    byte[] data = createData(1000);
+    Path path = Files.write(new File(testDir, "data.bin").toPath(), Arrays.copyOf(data, 500));
+
+    try (ReadAheadInputStream is = new ReadAheadInputStream(path, 0, 64, 2, -1)) {
+      Assert.assertArrayEquals(Arrays.copyOf(data, 500), IOUtils.toByteArray(is));
+      Files.write(path, data);
+      Assert.assertArrayEquals(Arrays.copyOfRange(data, 500, 1000), IOUtils.toByteArray(is));
+    }
+  }
+
+  @Test(expected = IOException.class)
+  public void testClosed() throws IOException {
+    Path path = Files.write(new File(testDir, "data.bin").toPath(), createData(10));
+    ReadAheadInputStream is = new ReadAheadInputStream(path, 0);
+    is.close();
+    is.read();
+  }
+}
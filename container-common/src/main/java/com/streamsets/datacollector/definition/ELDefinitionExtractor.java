@@ -144,29 +144,31 @@ public abstract class ELDefinitionExtractor {
       List<ElFunctionDefinition> fDefs = new ArrayList<>();
       for (Class<?> klass : augmentedClasses) {
         for (Method method : klass.getMethods()) {
-          ElFunctionDefinition fDef = elFunctions.get(method);
-          if (fDef == null) {
-            ElFunction fAnnotation = method.getAnnotation(ElFunction.class);
-            if (fAnnotation != null) {
-              String fName = fAnnotation.name();
-              if (!fAnnotation.prefix().isEmpty()) {
-                fName = fAnnotation.prefix() + ":" + fName;
-              }
-              Annotation[][] pAnnotations = method.getParameterAnnotations();
-              Class<?>[] pTypes = method.getParameterTypes();
-              List<ElFunctionArgumentDefinition> fArgDefs = new ArrayList<>(pTypes.length);
-              for (int i = 0; i < pTypes.length; i++) {
-                fArgDefs.add(new ElFunctionArgumentDefinition(getParamAnnotation(pAnnotations[i]).value(),
-                                                              pTypes[i].getSimpleName()));
-              }
-              fDef = new ElFunctionDefinition(Integer.toString(indexCounter.incrementAndGet()), fAnnotation.prefix(),
-                                              fName, fAnnotation.description(), fAnnotation.implicitOnly(), fArgDefs,
-                                              method.getReturnType().getSimpleName(), method
-              );
-              elFunctionsIdx.put(fDef.getIndex(), fDef);
-              elFunctions.put(method, fDef);
+          // Atomic so that libraries extracted in parallel sharing an EL class get a single definition and index
+          ElFunctionDefinition fDef = elFunctions.computeIfAbsent(method, m -> {
+            ElFunction fAnnotation = m.getAnnotation(ElFunction.class);
+            if (fAnnotation == null) {
+              return null;
             }
-          }
+            String fName = fAnnotation.name();
+            if (!fAnnotation.prefix().isEmpty()) {
+              fName = fAnnotation.prefix() + ":" + fName;
+            }
+            Annotation[][] pAnnotations = m.getParameterAnnotations();
+            Class<?>[] pTypes = m.getParameterTypes();
+            List<ElFunctionArgumentDefinition> fArgDefs = new ArrayList<>(pTypes.length);
+            for (int i = 0; i < pTypes.length; i++) {
+              fArgDefs.add(new ElFunctionArgumentDefinition(getParamAnnotation(pAnnotations[i]).value(),
+                                                            pTypes[i].getSimpleName()));
+            }
+            ElFunctionDefinition def = new ElFunctionDefinition(Integer.toString(indexCounter.incrementAndGet()),
+                                                                fAnnotation.prefix(), fName, fAnnotation.description(),
+                                                                fAnnotation.implicitOnly(), fArgDefs,
+                                                                m.getReturnType().getSimpleName(), m
+            );
+            elFunctionsIdx.put(def.getIndex(), def);
+            return def;
+          });
           if (fDef != null) {
             fDefs.add(fDef);
           }
@@ -217,24 +219,26 @@ public abstract class ELDefinitionExtractor {
       List<ElConstantDefinition> cDefs = new ArrayList<>();
       for (Class<?> klass : augmentedClasses) {
         for (Field field : klass.getFields()) {
-          ElConstantDefinition cDef = elConstants.get(field);
-          if (cDef == null) {
-            ElConstant cAnnotation = field.getAnnotation(ElConstant.class);
-            if (cAnnotation != null) {
-              String cName = cAnnotation.name();
-              Object value;
-              try {
-                value = field.get(null);
-              } catch (IllegalAccessException ex) {
-                throw new IllegalArgumentException(Utils.format("{}, could not retrieve constant '{}' value: {}",
-                                                                contextMsg, cName, ex.toString(), ex));
-              }
-              cDef = new ElConstantDefinition(Integer.toString(indexCounter.incrementAndGet()), cName,
-                                              cAnnotation.description(), field.getType().getSimpleName(), value);
-              elConstantsIdx.put(cDef.getIndex(), cDef);
-              elConstants.put(field, cDef);
+          // Atomic so that libraries extracted in parallel sharing an EL class get a single definition and index
+          ElConstantDefinition cDef = elConstants.computeIfAbsent(field, f -> {
+            ElConstant cAnnotation = f.getAnnotation(ElConstant.class);
+            if (cAnnotation == null) {
+              return null;
             }
-          }
+            String cName = cAnnotation.name();
+            Object value;
+            try {
+              value = f.get(null);
+            } catch (IllegalAccessException ex) {
+              throw new IllegalArgumentException(Utils.format("{}, could not retrieve constant '{}' value: {}",
+                                                              contextMsg, cName, ex.toString(), ex));
+            }
+            ElConstantDefinition def = new ElConstantDefinition(Integer.toString(indexCounter.incrementAndGet()), cName,
+                                                                cAnnotation.description(),
+                                                                f.getType().getSimpleName(), value);
+            elConstantsIdx.put(def.getIndex(), def);
+            return def;
+          });
           if (cDef != null) {
             cDefs.add(cDef);
           }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.el;
+
+import com.streamsets.pipeline.api.el.ELEvalException;
+import com.streamsets.pipeline.api.el.ELVars;
+
+/**
+ * EL expression that has been parsed once by {@link ELEvaluator#compile(String, Class)} and can be evaluated
+ * repeatedly without any further parsing or cache lookups.
+ *
+ * Instances are immutable and thread safe, all per evaluation state lives in the ELVars given to
+ * {@link #evaluate(ELVars)}.
+ */
+public final class CompiledELExpression<T> {
+  private final ELEvaluator evaluator;
+  private final String expression;
+  private final Object parsedExpression;
+  private final Class<T> returnType;
+
+  CompiledELExpression(ELEvaluator evaluator, String expression, Object parsedExpression, Class<T> returnType) {
+    this.evaluator = evaluator;
+    this.expression = expression;
+    this.parsedExpression = parsedExpression;
+    this.returnType = returnType;
+  }
+
+  public String getExpression() {
+    return expression;
+  }
+
+  public Class<T> getReturnType() {
+    return returnType;
+  }
+
+  public T evaluate(ELVars vars) throws ELEvalException {
+    return evaluator.evaluateParsed(vars, expression, parsedExpression, returnType);
+  }
+
+  @Override
+  public String toString() {
+    return "CompiledELExpression[expression='" + expression + "', returnType='" + returnType.getName() + "']";
+  }
+}
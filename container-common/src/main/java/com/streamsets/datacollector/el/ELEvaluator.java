@@ -33,6 +33,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class ELEvaluator extends ELEval {
   private static final Logger LOG = LoggerFactory.getLogger(ELEvaluator.class);
@@ -47,6 +48,10 @@ public class ELEvaluator extends ELEval {
   // ExpressionEvaluatorImpl can be used as a singleton
   private static final LruExpressionEvaluatorImpl EVALUATOR = new LruExpressionEvaluatorImpl();
 
+  // Upper bound of expressions that each evaluator will keep parsed, the rest goes through the shared LRU cache
+  private static final int MAX_PARSED_EXPRESSIONS = 1000;
+  private final Map<String, Object> parsedExpressions = new ConcurrentHashMap<>();
+
   public ELEvaluator(String configName, boolean explicit, Map<String, Object> constants, ELDefinitionExtractor elDefinitionExtractor, List<Class> elFuncConstDefClasses) {
     this(configName, explicit, constants, elDefinitionExtractor, elFuncConstDefClasses.toArray(new Class[elFuncConstDefClasses.size()]));
   }
@@ -125,40 +130,67 @@ public class ELEvaluator extends ELEval {
     }
   }
 
+  /**
+   * Parse given expression once and return object that can be used to evaluate it repeatedly.
+   */
+  public <T> CompiledELExpression<T> compile(String expression, Class<T> returnType) throws ELEvalException {
+    Utils.checkNotNull(expression, "expression");
+    try {
+      return new CompiledELExpression<>(this, expression, EVALUATOR.parseExpressionString(expression), returnType);
+    } catch (ELException e) {
+      throw toELEvalException(expression, e);
+    }
+  }
+
   @Override
-  @SuppressWarnings("unchecked")
   public <T> T evaluate (final ELVars vars, String expression, Class<T> returnType) throws ELEvalException {
-    VariableResolver variableResolver = new VariableResolver() {
-
-      @Override
-      public Object resolveVariable(String name) throws ELException {
-        Object value = constants.get(name);
-        if (!vars.hasVariable(name)) {
-          if (value == null && !constants.containsKey(name)) {
-            throw new ELException(Utils.format("Constants/Variable '{}' cannot be resolved", name));
-          }
-        } else {
-          value = vars.getVariable(name);
-        }
-        return value;
+    if (expression == null) {
+      // Let the EL implementation produce the error for us
+      return evaluateParsed(vars, null, null, returnType);
+    }
+
+    Object parsedExpression = parsedExpressions.get(expression);
+    if (parsedExpression == null) {
+      try {
+        parsedExpression = EVALUATOR.parseExpressionString(expression);
+      } catch (ELException e) {
+        throw toELEvalException(expression, e);
       }
-    };
+      if (parsedExpressions.size() < MAX_PARSED_EXPRESSIONS) {
+        parsedExpressions.put(expression, parsedExpression);
+      }
+    }
+    return evaluateParsed(vars, expression, parsedExpression, returnType);
+  }
+
+  @SuppressWarnings("unchecked")
+  <T> T evaluateParsed(ELVars vars, String expression, Object parsedExpression, Class<T> returnType) throws ELEvalException {
+    VariableResolver variableResolver = (vars instanceof ELVariables)
+        ? ((ELVariables) vars).getVariableResolver(constants)
+        : new ELVariableResolver(constants, vars);
     try {
-      return (T) EVALUATOR.evaluate(expression, returnType, variableResolver, functionMapper);
+      if (parsedExpression == null) {
+        return (T) EVALUATOR.evaluate(expression, returnType, variableResolver, functionMapper);
+      }
+      return (T) LruExpressionEvaluatorImpl.evaluateParsed(parsedExpression, returnType, variableResolver, functionMapper);
     } catch (ELException e) {
-      // Apache evaluator is not using the getCause exception chaining that is available in Java but rather a custom
-      // chaining mechanism. This doesn't work well for us as we're effectively swallowing the cause that is not
-      // available in log, ...
-      Throwable t = e;
-      if(e.getRootCause() != null) {
-        t = e.getRootCause();
-        if(e.getCause() == null) {
-          e.initCause(t);
-        }
+      throw toELEvalException(expression, e);
+    }
+  }
+
+  private static ELEvalException toELEvalException(String expression, ELException e) {
+    // Apache evaluator is not using the getCause exception chaining that is available in Java but rather a custom
+    // chaining mechanism. This doesn't work well for us as we're effectively swallowing the cause that is not
+    // available in log, ...
+    Throwable t = e;
+    if(e.getRootCause() != null) {
+      t = e.getRootCause();
+      if(e.getCause() == null) {
+        e.initCause(t);
       }
-      LOG.debug("Error valuating EL '{}': {}", expression, e.toString(), e);
-      throw new ELEvalException(ContainerCommonError.CTRCMN_0100, expression, t.toString(), e);
     }
+    LOG.debug("Error valuating EL '{}': {}", expression, e.toString(), e);
+    return new ELEvalException(ContainerCommonError.CTRCMN_0100, expression, t.toString(), e);
   }
 
   private class FunctionMapperImpl implements FunctionMapper {
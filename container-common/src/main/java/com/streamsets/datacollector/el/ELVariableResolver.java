@@ -0,0 +1,56 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.el;
+
+import com.streamsets.pipeline.api.el.ELVars;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import javax.servlet.jsp.el.ELException;
+import javax.servlet.jsp.el.VariableResolver;
+import java.util.Map;
+
+/**
+ * Resolves EL variables first from given ELVars and then from evaluator's constants.
+ *
+ * The resolver is immutable, so one instance can be reused for all evaluations with the same ELVars and constants.
+ */
+class ELVariableResolver implements VariableResolver {
+  private final Map<String, Object> constants;
+  private final ELVars vars;
+
+  ELVariableResolver(Map<String, Object> constants, ELVars vars) {
+    this.constants = constants;
+    this.vars = vars;
+  }
+
+  Map<String, Object> getConstants() {
+    return constants;
+  }
+
+  @Override
+  public Object resolveVariable(String name) throws ELException {
+    // Our own implementation can skip validation of the variable name as it comes from already parsed expression
+    boolean hasVariable = vars instanceof ELVariables ? ((ELVariables) vars).containsVariable(name) : vars.hasVariable(name);
+    if (hasVariable) {
+      return vars instanceof ELVariables ? ((ELVariables) vars).variable(name) : vars.getVariable(name);
+    }
+    Object value = constants.get(name);
+    if (value == null && !constants.containsKey(name)) {
+      throw new ELException(Utils.format("Constants/Variable '{}' cannot be resolved", name));
+    }
+    return value;
+  }
+}
@@ -28,6 +28,7 @@ public class ELVariables implements ELVars {
   private final Map<String, Object> constants;
   private final Map<String, Object> variables;
   private final Map<String, Object> contextVariables;
+  private volatile ELVariableResolver variableResolver;
 
   @SuppressWarnings("unchecked")
   public ELVariables() {
@@ -78,6 +79,27 @@ public class ELVariables implements ELVars {
     return variables.containsKey(name);
   }
 
+  boolean containsVariable(String name) {
+    return variables.containsKey(name);
+  }
+
+  Object variable(String name) {
+    return variables.get(name);
+  }
+
+  /**
+   * Returns variable resolver for these variables and given constants, the resolver is reused as long as the same
+   * constants are used (e.g. all evaluations done by single ELEvaluator).
+   */
+  ELVariableResolver getVariableResolver(Map<String, Object> evaluatorConstants) {
+    ELVariableResolver resolver = variableResolver;
+    if (resolver == null || resolver.getConstants() != evaluatorConstants) {
+      resolver = new ELVariableResolver(evaluatorConstants, this);
+      variableResolver = resolver;
+    }
+    return resolver;
+  }
+
   @Override
   public boolean hasContextVariable(String name) {
     checkVariableName(name);
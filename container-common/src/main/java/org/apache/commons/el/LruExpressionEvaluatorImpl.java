@@ -17,6 +17,10 @@ package org.apache.commons.el;
 
 import java.util.Collections;
 
+import javax.servlet.jsp.el.ELException;
+import javax.servlet.jsp.el.FunctionMapper;
+import javax.servlet.jsp.el.VariableResolver;
+
 import org.apache.commons.collections.map.LRUMap;
 import org.slf4j.LoggerFactory;
 
@@ -34,6 +38,11 @@ public class LruExpressionEvaluatorImpl extends ExpressionEvaluatorImpl {
    */
   private static final int MAX_LRU_SIZE = 5000;
 
+  /**
+   * EL logger that is used when evaluating already parsed expressions.
+   */
+  private static final Logger EL_LOGGER = new Logger(System.out);
+
   /**
    * Change the static caches to use LRU map rather then normal map.
    */
@@ -60,4 +69,29 @@ public class LruExpressionEvaluatorImpl extends ExpressionEvaluatorImpl {
     thread.start();
   }
 
+  /**
+   * Evaluate expression that was previously parsed with {@link #parseExpressionString(String)}.
+   *
+   * This is equivalent of calling evaluate() with the original expression string, but it avoids the lookup in the
+   * shared (and synchronized) cache of parsed expressions.
+   */
+  public static Object evaluateParsed(
+      Object parsedValue,
+      Class expectedType,
+      VariableResolver resolver,
+      FunctionMapper functions
+  ) throws ELException {
+    if (parsedValue instanceof String) {
+      return Coercions.coerce(parsedValue, expectedType, EL_LOGGER);
+    } else if (parsedValue instanceof Expression) {
+      Object value = ((Expression) parsedValue).evaluate(resolver, functions, EL_LOGGER);
+      return Coercions.coerce(value, expectedType, EL_LOGGER);
+    } else if (parsedValue instanceof ExpressionString) {
+      String value = ((ExpressionString) parsedValue).evaluate(resolver, functions, EL_LOGGER);
+      return Coercions.coerce(value, expectedType, EL_LOGGER);
+    } else {
+      throw new ELException("Unexpected parsed expression: " + parsedValue);
+    }
+  }
+
 }
@@ -56,7 +56,8 @@ public abstract class ConfigDefinitionExtractor {
 
   private static final ConfigDefinitionExtractor EXTRACTOR = new ConfigDefinitionExtractor() {};
 
-  private Set<String> cycles = new HashSet<>();
+  // Per thread as stage libraries are extracted in parallel while sharing this singleton
+  private final ThreadLocal<Set<String>> cycles = ThreadLocal.withInitial(HashSet::new);
 
   public static ConfigDefinitionExtractor get() {
     return EXTRACTOR;
@@ -73,7 +74,7 @@ public abstract class ConfigDefinitionExtractor {
 
   @VisibleForTesting
   Set<String> getCycles() {
-    return cycles;
+    return cycles.get();
   }
 
   /**
@@ -247,6 +248,7 @@ public abstract class ConfigDefinitionExtractor {
       isFullyProcessed.put(def.getName(), false);
     }
 
+    Set<String> cycles = this.cycles.get();
     cycles.clear();
 
     for (ConfigDefinition def : defs) {
@@ -21,6 +21,7 @@ import com.streamsets.datacollector.config.PipelineConfiguration;
 import com.streamsets.datacollector.execution.alerts.AlertInfo;
 import com.streamsets.datacollector.execution.runner.common.PipelineRunnerException;
 import com.streamsets.datacollector.execution.runner.common.SampledRecord;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.restapi.bean.UserJson;
 import com.streamsets.datacollector.runner.production.SourceOffset;
 import com.streamsets.datacollector.store.AclStoreTask;
@@ -193,6 +194,11 @@ public class AclRunner implements Runner {
     return runner.getMetrics();
   }
 
+  @Override
+  public MetricsSnapshot getMetricsSnapshot() {
+    return runner.getMetricsSnapshot();
+  }
+
   @Override
   public List<Record> getErrorRecords(String stage, int max) throws PipelineRunnerException, PipelineStoreException {
     return runner.getErrorRecords(stage, max);
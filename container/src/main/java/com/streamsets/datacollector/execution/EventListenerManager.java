@@ -22,6 +22,7 @@ import com.streamsets.datacollector.alerts.AlertEventListener;
 import com.streamsets.datacollector.execution.alerts.AlertInfo;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.metrics.MetricsEventListener;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.restapi.bean.BeanHelper;
 import com.streamsets.dc.execution.manager.standalone.ThreadUsage;
 import org.slf4j.Logger;
@@ -148,6 +149,10 @@ public class EventListenerManager {
   }
 
   public void broadcastMetrics(String pipelineName, String metricsJSONStr) {
+    broadcastMetrics(pipelineName, MetricsSnapshot.of(metricsJSONStr));
+  }
+
+  public void broadcastMetrics(String pipelineName, MetricsSnapshot snapshot) {
     if(metricsEventListenerMap.containsKey(pipelineName) && metricsEventListenerMap.get(pipelineName).size() > 0) {
       List<MetricsEventListener> metricsEventListenerListCopy;
       synchronized (metricsEventListenerMap) {
@@ -156,7 +161,7 @@ public class EventListenerManager {
 
       for(MetricsEventListener metricsEventListener : metricsEventListenerListCopy) {
         try {
-          metricsEventListener.notification(metricsJSONStr);
+          metricsEventListener.notification(snapshot);
         } catch(Exception ex) {
           LOG.warn("Error while notifying metrics, {}", ex.toString(), ex);
         }
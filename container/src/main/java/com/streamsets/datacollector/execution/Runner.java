@@ -23,6 +23,7 @@ import com.streamsets.datacollector.event.dto.PipelineStartEvent;
 import com.streamsets.datacollector.execution.alerts.AlertInfo;
 import com.streamsets.datacollector.execution.runner.common.PipelineRunnerException;
 import com.streamsets.datacollector.execution.runner.common.SampledRecord;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.runner.production.SourceOffset;
 import com.streamsets.datacollector.store.PipelineStoreException;
 import com.streamsets.datacollector.util.PipelineException;
@@ -164,6 +165,11 @@ public interface Runner {
   // gets the current pipeline metrics
   public Object getMetrics() throws PipelineException;
 
+  // gets metrics serialized by the last refresh tick, null if there is no recent snapshot
+  public default MetricsSnapshot getMetricsSnapshot() {
+    return null;
+  }
+
   // returns error records for a give stage
   // delegates to the ErrorStore
   public List<Record> getErrorRecords(String stage, int max) throws PipelineRunnerException, PipelineStoreException;
@@ -15,6 +15,8 @@
  */
 package com.streamsets.datacollector.execution;
 
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotIndex;
+import com.streamsets.datacollector.runner.StageOutput;
 import com.streamsets.datacollector.util.PipelineException;
 
 import java.io.Closeable;
@@ -26,4 +28,10 @@ public interface Snapshot extends Closeable {
 
   public InputStream getOutput() throws PipelineException;
 
+  // index of the captured batches and their stages, null if the snapshot has no data
+  public SnapshotIndex getIndex() throws PipelineException;
+
+  // output of given stage in given batch (0 based), null if the snapshot doesn't contain it
+  public StageOutput getStageOutput(int batch, String instanceName) throws PipelineException;
+
 }
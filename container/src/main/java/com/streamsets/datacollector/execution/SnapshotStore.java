@@ -38,6 +38,13 @@ public interface SnapshotStore {
       List<List<StageOutput>> snapshotBatches
   ) throws PipelineException;
 
+  // appends one captured batch to the data of an in progress snapshot, so that the caller doesn't have to keep
+  // all captured batches in memory
+  public void appendBatch(String name, String rev, String id, List<StageOutput> batch) throws PipelineException;
+
+  // marks snapshot with appended batches as complete and updates the corresponding snapshot info
+  public SnapshotInfo complete(String name, String rev, String id, long batchNumber) throws PipelineException;
+
   // Updates the label of snapshot by updating the Snapshot Info
   public SnapshotInfo updateLabel(String name, String rev, String id, String snapshotLabel) throws PipelineException;
 
@@ -109,6 +109,9 @@ public class DataRuleEvaluator {
   private final String rev;
   private final MetricRegistryJson metricRegistryJson;
   private final BlockingQueue<Record> statsQueue;
+  // Evaluators are reused for all records so that the expressions are parsed only once
+  private ELEvaluator conditionEvaluator;
+  private ELEvaluator alertTextEvaluator;
 
   public DataRuleEvaluator(
       String name,
@@ -293,6 +296,30 @@ public class DataRuleEvaluator {
     }
   }
 
+  private ELEvaluator getConditionEvaluator() {
+    if (conditionEvaluator == null) {
+      conditionEvaluator = new ELEvaluator(
+          "el",
+          false,
+          ConcreteELDefinitionExtractor.get(),
+          RuleELRegistry.getRuleELs(dataRuleDefinition.getFamily())
+      );
+    }
+    return conditionEvaluator;
+  }
+
+  private ELEvaluator getAlertTextEvaluator() {
+    if (alertTextEvaluator == null) {
+      alertTextEvaluator = new ELEvaluator(
+          "alertInfo",
+          false,
+          ConcreteELDefinitionExtractor.get(),
+          RuleELRegistry.getRuleELs(RuleELRegistry.ALERT)
+      );
+    }
+    return alertTextEvaluator;
+  }
+
   @VisibleForTesting
   boolean evaluate(ELVariables elVars, Record record, String el, String id) {
     try {
@@ -300,7 +327,7 @@ public class DataRuleEvaluator {
         record,
         el,
         elVars,
-        new ELEvaluator("el",false, ConcreteELDefinitionExtractor.get(), RuleELRegistry.getRuleELs(dataRuleDefinition.getFamily()))
+        getConditionEvaluator()
       );
     } catch (ObserverException e) {
       //A faulty condition should not take down rest of the alerts with it.
@@ -322,10 +349,9 @@ public class DataRuleEvaluator {
         alertText = "";
       }
 
-      ELEvaluator elEval = new ELEvaluator("alertInfo",false, ConcreteELDefinitionExtractor.get(), RuleELRegistry.getRuleELs(RuleELRegistry.ALERT));
       RecordEL.setRecordInContext(elVars, record);
 
-      return elEval.eval(elVars, alertText, String.class);
+      return getAlertTextEvaluator().eval(elVars, alertText, String.class);
 
     } catch (ELEvalException e) {
       //A faulty el alerttext should not take down rest of the alerts with it.
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.metrics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serializes pipeline metrics into {@link MetricsSnapshot} and computes delta against the previous snapshot.
+ *
+ * The delta message has the following structure:
+ *
+ * <pre>
+ * {
+ *   "sequence": 12,
+ *   "baseSequence": 11,
+ *   "updates": {"counters": {"name": {...}}, "slaves": [...]},
+ *   "removals": {"counters": ["name"]}
+ * }
+ * </pre>
+ *
+ * Sections of the registry that are JSON objects (gauges, counters, meters, ...) are updated per metric, any other
+ * top level value is replaced as a whole. Every {@code fullResyncTicks} snapshots the delta is omitted so that
+ * listeners periodically re-synchronize with the full state.
+ *
+ * Not thread safe, expected to be used from the single metrics refresh thread of the pipeline.
+ */
+public class MetricsDeltaEncoder {
+
+  // Shared across encoders so that a listener surviving pipeline restart never matches sequence of a new chain
+  private static final AtomicLong SEQUENCE = new AtomicLong();
+
+  private final ObjectMapper objectMapper;
+  private final int fullResyncTicks;
+  private ObjectNode previous;
+  private long previousSequence = MetricsSnapshot.NO_SEQUENCE;
+  private int ticksSinceResync;
+
+  public MetricsDeltaEncoder(ObjectMapper objectMapper, int fullResyncTicks) {
+    Utils.checkArgument(fullResyncTicks > 0, "fullResyncTicks must be greater than zero");
+    this.objectMapper = objectMapper;
+    this.fullResyncTicks = fullResyncTicks;
+  }
+
+  /**
+   * Serializes given metrics object (MetricRegistry or MetricRegistryJson).
+   *
+   * @param computeDelta Whether to compute delta message, when false the delta chain is restarted.
+   */
+  public MetricsSnapshot encode(Object metrics, boolean computeDelta) throws IOException {
+    long sequence = SEQUENCE.incrementAndGet();
+    String fullJson;
+    String deltaJson = null;
+    if (!computeDelta) {
+      // No tree is needed without delta, serializing the metrics directly is a single pass
+      previous = null;
+      fullJson = objectMapper.writeValueAsString(metrics);
+    } else {
+      // The tree is built once, both the full and the delta messages are written from it
+      JsonNode tree = objectMapper.valueToTree(metrics);
+      fullJson = objectMapper.writeValueAsString(tree);
+      if (!(tree instanceof ObjectNode)) {
+        previous = null;
+      } else {
+        ObjectNode current = (ObjectNode) tree;
+        if (previous != null && ++ticksSinceResync < fullResyncTicks) {
+          deltaJson = objectMapper.writeValueAsString(diff(previous, current, sequence));
+        } else {
+          ticksSinceResync = 0;
+        }
+        previous = current;
+      }
+    }
+
+    MetricsSnapshot snapshot = new MetricsSnapshot(
+        sequence,
+        deltaJson == null ? MetricsSnapshot.NO_SEQUENCE : previousSequence,
+        System.currentTimeMillis(),
+        fullJson,
+        deltaJson
+    );
+    previousSequence = sequence;
+    return snapshot;
+  }
+
+  private ObjectNode diff(ObjectNode base, ObjectNode current, long sequence) {
+    ObjectNode updates = objectMapper.createObjectNode();
+    ObjectNode removals = objectMapper.createObjectNode();
+
+    Iterator<Map.Entry<String, JsonNode>> sections = current.fields();
+    while (sections.hasNext()) {
+      Map.Entry<String, JsonNode> section = sections.next();
+      JsonNode baseValue = base.get(section.getKey());
+      JsonNode value = section.getValue();
+      if (value.isObject() && baseValue != null && baseValue.isObject()) {
+        ObjectNode changed = objectMapper.createObjectNode();
+        Iterator<Map.Entry<String, JsonNode>> metrics = value.fields();
+        while (metrics.hasNext()) {
+          Map.Entry<String, JsonNode> metric = metrics.next();
+          if (!metric.getValue().equals(baseValue.get(metric.getKey()))) {
+            changed.set(metric.getKey(), metric.getValue());
+          }
+        }
+        if (changed.size() > 0) {
+          updates.set(section.getKey(), changed);
+        }
+        ArrayNode removed = objectMapper.createArrayNode();
+        Iterator<String> baseNames = baseValue.fieldNames();
+        while (baseNames.hasNext()) {
+          String name = baseNames.next();
+          if (!value.has(name)) {
+            removed.add(name);
+          }
+        }
+        if (removed.size() > 0) {
+          removals.set(section.getKey(), removed);
+        }
+      } else if (!value.equals(baseValue)) {
+        updates.set(section.getKey(), value);
+      }
+    }
+    Iterator<String> baseSections = base.fieldNames();
+    while (baseSections.hasNext()) {
+      String name = baseSections.next();
+      if (!current.has(name)) {
+        updates.set(name, NullNode.getInstance());
+      }
+    }
+
+    ObjectNode delta = objectMapper.createObjectNode();
+    delta.put("sequence", sequence);
+    delta.put("baseSequence", previousSequence);
+    delta.set("updates", updates);
+    delta.set("removals", removals);
+    return delta;
+  }
+
+}
@@ -16,7 +16,6 @@
 package com.streamsets.datacollector.execution.metrics;
 
 import com.codahale.metrics.MetricRegistry;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableList;
 import com.streamsets.datacollector.callback.CallbackInfo;
@@ -34,6 +33,7 @@ import com.streamsets.datacollector.execution.runner.common.ThreadHealthReporter
 import com.streamsets.datacollector.execution.runner.standalone.StandaloneRunner;
 import com.streamsets.datacollector.http.SnappyWriterInterceptor;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.event.json.CounterJson;
 import com.streamsets.datacollector.event.json.MeterJson;
@@ -74,6 +74,8 @@ public class MetricsEventRunnable implements Runnable {
 
   public static final String REFRESH_INTERVAL_PROPERTY = "ui.refresh.interval.ms";
   public static final int REFRESH_INTERVAL_PROPERTY_DEFAULT = 2000;
+  public static final String FULL_RESYNC_TICKS_PROPERTY = "ui.metrics.full.resync.ticks";
+  public static final int FULL_RESYNC_TICKS_PROPERTY_DEFAULT = 30;
   private static final String DPM_PIPELINE_COMMIT_ID = "dpm.pipeline.commitId";
   private static final String DPM_JOB_ID = "dpm.job.id";
   private static final String REMOTE_TIMESERIES_URL = "REMOTE_TIMESERIES_URL";
@@ -98,6 +100,8 @@ public class MetricsEventRunnable implements Runnable {
   private BlockingQueue<Record> statsQueue;
   private PipelineConfiguration pipelineConfiguration;
   private MetricRegistryJson metricRegistryJson;
+  private final MetricsDeltaEncoder deltaEncoder;
+  private volatile MetricsSnapshot latestSnapshot;
 
   private boolean isDPMPipeline = false;
   private String remoteTimeSeriesUrl;
@@ -133,6 +137,10 @@ public class MetricsEventRunnable implements Runnable {
     this.scheduledDelay = configuration.get(REFRESH_INTERVAL_PROPERTY, REFRESH_INTERVAL_PROPERTY_DEFAULT);
     this.configuration = configuration;
     this.runtimeInfo = runtimeInfo;
+    this.deltaEncoder = new MetricsDeltaEncoder(
+        ObjectMapperFactory.get(),
+        configuration.get(FULL_RESYNC_TICKS_PROPERTY, FULL_RESYNC_TICKS_PROPERTY_DEFAULT)
+    );
   }
 
   public void onStopOrFinishPipeline() {
@@ -169,26 +177,29 @@ public class MetricsEventRunnable implements Runnable {
       if(threadHealthReporter != null) {
         threadHealthReporter.reportHealth(RUNNABLE_NAME, scheduledDelay, System.currentTimeMillis());
       }
-      ObjectMapper objectMapper = ObjectMapperFactory.get();
       PipelineState state = pipelineStateStore.getState(name, rev);
       if (hasMetricEventListeners(state) ||
           (isDPMPipeline && (isWriteStatsToDPMDirectlyEnabled() || isStatAggregationEnabled()))) {
         // compute aggregated metrics in case of cluster mode pipeline
         // get individual pipeline metrics if non cluster mode pipeline
-        String metricsJSONStr;
+        Object metrics;
         if (state.getExecutionMode() == ExecutionMode.CLUSTER_BATCH
           || state.getExecutionMode() == ExecutionMode.CLUSTER_YARN_STREAMING
           || state.getExecutionMode() == ExecutionMode.CLUSTER_MESOS_STREAMING) {
-          MetricRegistryJson json = getAggregatedMetrics();
-          metricsJSONStr = objectMapper.writer().writeValueAsString(json);
+          metrics = getAggregatedMetrics();
         } else if (state.getExecutionMode() == ExecutionMode.BATCH
             || state.getExecutionMode() == ExecutionMode.STREAMING && metricRegistryJson != null) {
-          metricsJSONStr = objectMapper.writer().writeValueAsString(metricRegistryJson);
+          metrics = metricRegistryJson;
         } else {
-          metricsJSONStr = objectMapper.writer().writeValueAsString(metricRegistry);
+          metrics = metricRegistry;
         }
-        if (hasMetricEventListeners(state)) {
-          eventListenerManager.broadcastMetrics(name, metricsJSONStr);
+        // Serialize only once per tick, the snapshot is shared by all listeners and by the REST API
+        boolean hasListeners = hasMetricEventListeners(state);
+        MetricsSnapshot snapshot = deltaEncoder.encode(metrics, hasListeners);
+        latestSnapshot = snapshot;
+        String metricsJSONStr = snapshot.getFullJson();
+        if (hasListeners) {
+          eventListenerManager.broadcastMetrics(name, snapshot);
         }
         // don't queue stats record when pipeline is stopped as runner is not going to process any more batches
         if (isStatAggregationEnabled() && !isPipelineStopped) {
@@ -269,6 +280,17 @@ public class MetricsEventRunnable implements Runnable {
     return aggregatedMetrics;
   }
 
+  /**
+   * Returns metrics snapshot computed by the last refresh tick or null if there is no recent one.
+   */
+  public MetricsSnapshot getLatestSnapshot() {
+    MetricsSnapshot snapshot = latestSnapshot;
+    if (snapshot != null && snapshot.isFresherThan(2L * scheduledDelay)) {
+      return snapshot;
+    }
+    return null;
+  }
+
   public int getScheduledDelay() {
     return scheduledDelay;
   }
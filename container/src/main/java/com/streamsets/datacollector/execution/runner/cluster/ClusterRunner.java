@@ -59,6 +59,7 @@ import com.streamsets.datacollector.execution.runner.common.SampledRecord;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.lineage.LineagePublisherTask;
 import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.restapi.bean.IssuesJson;
 import com.streamsets.datacollector.runner.InterceptorCreatorContextBuilder;
 import com.streamsets.datacollector.runner.Pipeline;
@@ -589,6 +590,12 @@ public class ClusterRunner extends AbstractRunner {
     return null;
   }
 
+  @Override
+  public MetricsSnapshot getMetricsSnapshot() {
+    MetricsEventRunnable runnable = metricsEventRunnable;
+    return runnable == null ? null : runnable.getLatestSnapshot();
+  }
+
   @Override
   public List<Record> getErrorRecords(String stage, int max) {
     throw new UnsupportedOperationException();
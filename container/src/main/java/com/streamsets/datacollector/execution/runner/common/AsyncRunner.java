@@ -24,6 +24,7 @@ import com.streamsets.datacollector.execution.Runner;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.alerts.AlertInfo;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.runner.Pipeline;
 import com.streamsets.datacollector.runner.production.SourceOffset;
 import com.streamsets.datacollector.store.PipelineStoreException;
@@ -213,6 +214,11 @@ public class AsyncRunner implements Runner, PipelineInfo {
     return runner.getMetrics();
   }
 
+  @Override
+  public MetricsSnapshot getMetricsSnapshot() {
+    return runner.getMetricsSnapshot();
+  }
+
   @Override
   public List<Record> getErrorRecords(String stage, int max) throws PipelineRunnerException, PipelineStoreException {
     return runner.getErrorRecords(stage, max);
@@ -33,6 +33,12 @@ public class Constants {
   public static final int MAX_BACKUP_INDEX_DEFAULT = 5;
   public static final String MAX_ERROR_RECORDS_PER_STAGE_KEY = "production.maxErrorRecordsPerStage";
   public static final int MAX_ERROR_RECORDS_PER_STAGE_DEFAULT = 100;
+  public static final String OFFSET_STORE_KEY = "production.offsetStore";
+  public static final String OFFSET_STORE_FILE = "file";
+  public static final String OFFSET_STORE_JOURNAL = "journal";
+  public static final String OFFSET_STORE_DEFAULT = OFFSET_STORE_FILE;
+  public static final String OFFSET_JOURNAL_COMPACTION_THRESHOLD_KEY = "production.offsetJournal.compactionThreshold";
+  public static final int OFFSET_JOURNAL_COMPACTION_THRESHOLD_DEFAULT = 10000;
   public static final String MAX_PIPELINE_ERRORS_KEY = "production.maxPipelineErrors";
   public static final int MAX_PIPELINE_ERRORS_DEFAULT = 100;
   public static final String OBSERVER_QUEUE_SIZE_KEY = "observer.queue.size";
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.runner.common;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Output;
+import com.streamsets.datacollector.record.io.RecordEncoding;
+import com.streamsets.datacollector.record.io.RecordWriterReaderFactory;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.ext.RecordReader;
+import com.streamsets.pipeline.api.impl.ErrorMessage;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size ring of the last N errors of a single stage.
+ *
+ * Appending claims the next slot with a single atomic increment, so concurrent runners never wait for each other
+ * unless they wrap around the whole ring at the same time. Each slot is guarded by its own spin flag that is only
+ * contended by a reader copying that very slot.
+ *
+ * Records are stored encoded in off-heap slot buffers (reused for subsequent records) and are only decoded when they
+ * are requested, error messages are small and kept as they are (they carry localized messages and stack traces that
+ * their JSON form doesn't).
+ */
+public abstract class ErrorRingBuffer<T> {
+  private static final Logger LOG = LoggerFactory.getLogger(ErrorRingBuffer.class);
+
+  private static final class Slot {
+    final AtomicBoolean busy = new AtomicBoolean();
+    long sequence = -1;
+    Object payload;
+  }
+
+  private final Slot[] slots;
+  private final AtomicLong head = new AtomicLong();
+
+  private ErrorRingBuffer(int capacity) {
+    Utils.checkArgument(capacity > 0, "Capacity must be greater than zero");
+    slots = new Slot[capacity];
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+    }
+  }
+
+  /**
+   * Creates ring storing records encoded in off-heap memory.
+   */
+  public static ErrorRingBuffer<Record> forRecords(int capacity) {
+    // Kryo keeps the complete record including the source record of error records
+    return new OffHeapRecords(capacity);
+  }
+
+  /**
+   * Creates ring storing error messages.
+   */
+  public static ErrorRingBuffer<ErrorMessage> forErrorMessages(int capacity) {
+    return new ErrorRingBuffer<ErrorMessage>(capacity) {
+      @Override
+      protected Object store(ErrorMessage value, Object previous) {
+        return value;
+      }
+
+      @Override
+      protected Object copy(Object payload) {
+        return payload;
+      }
+
+      @Override
+      protected ErrorMessage load(Object copy) {
+        return (ErrorMessage) copy;
+      }
+    };
+  }
+
+  /**
+   * Returns payload to be stored in a slot for given value, previous payload of the slot can be reused.
+   */
+  protected abstract Object store(T value, Object previous);
+
+  /**
+   * Returns copy of the payload that stays valid once the slot gets overwritten.
+   */
+  protected abstract Object copy(Object payload);
+
+  /**
+   * Converts copy of the payload back to the value.
+   */
+  protected abstract T load(Object copy) throws IOException;
+
+  public int getCapacity() {
+    return slots.length;
+  }
+
+  /**
+   * Number of values currently retained.
+   */
+  public int size() {
+    return (int) Math.min(head.get(), slots.length);
+  }
+
+  public void append(T value) {
+    long sequence = head.getAndIncrement();
+    Slot slot = slots[(int) (sequence % slots.length)];
+    lock(slot);
+    try {
+      // Another writer might have wrapped around and stored newer value already
+      if (slot.sequence < sequence) {
+        slot.payload = store(value, slot.payload);
+        slot.sequence = sequence;
+      }
+    } finally {
+      slot.busy.set(false);
+    }
+  }
+
+  public void appendAll(List<? extends T> values) {
+    for (T value : values) {
+      append(value);
+    }
+  }
+
+  /**
+   * Returns up to given number of retained values, oldest first.
+   */
+  public List<T> get(int size) {
+    long end = head.get();
+    long start = Math.max(0, end - slots.length);
+    List<Object> copies = new ArrayList<>((int) Math.min(size, end - start));
+    for (long sequence = start; sequence < end && copies.size() < size; sequence++) {
+      Slot slot = slots[(int) (sequence % slots.length)];
+      lock(slot);
+      try {
+        // Slot might have been overwritten in the meantime or is still being written
+        if (slot.sequence == sequence) {
+          copies.add(copy(slot.payload));
+        }
+      } finally {
+        slot.busy.set(false);
+      }
+    }
+    List<T> values = new ArrayList<>(copies.size());
+    for (Object copy : copies) {
+      try {
+        values.add(load(copy));
+      } catch (IOException ex) {
+        LOG.warn("Can't read retained error: {}", ex.toString(), ex);
+      }
+    }
+    return values;
+  }
+
+  private static void lock(Slot slot) {
+    while (!slot.busy.compareAndSet(false, true)) {
+      Thread.yield();
+    }
+  }
+
+  /**
+   * Records encoded with {@link RecordEncoding#KRYO1} into direct buffers.
+   */
+  private static class OffHeapRecords extends ErrorRingBuffer<Record> {
+    private static final int MIN_SLOT_SIZE = 1024;
+
+    private final ThreadLocal<Encoder> encoder = ThreadLocal.withInitial(Encoder::new);
+
+    /**
+     * Kryo instance and its output buffer, reused for all records encoded by a thread.
+     */
+    private static class Encoder {
+      final Kryo kryo = new Kryo();
+      final Output output = new Output(MIN_SLOT_SIZE, -1);
+    }
+
+    OffHeapRecords(int capacity) {
+      super(capacity);
+    }
+
+    @Override
+    protected Object store(Record value, Object previous) {
+      Encoder encoder = this.encoder.get();
+      Output output = encoder.output;
+      output.clear();
+      try {
+        // Same format as the KRYO1 record writer so that the record reader can decode it
+        output.writeByte(RecordEncoding.KRYO1.getMagicNumber());
+        encoder.kryo.writeObject(output, value);
+      } catch (RuntimeException ex) {
+        // Field values that the encoding doesn't support, keep such record on heap
+        LOG.debug("Can't encode error record '{}', retaining it on heap: {}", value.getHeader().getSourceId(), ex);
+        return value;
+      }
+
+      int size = output.position();
+      ByteBuffer buffer = previous instanceof ByteBuffer ? (ByteBuffer) previous : null;
+      if (buffer == null || buffer.capacity() < size) {
+        buffer = ByteBuffer.allocateDirect(Math.max(MIN_SLOT_SIZE, Integer.highestOneBit(size - 1) << 1));
+      }
+      buffer.clear();
+      buffer.put(output.getBuffer(), 0, size);
+      buffer.flip();
+      return buffer;
+    }
+
+    @Override
+    protected Object copy(Object payload) {
+      if (!(payload instanceof ByteBuffer)) {
+        return payload;
+      }
+      ByteBuffer buffer = ((ByteBuffer) payload).duplicate();
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return bytes;
+    }
+
+    @Override
+    protected Record load(Object copy) throws IOException {
+      if (!(copy instanceof byte[])) {
+        return (Record) copy;
+      }
+      byte[] bytes = (byte[]) copy;
+      RecordReader reader =
+          RecordWriterReaderFactory.createRecordReader(new ByteArrayInputStream(bytes), 0, bytes.length);
+      try {
+        return reader.readRecord();
+      } finally {
+        reader.close();
+      }
+    }
+  }
+}
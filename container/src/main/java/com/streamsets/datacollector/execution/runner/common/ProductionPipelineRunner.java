@@ -22,7 +22,6 @@ import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Throwables;
-import com.google.common.collect.EvictingQueue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
@@ -101,6 +100,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -169,16 +169,17 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   // Exception thrown while executing the pipeline
   private volatile Throwable exceptionFromExecution = null;
   /*Cache last N error records per stage in memory*/
-  private final Map<String, EvictingQueue<Record>> stageToErrorRecordsMap;
+  private final Map<String, ErrorRingBuffer<Record>> stageToErrorRecordsMap;
   /*Cache last N error messages in memory*/
-  private final Map<String, EvictingQueue<ErrorMessage>> stageToErrorMessagesMap;
+  private final Map<String, ErrorRingBuffer<ErrorMessage>> stageToErrorMessagesMap;
   /**/
   private BlockingQueue<Object> observeRequests;
   private Observer observer;
   private BlockingQueue<Record> statsAggregatorRequests;
   private final List<BatchListener> batchListenerList = new CopyOnWriteArrayList<>();
   private ThreadHealthReporter threadHealthReporter;
-  private final List<List<StageOutput>> capturedBatches = new ArrayList<>();
+  /*number of batches already appended to the snapshot being captured*/
+  private int capturedBatches = 0;
   private PipeContext pipeContext = null;
   private PipelineConfigBean pipelineConfigBean = null;
   private PipelineConfiguration pipelineConfiguration = null;
@@ -207,8 +208,8 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     this.pipelineName = pipelineName;
     this.revision = revision;
     this.supportBundleManager = supportBundleManager;
-    stageToErrorRecordsMap = new HashMap<>();
-    stageToErrorMessagesMap = new HashMap<>();
+    stageToErrorRecordsMap = new ConcurrentHashMap<>();
+    stageToErrorMessagesMap = new ConcurrentHashMap<>();
     this.errorListeners = new ArrayList<>();
     this.statsCollector = statsCollector;
 
@@ -398,6 +399,11 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       Throwables.propagateIfInstanceOf(throwable, StageException.class);
       Throwables.propagateIfInstanceOf(throwable, PipelineRuntimeException.class);
       Throwables.propagate(throwable);
+    } finally {
+      // Flush all offsets that might be still pending in the offset store
+      if (offsetTracker != null) {
+        offsetTracker.close();
+      }
     }
 
     if(resetOffset) {
@@ -824,7 +830,7 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
     synchronized (this) {
       this.snapshotBatchSize = 0;
       this.batchesToCapture = 0;
-      capturedBatches.clear();
+      capturedBatches = 0;
     }
   }
 
@@ -956,7 +962,9 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
       List<StageOutput> snapshot = pipeBatch.getSnapshotsOfAllStagesOutput();
       if( batchesToCapture > 0 && ValidationUtil.isSnapshotOutputUsable(pipeBatch.getSnapshotsOfAllStagesOutput())) {
         if (!snapshot.isEmpty()) {
-          capturedBatches.add(snapshot);
+          // Stream the batch to the store right away rather than holding all captured batches in memory
+          snapshotStore.appendBatch(pipelineName, revision, snapshotName, snapshot);
+          capturedBatches++;
         }
         /*
          * Reset the capture snapshot variable only after capturing the snapshot
@@ -966,9 +974,9 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
         if (batchesToCapture == 0) {
           snapshotBatchSize = 0;
           batchesToCapture = 0;
-          if (!capturedBatches.isEmpty()) {
-            snapshotStore.save(pipelineName, revision, snapshotName, batchCountMeter.getCount(), capturedBatches);
-            capturedBatches.clear();
+          if (capturedBatches > 0) {
+            snapshotStore.complete(pipelineName, revision, snapshotName, batchCountMeter.getCount());
+            capturedBatches = 0;
           }
         }
       }
@@ -1069,69 +1077,36 @@ public class ProductionPipelineRunner implements PipelineRunner, PushSourceConte
   }
 
   private void retainErrorMessagesInMemory(Map<String, List<ErrorMessage>> errorMessages) {
-    // Shortcut to avoid synchronization
-    if(errorMessages.isEmpty()) {
-      return;
-    }
-
-    synchronized (stageToErrorMessagesMap) {
-      for (Map.Entry<String, List<ErrorMessage>> e : errorMessages.entrySet()) {
-        EvictingQueue<ErrorMessage> errorMessageList = stageToErrorMessagesMap.computeIfAbsent(e.getKey(),
-            k -> EvictingQueue.create(configuration.get(Constants.MAX_PIPELINE_ERRORS_KEY,
-                Constants.MAX_PIPELINE_ERRORS_DEFAULT
-            ))
-        );
-        errorMessageList.addAll(errorMessages.get(e.getKey()));
-      }
+    for (Map.Entry<String, List<ErrorMessage>> e : errorMessages.entrySet()) {
+      stageToErrorMessagesMap.computeIfAbsent(
+          e.getKey(),
+          k -> ErrorRingBuffer.forErrorMessages(configuration.get(Constants.MAX_PIPELINE_ERRORS_KEY,
+              Constants.MAX_PIPELINE_ERRORS_DEFAULT
+          ))
+      ).appendAll(e.getValue());
     }
   }
 
   private void retainErrorRecordsInMemory(Map<String, List<Record>> errorRecords) {
-    // Shortcut to avoid synchronization
-    if(errorRecords.isEmpty()) {
-      return;
-    }
-
-    synchronized (stageToErrorRecordsMap) {
-      for (Map.Entry<String, List<Record>> e : errorRecords.entrySet()) {
-        EvictingQueue<Record> errorRecordList = stageToErrorRecordsMap.computeIfAbsent(e.getKey(),
-            k -> EvictingQueue.create(configuration.get(Constants.MAX_ERROR_RECORDS_PER_STAGE_KEY,
-                Constants.MAX_ERROR_RECORDS_PER_STAGE_DEFAULT
-            ))
-        );
-        // replace with a data structure with an upper cap
-        errorRecordList.addAll(errorRecords.get(e.getKey()));
-      }
+    for (Map.Entry<String, List<Record>> e : errorRecords.entrySet()) {
+      // Records are retained encoded off-heap and decoded only when requested
+      stageToErrorRecordsMap.computeIfAbsent(
+          e.getKey(),
+          k -> ErrorRingBuffer.forRecords(configuration.get(Constants.MAX_ERROR_RECORDS_PER_STAGE_KEY,
+              Constants.MAX_ERROR_RECORDS_PER_STAGE_DEFAULT
+          ))
+      ).appendAll(e.getValue());
     }
   }
 
-  @SuppressWarnings("unchecked")
   public List<Record> getErrorRecords(String instanceName, int size) {
-    synchronized (stageToErrorRecordsMap) {
-      if (stageToErrorRecordsMap == null || stageToErrorRecordsMap.isEmpty()
-        || stageToErrorRecordsMap.get(instanceName) == null || stageToErrorRecordsMap.get(instanceName).isEmpty()) {
-        return Collections.emptyList();
-      }
-      if (stageToErrorRecordsMap.get(instanceName).size() > size) {
-        return new CopyOnWriteArrayList<>(stageToErrorRecordsMap.get(instanceName)).subList(0, size);
-      } else {
-        return new CopyOnWriteArrayList<>(stageToErrorRecordsMap.get(instanceName));
-      }
-    }
+    ErrorRingBuffer<Record> errorRecords = stageToErrorRecordsMap.get(instanceName);
+    return errorRecords == null ? Collections.emptyList() : errorRecords.get(size);
   }
 
   public List<ErrorMessage> getErrorMessages(String instanceName, int size) {
-    synchronized (stageToErrorMessagesMap) {
-      if (stageToErrorMessagesMap == null || stageToErrorMessagesMap.isEmpty()
-        || stageToErrorMessagesMap.get(instanceName) == null || stageToErrorMessagesMap.get(instanceName).isEmpty()) {
-        return Collections.emptyList();
-      }
-      if (stageToErrorMessagesMap.get(instanceName).size() > size) {
-        return new CopyOnWriteArrayList<>(stageToErrorMessagesMap.get(instanceName)).subList(0, size);
-      } else {
-        return new CopyOnWriteArrayList<>(stageToErrorMessagesMap.get(instanceName));
-      }
-    }
+    ErrorRingBuffer<ErrorMessage> errorMessages = stageToErrorMessagesMap.get(instanceName);
+    return errorMessages == null ? Collections.emptyList() : errorMessages.get(size);
   }
 
   /**
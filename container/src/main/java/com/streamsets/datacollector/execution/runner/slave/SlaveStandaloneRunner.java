@@ -32,6 +32,7 @@ import com.streamsets.datacollector.execution.runner.common.PipelineRunnerExcept
 import com.streamsets.datacollector.execution.runner.common.SampledRecord;
 import com.streamsets.datacollector.execution.runner.standalone.StandaloneRunner;
 import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.runner.Pipeline;
 import com.streamsets.datacollector.runner.production.SourceOffset;
 import com.streamsets.datacollector.store.PipelineStoreException;
@@ -210,6 +211,11 @@ public class SlaveStandaloneRunner implements Runner, PipelineInfo  {
     return standaloneRunner.getMetrics();
   }
 
+  @Override
+  public MetricsSnapshot getMetricsSnapshot() {
+    return standaloneRunner.getMetricsSnapshot();
+  }
+
   @Override
   public List<Record> getErrorRecords(String stage, int max) throws PipelineRunnerException, PipelineStoreException {
     return standaloneRunner.getErrorRecords(stage, max);
@@ -61,6 +61,7 @@ import com.streamsets.datacollector.execution.runner.common.ThreadHealthReporter
 import com.streamsets.datacollector.execution.runner.common.dagger.PipelineProviderModule;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.metrics.MetricsConfigurator;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.runner.Observer;
 import com.streamsets.datacollector.runner.Pipeline;
 import com.streamsets.datacollector.runner.PipelineRunner;
@@ -475,6 +476,12 @@ public class StandaloneRunner extends AbstractRunner implements StateListener {
 
   }
 
+  @Override
+  public MetricsSnapshot getMetricsSnapshot() {
+    MetricsEventRunnable runnable = metricsEventRunnable;
+    return runnable == null ? null : runnable.getLatestSnapshot();
+  }
+
   @Override
   public String captureSnapshot(
       String user,
@@ -87,6 +87,20 @@ public class CacheSnapshotStore implements SnapshotStore {
     }
   }
 
+  @Override
+  public void appendBatch(String name, String rev, String id, List<StageOutput> batch) throws PipelineException {
+    snapshotStore.appendBatch(name, rev, id, batch);
+  }
+
+  @Override
+  public SnapshotInfo complete(String name, String rev, String id, long batchNumber) throws PipelineException {
+    synchronized (lockCache.getLock(name)) {
+      SnapshotInfo updatedSnapshotInfo = snapshotStore.complete(name, rev, id, batchNumber);
+      snapshotStateCache.put(getCacheKey(name, rev, id), updatedSnapshotInfo);
+      return updatedSnapshotInfo;
+    }
+  }
+
   @Override
   public SnapshotInfo updateLabel(String name, String rev, String id, String snapshotLabel) throws PipelineException {
     return snapshotStore.updateLabel(name, rev, id, snapshotLabel);
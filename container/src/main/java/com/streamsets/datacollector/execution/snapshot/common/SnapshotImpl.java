@@ -17,7 +17,10 @@ package com.streamsets.datacollector.execution.snapshot.common;
 
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.datacollector.restapi.bean.SnapshotDataJson;
 import com.streamsets.datacollector.runner.PipelineRuntimeException;
+import com.streamsets.datacollector.runner.StageOutput;
 import com.streamsets.datacollector.util.ContainerError;
 
 import java.io.Closeable;
@@ -26,11 +29,17 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
+/**
+ * Snapshot stored as a single JSON document, the format used before chunked snapshots were introduced.
+ *
+ * Paged access has to parse the whole document.
+ */
 public class SnapshotImpl implements Snapshot, Closeable {
 
   private SnapshotInfo snapshotInfo;
   private File snapshotFile;
   private InputStream output;
+  private SnapshotData snapshotData;
 
   public SnapshotImpl(SnapshotInfo snapshotInfo, File snapshotFile) {
     this.snapshotInfo = snapshotInfo;
@@ -56,9 +65,42 @@ public class SnapshotImpl implements Snapshot, Closeable {
     return null;
   }
 
+  @Override
+  public SnapshotIndex getIndex() throws PipelineRuntimeException {
+    SnapshotData data = getSnapshotData();
+    return data == null ? null : SnapshotIndex.of(data.getSnapshotBatches());
+  }
+
+  @Override
+  public StageOutput getStageOutput(int batch, String instanceName) throws PipelineRuntimeException {
+    SnapshotData data = getSnapshotData();
+    if (data == null || batch < 0 || batch >= data.getSnapshotBatches().size()) {
+      return null;
+    }
+    for (StageOutput stageOutput : data.getSnapshotBatches().get(batch)) {
+      if (stageOutput.getInstanceName().equals(instanceName)) {
+        return stageOutput;
+      }
+    }
+    return null;
+  }
+
+  private SnapshotData getSnapshotData() throws PipelineRuntimeException {
+    if (snapshotData == null && snapshotFile != null) {
+      try (InputStream in = new FileInputStream(snapshotFile)) {
+        snapshotData = ObjectMapperFactory.get().readValue(in, SnapshotDataJson.class).getSnapshotData();
+      } catch (Exception ex) {
+        throw new PipelineRuntimeException(ContainerError.CONTAINER_0600, snapshotInfo.getId(), snapshotInfo.getName(),
+          snapshotInfo.getRev(), ex.toString(), ex);
+      }
+    }
+    return snapshotData;
+  }
+
   @Override
   public void close() throws IOException {
     snapshotInfo = null;
+    snapshotData = null;
     if(snapshotFile != null && output != null) {
       output.close();
       output = null;
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.snapshot.common;
+
+import com.streamsets.datacollector.runner.StageOutput;
+import com.streamsets.pipeline.api.Record;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Describes content of a snapshot - for each captured batch the stages (in order) and number of records they produced.
+ *
+ * Allows clients to page through the snapshot without loading the whole snapshot data.
+ */
+public class SnapshotIndex {
+
+  private final List<List<StageEntry>> batches;
+
+  public SnapshotIndex(List<List<StageEntry>> batches) {
+    this.batches = batches;
+  }
+
+  public static SnapshotIndex of(List<List<StageOutput>> snapshotBatches) {
+    List<List<StageEntry>> batches = new ArrayList<>(snapshotBatches.size());
+    for (List<StageOutput> batch : snapshotBatches) {
+      batches.add(StageEntry.of(batch));
+    }
+    return new SnapshotIndex(batches);
+  }
+
+  public List<List<StageEntry>> getBatches() {
+    return batches;
+  }
+
+  /**
+   * Returns position of given stage in given batch or -1 if the snapshot doesn't contain such stage output.
+   */
+  public int indexOf(int batch, String instanceName) {
+    if (batch < 0 || batch >= batches.size()) {
+      return -1;
+    }
+    List<StageEntry> stages = batches.get(batch);
+    for (int i = 0; i < stages.size(); i++) {
+      if (stages.get(i).getInstanceName().equals(instanceName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  public static class StageEntry {
+    private final String instanceName;
+    private final Map<String, Integer> outputRecords;
+    private final int errorRecords;
+    private final int stageErrors;
+    private final int eventRecords;
+
+    public StageEntry(
+        String instanceName,
+        Map<String, Integer> outputRecords,
+        int errorRecords,
+        int stageErrors,
+        int eventRecords
+    ) {
+      this.instanceName = instanceName;
+      this.outputRecords = outputRecords;
+      this.errorRecords = errorRecords;
+      this.stageErrors = stageErrors;
+      this.eventRecords = eventRecords;
+    }
+
+    public static StageEntry of(StageOutput stageOutput) {
+      Map<String, Integer> outputRecords = new LinkedHashMap<>();
+      if (stageOutput.getOutput() != null) {
+        for (Map.Entry<String, List<Record>> entry : stageOutput.getOutput().entrySet()) {
+          outputRecords.put(entry.getKey(), size(entry.getValue()));
+        }
+      }
+      return new StageEntry(
+          stageOutput.getInstanceName(),
+          outputRecords,
+          size(stageOutput.getErrorRecords()),
+          size(stageOutput.getStageErrors()),
+          size(stageOutput.getEventRecords())
+      );
+    }
+
+    public static List<StageEntry> of(List<StageOutput> batch) {
+      List<StageEntry> entries = new ArrayList<>(batch.size());
+      for (StageOutput stageOutput : batch) {
+        entries.add(of(stageOutput));
+      }
+      return entries;
+    }
+
+    private static int size(List<?> list) {
+      return list == null ? 0 : list.size();
+    }
+
+    public String getInstanceName() {
+      return instanceName;
+    }
+
+    public Map<String, Integer> getOutputRecords() {
+      return outputRecords == null ? Collections.emptyMap() : outputRecords;
+    }
+
+    public int getErrorRecords() {
+      return errorRecords;
+    }
+
+    public int getStageErrors() {
+      return stageErrors;
+    }
+
+    public int getEventRecords() {
+      return eventRecords;
+    }
+  }
+}
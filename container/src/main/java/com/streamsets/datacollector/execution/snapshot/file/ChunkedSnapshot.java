@@ -0,0 +1,185 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.snapshot.file;
+
+import com.streamsets.datacollector.execution.Snapshot;
+import com.streamsets.datacollector.execution.SnapshotInfo;
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotIndex;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.datacollector.restapi.bean.StageOutputJson;
+import com.streamsets.datacollector.runner.PipelineRuntimeException;
+import com.streamsets.datacollector.runner.StageOutput;
+import com.streamsets.datacollector.util.ContainerError;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Snapshot stored as one compressed chunk per captured batch and stage with an index describing them.
+ *
+ * Output of a single stage can be read without touching the rest of the snapshot, the complete snapshot document
+ * (as returned by {@link #getOutput()}) is assembled on the fly from the chunks.
+ */
+public class ChunkedSnapshot implements Snapshot {
+
+  private SnapshotInfo snapshotInfo;
+  private SnapshotIndex index;
+  private File chunkDir;
+  private InputStream output;
+
+  public ChunkedSnapshot(SnapshotInfo snapshotInfo, SnapshotIndex index, File chunkDir) {
+    this.snapshotInfo = snapshotInfo;
+    this.index = index;
+    this.chunkDir = chunkDir;
+  }
+
+  static File getChunkFile(File chunkDir, int batch, int stage) {
+    return new File(chunkDir, batch + "-" + stage + ".json.gz");
+  }
+
+  @Override
+  public SnapshotInfo getInfo() {
+    return snapshotInfo;
+  }
+
+  @Override
+  public InputStream getOutput() {
+    if (index == null) {
+      return null;
+    }
+    // Chunks are serialized StageOutputJson, so the SnapshotDataJson document is just chunks glued together
+    List<Object> parts = new ArrayList<>();
+    parts.add("{\"snapshotBatches\":[");
+    List<List<SnapshotIndex.StageEntry>> batches = index.getBatches();
+    for (int batch = 0; batch < batches.size(); batch++) {
+      parts.add(batch == 0 ? "[" : ",[");
+      for (int stage = 0; stage < batches.get(batch).size(); stage++) {
+        if (stage > 0) {
+          parts.add(",");
+        }
+        parts.add(getChunkFile(chunkDir, batch, stage));
+      }
+      parts.add("]");
+    }
+    parts.add("]}");
+    output = new ChunkedInputStream(parts.iterator());
+    return output;
+  }
+
+  @Override
+  public SnapshotIndex getIndex() {
+    return index;
+  }
+
+  @Override
+  public StageOutput getStageOutput(int batch, String instanceName) throws PipelineRuntimeException {
+    if (index == null) {
+      return null;
+    }
+    int stage = index.indexOf(batch, instanceName);
+    if (stage < 0) {
+      return null;
+    }
+    try (InputStream in = new GZIPInputStream(new FileInputStream(getChunkFile(chunkDir, batch, stage)))) {
+      return ObjectMapperFactory.get().readValue(in, StageOutputJson.class).getStageOutput();
+    } catch (IOException ex) {
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0600, snapshotInfo.getId(), snapshotInfo.getName(),
+          snapshotInfo.getRev(), ex.toString(), ex);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    snapshotInfo = null;
+    index = null;
+    chunkDir = null;
+    if (output != null) {
+      output.close();
+      output = null;
+    }
+  }
+
+  /**
+   * Concatenation of literal strings and decompressed chunk files, files are opened only when they are reached.
+   */
+  private static class ChunkedInputStream extends InputStream {
+    private final Iterator<Object> parts;
+    private InputStream current;
+
+    ChunkedInputStream(Iterator<Object> parts) {
+      this.parts = parts;
+    }
+
+    private boolean advance() throws IOException {
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+      if (!parts.hasNext()) {
+        return false;
+      }
+      Object part = parts.next();
+      if (part instanceof File) {
+        current = new GZIPInputStream(new FileInputStream((File) part));
+      } else {
+        current = new ByteArrayInputStream(((String) part).getBytes(StandardCharsets.UTF_8));
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] b = new byte[1];
+      return read(b, 0, 1) == -1 ? -1 : (b[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (current != null || advance()) {
+        int read = current.read(b, off, len);
+        if (read > 0) {
+          return read;
+        }
+        if (read == -1 && !advance()) {
+          return -1;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (current != null) {
+        current.close();
+        current = null;
+      }
+      while (parts.hasNext()) {
+        parts.next();
+      }
+    }
+  }
+}
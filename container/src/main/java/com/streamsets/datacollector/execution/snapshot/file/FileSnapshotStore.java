@@ -19,14 +19,15 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.SnapshotStore;
-import com.streamsets.datacollector.execution.snapshot.common.SnapshotData;
 import com.streamsets.datacollector.execution.snapshot.common.SnapshotImpl;
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotIndex;
 import com.streamsets.datacollector.execution.snapshot.common.SnapshotInfoImpl;
 import com.streamsets.datacollector.io.DataStore;
 import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.main.RuntimeInfo;
-import com.streamsets.datacollector.restapi.bean.SnapshotDataJson;
+import com.streamsets.datacollector.restapi.bean.SnapshotIndexJson;
 import com.streamsets.datacollector.restapi.bean.SnapshotInfoJson;
+import com.streamsets.datacollector.restapi.bean.StageOutputJson;
 import com.streamsets.datacollector.runner.PipelineRuntimeException;
 import com.streamsets.datacollector.runner.StageOutput;
 import com.streamsets.datacollector.store.PipelineStoreException;
@@ -39,6 +40,7 @@ import javax.inject.Inject;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
@@ -46,10 +48,19 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
+/**
+ * Stores every snapshot in its own directory. Captured data are written as one compressed chunk per batch and stage
+ * (see {@link ChunkedSnapshot}) together with an index, snapshots saved by older versions as a single snapshot.json
+ * file are still readable.
+ */
 public class FileSnapshotStore implements SnapshotStore {
+  // Single file format used by older versions, only read
   private static final String SNAPSHOT_FILE_NAME = "snapshot.json";
   private static final String INFO_FILE_NAME = "info.json";
+  private static final String INDEX_FILE_NAME = "index.json";
+  private static final String CHUNK_DIR_NAME = "chunks";
   private final LockCache<String> lockCache;
   private final RuntimeInfo runtimeInfo;
   private final ObjectMapper json;
@@ -83,12 +94,47 @@ public class FileSnapshotStore implements SnapshotStore {
       long batchNumber,
       List<List<StageOutput>> snapshotBatches
   ) throws PipelineException {
+    synchronized (lockCache.getLock(name)) {
+      if (getInfo(name, rev, id) == null) {
+        throw new PipelineException(ContainerError.CONTAINER_0605);
+      }
+      // Saving replaces whatever the snapshot captured before
+      resetData(name, rev, id);
+      for (List<StageOutput> batch : snapshotBatches) {
+        appendBatch(name, rev, id, batch);
+      }
+      return complete(name, rev, id, batchNumber);
+    }
+  }
+
+  @Override
+  public void appendBatch(String name, String rev, String id, List<StageOutput> batch) throws PipelineException {
+    synchronized (lockCache.getLock(name)) {
+      if (getInfo(name, rev, id) == null) {
+        throw new PipelineException(ContainerError.CONTAINER_0605);
+      }
+      SnapshotIndex index = getIndex(name, rev, id);
+      List<List<SnapshotIndex.StageEntry>> batches = new ArrayList<>();
+      if (index != null) {
+        batches.addAll(index.getBatches());
+      }
+      persistChunks(name, rev, id, batches.size(), batch);
+      // The batch becomes visible only once the index referencing it is committed
+      batches.add(SnapshotIndex.StageEntry.of(batch));
+      persistIndex(name, rev, id, new SnapshotIndex(batches));
+    }
+  }
+
+  @Override
+  public SnapshotInfo complete(String name, String rev, String id, long batchNumber) throws PipelineException {
     synchronized (lockCache.getLock(name)) {
       SnapshotInfo existingInfo = getInfo(name, rev, id);
       if (existingInfo == null) {
         throw new PipelineException(ContainerError.CONTAINER_0605);
       }
-      persistSnapshot(name, rev, id, snapshotBatches);
+      if (getIndex(name, rev, id) == null) {
+        persistIndex(name, rev, id, new SnapshotIndex(new ArrayList<>()));
+      }
       SnapshotInfo updatedSnapshotInfo =
         new SnapshotInfoImpl(
             existingInfo.getUser(),
@@ -134,6 +180,10 @@ public class FileSnapshotStore implements SnapshotStore {
   public Snapshot get(String name, String rev, String id) throws PipelineException {
     synchronized (lockCache.getLock(name)) {
       SnapshotInfo info = getInfo(name, rev, id);
+      SnapshotIndex index = getIndex(name, rev, id);
+      if (index != null) {
+        return new ChunkedSnapshot(info, index, getPipelineSnapshotChunkDir(name, rev, id));
+      }
       File data = getData(name, rev, id);
       return new SnapshotImpl(info, data);
     }
@@ -196,6 +246,18 @@ public class FileSnapshotStore implements SnapshotStore {
     }
   }
 
+  private SnapshotIndex getIndex(String name, String rev, String id) throws PipelineRuntimeException {
+    File indexFile = getPipelineSnapshotIndexFile(name, rev, id);
+    if (!indexFile.exists()) {
+      return null;
+    }
+    try (InputStream in = new FileInputStream(indexFile)) {
+      return json.readValue(in, SnapshotIndexJson.class).getSnapshotIndex();
+    } catch (IOException e) {
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0600, id, name, rev, e.toString(), e);
+    }
+  }
+
   File getData(String name, String rev, String id) throws PipelineRuntimeException {
     File dataFile = getPipelineSnapshotFile(name, rev, id);
     if(dataFile.exists()) {
@@ -210,6 +272,16 @@ public class FileSnapshotStore implements SnapshotStore {
       SNAPSHOT_FILE_NAME);
   }
 
+  private File getPipelineSnapshotIndexFile(String name, String rev, String id) {
+    return new File(PipelineDirectoryUtil.getPipelineSnapshotDir(runtimeInfo, name, rev, id),
+      INDEX_FILE_NAME);
+  }
+
+  private File getPipelineSnapshotChunkDir(String name, String rev, String id) {
+    return new File(PipelineDirectoryUtil.getPipelineSnapshotDir(runtimeInfo, name, rev, id),
+      CHUNK_DIR_NAME);
+  }
+
   private File getPipelineSnapshotInfoFile(String name, String rev, String id) {
     return new File(PipelineDirectoryUtil.getPipelineSnapshotDir(runtimeInfo, name, rev, id),
       INFO_FILE_NAME);
@@ -229,11 +301,38 @@ public class FileSnapshotStore implements SnapshotStore {
     }
   }
 
-  private void persistSnapshot(String name, String rev, String id, List<List<StageOutput>> snapshotBatches)
+  private void persistChunks(String name, String rev, String id, int batchIndex, List<StageOutput> batch)
+    throws PipelineRuntimeException {
+    File chunkDir = getPipelineSnapshotChunkDir(name, rev, id);
+    if (!chunkDir.exists() && !chunkDir.mkdirs()) {
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0603, id, name, rev,
+        "Can't create directory " + chunkDir);
+    }
+    for (int stage = 0; stage < batch.size(); stage++) {
+      File chunk = ChunkedSnapshot.getChunkFile(chunkDir, batchIndex, stage);
+      try (OutputStream out = new GZIPOutputStream(new FileOutputStream(chunk))) {
+        json.writeValue(out, new StageOutputJson(batch.get(stage)));
+      } catch (IOException e) {
+        throw new PipelineRuntimeException(ContainerError.CONTAINER_0603, id, name, rev, e.toString(), e);
+      }
+    }
+  }
+
+  private void resetData(String name, String rev, String id) throws PipelineRuntimeException {
+    // Empty index is committed first, so that the snapshot never references chunks that are being deleted
+    persistIndex(name, rev, id, new SnapshotIndex(new ArrayList<>()));
+    File chunkDir = getPipelineSnapshotChunkDir(name, rev, id);
+    if (chunkDir.exists() && !PipelineDirectoryUtil.deleteAll(chunkDir)) {
+      throw new PipelineRuntimeException(ContainerError.CONTAINER_0603, id, name, rev,
+        "Can't delete directory " + chunkDir);
+    }
+  }
+
+  private void persistIndex(String name, String rev, String id, SnapshotIndex index)
     throws PipelineRuntimeException {
-    DataStore dataStore = new DataStore(getPipelineSnapshotFile(name, rev, id));
+    DataStore dataStore = new DataStore(getPipelineSnapshotIndexFile(name, rev, id));
     try (OutputStream out = dataStore.getOutputStream()) {
-      json.writeValue(out, new SnapshotDataJson(new SnapshotData(snapshotBatches)));
+      json.writeValue(out, new SnapshotIndexJson(index));
       dataStore.commit(out);
     } catch (IOException e) {
       throw new PipelineRuntimeException(ContainerError.CONTAINER_0603, id, name, rev, e.toString(), e);
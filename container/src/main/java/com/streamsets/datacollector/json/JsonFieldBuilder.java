@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.json;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link Field} trees directly from Jackson tokens.
+ *
+ * This produces the same fields as reading the JSON into a Map/List tree with {@code readValueAs(Object.class)} and
+ * converting that tree into fields afterwards, but without materializing the intermediate tree. Map keys are taken
+ * from {@link JsonParser#getCurrentName()}, which returns the canonical instance from the parser factory's symbol
+ * table, so repeated keys share a single String across all records read through the same factory.
+ */
+public class JsonFieldBuilder {
+
+  private final boolean bigDecimalForFloats;
+  private final boolean bigIntegerForInts;
+  private final boolean longForInts;
+  private final Runnable valueAddedCallback;
+
+  public JsonFieldBuilder(ObjectMapper objectMapper) {
+    this(objectMapper, null);
+  }
+
+  /**
+   * @param objectMapper Mapper whose number deserialization features should be honored.
+   * @param valueAddedCallback Optional callback invoked after each value is added to a map or list, used to enforce
+   *                           maximum object length while the object is being read.
+   */
+  public JsonFieldBuilder(ObjectMapper objectMapper, Runnable valueAddedCallback) {
+    this.bigDecimalForFloats = objectMapper.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    this.bigIntegerForInts = objectMapper.isEnabled(DeserializationFeature.USE_BIG_INTEGER_FOR_INTS);
+    this.longForInts = objectMapper.isEnabled(DeserializationFeature.USE_LONG_FOR_INTS);
+    this.valueAddedCallback = valueAddedCallback;
+  }
+
+  /**
+   * Reads the value starting at the current token of given parser. On return the parser is positioned at the last
+   * token of the value (same contract as {@link JsonParser#readValueAs(Class)}).
+   *
+   * Like {@link JsonParser#readValueAs(Class)} returns null for a JSON null value, which readers treat as end of input.
+   * Only null values nested in maps and lists become null fields.
+   */
+  public Field build(JsonParser parser) throws IOException {
+    JsonToken token = parser.getCurrentToken();
+    if (token == null) {
+      token = parser.nextToken();
+    }
+    if (token == null || token == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    return readValue(parser, token);
+  }
+
+  private Field readValue(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case START_OBJECT:
+      case FIELD_NAME:
+        return readMap(parser, token);
+      case START_ARRAY:
+        return readList(parser);
+      case VALUE_STRING:
+        return Field.create(parser.getText());
+      case VALUE_NUMBER_INT:
+        return readInt(parser);
+      case VALUE_NUMBER_FLOAT:
+        return bigDecimalForFloats ? Field.create(parser.getDecimalValue()) : Field.create(parser.getDoubleValue());
+      case VALUE_TRUE:
+        return Field.create(true);
+      case VALUE_FALSE:
+        return Field.create(false);
+      case VALUE_NULL:
+        return Field.create(Field.Type.STRING, null);
+      case VALUE_EMBEDDED_OBJECT:
+        Object embedded = parser.getEmbeddedObject();
+        if (embedded == null) {
+          return Field.create(Field.Type.STRING, null);
+        } else if (embedded instanceof byte[]) {
+          return Field.create((byte[]) embedded);
+        }
+        // fall through
+      default:
+        throw new JsonParseException(
+            Utils.format("Unexpected token '{}'", token),
+            parser.getTokenLocation()
+        );
+    }
+  }
+
+  private Field readMap(JsonParser parser, JsonToken token) throws IOException {
+    Map<String, Field> map = new LinkedHashMap<>();
+    // readValueAs() may be handed a parser that already consumed START_OBJECT
+    if (token == JsonToken.START_OBJECT) {
+      token = parser.nextToken();
+    }
+    while (token == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      map.put(name, readValue(parser, parser.nextToken()));
+      valueAdded();
+      token = parser.nextToken();
+    }
+    checkEnd(parser, token, JsonToken.END_OBJECT);
+    return Field.create(map);
+  }
+
+  private Field readList(JsonParser parser) throws IOException {
+    List<Field> list = new ArrayList<>();
+    JsonToken token = parser.nextToken();
+    while (token != null && token != JsonToken.END_ARRAY) {
+      list.add(readValue(parser, token));
+      valueAdded();
+      token = parser.nextToken();
+    }
+    checkEnd(parser, token, JsonToken.END_ARRAY);
+    return Field.create(list);
+  }
+
+  private Field readInt(JsonParser parser) throws IOException {
+    if (bigIntegerForInts) {
+      return Field.create(new BigDecimal(parser.getBigIntegerValue()));
+    }
+    // getNumberType() only looks at the length of the digits, the value is then decoded once straight into
+    // the primitive that the field holds.
+    switch (parser.getNumberType()) {
+      case INT:
+        return longForInts ? Field.create(parser.getLongValue()) : Field.create(parser.getIntValue());
+      case LONG:
+        return Field.create(parser.getLongValue());
+      default:
+        return Field.create(new BigDecimal(parser.getBigIntegerValue()));
+    }
+  }
+
+  private void valueAdded() {
+    if (valueAddedCallback != null) {
+      valueAddedCallback.run();
+    }
+  }
+
+  private static void checkEnd(JsonParser parser, JsonToken token, JsonToken expected) throws IOException {
+    if (token != expected) {
+      throw new JsonParseException(
+          Utils.format("Unexpected end of input, expected '{}'", expected),
+          parser.getCurrentLocation()
+      );
+    }
+  }
+}
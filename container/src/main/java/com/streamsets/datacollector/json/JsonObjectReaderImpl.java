@@ -22,6 +22,7 @@ import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
 import com.google.common.base.Preconditions;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.ext.JsonObjectReader;
 import com.streamsets.pipeline.api.ext.json.Mode;
 import com.streamsets.pipeline.api.impl.Utils;
@@ -45,6 +46,7 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
   private final Mode mode;
   private final Class objectClass;
   private final ObjectMapper objectMapper;
+  private final JsonFieldBuilder fieldBuilder;
 
   private boolean starting;
   private JsonStreamContext rootContext;
@@ -91,6 +93,8 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
       }
     }
     jsonParser = getObjectMapper().getFactory().createParser(reader);
+    // Field is produced directly from the tokens rather than through an intermediate Map/List tree
+    fieldBuilder = (objectClass == Field.class) ? new JsonFieldBuilder(objectMapper, this::fieldValueAdded) : null;
     if (mode == Mode.ARRAY_OBJECTS && initialPosition > 0) {
       fastForwardJsonParser(initialPosition);
     }
@@ -150,6 +154,13 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
     // no-op
   }
 
+  /**
+   * Invoked after each value is added to a map or list while reading {@link Field} objects.
+   */
+  protected void fieldValueAdded() {
+    // no-op
+  }
+
   protected Reader getReader() {
     return reader;
   }
@@ -178,7 +189,7 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
     }
     JsonToken token = jsonParser.nextToken();
     if (token != null && token != JsonToken.END_ARRAY) {
-      value = jsonParser.readValueAs(Object.class);
+      value = (fieldBuilder != null) ? fieldBuilder.build(jsonParser) : jsonParser.readValueAs(Object.class);
     }
     return value;
   }
@@ -196,7 +207,7 @@ public class JsonObjectReaderImpl implements JsonObjectReader {
       nextToken = jsonParser.nextToken();
     }
     if (nextToken != null) {
-      value = jsonParser.readValueAs(getExpectedClass());
+      value = (fieldBuilder != null) ? fieldBuilder.build(jsonParser) : jsonParser.readValueAs(getExpectedClass());
       nextToken = jsonParser.nextToken();
       if (nextToken == null) {
         // if we reached the EOF Jackson JSON parser keeps the as getTokenLocation() the location of the last token,
@@ -223,6 +223,11 @@ public class OverrunJsonObjectReaderImpl extends JsonObjectReaderImpl {
     }
   }
 
+  @Override
+  protected void fieldValueAdded() {
+    checkIfLengthExceededForObjectRead(null);
+  }
+
   @Override
   protected void fastForwardLeaseReader() {
     ((CountingReader) getReader()).resetCount();
@@ -21,4 +21,12 @@ public interface MetricsEventListener extends EventListener {
 
   void notification(String metrics);
 
+  /**
+   * Called once per refresh tick with the shared metrics snapshot. Listeners that understand delta messages can
+   * override this method, default implementation simply forwards the full JSON.
+   */
+  default void notification(MetricsSnapshot snapshot) {
+    notification(snapshot.getFullJson());
+  }
+
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.metrics;
+
+/**
+ * Metrics of a pipeline serialized once per refresh tick and shared by all metrics listeners and REST calls.
+ *
+ * Besides the full JSON representation of the metric registry, a snapshot might carry delta JSON containing only the
+ * metrics that changed since the snapshot with sequence {@link #getBaseSequence()}. Snapshots without delta (first
+ * tick, periodic resync or one-off broadcasts) should be applied by listeners as complete replacement.
+ */
+public final class MetricsSnapshot {
+
+  /**
+   * Sequence used for snapshots that are not part of any delta chain.
+   */
+  public static final long NO_SEQUENCE = -1;
+
+  private final long sequence;
+  private final long baseSequence;
+  private final long timestamp;
+  private final String fullJson;
+  private final String deltaJson;
+
+  public MetricsSnapshot(long sequence, long baseSequence, long timestamp, String fullJson, String deltaJson) {
+    this.sequence = sequence;
+    this.baseSequence = baseSequence;
+    this.timestamp = timestamp;
+    this.fullJson = fullJson;
+    this.deltaJson = deltaJson;
+  }
+
+  /**
+   * Creates standalone snapshot that is not part of any delta chain.
+   */
+  public static MetricsSnapshot of(String fullJson) {
+    return new MetricsSnapshot(NO_SEQUENCE, NO_SEQUENCE, System.currentTimeMillis(), fullJson, null);
+  }
+
+  public long getSequence() {
+    return sequence;
+  }
+
+  /**
+   * Sequence of the snapshot the delta was computed against.
+   */
+  public long getBaseSequence() {
+    return baseSequence;
+  }
+
+  public long getTimestamp() {
+    return timestamp;
+  }
+
+  /**
+   * JSON representation of the whole metric registry (the same format as returned by the REST API).
+   */
+  public String getFullJson() {
+    return fullJson;
+  }
+
+  public boolean hasDelta() {
+    return deltaJson != null;
+  }
+
+  /**
+   * Delta JSON message, or null if this snapshot is first of its chain or a periodic resync.
+   */
+  public String getDeltaJson() {
+    return deltaJson;
+  }
+
+  /**
+   * Full JSON wrapped in a message that delta aware listeners can use to (re)synchronize their state.
+   */
+  public String getFullMessage() {
+    return "{\"sequence\":" + sequence + ",\"full\":true,\"metrics\":" + fullJson + "}";
+  }
+
+  /**
+   * Returns true if the snapshot was taken no longer than given number of milliseconds ago.
+   */
+  public boolean isFresherThan(long maxAgeMs) {
+    return System.currentTimeMillis() - timestamp <= maxAgeMs;
+  }
+}
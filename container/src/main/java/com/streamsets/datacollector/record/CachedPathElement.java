@@ -20,30 +20,31 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 
 import java.util.List;
-import java.util.function.Supplier;
 
 /**
  * Parsing Path into PathElement is fairly heavy operation due to various regexps replacements that we need to perform
- * for backward compatibility. As it's likely that a single thread (processing the same pipeline) will access the same
- * field paths repeatedly we can cache the various fields paths and their equivalent PathElements.
+ * for backward compatibility. As it's likely that all threads (processing the same pipelines) will access the same
+ * field paths repeatedly we can cache the various fields paths and their compiled FieldPath equivalents. The cache is
+ * shared across the whole JVM and bounded, FieldPath instances are immutable and hence safe to be shared.
  */
 public class CachedPathElement {
 
-  private static ThreadLocal<LoadingCache<String, List<PathElement>>> threadLocalCache = ThreadLocal.withInitial(new Supplier<LoadingCache<String, List<PathElement>>>() {
-    @Override
-    public LoadingCache<String, List<PathElement>> get() {
-      return CacheBuilder.newBuilder()
-        .maximumSize(1000) // Currently hard-coded value
-        .build(new CacheLoader<String, List<PathElement>>() {
-          @Override
-          public List<PathElement> load(String key) throws Exception {
-            return PathElement.parse(key, true);
-          }
-        });
-    }
-  });
+  private static final int MAX_CACHE_SIZE = 10000; // Currently hard-coded value
+
+  private static final LoadingCache<String, FieldPath> CACHE = CacheBuilder.newBuilder()
+    .maximumSize(MAX_CACHE_SIZE)
+    .build(new CacheLoader<String, FieldPath>() {
+      @Override
+      public FieldPath load(String key) throws Exception {
+        return FieldPath.compile(key);
+      }
+    });
+
+  public static FieldPath compile(String fieldPath) {
+    return CACHE.getUnchecked(fieldPath);
+  }
 
   public static List<PathElement> parse(String fieldPath) {
-    return threadLocalCache.get().getUnchecked(fieldPath);
+    return compile(fieldPath).getElements();
   }
 }
@@ -16,6 +16,7 @@
 package com.streamsets.datacollector.record;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
 import com.streamsets.datacollector.restapi.bean.FieldJson;
@@ -31,69 +32,123 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Deserializes fields of SDC JSON records straight from the parser tokens, without reading each field into an
+ * intermediate Map first.
+ */
 public class FieldDeserializer extends JsonDeserializer<FieldJson> {
 
   @Override
-  @SuppressWarnings("unchecked")
   public FieldJson deserialize(JsonParser jp, DeserializationContext ctxt) throws IOException {
-    Field field = parse(jp.readValueAs(Map.class));
-    return new FieldJson(field);
+    return new FieldJson(parse(jp, null));
   }
 
+  /**
+   * Parses field whose serialized form starts at the current token. If paths is not null, the 'sqpath' of the field
+   * is appended to it (needed to recover LIST_MAP keys).
+   */
   @SuppressWarnings("unchecked")
-  private Field parse(Map<String, Object> map) {
-    Field field = null;
-    if (map != null) {
-      Field.Type type = Field.Type.valueOf((String) map.get("type"));
-      Object value = map.get("value");
-      Map<String, String> attributes = (Map<String, String>) map.get("attributes");
-      if (value != null) {
-        switch (type) {
-          case MAP:
-            Map<String, Field> fMap = new HashMap<>();
-            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
-              fMap.put(entry.getKey(), parse((Map<String, Object>) entry.getValue()));
-            }
-            value = fMap;
-            break;
-          case LIST:
-            List<Field> fList = new ArrayList<>();
-            for (Map<String, Object> element : (List<Map<String, Object>>) value) {
-              fList.add(parse(element));
+  private Field parse(JsonParser jp, List<String> paths) throws IOException {
+    JsonToken token = jp.getCurrentToken();
+    if (token == null || token == JsonToken.VALUE_NULL) {
+      if (paths != null) {
+        paths.add(null);
+      }
+      return null;
+    }
+    if (token == JsonToken.START_OBJECT) {
+      token = jp.nextToken();
+    }
+
+    Field.Type type = null;
+    Object value = null;
+    Map<String, String> attributes = null;
+    String sqpath = null;
+    // 'value' may precede 'type', so containers are read into both of their possible shapes and resolved at the end
+    Map<String, Field> fMap = null;
+    List<Field> fList = null;
+    List<String> fListPaths = null;
+
+    while (token == JsonToken.FIELD_NAME) {
+      String name = jp.getCurrentName();
+      token = jp.nextToken();
+      switch (name) {
+        case "type":
+          type = Field.Type.valueOf(jp.getText());
+          break;
+        case "value":
+          if (token == JsonToken.START_OBJECT) {
+            fMap = new HashMap<>();
+            while (jp.nextToken() == JsonToken.FIELD_NAME) {
+              String key = jp.getCurrentName();
+              jp.nextToken();
+              fMap.put(key, parse(jp, null));
             }
-            value = fList;
-            break;
-          case LIST_MAP:
-            //When converting list to listMap, Key for the listMap is recovered using path attribute
-            Map<String, Field> listMap = new LinkedHashMap<>();
-            for (Map<String, Object> element : (List<Map<String, Object>>) value) {
-              String path = (String)element.get("sqpath");
-              listMap.put(EscapeUtil.getLastFieldNameFromPath(path), parse(element));
+          } else if (token == JsonToken.START_ARRAY) {
+            fList = new ArrayList<>();
+            fListPaths = new ArrayList<>();
+            while (jp.nextToken() != JsonToken.END_ARRAY) {
+              fList.add(parse(jp, fListPaths));
             }
-            value = listMap;
-            break;
-          case BYTE_ARRAY:
-            value = Base64.decodeBase64((String) value);
-            break;
-          case INTEGER:
-            value = Integer.parseInt((String) value);
-            break;
-          case LONG:
-            value = Long.parseLong((String) value);
-            break;
-          case FLOAT:
-            value = Float.parseFloat((String) value);
-            break;
-          case DOUBLE:
-            value = Double.parseDouble((String) value);
-            break;
-          default:
-            break;
+          } else if (token != JsonToken.VALUE_NULL) {
+            value = jp.readValueAs(Object.class);
+          }
+          break;
+        case "attributes":
+          attributes = (token == JsonToken.VALUE_NULL) ? null : jp.readValueAs(Map.class);
+          break;
+        case "sqpath":
+          sqpath = (token == JsonToken.VALUE_NULL) ? null : jp.getText();
+          break;
+        default:
+          jp.skipChildren();
+          break;
+      }
+      token = jp.nextToken();
+    }
+
+    if (paths != null) {
+      paths.add(sqpath);
+    }
+    if (type == null) {
+      throw new IOException("Serialized field is missing 'type'");
+    }
+
+    if (fMap != null) {
+      value = fMap;
+    } else if (fList != null) {
+      if (type == Field.Type.LIST_MAP) {
+        //When converting list to listMap, Key for the listMap is recovered using path attribute
+        Map<String, Field> listMap = new LinkedHashMap<>();
+        for (int i = 0; i < fList.size(); i++) {
+          listMap.put(EscapeUtil.getLastFieldNameFromPath(fListPaths.get(i)), fList.get(i));
         }
+        value = listMap;
+      } else {
+        value = fList;
+      }
+    } else if (value != null) {
+      switch (type) {
+        case BYTE_ARRAY:
+          value = Base64.decodeBase64((String) value);
+          break;
+        case INTEGER:
+          value = Integer.parseInt((String) value);
+          break;
+        case LONG:
+          value = Long.parseLong((String) value);
+          break;
+        case FLOAT:
+          value = Float.parseFloat((String) value);
+          break;
+        case DOUBLE:
+          value = Double.parseDouble((String) value);
+          break;
+        default:
+          break;
       }
-      field = Field.create(type, value, attributes);
     }
-    return field;
+    return Field.create(type, value, attributes);
   }
 
 }
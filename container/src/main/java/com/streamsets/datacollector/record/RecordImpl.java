@@ -271,56 +271,8 @@ public class RecordImpl implements Record, Cloneable {
     return createFieldWithPath("", "", get());
   }
 
-  List<PathElement> parse(String fieldPath) {
-    return CachedPathElement.parse(fieldPath);
-  }
-
-  private List<Field> get(List<PathElement> elements) {
-    List<Field> fields = new ArrayList<>(elements.size());
-    if (value != null) {
-      Field current = value;
-      for (int i = 0; current != null &&  i < elements.size(); i++) {
-        Field next = null;
-        PathElement element = elements.get(i);
-        switch (element.getType()) {
-          case ROOT:
-            fields.add(current);
-            next = current;
-            break;
-          case MAP:
-            if (current.getType().isOneOf(Field.Type.MAP, Field.Type.LIST_MAP)) {
-              String name = element.getName();
-              Map<String, Field> map = current.getValueAsMap();
-              if (map != null) {
-                Field field = map.get(name);
-                if (field != null) {
-                  fields.add(field);
-                  next = field;
-                }
-              }
-            }
-            break;
-          case LIST:
-            if (current.getType().isOneOf(Field.Type.LIST, Field.Type.LIST_MAP)) {
-              int index = element.getIndex();
-              List<Field> list = current.getValueAsList();
-              if (list != null) {
-                if (list.size() > index) {
-                  Field field = list.get(index);
-                  fields.add(field);
-                  next = field;
-                }
-              }
-            }
-            break;
-          case FIELD_EXPRESSION:
-          default:
-            break;
-        }
-        current = next;
-      }
-    }
-    return fields;
+  FieldPath compile(String fieldPath) {
+    return CachedPathElement.compile(fieldPath);
   }
 
   @Override
@@ -329,50 +281,19 @@ public class RecordImpl implements Record, Cloneable {
       // if asking for the root field we can return it without and fieldpath parsing
       return value;
     } else {
-      List<PathElement> elements = parse(fieldPath);
-      List<Field> fields = get(elements);
-      return (elements.size() == fields.size()) ? fields.get(fields.size() - 1) : null;
+      return compile(fieldPath).get(this);
     }
   }
 
 
   @Override
   public Field delete(String fieldPath) {
-    List<PathElement> elements = parse(fieldPath);
-    List<Field> fields = get(elements);
-    Field deleted = null;
-    int fieldPos = fields.size();
-    if (elements.size() == fieldPos) {
-      fieldPos--;
-
-      if (fieldPos == 0) {
-        // the field to delete must be a primitive. delete it directly.
-        deleted = value;
-        value = null;
-      } else {
-        // the field to delete is a map or list element, so to delete, you must remove it from the parent collection.
-        PathElement element = elements.get(fieldPos);
-        switch (element.getType()) {
-          case MAP:
-            deleted = fields.get(fieldPos - 1).getValueAsMap().remove(element.getName());
-            break;
-          case LIST:
-            deleted = fields.get(fieldPos - 1).getValueAsList().remove(element.getIndex());
-            break;
-          case FIELD_EXPRESSION:
-          default:
-            throw new IllegalStateException("Unexpected field type " + element.getType());
-        }
-      }
-    }
-    return deleted;
+    return compile(fieldPath).delete(this);
   }
 
   @Override
   public boolean has(String fieldPath) {
-    List<PathElement> elements = parse(fieldPath);
-    List<Field> fields = get(elements);
-    return (elements.size() == fields.size());
+    return compile(fieldPath).has(this);
   }
 
   @Override
@@ -536,61 +457,10 @@ public class RecordImpl implements Record, Cloneable {
       fieldToReplace = value;
       value = newField;
     } else {
-      //get all the elements present in the fieldPath, including the newest element
-      //For example, if the existing record has /a/b/c and the argument fieldPath is /a/b/d the parser returns three
-      // elements - a, b and d
-      List<PathElement> elements = parse(fieldPath);
-      //return all *existing* fields form the list of elements
-      //In the above case it is going to return only field a and field b. Field d does not exist.
-      List<Field> fields = get(elements);
-      int fieldPos = fields.size();
-      if (elements.size() == fieldPos) {
-        //The number of elements in the path is same as the number of fields => set use case
-        fieldPos--;
-        fieldToReplace = doSet(fieldPos, newField, elements, fields);
-      } else if (elements.size() - 1 == fieldPos) {
-        //The number of elements in the path is on more than the number of fields => add use case
-        fieldToReplace = doSet(fieldPos, newField, elements, fields);
-      } else {
-        throw new IllegalArgumentException(Utils.format("Field-path '{}' not reachable", fieldPath));
-      }
-    }
-    return fieldToReplace;
-  }
-
-  private Field doSet(int fieldPos, Field newField, List<PathElement> elements, List<Field> fields) {
-    Field fieldToReplace = null;
-    if (fieldPos == 0) {
-      //root element
-      fieldToReplace = value;
-      value = newField;
-    } else {
-      //get the type of the element based on the output of the parser.
-      //Note that this is not the real type of the field, this is how the parser interpreted the fieldPath argument
-      //to the set API above. For example if fieldPath is /a/b parser interprets a as type map, if fieldPath is a[0]/b
-      //parser interprets a as of type list
-      switch (elements.get(fieldPos).getType()) {
-        case MAP:
-          //get the name of the field which must be added
-          String elementName = elements.get(fieldPos).getName();
-          //attempt to get the parent as a map type.
-          fieldToReplace = fields.get(fieldPos - 1).getValueAsMap().put(elementName, newField);
-          break;
-        case LIST:
-          int elementIndex = elements.get(fieldPos).getIndex();
-          Field parentField = fields.get(fieldPos - 1);
-          if(elementIndex == parentField.getValueAsList().size()){
-            //add at end
-            parentField.getValueAsList().add(newField);
-          } else {
-            //replace existing value
-            fieldToReplace = parentField.getValueAsList().set(elementIndex, newField);
-          }
-          break;
-        case FIELD_EXPRESSION:
-        case ROOT:
-          break;
-      }
+      //For example, if the existing record has /a/b/c and the argument fieldPath is /a/b/d the field d is added to b,
+      //if the fieldPath is /a/b/c the field c is replaced and if the parent of the field doesn't exist the path is not
+      //reachable and IllegalArgumentException is thrown.
+      fieldToReplace = compile(fieldPath).set(this, newField);
     }
     return fieldToReplace;
   }
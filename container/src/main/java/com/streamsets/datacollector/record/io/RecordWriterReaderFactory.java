@@ -70,7 +70,7 @@ public class RecordWriterReaderFactory {
     return createRecordWriter(encoding, os);
   }
 
-  static RecordWriter createRecordWriter(RecordEncoding encoding, OutputStream os) throws IOException {
+  public static RecordWriter createRecordWriter(RecordEncoding encoding, OutputStream os) throws IOException {
     RecordWriter writer;
     switch (encoding) {
       case JSON1:
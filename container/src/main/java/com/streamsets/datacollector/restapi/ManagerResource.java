@@ -21,11 +21,14 @@ import com.streamsets.datacollector.execution.Manager;
 import com.streamsets.datacollector.execution.PipelineState;
 import com.streamsets.datacollector.execution.PipelineStatus;
 import com.streamsets.datacollector.execution.Runner;
+import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.StartPipelineContextBuilder;
 import com.streamsets.datacollector.execution.alerts.AlertInfo;
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotIndex;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.main.UserGroupManager;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 import com.streamsets.datacollector.restapi.bean.AlertInfoJson;
 import com.streamsets.datacollector.restapi.bean.BeanHelper;
 import com.streamsets.datacollector.restapi.bean.ErrorMessageJson;
@@ -35,10 +38,13 @@ import com.streamsets.datacollector.restapi.bean.PipelineStateJson;
 import com.streamsets.datacollector.restapi.bean.RecordJson;
 import com.streamsets.datacollector.restapi.bean.SampledRecordJson;
 import com.streamsets.datacollector.restapi.bean.SnapshotDataJson;
+import com.streamsets.datacollector.restapi.bean.SnapshotIndexJson;
 import com.streamsets.datacollector.restapi.bean.SnapshotInfoJson;
 import com.streamsets.datacollector.restapi.bean.SourceOffsetJson;
+import com.streamsets.datacollector.restapi.bean.StageOutputJson;
 import com.streamsets.datacollector.restapi.bean.UserJson;
 import com.streamsets.datacollector.runner.PipelineRuntimeException;
+import com.streamsets.datacollector.runner.StageOutput;
 import com.streamsets.datacollector.store.AclStoreTask;
 import com.streamsets.datacollector.store.PipelineInfo;
 import com.streamsets.datacollector.store.PipelineStoreTask;
@@ -49,6 +55,7 @@ import com.streamsets.datacollector.util.PipelineException;
 import com.streamsets.lib.security.http.SSOPrincipal;
 import com.streamsets.pipeline.api.Config;
 import com.streamsets.pipeline.api.ExecutionMode;
+import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.impl.Utils;
 import io.swagger.annotations.Api;
@@ -78,6 +85,7 @@ import javax.ws.rs.core.SecurityContext;
 import java.security.Principal;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -542,6 +550,11 @@ public class ManagerResource {
       if (pipelineId != null) {
         Runner runner = manager.getRunner(pipelineId, rev);
         if (runner != null && runner.getState().getStatus().isActive()) {
+          // Reuse metrics already serialized by the metrics refresh tick if there is a recent one
+          MetricsSnapshot snapshot = runner.getMetricsSnapshot();
+          if (snapshot != null) {
+            return Response.ok().type(MediaType.APPLICATION_JSON).entity(snapshot.getFullJson()).build();
+          }
           return Response.ok().type(MediaType.APPLICATION_JSON).entity(runner.getMetrics()).build();
         }
         if (runner != null) {
@@ -728,6 +741,101 @@ public class ManagerResource {
     return Response.noContent().build();
   }
 
+  @Path("/pipeline/{pipelineId}/snapshot/{snapshotName}/index")
+  @GET
+  @ApiOperation(value = "Return Snapshot index with captured batches, stages and their record counts",
+    response = SnapshotIndexJson.class, authorizations = @Authorization(value = "basic"))
+  @Produces(MediaType.APPLICATION_JSON)
+  @RolesAllowed({
+      AuthzRole.MANAGER,
+      AuthzRole.CREATOR,
+      AuthzRole.ADMIN,
+      AuthzRole.MANAGER_REMOTE,
+      AuthzRole.CREATOR_REMOTE,
+      AuthzRole.ADMIN_REMOTE
+  })
+  public Response getSnapshotIndex(
+      @PathParam("pipelineId") String pipelineId,
+      @PathParam("snapshotName") String snapshotName,
+      @QueryParam("rev") @DefaultValue("0") String rev
+  ) throws PipelineException {
+    PipelineInfo pipelineInfo = store.getInfo(pipelineId);
+    RestAPIUtils.injectPipelineInMDC(pipelineInfo.getTitle(), pipelineInfo.getPipelineId());
+    Runner runner = manager.getRunner(pipelineId, rev);
+    if(runner != null) {
+      SnapshotIndex index = runner.getSnapshot(snapshotName).getIndex();
+      if (index != null) {
+        return Response.ok().type(MediaType.APPLICATION_JSON).entity(new SnapshotIndexJson(index)).build();
+      }
+    }
+    return Response.status(Response.Status.NOT_FOUND).build();
+  }
+
+  @Path("/pipeline/{pipelineId}/snapshot/{snapshotName}/batch/{batch}/stage/{stageInstanceName}")
+  @GET
+  @ApiOperation(value = "Return one page of records of a single stage in a single Snapshot batch",
+    response = StageOutputJson.class, authorizations = @Authorization(value = "basic"))
+  @Produces(MediaType.APPLICATION_JSON)
+  @RolesAllowed({
+      AuthzRole.MANAGER,
+      AuthzRole.CREATOR,
+      AuthzRole.ADMIN,
+      AuthzRole.MANAGER_REMOTE,
+      AuthzRole.CREATOR_REMOTE,
+      AuthzRole.ADMIN_REMOTE
+  })
+  public Response getSnapshotStageOutput(
+      @PathParam("pipelineId") String pipelineId,
+      @PathParam("snapshotName") String snapshotName,
+      @PathParam("batch") int batch,
+      @PathParam("stageInstanceName") String stageInstanceName,
+      @QueryParam("rev") @DefaultValue("0") String rev,
+      @QueryParam("offset") @DefaultValue("0") int offset,
+      @QueryParam("len") @DefaultValue("100") int len
+  ) throws PipelineException {
+    Utils.checkArgument(offset >= 0, "offset must be greater than or equal to zero");
+    Utils.checkArgument(len > 0, "len must be greater than zero");
+    PipelineInfo pipelineInfo = store.getInfo(pipelineId);
+    RestAPIUtils.injectPipelineInMDC(pipelineInfo.getTitle(), pipelineInfo.getPipelineId());
+    Runner runner = manager.getRunner(pipelineId, rev);
+    if(runner != null) {
+      Snapshot snapshot = runner.getSnapshot(snapshotName);
+      StageOutput stageOutput = snapshot.getStageOutput(batch, stageInstanceName);
+      if (stageOutput != null) {
+        return Response.ok()
+            .type(MediaType.APPLICATION_JSON)
+            .entity(new StageOutputJson(page(stageOutput, offset, len)))
+            .build();
+      }
+    }
+    return Response.status(Response.Status.NOT_FOUND).build();
+  }
+
+  // Records [offset, offset + len) of each output lane, error and event records, stage errors are returned as they are
+  private static StageOutput page(StageOutput stageOutput, int offset, int len) {
+    Map<String, List<Record>> output = new LinkedHashMap<>();
+    if (stageOutput.getOutput() != null) {
+      for (Map.Entry<String, List<Record>> entry : stageOutput.getOutput().entrySet()) {
+        output.put(entry.getKey(), page(entry.getValue(), offset, len));
+      }
+    }
+    return new StageOutput(
+        stageOutput.getInstanceName(),
+        output,
+        page(stageOutput.getErrorRecords(), offset, len),
+        stageOutput.getStageErrors(),
+        page(stageOutput.getEventRecords(), offset, len)
+    );
+  }
+
+  private static <T> List<T> page(List<T> list, int offset, int len) {
+    if (list == null) {
+      return null;
+    }
+    int from = Math.min(offset, list.size());
+    return list.subList(from, (int) Math.min(list.size(), (long) from + len));
+  }
+
   @Path("/pipeline/{pipelineId}/snapshot/{snapshotName}")
   @DELETE
   @ApiOperation(value = "Delete Snapshot data", authorizations = @Authorization(value = "basic"))
@@ -15,7 +15,9 @@
  */
 package com.streamsets.datacollector.restapi.bean;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.streamsets.datacollector.execution.snapshot.common.SnapshotData;
 import com.streamsets.datacollector.runner.StageOutput;
 import com.streamsets.pipeline.api.impl.Utils;
@@ -27,8 +29,9 @@ public class SnapshotDataJson {
 
   private final SnapshotData snapshotData;
 
+  @JsonCreator
   public SnapshotDataJson(
-    List<List<StageOutputJson>> snapshotJson) {
+    @JsonProperty("snapshotBatches") List<List<StageOutputJson>> snapshotJson) {
     List<List<StageOutput>> result = new ArrayList<>(snapshotJson.size());
     for(List<StageOutputJson> snapshot : snapshotJson) {
       result.add(BeanHelper.unwrapStageOutput(snapshot));
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.restapi.bean;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotIndex;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SnapshotIndexJson {
+
+  private final SnapshotIndex snapshotIndex;
+
+  @JsonCreator
+  public SnapshotIndexJson(@JsonProperty("batches") List<List<StageEntryJson>> batches) {
+    List<List<SnapshotIndex.StageEntry>> result = new ArrayList<>(batches.size());
+    for (List<StageEntryJson> batch : batches) {
+      List<SnapshotIndex.StageEntry> entries = new ArrayList<>(batch.size());
+      for (StageEntryJson entry : batch) {
+        entries.add(entry.getStageEntry());
+      }
+      result.add(entries);
+    }
+    this.snapshotIndex = new SnapshotIndex(result);
+  }
+
+  public SnapshotIndexJson(SnapshotIndex snapshotIndex) {
+    Utils.checkNotNull(snapshotIndex, "snapshotIndex");
+    this.snapshotIndex = snapshotIndex;
+  }
+
+  public List<List<StageEntryJson>> getBatches() {
+    List<List<StageEntryJson>> result = new ArrayList<>(snapshotIndex.getBatches().size());
+    for (List<SnapshotIndex.StageEntry> batch : snapshotIndex.getBatches()) {
+      List<StageEntryJson> entries = new ArrayList<>(batch.size());
+      for (SnapshotIndex.StageEntry entry : batch) {
+        entries.add(new StageEntryJson(entry));
+      }
+      result.add(entries);
+    }
+    return result;
+  }
+
+  @JsonIgnore
+  public SnapshotIndex getSnapshotIndex() {
+    return snapshotIndex;
+  }
+
+  @JsonIgnoreProperties(ignoreUnknown = true)
+  public static class StageEntryJson {
+
+    private final SnapshotIndex.StageEntry stageEntry;
+
+    @JsonCreator
+    public StageEntryJson(
+        @JsonProperty("instanceName") String instanceName,
+        @JsonProperty("outputRecords") Map<String, Integer> outputRecords,
+        @JsonProperty("errorRecords") int errorRecords,
+        @JsonProperty("stageErrors") int stageErrors,
+        @JsonProperty("eventRecords") int eventRecords
+    ) {
+      this.stageEntry = new SnapshotIndex.StageEntry(
+          instanceName,
+          outputRecords,
+          errorRecords,
+          stageErrors,
+          eventRecords
+      );
+    }
+
+    public StageEntryJson(SnapshotIndex.StageEntry stageEntry) {
+      this.stageEntry = stageEntry;
+    }
+
+    public String getInstanceName() {
+      return stageEntry.getInstanceName();
+    }
+
+    public Map<String, Integer> getOutputRecords() {
+      return stageEntry.getOutputRecords();
+    }
+
+    public int getErrorRecords() {
+      return stageEntry.getErrorRecords();
+    }
+
+    public int getStageErrors() {
+      return stageEntry.getStageErrors();
+    }
+
+    public int getEventRecords() {
+      return stageEntry.getEventRecords();
+    }
+
+    @JsonIgnore
+    public SnapshotIndex.StageEntry getStageEntry() {
+      return stageEntry;
+    }
+  }
+}
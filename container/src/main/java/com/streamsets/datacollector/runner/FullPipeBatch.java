@@ -104,22 +104,50 @@ public class FullPipeBatch implements PipeBatch {
   @Override
   @SuppressWarnings("unchecked")
   public BatchImpl getBatch(final Pipe pipe) throws StageException {
-    List<Record> records = new ArrayList<>();
-    List<String> inputLanes = pipe.getInputLanes();
-    for (String inputLane : inputLanes) {
-      records.addAll(fullPayload.get(inputLane));
-    }
-    if (pipe.getStage().getDefinition().getType().isOneOf(StageType.TARGET, StageType.EXECUTOR)) {
+    List<? extends Interceptor> interceptors = pipe.getStage().getPreInterceptors();
+    List<Record> records = collectInputRecords(pipe.getInputLanes(), !interceptors.isEmpty());
+    StageType stageType = pipe.getStage().getDefinition().getType();
+    if (stageType == StageType.TARGET || stageType == StageType.EXECUTOR) {
       outputRecords += records.size();
     }
 
     // Run interceptors as part before providing data to the stage
-    records = intercept(records, pipe.getStage().getPreInterceptors());
+    records = intercept(records, interceptors);
 
     // And finally give the batch to the stage itself
     return new BatchImpl(pipe.getStage().getInfo().getInstanceName(), sourceEntity, lastOffset, records);
   }
 
+  /**
+   * Records of all given lanes. Lane lists are handed over as they are (the batch wraps them as unmodifiable) and
+   * multiple lanes are concatenated by a view, a mutable copy is only created if interceptors will see the list.
+   */
+  @SuppressWarnings("unchecked")
+  private List<Record> collectInputRecords(List<String> inputLanes, boolean mutable) {
+    if (mutable) {
+      List<Record> records = new ArrayList<>();
+      for (String inputLane : inputLanes) {
+        records.addAll(fullPayload.get(inputLane));
+      }
+      return records;
+    }
+
+    switch (inputLanes.size()) {
+      case 0:
+        return Collections.emptyList();
+      case 1:
+        return Preconditions.checkNotNull(fullPayload.get(inputLanes.get(0)), Utils.formatL(
+            "Stream '{}' does not exist", inputLanes.get(0)));
+      default:
+        List<Record>[] lanes = new List[inputLanes.size()];
+        for (int i = 0; i < lanes.length; i++) {
+          lanes[i] = Preconditions.checkNotNull(fullPayload.get(inputLanes.get(i)), Utils.formatL(
+              "Stream '{}' does not exist", inputLanes.get(i)));
+        }
+        return new MultiLaneRecordList(lanes);
+    }
+  }
+
   @Override
   public BatchMakerImpl startStage(StagePipe pipe) {
     String stageName = pipe.getStage().getInfo().getInstanceName();
@@ -184,7 +212,8 @@ public class FullPipeBatch implements PipeBatch {
       }
       stageOutputSnapshot.add(new StageOutput(instanceName, records, errorSink, eventSink));
     }
-    if (pipe.getStage().getDefinition().getType().isOneOf(StageType.TARGET, StageType.EXECUTOR)) {
+    StageType stageType = pipe.getStage().getDefinition().getType();
+    if (stageType == StageType.TARGET || stageType == StageType.EXECUTOR) {
       outputRecords -= errorSink.getErrorRecords(pipe.getStage().getInfo().getInstanceName()).size();
     }
     completeStage(pipe);
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner;
+
+import com.streamsets.pipeline.api.Record;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+/**
+ * Read-only view concatenating records of multiple lanes without copying them.
+ *
+ * Stages with more than one input lane (merging streams) used to get a new list with all records copied over on every
+ * batch. The number of input lanes is small, so locating the backing lane for a random access is a short scan.
+ */
+final class MultiLaneRecordList extends AbstractList<Record> implements RandomAccess {
+
+  private final List<Record>[] lanes;
+  private final int size;
+
+  MultiLaneRecordList(List<Record>[] lanes) {
+    this.lanes = lanes;
+    int total = 0;
+    for (List<Record> lane : lanes) {
+      total += lane.size();
+    }
+    this.size = total;
+  }
+
+  @Override
+  public Record get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    int offset = index;
+    for (List<Record> lane : lanes) {
+      if (offset < lane.size()) {
+        return lane.get(offset);
+      }
+      offset -= lane.size();
+    }
+    throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Iterator<Record> iterator() {
+    return new Iterator<Record>() {
+      private int lane = 0;
+      private Iterator<Record> current = lanes.length == 0 ? null : lanes[0].iterator();
+
+      @Override
+      public boolean hasNext() {
+        while (current != null && !current.hasNext()) {
+          lane++;
+          current = lane < lanes.length ? lanes[lane].iterator() : null;
+        }
+        return current != null;
+      }
+
+      @Override
+      public Record next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return current.next();
+      }
+    };
+  }
+}
@@ -58,4 +58,10 @@ public interface SourceOffsetTracker {
    */
   public void resetOffset();
 
+  /**
+   * Release any resources held by the tracker, flushing all offsets to persistent store.
+   */
+  public default void close() {
+  }
+
 }
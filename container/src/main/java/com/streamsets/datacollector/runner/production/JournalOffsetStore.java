@@ -0,0 +1,375 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Offset store that appends every committed change to a journal file (offset.journal) next to offset.json.
+ *
+ * Changes staged by concurrent runners are buffered in memory and written to the journal by whichever thread calls
+ * {@link #sync(long)} first (group commit), so that N concurrent commits result in a single write and fsync. The
+ * journal is periodically compacted into a new journal starting with a full snapshot of the offsets. On close the
+ * offsets are written to offset.json and the journal is removed, so that a stopped pipeline has the same on disk
+ * layout as with {@link FileOffsetStore}.
+ *
+ * On load the journal (if any, e.g. after a crash) is replayed on top of offset.json. Replaying is idempotent as
+ * every record carries the full offset of an entity, hence existing offset.json files are migrated transparently.
+ */
+public class JournalOffsetStore implements OffsetStore {
+  private static final Logger LOG = LoggerFactory.getLogger(JournalOffsetStore.class);
+
+  private static final byte RECORD_PUT = 1;
+  private static final byte RECORD_REMOVE = 2;
+  private static final byte RECORD_CLEAR = 3;
+
+  private final RuntimeInfo runtimeInfo;
+  private final String pipelineName;
+  private final String rev;
+  private final File journalFile;
+  private final int compactionThreshold;
+
+  // All fields below are guarded by this object's monitor
+  private final Map<String, String> state;
+  private final ByteArrayOutputStream pending;
+  private final DataOutputStream pendingData;
+  private long stagedSeq;
+  private long durableSeq;
+  private boolean flushing;
+  private int recordsSinceCompaction;
+  private IOException failure;
+  private FileChannel channel;
+
+  public JournalOffsetStore(RuntimeInfo runtimeInfo, String pipelineName, String rev, int compactionThreshold) {
+    Utils.checkArgument(compactionThreshold > 0, "Compaction threshold must be positive");
+    this.runtimeInfo = runtimeInfo;
+    this.pipelineName = pipelineName;
+    this.rev = rev;
+    this.journalFile = OffsetFileUtil.getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev);
+    this.compactionThreshold = compactionThreshold;
+    this.state = new HashMap<>();
+    this.pending = new ByteArrayOutputStream();
+    this.pendingData = new DataOutputStream(pending);
+  }
+
+  @Override
+  public synchronized Map<String, String> load() {
+    // Offset file util replays existing journal on top of the offset.json
+    state.clear();
+    state.putAll(OffsetFileUtil.saveIfEmpty(runtimeInfo, pipelineName, rev));
+    try {
+      // Start with a fresh journal containing the full state so that we don't depend on the old records
+      compact(new HashMap<>(state));
+    } catch (IOException e) {
+      throw new IllegalStateException(Utils.format("Can't initialize offset journal '{}': {}", journalFile, e.toString()), e);
+    }
+    return new HashMap<>(state);
+  }
+
+  @Override
+  public synchronized long stage(String entity, String offset, Map<String, String> offsets) {
+    if (offset == null) {
+      state.remove(entity);
+    } else {
+      state.put(entity, offset);
+    }
+    try {
+      writeRecord(pendingData, offset == null ? RECORD_REMOVE : RECORD_PUT, entity, offset);
+    } catch (IOException e) {
+      // Writing to in-memory buffer
+      throw new IllegalStateException(e);
+    }
+    return ++stagedSeq;
+  }
+
+  @Override
+  public void sync(long token) {
+    while (true) {
+      byte[] data;
+      long target;
+      Map<String, String> snapshot = null;
+      synchronized (this) {
+        while (flushing && durableSeq < token && failure == null) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting on offset commit", e);
+          }
+        }
+        if (failure != null) {
+          throw new IllegalStateException(Utils.format("Offset journal '{}' failed: {}", journalFile, failure.toString()), failure);
+        }
+        if (durableSeq >= token) {
+          return;
+        }
+
+        // We're the leader for this round, take everything that has been staged so far
+        flushing = true;
+        data = pending.toByteArray();
+        pending.reset();
+        target = stagedSeq;
+        recordsSinceCompaction += (int)(target - durableSeq);
+        if (recordsSinceCompaction >= compactionThreshold) {
+          snapshot = new HashMap<>(state);
+        }
+      }
+
+      IOException error = null;
+      try {
+        if (snapshot != null) {
+          compact(snapshot);
+        } else {
+          append(data);
+        }
+      } catch (IOException e) {
+        LOG.error("Failed to write offset journal '{}': {}", journalFile, e.toString(), e);
+        error = e;
+      }
+
+      synchronized (this) {
+        flushing = false;
+        if (error == null) {
+          durableSeq = target;
+          if (snapshot != null) {
+            recordsSinceCompaction = 0;
+          }
+        } else {
+          failure = error;
+        }
+        notifyAll();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void reset() {
+    awaitNoFlush();
+    closeChannel();
+    state.clear();
+    pending.reset();
+    durableSeq = stagedSeq;
+    OffsetFileUtil.resetOffsets(runtimeInfo, pipelineName, rev);
+  }
+
+  @Override
+  public synchronized void close() {
+    awaitNoFlush();
+    closeChannel();
+    if (failure != null) {
+      // Leave the journal on disk, it will be replayed on next start
+      LOG.warn("Not compacting offset journal '{}' as it previously failed", journalFile);
+      return;
+    }
+    // Everything staged is in the state map, so saving it makes all pending records durable
+    OffsetFileUtil.saveOffsets(runtimeInfo, pipelineName, rev, state);
+    pending.reset();
+    durableSeq = stagedSeq;
+    recordsSinceCompaction = 0;
+  }
+
+  @VisibleForTesting
+  File getJournalFile() {
+    return journalFile;
+  }
+
+  private void awaitNoFlush() {
+    while (flushing) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting on offset commit", e);
+      }
+    }
+  }
+
+  private void closeChannel() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOG.warn("Error while closing offset journal '{}': {}", journalFile, e.toString(), e);
+      }
+      channel = null;
+    }
+  }
+
+  private void append(byte[] data) throws IOException {
+    if (channel == null) {
+      channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(data);
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    channel.force(false);
+  }
+
+  /**
+   * Replace the journal with a new one that starts by clearing all offsets followed by the given snapshot.
+   */
+  private void compact(Map<String, String> snapshot) throws IOException {
+    LOG.debug("Compacting offset journal '{}' with {} entities", journalFile, snapshot.size());
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    writeRecord(out, RECORD_CLEAR, "", null);
+    for (Map.Entry<String, String> entry : snapshot.entrySet()) {
+      writeRecord(out, RECORD_PUT, entry.getKey(), entry.getValue());
+    }
+
+    Path tmp = new File(journalFile.getAbsolutePath() + "-tmp").toPath();
+    try (FileChannel tmpChannel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+      while (buffer.hasRemaining()) {
+        tmpChannel.write(buffer);
+      }
+      tmpChannel.force(false);
+    }
+
+    closeChannel();
+    Files.move(tmp, journalFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Record format is: length (int), crc32 of payload (int), payload. Payload is type (byte), entity and optional offset.
+   */
+  private static void writeRecord(DataOutputStream out, byte type, String entity, String offset) throws IOException {
+    byte[] entityBytes = entity == null ? null : entity.getBytes(StandardCharsets.UTF_8);
+    byte[] offsetBytes = offset == null ? null : offset.getBytes(StandardCharsets.UTF_8);
+
+    ByteArrayOutputStream payload = new ByteArrayOutputStream();
+    DataOutputStream payloadData = new DataOutputStream(payload);
+    payloadData.writeByte(type);
+    writeBytes(payloadData, entityBytes);
+    writeBytes(payloadData, offsetBytes);
+    payloadData.flush();
+
+    byte[] payloadBytes = payload.toByteArray();
+    CRC32 crc = new CRC32();
+    crc.update(payloadBytes);
+
+    out.writeInt(payloadBytes.length);
+    out.writeInt((int) crc.getValue());
+    out.write(payloadBytes);
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    if (bytes == null) {
+      out.writeInt(-1);
+    } else {
+      out.writeInt(bytes.length);
+      out.write(bytes);
+    }
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Apply all complete records from given journal file to the offset map.
+   *
+   * Incomplete or corrupted record at the end of the file (e.g. after a crash in the middle of a write) terminates the
+   * replay, the commit it belonged to was never acknowledged.
+   *
+   * @return true if the journal file existed
+   */
+  static boolean replay(File journal, Map<String, String> offsets) throws IOException {
+    if (!journal.exists()) {
+      return false;
+    }
+    try (InputStream is = new BufferedInputStream(new FileInputStream(journal))) {
+      DataInputStream in = new DataInputStream(is);
+      while (true) {
+        int length;
+        try {
+          length = in.readInt();
+        } catch (EOFException e) {
+          break;
+        }
+        int crc = in.readInt();
+        if (length < 0 || length > journal.length()) {
+          LOG.warn("Offset journal '{}' contains invalid record length {}, ignoring rest of the file", journal, length);
+          break;
+        }
+        byte[] payload = new byte[length];
+        try {
+          in.readFully(payload);
+        } catch (EOFException e) {
+          LOG.warn("Offset journal '{}' ends with incomplete record, ignoring it", journal);
+          break;
+        }
+        CRC32 actualCrc = new CRC32();
+        actualCrc.update(payload);
+        if ((int) actualCrc.getValue() != crc) {
+          LOG.warn("Offset journal '{}' contains corrupted record, ignoring rest of the file", journal);
+          break;
+        }
+
+        DataInputStream record = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = record.readByte();
+        String entity = readString(record);
+        String offset = readString(record);
+        switch (type) {
+          case RECORD_PUT:
+            offsets.put(entity, offset);
+            break;
+          case RECORD_REMOVE:
+            offsets.remove(entity);
+            break;
+          case RECORD_CLEAR:
+            offsets.clear();
+            break;
+          default:
+            throw new IOException(Utils.format("Unknown record type {} in offset journal '{}'", type, journal));
+        }
+      }
+    }
+    return true;
+  }
+}
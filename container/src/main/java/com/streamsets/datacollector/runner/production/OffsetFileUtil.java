@@ -30,13 +30,16 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 
 public class OffsetFileUtil {
   private static final Logger LOG = LoggerFactory.getLogger(ProductionSourceOffsetTracker.class);
 
   private static final String OFFSET_FILE = "offset.json";
+  private static final String OFFSET_JOURNAL_FILE = "offset.journal";
   private static final Map<String, String> DEFAULT_OFFSET = Collections.emptyMap();
   private static final int MAX_RETRIES = 5;
 
@@ -46,13 +49,17 @@ public class OffsetFileUtil {
     return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_FILE);
   }
 
+  public static File getPipelineOffsetJournalFile(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
+    return new File(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, pipelineName, rev), OFFSET_JOURNAL_FILE);
+  }
+
   public static Map<String, String> saveIfEmpty(RuntimeInfo runtimeInfo, String pipelineName, String rev) {
     File pipelineOffsetFile =  getPipelineOffsetFile(runtimeInfo, pipelineName, rev);
     SourceOffset sourceOffset;
     DataStore ds = new DataStore(pipelineOffsetFile);
     try {
       if (ds.exists()) {
-        return readSourceOffsetFromDataStore(ds).getOffsets();
+        return readSourceOffsetFromDataStore(ds, getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev)).getOffsets();
       } else {
         sourceOffset = new SourceOffset(SourceOffset.CURRENT_VERSION, DEFAULT_OFFSET);
         try (OutputStream os = ds.getOutputStream()) {
@@ -75,6 +82,8 @@ public class OffsetFileUtil {
     try (OutputStream os = dataStore.getOutputStream()) {
       ObjectMapperFactory.get().writeValue(os, BeanHelper.wrapSourceOffset(sourceOffset));
       dataStore.commit(os);
+      // Offset file now contains the full state, hence any journal is obsolete
+      Files.deleteIfExists(getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev).toPath());
     } catch (IOException e) {
       LOG.error("Failed to save offset={}. Reason {}", sourceOffset.getOffsets(), e.toString(), e);
       throw new IllegalStateException(e);
@@ -89,6 +98,7 @@ public class OffsetFileUtil {
     try (OutputStream os = dataStore.getOutputStream()) {
       ObjectMapperFactory.get().writeValue(os, offset);
       dataStore.commit(os);
+      Files.deleteIfExists(getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev).toPath());
     } catch (IOException e) {
       LOG.error("Failed to save offset={}. Reason {}", offset, e.toString(), e);
       throw new IllegalStateException(e);
@@ -133,7 +143,7 @@ public class OffsetFileUtil {
         if (pipelineOffsetFile.exists()) {
           DataStore ds = new DataStore(pipelineOffsetFile);
           if (ds.exists()) {
-            return readSourceOffsetFromDataStore(ds);
+            return readSourceOffsetFromDataStore(ds, getPipelineOffsetJournalFile(runtimeInfo, pipelineName, rev));
           }
         }
 
@@ -147,13 +157,20 @@ public class OffsetFileUtil {
     throw new IllegalStateException(Utils.format("Retrieving offset failed for last attempt {}", retries));
   }
 
-  private static SourceOffset readSourceOffsetFromDataStore(DataStore ds) throws IOException {
+  private static SourceOffset readSourceOffsetFromDataStore(DataStore ds, File journal) throws IOException {
+    SourceOffset sourceOffset;
     try (InputStream is = ds.getInputStream()) {
       SourceOffsetJson sourceOffsetJson = ObjectMapperFactory.get().readValue(is, SourceOffsetJson.class);
-      SourceOffset sourceOffset = BeanHelper.unwrapSourceOffset(sourceOffsetJson);
+      sourceOffset = BeanHelper.unwrapSourceOffset(sourceOffsetJson);
       SourceOffsetUpgrader.upgrade(sourceOffset);
-      return sourceOffset;
     }
+    // Pipeline that is running (or that crashed) with journal offset store has the latest changes in the journal
+    if (journal.exists()) {
+      Map<String, String> offsets = new HashMap<>(sourceOffset.getOffsets());
+      JournalOffsetStore.replay(journal, offsets);
+      sourceOffset.setOffsets(offsets);
+    }
+    return sourceOffset;
   }
 }
 
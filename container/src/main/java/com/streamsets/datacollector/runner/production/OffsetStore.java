@@ -0,0 +1,59 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import java.util.Map;
+
+/**
+ * Persistent storage for offsets committed through {@link ProductionSourceOffsetTracker}.
+ *
+ * Committing an offset is split into two phases. {@link #stage(String, String, Map)} is called while the tracker holds
+ * the lock on its offset map and hence must be cheap, while {@link #sync(long)} is called outside of that lock and
+ * blocks until the staged change is durable. This allows implementations to merge changes staged by several runners
+ * into a single disk write.
+ */
+public interface OffsetStore {
+
+  /**
+   * Load offsets from the persistent storage, creating an empty store if it doesn't exist yet.
+   */
+  Map<String, String> load();
+
+  /**
+   * Stage change of offset for given entity.
+   *
+   * @param entity Entity that is being changed
+   * @param offset New offset for the entity, null means that the entity should be removed
+   * @param offsets Full offset map of the tracker (already containing the change), guarded by the caller
+   * @return Token that needs to be passed to {@link #sync(long)}
+   */
+  long stage(String entity, String offset, Map<String, String> offsets);
+
+  /**
+   * Block until all changes up to (and including) the one identified by given token are durable.
+   */
+  void sync(long token);
+
+  /**
+   * Remove all stored offsets.
+   */
+  void reset();
+
+  /**
+   * Flush any pending state and release all resources.
+   */
+  void close();
+}
@@ -15,8 +15,10 @@
  */
 package com.streamsets.datacollector.runner.production;
 
+import com.streamsets.datacollector.execution.runner.common.Constants;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.runner.SourceOffsetTracker;
+import com.streamsets.datacollector.util.Configuration;
 
 import com.streamsets.pipeline.api.Source;
 import org.slf4j.Logger;
@@ -37,17 +39,59 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
   private final String pipelineName;
   private final String rev;
   private final RuntimeInfo runtimeInfo;
+  private final OffsetStore offsetStore;
+
+  public ProductionSourceOffsetTracker(String pipelineName, String rev, RuntimeInfo runtimeInfo) {
+    this(pipelineName, rev, runtimeInfo, new FileOffsetStore(runtimeInfo, pipelineName, rev));
+  }
 
   @Inject
   public ProductionSourceOffsetTracker(
       @Named("name") String pipelineName,
       @Named("rev") String rev,
-      RuntimeInfo runtimeInfo
+      RuntimeInfo runtimeInfo,
+      Configuration configuration
+  ) {
+    this(pipelineName, rev, runtimeInfo, createOffsetStore(pipelineName, rev, runtimeInfo, configuration));
+  }
+
+  public ProductionSourceOffsetTracker(
+      String pipelineName,
+      String rev,
+      RuntimeInfo runtimeInfo,
+      OffsetStore offsetStore
   ) {
     this.pipelineName = pipelineName;
     this.rev = rev;
     this.runtimeInfo = runtimeInfo;
-    this.offsets = new HashMap<>(getSourceOffset(pipelineName, rev));
+    this.offsetStore = offsetStore;
+    this.offsets = new HashMap<>(offsetStore.load());
+  }
+
+  private static OffsetStore createOffsetStore(
+      String pipelineName,
+      String rev,
+      RuntimeInfo runtimeInfo,
+      Configuration configuration
+  ) {
+    String type = configuration.get(Constants.OFFSET_STORE_KEY, Constants.OFFSET_STORE_DEFAULT);
+    switch (type) {
+      case Constants.OFFSET_STORE_FILE:
+        return new FileOffsetStore(runtimeInfo, pipelineName, rev);
+      case Constants.OFFSET_STORE_JOURNAL:
+        return new JournalOffsetStore(
+            runtimeInfo,
+            pipelineName,
+            rev,
+            configuration.get(
+                Constants.OFFSET_JOURNAL_COMPACTION_THRESHOLD_KEY,
+                Constants.OFFSET_JOURNAL_COMPACTION_THRESHOLD_DEFAULT
+            )
+        );
+      default:
+        LOG.warn("Unknown offset store '{}', using '{}'", type, Constants.OFFSET_STORE_FILE);
+        return new FileOffsetStore(runtimeInfo, pipelineName, rev);
+    }
   }
 
   @Override
@@ -72,6 +116,7 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
     }
 
     // This object can be called from multiple threads, so we have to synchronize access to the offset map
+    long token;
     synchronized (offsets) {
       if (newOffset == null) {
         offsets.remove(entity);
@@ -79,9 +124,12 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
         offsets.put(entity, newOffset);
       }
 
-      // Finally write new variant of the offset file
-      saveOffset(pipelineName, rev, offsets);
+      // Stage the change in the store while we still hold the lock so that the order of changes is preserved
+      token = offsetStore.stage(entity, newOffset, offsets);
     }
+
+    // And finally wait until the change is persisted, this might be shared with other threads committing in parallel
+    offsetStore.sync(token);
   }
 
   @Override
@@ -95,11 +143,14 @@ public class ProductionSourceOffsetTracker implements SourceOffsetTracker {
 
   @Override
   public void resetOffset() {
-    OffsetFileUtil.resetOffsets(runtimeInfo, pipelineName, rev);
+    offsetStore.reset();
   }
 
-  private void saveOffset(String pipelineName, String rev, Map<String, String> offset) {
-    OffsetFileUtil.saveOffsets(runtimeInfo, pipelineName, rev, offset);
+  @Override
+  public void close() {
+    synchronized (offsets) {
+      offsetStore.close();
+    }
   }
 
   @Override
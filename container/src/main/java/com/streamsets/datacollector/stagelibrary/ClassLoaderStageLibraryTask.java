@@ -24,6 +24,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.streamsets.datacollector.classpath.ClasspathValidator;
 import com.streamsets.datacollector.classpath.ClasspathValidatorResult;
 import com.streamsets.datacollector.config.CredentialStoreDefinition;
@@ -99,6 +100,7 @@ import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
@@ -106,6 +108,9 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
@@ -124,6 +129,9 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
   public static final String JAVA_UNSUPPORTED_REGEXP = "java.unsupported.regexp";
   public static final String MIN_SDC_VERSION = "min.sdc.version";
 
+  public static final String LOAD_THREADS_KEY = "stagelibs.load.threads";
+  public static final int LOAD_THREADS_DEFAULT = 4;
+
   private static final String CONFIG_LIBRARY_ALIAS_PREFIX = "library.alias.";
   private static final String CONFIG_STAGE_ALIAS_PREFIX = "stage.alias.";
 
@@ -507,8 +515,25 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
     return list;
   }
 
+  /**
+   * Definitions loaded from a single stage library, merged into the task state once all libraries are loaded.
+   */
+  private static class LoadedLibrary {
+    private final StageLibraryDefinition libDef;
+    private final List<StageDefinition> stages = new ArrayList<>();
+    private final List<LineagePublisherDefinition> lineagePublishers = new ArrayList<>();
+    private final List<CredentialStoreDefinition> credentialStores = new ArrayList<>();
+    private final List<ServiceDefinition> services = new ArrayList<>();
+    private final List<InterceptorDefinition> interceptors = new ArrayList<>();
+    private final List<StageLibraryDelegateDefinitition> delegates = new ArrayList<>();
+    private final Map<String, EventDefinitionJson> eventDefinitions = new LinkedHashMap<>();
+
+    LoadedLibrary(StageLibraryDefinition libDef) {
+      this.libDef = libDef;
+    }
+  }
+
   @VisibleForTesting
-  @SuppressWarnings("unchecked")
   void loadStages() {
     String javaVersion = System.getProperty("java.version");
     Version sdcVersion = new Version(buildInfo.getVersion());
@@ -527,6 +552,12 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
         Utils.format("Could not load runtime configuration, '{}'", e.toString()), e);
     }
 
+    // Libraries are independent of each other, so they are loaded in parallel and merged in their original order
+    int threads = Math.max(1, configuration.get(LOAD_THREADS_KEY, LOAD_THREADS_DEFAULT));
+    ExecutorService executor = Executors.newFixedThreadPool(
+        threads,
+        new ThreadFactoryBuilder().setNameFormat("StageLibraryLoader-%d").setDaemon(true).build()
+    );
     try {
       int libs = 0;
       int stages = 0;
@@ -537,109 +568,62 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
       int delegates = 0;
       long start = System.currentTimeMillis();
       LocaleInContext.set(Locale.getDefault());
-      for (ClassLoader cl : stageClassLoaders) {
-        try {
-          // Before loading any stages, let's verify that given stage library is compatible with our current JVM version
-          String unsupportedJvmVersion = getPropertyFromLibraryProperties(cl, JAVA_UNSUPPORTED_REGEXP, null);
-          if(!StringUtils.isEmpty(unsupportedJvmVersion)) {
-            if(javaVersion.matches(unsupportedJvmVersion)) {
-              LOG.warn("Can't load stages from {} since they are not compatible with current JVM version", StageLibraryUtils.getLibraryName(cl));
-              continue;
-            } else {
-              LOG.debug("Stage lib {} passed java compatibility test for '{}'", StageLibraryUtils.getLibraryName(cl), unsupportedJvmVersion);
-            }
-          }
-
-          // And that this SDC is at least on requested version
-          String minSdcVersion = getPropertyFromLibraryProperties(cl, MIN_SDC_VERSION, null);
-          if(!StringUtils.isEmpty(minSdcVersion)) {
-            if(!sdcVersion.isGreaterOrEqualTo(minSdcVersion)) {
-              throw new IllegalArgumentException(
-                  Utils.format("Can't load stage library '{}' as it requires at least SDC version {} whereas current version is {}",
-                  StageLibraryUtils.getLibraryName(cl),
-                  minSdcVersion,
-                  buildInfo.getVersion()
-                ));
-            }
-          }
-
-          // Load stages from the stage library
-          StageLibraryDefinition libDef = StageLibraryDefinitionExtractor.get().extract(cl);
-          libDef.setVersion(getPropertyFromLibraryProperties(cl, "version", ""));
-          LOG.debug("Loading stages and plugins from library '{}' on version {}", libDef.getName(), libDef.getVersion());
-          stageLibraries.add(libDef);
-          stageLibraryMap.put(libDef.getName(), libDef);
-          libs++;
-
-          // Load Stages
-          for(Class klass : loadClassesFromResource(libDef, cl, STAGES_DEFINITION_RESOURCE)) {
-            stages++;
-            StageDefinition stage = StageDefinitionExtractor.get().extract(libDef, klass, Utils.formatL("Library='{}'", libDef.getName()));
-            String key = createKey(libDef.getName(), stage.getName());
-            LOG.debug("Loaded stage '{}'  version {}", key, stage.getVersion());
-            stageList.add(stage);
-            stageMap.put(key, stage);
-
-            for(Class eventDefClass : stage.getEventDefs()) {
-              if (!eventDefinitionMap.containsKey(eventDefClass.getCanonicalName())) {
-                eventDefinitionMap.put(
-                    eventDefClass.getCanonicalName(),
-                    EventDefinitionExtractor.get().extractEventDefinition(eventDefClass)
-                );
-              }
-            }
-          }
-
-          // Load Lineage publishers
-          for(Class klass : loadClassesFromResource(libDef, cl, LINEAGE_PUBLISHERS_DEFINITION_RESOURCE)) {
-            lineagePublishers++;
-            LineagePublisherDefinition lineage = LineagePublisherDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), lineage.getName());
-            LOG.debug("Loaded lineage plugin '{}'", key);
-            lineagePublisherDefinitions.add(lineage);
-            lineagePublisherDefinitionMap.put(key, lineage);
-          }
-
-          // Load Credential stores
-          for(Class klass : loadClassesFromResource(libDef, cl, CREDENTIAL_STORE_DEFINITION_RESOURCE)) {
-            credentialStores++;
-            CredentialStoreDefinition def = CredentialStoreDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), def.getName());
-            LOG.debug("Loaded credential store '{}'", key);
-            credentialStoreDefinitions.add(def);
-          }
 
-          // Load Services
-          for(Class klass : loadClassesFromResource(libDef, cl, SERVICE_DEFINITION_RESOURCE)) {
-            services++;
-            ServiceDefinition def = ServiceDefinitionExtractor.get().extract(libDef, klass);
-            LOG.debug("Loaded service for '{}'", def.getProvides().getCanonicalName());
-            serviceList.add(def);
-            serviceMap.put(def.getProvides(), def);
-          }
-
-          // Load Interceptors
-          for(Class klass : loadClassesFromResource(libDef, cl, INTERCEPTOR_DEFINITION_RESOURCE)) {
-            interceptors++;
-            InterceptorDefinition def = InterceptorDefinitionExtractor.get().extract(libDef, klass);
-            LOG.debug("Loaded interceptor '{}'", def.getKlass().getCanonicalName());
-            interceptorList.add(def);
+      List<Future<LoadedLibrary>> futures = new ArrayList<>(stageClassLoaders.size());
+      for (ClassLoader cl : stageClassLoaders) {
+        futures.add(executor.submit(() -> {
+          LocaleInContext.set(Locale.getDefault());
+          try {
+            return loadLibrary(cl, javaVersion, sdcVersion);
+          } finally {
+            LocaleInContext.set(null);
           }
+        }));
+      }
 
-          // Load Delegates
-          for(Class klass : loadClassesFromResource(libDef, cl, DELEGATE_DEFINITION_RESOURCE)) {
-            delegates++;
-            StageLibraryDelegateDefinitition def = StageLibraryDelegateDefinitionExtractor.get().extract(libDef, klass);
-            String key = createKey(libDef.getName(), def.getExportedInterface().getCanonicalName());
-            LOG.debug("Loaded delegate '{}'", def.getKlass().getCanonicalName());
-            delegateList.add(def);
-            delegateMap.put(key, def);
-          }
-        } catch (IOException | ClassNotFoundException ex) {
-          throw new RuntimeException(
-              Utils.format("Could not load stages definition from '{}', {}", cl, ex.toString()), ex);
+      for (int i = 0; i < futures.size(); i++) {
+        LoadedLibrary library = getLoadedLibrary(futures.get(i), stageClassLoaders.get(i));
+        if (library == null) {
+          continue;
+        }
+        StageLibraryDefinition libDef = library.libDef;
+        stageLibraries.add(libDef);
+        stageLibraryMap.put(libDef.getName(), libDef);
+        libs++;
+
+        for (StageDefinition stage : library.stages) {
+          stages++;
+          stageList.add(stage);
+          stageMap.put(createKey(libDef.getName(), stage.getName()), stage);
+        }
+        for (Map.Entry<String, EventDefinitionJson> entry : library.eventDefinitions.entrySet()) {
+          eventDefinitionMap.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        for (LineagePublisherDefinition lineage : library.lineagePublishers) {
+          lineagePublishers++;
+          lineagePublisherDefinitions.add(lineage);
+          lineagePublisherDefinitionMap.put(createKey(libDef.getName(), lineage.getName()), lineage);
+        }
+        for (CredentialStoreDefinition def : library.credentialStores) {
+          credentialStores++;
+          credentialStoreDefinitions.add(def);
+        }
+        for (ServiceDefinition def : library.services) {
+          services++;
+          serviceList.add(def);
+          serviceMap.put(def.getProvides(), def);
+        }
+        for (InterceptorDefinition def : library.interceptors) {
+          interceptors++;
+          interceptorList.add(def);
+        }
+        for (StageLibraryDelegateDefinitition def : library.delegates) {
+          delegates++;
+          delegateList.add(def);
+          delegateMap.put(createKey(libDef.getName(), def.getExportedInterface().getCanonicalName()), def);
         }
       }
+
       LOG.info(
         "Loaded '{}' libraries with a total of '{}' stages, '{}' lineage publishers, '{}' services, '{}' interceptors, '{}' delegates and '{}' credentialStores in '{}ms'",
         libs,
@@ -652,10 +636,124 @@ public class ClassLoaderStageLibraryTask extends AbstractTask implements StageLi
         System.currentTimeMillis() - start
       );
     } finally {
+      executor.shutdownNow();
       LocaleInContext.set(null);
     }
   }
 
+  private LoadedLibrary getLoadedLibrary(Future<LoadedLibrary> future, ClassLoader cl) {
+    try {
+      return future.get();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(Utils.format("Interrupted while loading stages definition from '{}'", cl), ex);
+    } catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new RuntimeException(
+          Utils.format("Could not load stages definition from '{}', {}", cl, cause.toString()), cause);
+    }
+  }
+
+  /**
+   * Loads all definitions from given stage library, returns null if the library can't be used on this JVM.
+   */
+  private LoadedLibrary loadLibrary(
+      ClassLoader cl,
+      String javaVersion,
+      Version sdcVersion
+  ) throws IOException, ClassNotFoundException {
+    String libraryName = StageLibraryUtils.getLibraryName(cl);
+
+    // Before loading any stages, let's verify that given stage library is compatible with our current JVM version
+    String unsupportedJvmVersion = getPropertyFromLibraryProperties(cl, JAVA_UNSUPPORTED_REGEXP, null);
+    if(!StringUtils.isEmpty(unsupportedJvmVersion)) {
+      if(javaVersion.matches(unsupportedJvmVersion)) {
+        LOG.warn("Can't load stages from {} since they are not compatible with current JVM version", libraryName);
+        return null;
+      } else {
+        LOG.debug("Stage lib {} passed java compatibility test for '{}'", libraryName, unsupportedJvmVersion);
+      }
+    }
+
+    // And that this SDC is at least on requested version
+    String minSdcVersion = getPropertyFromLibraryProperties(cl, MIN_SDC_VERSION, null);
+    if(!StringUtils.isEmpty(minSdcVersion)) {
+      if(!sdcVersion.isGreaterOrEqualTo(minSdcVersion)) {
+        throw new IllegalArgumentException(
+            Utils.format("Can't load stage library '{}' as it requires at least SDC version {} whereas current version is {}",
+            libraryName,
+            minSdcVersion,
+            buildInfo.getVersion()
+          ));
+      }
+    }
+
+    // Load stages from the stage library
+    StageLibraryDefinition libDef = StageLibraryDefinitionExtractor.get().extract(cl);
+    libDef.setVersion(getPropertyFromLibraryProperties(cl, "version", ""));
+    LOG.debug("Loading stages and plugins from library '{}' on version {}", libDef.getName(), libDef.getVersion());
+    LoadedLibrary library = new LoadedLibrary(libDef);
+
+    // Load Stages
+    for(Class klass : loadClassesFromResource(libDef, cl, STAGES_DEFINITION_RESOURCE)) {
+      StageDefinition stage = StageDefinitionExtractor.get().extract(libDef, klass, Utils.formatL("Library='{}'", libDef.getName()));
+      LOG.debug("Loaded stage '{}'  version {}", createKey(libDef.getName(), stage.getName()), stage.getVersion());
+      library.stages.add(stage);
+
+      for(Class eventDefClass : stage.getEventDefs()) {
+        if (!library.eventDefinitions.containsKey(eventDefClass.getCanonicalName())) {
+          library.eventDefinitions.put(
+              eventDefClass.getCanonicalName(),
+              EventDefinitionExtractor.get().extractEventDefinition(eventDefClass)
+          );
+        }
+      }
+    }
+
+    // Load Lineage publishers
+    for(Class klass : loadClassesFromResource(libDef, cl, LINEAGE_PUBLISHERS_DEFINITION_RESOURCE)) {
+      LineagePublisherDefinition lineage = LineagePublisherDefinitionExtractor.get().extract(libDef, klass);
+      LOG.debug("Loaded lineage plugin '{}'", createKey(libDef.getName(), lineage.getName()));
+      library.lineagePublishers.add(lineage);
+    }
+
+    // Load Credential stores
+    for(Class klass : loadClassesFromResource(libDef, cl, CREDENTIAL_STORE_DEFINITION_RESOURCE)) {
+      CredentialStoreDefinition def = CredentialStoreDefinitionExtractor.get().extract(libDef, klass);
+      LOG.debug("Loaded credential store '{}'", createKey(libDef.getName(), def.getName()));
+      library.credentialStores.add(def);
+    }
+
+    // Load Services
+    for(Class klass : loadClassesFromResource(libDef, cl, SERVICE_DEFINITION_RESOURCE)) {
+      ServiceDefinition def = ServiceDefinitionExtractor.get().extract(libDef, klass);
+      LOG.debug("Loaded service for '{}'", def.getProvides().getCanonicalName());
+      library.services.add(def);
+    }
+
+    // Load Interceptors
+    for(Class klass : loadClassesFromResource(libDef, cl, INTERCEPTOR_DEFINITION_RESOURCE)) {
+      InterceptorDefinition def = InterceptorDefinitionExtractor.get().extract(libDef, klass);
+      LOG.debug("Loaded interceptor '{}'", def.getKlass().getCanonicalName());
+      library.interceptors.add(def);
+    }
+
+    // Load Delegates
+    for(Class klass : loadClassesFromResource(libDef, cl, DELEGATE_DEFINITION_RESOURCE)) {
+      StageLibraryDelegateDefinitition def = StageLibraryDelegateDefinitionExtractor.get().extract(libDef, klass);
+      LOG.debug("Loaded delegate '{}'", def.getKlass().getCanonicalName());
+      library.delegates.add(def);
+    }
+
+    return library;
+  }
+
+  @SuppressWarnings("unchecked")
   private <T> List<Class<? extends T>> loadClassesFromResource(
     StageLibraryDefinition libDef,
     ClassLoader cl,
@@ -63,11 +63,21 @@ public class BaseWebSocket extends WebSocketAdapter {
   }
 
   public void notification(String message) {
+    send(message);
+  }
+
+  /**
+   * Queues given message for the client, returns false if the message was discarded.
+   */
+  protected boolean send(String message) {
     if(webSocketSession != null && webSocketSession.isOpen()) {
       if (!queue.offer(new WebSocketMessage(webSocketSession, message))) {
         LOG.warn("WebSocket queue is full, discarding '{}' message", type);
+        return false;
       }
+      return true;
     }
+    return false;
   }
 
 }
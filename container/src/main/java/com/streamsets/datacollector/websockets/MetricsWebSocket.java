@@ -16,14 +16,50 @@
 package com.streamsets.datacollector.websockets;
 
 import com.streamsets.datacollector.metrics.MetricsEventListener;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
 
 import java.util.Queue;
 
 public class MetricsWebSocket extends BaseWebSocket implements MetricsEventListener {
   public static final String TYPE = "metrics";
 
+  private final boolean deltaEnabled;
+  private long lastSequence = MetricsSnapshot.NO_SEQUENCE;
+
   public MetricsWebSocket(ListenerManager<MetricsEventListener> listenerManager, Queue<WebSocketMessage> queue) {
+    this(listenerManager, queue, false);
+  }
+
+  /**
+   * @param deltaEnabled If true, the client receives full metrics wrapped with sequence number followed by delta
+   * messages containing only changed metrics (see MetricsDeltaEncoder).
+   */
+  public MetricsWebSocket(
+      ListenerManager<MetricsEventListener> listenerManager,
+      Queue<WebSocketMessage> queue,
+      boolean deltaEnabled
+  ) {
     super(TYPE, listenerManager, queue);
+    this.deltaEnabled = deltaEnabled;
+  }
+
+  @Override
+  public synchronized void notification(MetricsSnapshot snapshot) {
+    if (!deltaEnabled) {
+      notification(snapshot.getFullJson());
+      return;
+    }
+
+    boolean sent;
+    if (snapshot.hasDelta()
+        && lastSequence != MetricsSnapshot.NO_SEQUENCE
+        && lastSequence == snapshot.getBaseSequence()) {
+      sent = send(snapshot.getDeltaJson());
+    } else {
+      sent = send(snapshot.getFullMessage());
+    }
+    // If the message was discarded the client has to be re-synchronized with full metrics
+    lastSequence = sent ? snapshot.getSequence() : MetricsSnapshot.NO_SEQUENCE;
   }
 
 }
@@ -28,6 +28,10 @@ public class WebSocketMessage {
     this.message = message;
   }
 
+  public String getMessage() {
+    return message;
+  }
+
   public void send() throws IOException {
     if(webSocketSession.isOpen()) {
       webSocketSession.getRemote().sendString(message);
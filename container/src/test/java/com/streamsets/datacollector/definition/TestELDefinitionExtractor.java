@@ -25,7 +25,14 @@ import com.streamsets.pipeline.api.ElParam;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class TestELDefinitionExtractor {
 
@@ -68,6 +75,18 @@ public class TestELDefinitionExtractor {
 
   }
 
+  public static class Shared {
+
+    @ElFunction(prefix = "shared", name = "f")
+    public static String f() {
+      return null;
+    }
+
+    @ElConstant(name = "SHARED", description = "")
+    public static final String SHARED = "s";
+
+  }
+
   public static class Fail3 {
 
     @ElFunction(prefix = "p", name = "f")
@@ -133,4 +152,38 @@ public class TestELDefinitionExtractor {
     Assert.assertEquals("CC", constants.get(0).getDescription());
     Assert.assertEquals(String.class.getSimpleName(), constants.get(0).getReturnType());
   }
+
+  @Test
+  public void testConcurrentExtractionSharesDefinitions() throws Exception {
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<List<Object>>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          List<Object> defs = new ArrayList<>();
+          defs.addAll(ConcreteELDefinitionExtractor.get().extractFunctions(ImmutableSet.<Class>of(Shared.class), "x"));
+          defs.addAll(ConcreteELDefinitionExtractor.get().extractConstants(ImmutableSet.<Class>of(Shared.class), "x"));
+          return defs;
+        }));
+      }
+      start.countDown();
+
+      Set<Object> functions = new HashSet<>();
+      Set<Object> constants = new HashSet<>();
+      for (Future<List<Object>> future : futures) {
+        List<Object> defs = future.get();
+        Assert.assertEquals(2, defs.size());
+        functions.add(defs.get(0));
+        constants.add(defs.get(1));
+      }
+      // A single definition, and so a single index, no matter which thread got to the class first
+      Assert.assertEquals(1, functions.size());
+      Assert.assertEquals(1, constants.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
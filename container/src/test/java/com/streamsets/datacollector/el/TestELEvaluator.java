@@ -201,4 +201,46 @@ public class TestELEvaluator {
     elEval.eval(elEval.createVariables(), "${implicitOnly:f()}", String.class);
   }
 
+  @Test
+  public void testCompiledExpression() throws ELEvalException {
+    ELEvaluator elEval = new ELEvaluator("testCompiledExpression", false, elDefinitionExtractor, ValidTestEl.class);
+    CompiledELExpression<Boolean> expression = elEval.compile("${location:city() eq CITY && x > 5}", Boolean.class);
+
+    ELVars variables = elEval.createVariables();
+    variables.addVariable("x", 10);
+    Assert.assertTrue(expression.evaluate(variables));
+    variables.addVariable("x", 1);
+    Assert.assertFalse(expression.evaluate(variables));
+
+    // Literal text and mixed text are supported as well
+    Assert.assertEquals("abc", elEval.compile("abc", String.class).evaluate(variables));
+    Assert.assertEquals("city: San Francisco", elEval.compile("city: ${CITY}", String.class).evaluate(variables));
+    Assert.assertEquals(Integer.valueOf(5), elEval.compile("5", Integer.class).evaluate(variables));
+  }
+
+  @Test(expected = ELEvalException.class)
+  public void testCompileInvalidExpression() throws ELEvalException {
+    ELEvaluator elEval = new ELEvaluator("testCompileInvalidExpression", false, elDefinitionExtractor);
+    elEval.compile("${1 + }", Integer.class);
+  }
+
+  @Test(expected = ELEvalException.class)
+  public void testCompiledExpressionUnknownVariable() throws ELEvalException {
+    ELEvaluator elEval = new ELEvaluator("testCompiledExpressionUnknownVariable", false, elDefinitionExtractor);
+    elEval.compile("${unknown}", String.class).evaluate(elEval.createVariables());
+  }
+
+  @Test
+  public void testRepeatedEvaluationWithDifferentVariables() throws ELEvalException {
+    ELEval elEval = new ELEvaluator("testRepeatedEvaluation", false, elDefinitionExtractor);
+    ELVars first = elEval.createVariables();
+    first.addVariable("a", "first");
+    ELVars second = elEval.createVariables();
+    second.addVariable("a", "second");
+    for (int i = 0; i < 3; i++) {
+      Assert.assertEquals("first", elEval.eval(first, "${a}", String.class));
+      Assert.assertEquals("second", elEval.eval(second, "${a}", String.class));
+    }
+  }
+
 }
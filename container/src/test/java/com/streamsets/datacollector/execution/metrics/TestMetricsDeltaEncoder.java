@@ -0,0 +1,136 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.datacollector.metrics.MetricsEventListener;
+import com.streamsets.datacollector.metrics.MetricsSnapshot;
+import com.streamsets.datacollector.websockets.ListenerManager;
+import com.streamsets.datacollector.websockets.MetricsWebSocket;
+import com.streamsets.datacollector.websockets.WebSocketMessage;
+import org.eclipse.jetty.websocket.api.Session;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+
+public class TestMetricsDeltaEncoder {
+
+  private final ObjectMapper objectMapper = ObjectMapperFactory.get();
+
+  @Test
+  public void testDeltaContainsOnlyChangedMetrics() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    Counter a = registry.counter("a");
+    registry.counter("b");
+    MetricsDeltaEncoder encoder = new MetricsDeltaEncoder(objectMapper, 100);
+
+    MetricsSnapshot first = encoder.encode(registry, true);
+    Assert.assertFalse(first.hasDelta());
+    Assert.assertEquals(
+        objectMapper.readTree(objectMapper.writeValueAsString(registry)),
+        objectMapper.readTree(first.getFullJson())
+    );
+
+    a.inc(5);
+    registry.remove("b");
+    registry.counter("c");
+    MetricsSnapshot second = encoder.encode(registry, true);
+    Assert.assertTrue(second.hasDelta());
+    Assert.assertEquals(first.getSequence(), second.getBaseSequence());
+
+    JsonNode delta = objectMapper.readTree(second.getDeltaJson());
+    Assert.assertEquals(second.getSequence(), delta.get("sequence").asLong());
+    JsonNode counters = delta.get("updates").get("counters");
+    Assert.assertEquals(2, counters.size());
+    Assert.assertEquals(5, counters.get("a").get("count").asLong());
+    Assert.assertTrue(counters.has("c"));
+    Assert.assertEquals("b", delta.get("removals").get("counters").get(0).asText());
+
+    // Nothing changed
+    MetricsSnapshot third = encoder.encode(registry, true);
+    Assert.assertEquals(0, objectMapper.readTree(third.getDeltaJson()).get("updates").size());
+  }
+
+  @Test
+  public void testPeriodicResync() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    registry.counter("a");
+    MetricsDeltaEncoder encoder = new MetricsDeltaEncoder(objectMapper, 3);
+
+    List<Boolean> hasDelta = new ArrayList<>();
+    for (int i = 0; i < 7; i++) {
+      hasDelta.add(encoder.encode(registry, true).hasDelta());
+    }
+    Assert.assertEquals(
+        Arrays.asList(false, true, true, false, true, true, false),
+        hasDelta
+    );
+
+    // Without listeners the chain restarts
+    MetricsSnapshot full = encoder.encode(registry, false);
+    Assert.assertFalse(full.hasDelta());
+    Assert.assertEquals(
+        objectMapper.readTree(objectMapper.writeValueAsString(registry)),
+        objectMapper.readTree(full.getFullJson())
+    );
+    Assert.assertFalse(encoder.encode(registry, true).hasDelta());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testWebSocketSendsFullUntilSynchronized() throws Exception {
+    MetricRegistry registry = new MetricRegistry();
+    Counter a = registry.counter("a");
+    MetricsDeltaEncoder encoder = new MetricsDeltaEncoder(objectMapper, 100);
+
+    Queue<WebSocketMessage> queue = new ArrayBlockingQueue<>(10);
+    Session session = Mockito.mock(Session.class);
+    Mockito.when(session.isOpen()).thenReturn(true);
+    MetricsWebSocket socket = new MetricsWebSocket(Mockito.mock(ListenerManager.class), queue, true);
+    socket.onWebSocketConnect(session);
+
+    // Client connected in the middle of the delta chain
+    encoder.encode(registry, true);
+    a.inc();
+    socket.notification(encoder.encode(registry, true));
+    JsonNode message = objectMapper.readTree(queue.poll().getMessage());
+    Assert.assertTrue(message.get("full").asBoolean());
+    Assert.assertEquals(1, message.get("metrics").get("counters").get("a").get("count").asLong());
+
+    a.inc();
+    socket.notification(encoder.encode(registry, true));
+    message = objectMapper.readTree(queue.poll().getMessage());
+    Assert.assertFalse(message.has("full"));
+    Assert.assertEquals(2, message.get("updates").get("counters").get("a").get("count").asLong());
+
+    // Legacy clients always get plain registry JSON
+    MetricsEventListener legacy = new MetricsWebSocket(Mockito.mock(ListenerManager.class), queue);
+    ((MetricsWebSocket) legacy).onWebSocketConnect(session);
+    legacy.notification(encoder.encode(registry, true));
+    message = objectMapper.readTree(queue.poll().getMessage());
+    Assert.assertTrue(message.has("counters"));
+  }
+}
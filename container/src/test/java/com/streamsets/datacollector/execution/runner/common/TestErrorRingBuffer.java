@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.execution.runner.common;
+
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.impl.ErrorMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+public class TestErrorRingBuffer {
+
+  private static Record createRecord(int i) {
+    RecordImpl record = new RecordImpl("stage", "id-" + i, null, null);
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put("value", Field.create(i));
+    record.set(Field.create(map));
+    record.getHeader().setAttribute("attr", "value-" + i);
+    return record;
+  }
+
+  @Test
+  public void testRecordsRoundTrip() {
+    ErrorRingBuffer<Record> ring = ErrorRingBuffer.forRecords(3);
+    Assert.assertTrue(ring.get(10).isEmpty());
+
+    for (int i = 0; i < 5; i++) {
+      ring.append(createRecord(i));
+    }
+    Assert.assertEquals(3, ring.size());
+
+    List<Record> records = ring.get(10);
+    Assert.assertEquals(3, records.size());
+    for (int i = 0; i < 3; i++) {
+      Record record = records.get(i);
+      Assert.assertEquals("id-" + (i + 2), record.getHeader().getSourceId());
+      Assert.assertEquals("value-" + (i + 2), record.getHeader().getAttribute("attr"));
+      Assert.assertEquals(i + 2, record.get("/value").getValueAsInteger());
+    }
+
+    // Oldest first, same as before
+    Assert.assertEquals("id-2", ring.get(1).get(0).getHeader().getSourceId());
+
+    // Each get decodes a new copy
+    Assert.assertNotSame(ring.get(1).get(0), ring.get(1).get(0));
+  }
+
+  @Test
+  public void testErrorMessages() {
+    ErrorRingBuffer<ErrorMessage> ring = ErrorRingBuffer.forErrorMessages(2);
+    ErrorMessage first = new ErrorMessage("E1", "first", 1);
+    ErrorMessage second = new ErrorMessage("E2", "second", 2);
+    ErrorMessage third = new ErrorMessage("E3", "third", 3);
+    ring.appendAll(Arrays.asList(first, second, third));
+    Assert.assertEquals(Arrays.asList(second, third), ring.get(5));
+  }
+
+  @Test
+  public void testConcurrentAppends() throws Exception {
+    ErrorRingBuffer<Record> ring = ErrorRingBuffer.forRecords(16);
+    int threads = 4;
+    int perThread = 500;
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int base = t * perThread;
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int i = 0; i < perThread; i++) {
+          ring.append(createRecord(base + i));
+          ring.get(4);
+        }
+      });
+      thread.start();
+      workers.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : workers) {
+      thread.join();
+    }
+
+    List<Record> records = ring.get(100);
+    Assert.assertEquals(16, records.size());
+    List<String> ids = records.stream().map(r -> r.getHeader().getSourceId()).distinct().collect(Collectors.toList());
+    Assert.assertEquals(16, ids.size());
+  }
+}
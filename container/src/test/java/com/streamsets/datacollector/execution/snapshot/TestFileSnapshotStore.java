@@ -15,10 +15,16 @@
  */
 package com.streamsets.datacollector.execution.snapshot;
 
+import com.streamsets.datacollector.execution.Snapshot;
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotData;
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotImpl;
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotInfoImpl;
 import com.streamsets.datacollector.execution.snapshot.file.FileSnapshotStore;
 import com.streamsets.datacollector.execution.snapshot.file.dagger.FileSnapshotStoreModule;
 import com.streamsets.datacollector.main.RuntimeInfo;
 import com.streamsets.datacollector.main.RuntimeModule;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
+import com.streamsets.datacollector.restapi.bean.SnapshotDataJson;
 
 import org.junit.BeforeClass;
 
@@ -29,13 +35,18 @@ import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
 
 public class TestFileSnapshotStore extends TestSnapshotStore {
 
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
   @BeforeClass
   public static void beforeClass() {
     System.setProperty(RuntimeModule.SDC_PROPERTY_PREFIX + RuntimeInfo.DATA_DIR, "./target/var");
@@ -64,4 +75,20 @@ public class TestFileSnapshotStore extends TestSnapshotStore {
     Assert.assertTrue(snapshotStore instanceof FileSnapshotStore);
   }
 
+  @Test
+  public void testLegacySnapshotPagedAccess() throws Exception {
+    File legacyFile = tempFolder.newFile("snapshot.json");
+    ObjectMapperFactory.get().writeValue(legacyFile, new SnapshotDataJson(new SnapshotData(getSnapshotData())));
+
+    Snapshot snapshot = new SnapshotImpl(
+        new SnapshotInfoImpl("user", "id", "label", "name", "0", 0, false, 0, false),
+        legacyFile
+    );
+    Assert.assertEquals(2, snapshot.getIndex().getBatches().size());
+    Assert.assertEquals(2, (int) snapshot.getIndex().getBatches().get(0).get(0).getOutputRecords().get("lane"));
+    Assert.assertEquals(1, snapshot.getStageOutput(1, "processor").getOutput().get("lane").size());
+    Assert.assertNull(snapshot.getStageOutput(1, "unknown"));
+    snapshot.close();
+  }
+
 }
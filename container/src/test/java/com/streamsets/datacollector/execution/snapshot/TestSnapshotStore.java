@@ -19,7 +19,10 @@ import com.google.common.collect.ImmutableList;
 import com.streamsets.datacollector.execution.Snapshot;
 import com.streamsets.datacollector.execution.SnapshotInfo;
 import com.streamsets.datacollector.execution.SnapshotStore;
+import com.streamsets.datacollector.execution.snapshot.common.SnapshotIndex;
+import com.streamsets.datacollector.json.ObjectMapperFactory;
 import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.datacollector.restapi.bean.SnapshotDataJson;
 import com.streamsets.datacollector.runner.ErrorSink;
 import com.streamsets.datacollector.runner.EventSink;
 import com.streamsets.datacollector.runner.StageOutput;
@@ -227,14 +230,73 @@ public abstract class TestSnapshotStore {
 
   }
 
-  private List<List<StageOutput>> getSnapshotData() throws Exception {
+  @Test
+  public void testAppendBatchAndPagedAccess() throws Exception {
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL, false);
+    snapshotStore.appendBatch(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+    Assert.assertTrue(snapshotStore.getInfo(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID).isInProgress());
+    snapshotStore.appendBatch(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+
+    SnapshotInfo snapshotInfo = snapshotStore.complete(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 5);
+    Assert.assertFalse(snapshotInfo.isInProgress());
+    Assert.assertEquals(5, snapshotInfo.getBatchNumber());
+    Assert.assertFalse(snapshotStore.getInfo(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID).isInProgress());
+
+    try (Snapshot snapshot = snapshotStore.get(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID)) {
+      SnapshotIndex index = snapshot.getIndex();
+      Assert.assertEquals(2, index.getBatches().size());
+      Assert.assertEquals(2, index.getBatches().get(1).size());
+      Assert.assertEquals("source", index.getBatches().get(1).get(0).getInstanceName());
+      Assert.assertEquals(2, (int) index.getBatches().get(1).get(0).getOutputRecords().get("lane"));
+      Assert.assertEquals(1, (int) index.getBatches().get(1).get(1).getOutputRecords().get("lane"));
+      Assert.assertEquals(1, index.indexOf(0, "processor"));
+
+      StageOutput stageOutput = snapshot.getStageOutput(1, "source");
+      Assert.assertEquals("source", stageOutput.getInstanceName());
+      Assert.assertEquals(2, stageOutput.getOutput().get("lane").size());
+      Assert.assertEquals("s:2", stageOutput.getOutput().get("lane").get(1).getHeader().getSourceId());
+      Assert.assertNull(snapshot.getStageOutput(2, "source"));
+      Assert.assertNull(snapshot.getStageOutput(0, "unknown"));
+
+      // Complete snapshot document is still available in the original format
+      try (InputStream in = snapshot.getOutput()) {
+        List<List<StageOutput>> batches = ObjectMapperFactory.get()
+            .readValue(in, SnapshotDataJson.class)
+            .getSnapshotData()
+            .getSnapshotBatches();
+        Assert.assertEquals(2, batches.size());
+        Assert.assertEquals(2, batches.get(0).size());
+        Assert.assertEquals("processor", batches.get(1).get(1).getInstanceName());
+        Assert.assertEquals(1, batches.get(1).get(1).getOutput().get("lane").size());
+      }
+    }
+  }
+
+  @Test
+  public void testSaveReplacesData() throws Exception {
+    snapshotStore.create(USER, PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, SNAPSHOT_LABEL, false);
+    snapshotStore.appendBatch(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 0, getSnapshotData());
+    snapshotStore.save(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, 0, getSnapshotData());
+
+    try (Snapshot snapshot = snapshotStore.get(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID)) {
+      Assert.assertEquals(2, snapshot.getIndex().getBatches().size());
+    }
+  }
+
+  @Test(expected = PipelineException.class)
+  public void testAppendBatchBeforeCreate() throws Exception {
+    snapshotStore.appendBatch(PIPELINE_NAME, PIPELINE_REV, SNAPSHOT_ID, createSnapshotData());
+  }
+
+  protected List<List<StageOutput>> getSnapshotData() throws Exception {
     List<List<StageOutput>> snapshotBatches = new ArrayList<>();
     snapshotBatches.add(createSnapshotData());
     snapshotBatches.add(createSnapshotData());
     return snapshotBatches;
   }
 
-  private List<StageOutput> createSnapshotData() throws Exception  {
+  protected List<StageOutput> createSnapshotData() throws Exception  {
     ErrorSink errorSink = new ErrorSink();
     EventSink eventSink = new EventSink();
     ImmutableList.of("source", "processor").forEach(instanceName -> {
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.json;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.ext.JsonObjectReader;
+import com.streamsets.pipeline.api.ext.io.CountingReader;
+import com.streamsets.pipeline.api.ext.io.ObjectLengthException;
+import com.streamsets.pipeline.api.ext.io.OverrunReader;
+import com.streamsets.pipeline.api.ext.json.Mode;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+public class TestJsonFieldBuilder {
+
+  private static JsonObjectReader createReader(String json, Mode mode, int maxObjectLen) throws Exception {
+    return new OverrunJsonObjectReaderImpl(
+        new OverrunReader(new CountingReader(new StringReader(json)), 64 * 1024, false, false),
+        0,
+        maxObjectLen,
+        mode,
+        Field.class
+    );
+  }
+
+  @Test
+  public void testTypes() throws Exception {
+    String json = "{\"s\":\"a\",\"i\":1,\"l\":12345678901,\"b\":123456789012345678901234567890,\"d\":1.5," +
+        "\"t\":true,\"n\":null,\"list\":[1,{\"x\":\"y\"}],\"map\":{}}";
+    JsonObjectReader reader = createReader(json, Mode.MULTIPLE_OBJECTS, -1);
+    Field field = (Field) reader.read();
+    Assert.assertNull(reader.read());
+    reader.close();
+
+    Assert.assertEquals(Field.Type.MAP, field.getType());
+    Map<String, Field> map = field.getValueAsMap();
+    Assert.assertEquals(Field.create("a"), map.get("s"));
+    Assert.assertEquals(Field.create(1), map.get("i"));
+    Assert.assertEquals(Field.create(12345678901L), map.get("l"));
+    Assert.assertEquals(Field.create(new BigDecimal("123456789012345678901234567890")), map.get("b"));
+    Assert.assertEquals(Field.create(1.5), map.get("d"));
+    Assert.assertEquals(Field.create(true), map.get("t"));
+    Assert.assertEquals(Field.create(Field.Type.STRING, null), map.get("n"));
+    List<Field> list = map.get("list").getValueAsList();
+    Assert.assertEquals(Field.create(1), list.get(0));
+    Assert.assertEquals("y", list.get(1).getValueAsMap().get("x").getValueAsString());
+    Assert.assertTrue(map.get("map").getValueAsMap().isEmpty());
+  }
+
+  @Test
+  public void testArrayOfObjectsAndKeysAreShared() throws Exception {
+    JsonObjectReader reader = createReader("[{\"key\":1},{\"key\":2},3]", Mode.ARRAY_OBJECTS, -1);
+    Field first = (Field) reader.read();
+    Field second = (Field) reader.read();
+    Assert.assertEquals(Field.create(3), reader.read());
+    Assert.assertNull(reader.read());
+    reader.close();
+
+    String firstKey = first.getValueAsMap().keySet().iterator().next();
+    String secondKey = second.getValueAsMap().keySet().iterator().next();
+    Assert.assertSame(firstKey, secondKey);
+    Assert.assertEquals(2, second.getValueAsMap().get("key").getValueAsInteger());
+  }
+
+  @Test
+  public void testTopLevelNullEndsInput() throws Exception {
+    // Same as readValueAs(), a null document is read as null and hence ends the input
+    JsonObjectReader reader = createReader("{\"a\":1} null {\"b\":2}", Mode.MULTIPLE_OBJECTS, -1);
+    Assert.assertEquals(1, ((Field) reader.read()).getValueAsMap().get("a").getValueAsInteger());
+    Assert.assertNull(reader.read());
+    reader.close();
+
+    reader = createReader("[{\"a\":1},null,{\"b\":2}]", Mode.ARRAY_OBJECTS, -1);
+    Assert.assertEquals(1, ((Field) reader.read()).getValueAsMap().get("a").getValueAsInteger());
+    Assert.assertNull(reader.read());
+    reader.close();
+  }
+
+  @Test
+  public void testMaxObjectLength() throws Exception {
+    JsonObjectReader reader = createReader("{\"a\":\"0123456789012345678901234567890\"} {\"b\":1}",
+        Mode.MULTIPLE_OBJECTS, 20);
+    try {
+      reader.read();
+      Assert.fail("Expected ObjectLengthException");
+    } catch (ObjectLengthException ex) {
+      // expected
+    }
+    Field field = (Field) reader.read();
+    Assert.assertEquals(1, field.getValueAsMap().get("b").getValueAsInteger());
+    reader.close();
+  }
+}
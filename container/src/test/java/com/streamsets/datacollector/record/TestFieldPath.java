@@ -0,0 +1,101 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.pipeline.api.Field;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TestFieldPath {
+
+  private RecordImpl record;
+
+  @Before
+  public void setUp() {
+    Map<String, Field> inner = new LinkedHashMap<>();
+    inner.put("b", Field.create("B"));
+    inner.put("list", Field.create(new ArrayList<>(ImmutableList.of(Field.create(1), Field.create(2)))));
+    Map<String, Field> root = new LinkedHashMap<>();
+    root.put("a", Field.create(inner));
+    root.put("weird/name", Field.create("W"));
+
+    record = new RecordImpl("stage", "source", null, null);
+    record.set(Field.create(root));
+  }
+
+  @Test
+  public void testGetAndHas() {
+    Assert.assertEquals("B", FieldPath.compile("/a/b").get(record).getValueAsString());
+    Assert.assertEquals(2, FieldPath.compile("/a/list[1]").get(record).getValueAsInteger());
+    Assert.assertEquals("W", FieldPath.compile("/'weird/name'").get(record).getValueAsString());
+    Assert.assertSame(record.get(), FieldPath.compile("").get(record));
+
+    Assert.assertTrue(FieldPath.compile("/a/b").has(record));
+    Assert.assertFalse(FieldPath.compile("/a/c").has(record));
+    Assert.assertFalse(FieldPath.compile("/a/list[2]").has(record));
+    Assert.assertFalse(FieldPath.compile("/a/b/c").has(record));
+    Assert.assertNull(FieldPath.compile("/x/y").get(record));
+  }
+
+  @Test
+  public void testSet() {
+    FieldPath replace = FieldPath.compile("/a/b");
+    Assert.assertEquals("B", replace.set(record, Field.create("C")).getValueAsString());
+    Assert.assertEquals("C", record.get("/a/b").getValueAsString());
+
+    FieldPath add = FieldPath.compile("/a/new");
+    Assert.assertNull(add.set(record, Field.create("N")));
+    Assert.assertEquals("N", record.get("/a/new").getValueAsString());
+
+    FieldPath append = FieldPath.compile("/a/list[2]");
+    Assert.assertNull(append.set(record, Field.create(3)));
+    Assert.assertEquals(3, record.get("/a/list").getValueAsList().size());
+
+    try {
+      FieldPath.compile("/x/y").set(record, Field.create("X"));
+      Assert.fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testDelete() {
+    Assert.assertEquals("B", FieldPath.compile("/a/b").delete(record).getValueAsString());
+    Assert.assertFalse(record.has("/a/b"));
+    Assert.assertNull(FieldPath.compile("/a/b").delete(record));
+
+    Assert.assertEquals(1, FieldPath.compile("/a/list[0]").delete(record).getValueAsInteger());
+    Assert.assertEquals(1, record.get("/a/list").getValueAsList().size());
+
+    Field root = record.get();
+    Assert.assertSame(root, FieldPath.compile("").delete(record));
+    Assert.assertNull(record.get());
+  }
+
+  @Test
+  public void testCompiledPathIsShared() {
+    Assert.assertSame(CachedPathElement.compile("/a/b"), CachedPathElement.compile("/a/b"));
+    Assert.assertEquals(3, CachedPathElement.parse("/a/b").size());
+    Assert.assertEquals(PathElement.Type.ROOT, CachedPathElement.parse("/a/b").get(0).getType());
+  }
+}
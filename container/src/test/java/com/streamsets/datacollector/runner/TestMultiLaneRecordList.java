@@ -0,0 +1,74 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner;
+
+import com.google.common.collect.ImmutableList;
+import com.streamsets.datacollector.record.RecordImpl;
+import com.streamsets.pipeline.api.Record;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TestMultiLaneRecordList {
+
+  private static Record record(String id) {
+    return new RecordImpl("stage", id, null, null);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testConcatenation() {
+    Record a = record("a");
+    Record b = record("b");
+    Record c = record("c");
+    List<Record> list = new MultiLaneRecordList(new List[] {
+        ImmutableList.of(a),
+        Collections.emptyList(),
+        ImmutableList.of(b, c),
+        Collections.emptyList()
+    });
+
+    Assert.assertEquals(3, list.size());
+    Assert.assertSame(a, list.get(0));
+    Assert.assertSame(b, list.get(1));
+    Assert.assertSame(c, list.get(2));
+    Assert.assertEquals(ImmutableList.of(a, b, c), new ArrayList<>(list));
+
+    try {
+      list.get(3);
+      Assert.fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+    try {
+      list.add(a);
+      Assert.fail("Expected UnsupportedOperationException");
+    } catch (UnsupportedOperationException e) {
+      // expected
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testEmpty() {
+    List<Record> list = new MultiLaneRecordList(new List[] {Collections.emptyList(), Collections.emptyList()});
+    Assert.assertTrue(list.isEmpty());
+    Assert.assertFalse(list.iterator().hasNext());
+  }
+}
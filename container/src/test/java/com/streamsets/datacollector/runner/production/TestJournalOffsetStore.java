@@ -0,0 +1,157 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.runner.production;
+
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.datacollector.main.RuntimeInfo;
+import com.streamsets.datacollector.util.PipelineDirectoryUtil;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public class TestJournalOffsetStore {
+
+  private static final String PIPELINE_NAME = "myPipeline";
+  private static final String PIPELINE_REV = "1";
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private RuntimeInfo runtimeInfo;
+
+  @Before
+  public void setUp() throws Exception {
+    runtimeInfo = Mockito.mock(RuntimeInfo.class);
+    Mockito.when(runtimeInfo.getDataDir()).thenReturn(tempFolder.newFolder().getPath());
+    Files.createDirectories(PipelineDirectoryUtil.getPipelineDir(runtimeInfo, PIPELINE_NAME, PIPELINE_REV).toPath());
+  }
+
+  private ProductionSourceOffsetTracker createTracker(int compactionThreshold) {
+    return new ProductionSourceOffsetTracker(
+        PIPELINE_NAME,
+        PIPELINE_REV,
+        runtimeInfo,
+        new JournalOffsetStore(runtimeInfo, PIPELINE_NAME, PIPELINE_REV, compactionThreshold)
+    );
+  }
+
+  @Test
+  public void testMigrateExistingOffsetFile() {
+    OffsetFileUtil.saveIfEmpty(runtimeInfo, PIPELINE_NAME, PIPELINE_REV);
+    OffsetFileUtil.saveOffsets(runtimeInfo, PIPELINE_NAME, PIPELINE_REV, ImmutableMap.of("a", "1", "b", "2"));
+
+    ProductionSourceOffsetTracker tracker = createTracker(100);
+    Assert.assertEquals(ImmutableMap.of("a", "1", "b", "2"), tracker.getOffsets());
+
+    tracker.commitOffset("a", "3");
+    tracker.commitOffset("b", null);
+
+    // Running pipeline - offset.json is stale, but the journal is taken into account
+    Assert.assertTrue(OffsetFileUtil.getPipelineOffsetJournalFile(runtimeInfo, PIPELINE_NAME, PIPELINE_REV).exists());
+    Assert.assertEquals(ImmutableMap.of("a", "3"), OffsetFileUtil.getOffsets(runtimeInfo, PIPELINE_NAME, PIPELINE_REV));
+
+    // Closing writes everything back to offset.json
+    tracker.close();
+    Assert.assertFalse(OffsetFileUtil.getPipelineOffsetJournalFile(runtimeInfo, PIPELINE_NAME, PIPELINE_REV).exists());
+    Assert.assertEquals(ImmutableMap.of("a", "3"), OffsetFileUtil.getOffsets(runtimeInfo, PIPELINE_NAME, PIPELINE_REV));
+  }
+
+  @Test
+  public void testRecoverAfterCrash() {
+    ProductionSourceOffsetTracker tracker = createTracker(3);
+    for (int i = 0; i < 10; i++) {
+      tracker.commitOffset("entity-" + (i % 4), String.valueOf(i));
+    }
+    tracker.commitOffset("entity-0", null);
+
+    // No close() - simulating crash, the new tracker has to replay the journal
+    tracker = createTracker(3);
+    Map<String, String> offsets = tracker.getOffsets();
+    Assert.assertEquals(3, offsets.size());
+    Assert.assertEquals("9", offsets.get("entity-1"));
+    Assert.assertEquals("6", offsets.get("entity-2"));
+    Assert.assertEquals("7", offsets.get("entity-3"));
+  }
+
+  @Test
+  public void testTornWriteIsIgnored() throws Exception {
+    ProductionSourceOffsetTracker tracker = createTracker(100);
+    tracker.commitOffset("a", "1");
+    tracker.commitOffset("a", "2");
+
+    // Chop off last few bytes to simulate incomplete write of the last record
+    try (RandomAccessFile file = new RandomAccessFile(OffsetFileUtil.getPipelineOffsetJournalFile(runtimeInfo, PIPELINE_NAME, PIPELINE_REV), "rw")) {
+      file.setLength(file.length() - 2);
+    }
+
+    Assert.assertEquals(ImmutableMap.of("a", "1"), createTracker(100).getOffsets());
+  }
+
+  @Test
+  public void testReset() {
+    ProductionSourceOffsetTracker tracker = createTracker(100);
+    tracker.commitOffset("a", "1");
+    tracker.resetOffset();
+    Assert.assertTrue(OffsetFileUtil.getOffsets(runtimeInfo, PIPELINE_NAME, PIPELINE_REV).isEmpty());
+    tracker.close();
+    Assert.assertTrue(createTracker(100).getOffsets().isEmpty());
+  }
+
+  @Test
+  public void testConcurrentCommits() throws Exception {
+    ProductionSourceOffsetTracker tracker = createTracker(50);
+    int threads = 8;
+    int commits = 200;
+    CountDownLatch start = new CountDownLatch(1);
+    List<Thread> workers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      String entity = "runner-" + t;
+      Thread thread = new Thread(() -> {
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        for (int i = 0; i < commits; i++) {
+          tracker.commitOffset(entity, String.valueOf(i));
+        }
+      });
+      thread.start();
+      workers.add(thread);
+    }
+    start.countDown();
+    for (Thread thread : workers) {
+      thread.join();
+    }
+
+    Map<String, String> offsets = createTracker(50).getOffsets();
+    Assert.assertEquals(threads, offsets.size());
+    for (int t = 0; t < threads; t++) {
+      Assert.assertEquals(String.valueOf(commits - 1), offsets.get("runner-" + t));
+    }
+  }
+}
@@ -47,6 +47,7 @@ import rx.Observable;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -133,24 +134,37 @@ public class CouchbaseProcessor extends BaseProcessor {
     }
   }
 
+  /**
+   * Looks up documents for all records of the batch. Each distinct document key is fetched only once, all fetches of
+   * the batch are issued asynchronously at once and the results are applied to every record with that key.
+   */
   private List<Record> processKV(List<Record> records) {
+    Map<String, List<Record>> recordsByKey = new LinkedHashMap<>();
+    for (Record record : records) {
+      RecordEL.setRecordInContext(elVars, record);
 
-    return Observable.from(records)
-        .observeOn(connector.getScheduler())
-        .flatMap(record -> {
-          RecordEL.setRecordInContext(elVars, record);
+      String key;
 
-          String key;
+      try {
+        key = getContext().createELEval("documentKeyEL").eval(elVars, config.documentKeyEL, String.class);
+      } catch (ELEvalException e) {
+        handleError(record, Errors.COUCHBASE_16, e, false);
+        continue;
+      }
 
-          try {
-            key = getContext().createELEval("documentKeyEL").eval(elVars, config.documentKeyEL, String.class);
-          } catch (ELEvalException e) {
-            return handleError(record, Errors.COUCHBASE_16, e, false);
-          }
+      if (key.isEmpty()) {
+        handleError(record, Errors.COUCHBASE_07, true);
+        continue;
+      }
 
-          if (key.isEmpty()) {
-            return handleError(record, Errors.COUCHBASE_07, true);
-          }
+      recordsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(record);
+    }
+
+    return Observable.from(recordsByKey.entrySet())
+        .observeOn(connector.getScheduler())
+        .flatMap(entry -> {
+          String key = entry.getKey();
+          List<Record> keyRecords = entry.getValue();
 
           if (config.useSubdoc) {
             AsyncLookupInBuilder builder = connector.bucket().lookupIn(key);
@@ -164,20 +178,20 @@ public class CouchbaseProcessor extends BaseProcessor {
             }
 
             if(num_subdoc == 0) {
-              return handleError(record, Errors.COUCHBASE_37, false);
+              return handleErrors(keyRecords, Errors.COUCHBASE_37, new RuntimeException(), false);
             }
 
             return builder.execute()
                 .timeout(config.couchbase.kvTimeout, TimeUnit.MILLISECONDS)
-                .flatMap(frag -> setFragmentInRecord(record, frag))
-                .onErrorResumeNext(throwable -> handleError(record, Errors.COUCHBASE_20, throwable, false));
+                .flatMap(frag -> Observable.from(keyRecords).flatMap(record -> setFragmentInRecord(record, frag)))
+                .onErrorResumeNext(throwable -> handleErrors(keyRecords, Errors.COUCHBASE_20, throwable, false));
           } else {
             return connector.bucket()
                 .get(key)
                 .defaultIfEmpty(JsonDocument.create(key))
                 .timeout(config.couchbase.kvTimeout, TimeUnit.MILLISECONDS)
-                .flatMap(doc -> setDocumentInRecord(record, doc))
-                .onErrorResumeNext(throwable -> handleError(record, Errors.COUCHBASE_21, throwable, false));
+                .flatMap(doc -> Observable.from(keyRecords).flatMap(record -> setDocumentInRecord(record, doc)))
+                .onErrorResumeNext(throwable -> handleErrors(keyRecords, Errors.COUCHBASE_21, throwable, false));
           }
         })
         .toList()
@@ -246,6 +260,22 @@ public class CouchbaseProcessor extends BaseProcessor {
     return Observable.empty();
   }
 
+  /**
+   * Aggregates errors that occur during the processing of a batch for all records sharing the same lookup.
+   *
+   * @param records the records being written
+   * @param error the error encountered while writing the records
+   * @param ex the exception encountered while writing the records
+   * @param passable whether the records can be optionally passed down the pipeline
+   * @return an empty observable
+   */
+  private <T> Observable<T> handleErrors(List<Record> records, Errors error, Throwable ex, boolean passable) {
+    for (Record record : records) {
+      handleError(record, error, ex, passable);
+    }
+    return Observable.empty();
+  }
+
   /**
    * Aggregates errors that occur during the processing of a batch.
    *
@@ -16,6 +16,7 @@
 package com.streamsets.pipeline.lib.dirspooler;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.google.common.base.Preconditions;
 import com.streamsets.pipeline.api.PushSource;
@@ -30,6 +31,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -45,6 +47,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class DirectorySpooler {
   private static final Logger LOG = LoggerFactory.getLogger(DirectorySpooler.class);
   private static final String PENDING_FILES = "pending.files";
+  private static final String DISCOVERY_LATENCY = "discovery.latency";
 
   private final PushSource.Context context;
   private final String spoolDir;
@@ -65,6 +68,10 @@ public class DirectorySpooler {
   private final long intervalMillis;
   private Exception destroyCauseException;
 
+  private boolean useFileSystemEvents;
+  private long reconcilePeriodSec;
+  private String fileIndexDir;
+
   public enum FilePostProcessing {NONE, DELETE, ARCHIVE}
 
   public static class Builder {
@@ -82,6 +89,9 @@ public class DirectorySpooler {
     protected boolean processSubdirectories;
     protected long spoolingPeriodSec = 5;
     protected WrappedFileSystem fs;
+    protected boolean useFileSystemEvents;
+    protected long reconcilePeriodSec = 600;
+    protected String fileIndexDir;
 
     public Builder() {
       postProcessing = FilePostProcessing.NONE;
@@ -172,6 +182,46 @@ public class DirectorySpooler {
       return this;
     }
 
+    /**
+     * Discover new files from file system notifications if the file system provides them, directory scans are then
+     * only run every reconciliation period.
+     */
+    public Builder useFileSystemEvents(boolean useFileSystemEvents) {
+      this.useFileSystemEvents = useFileSystemEvents;
+      return this;
+    }
+
+    /**
+     * Period of the directory scans that catch up on missed file system events, replaces the spooling period when
+     * file system events are used.
+     */
+    public Builder setReconcilePeriodSec(long reconcilePeriodSec) {
+      Preconditions.checkArgument(reconcilePeriodSec > 0, "reconcilePeriodSec must be greater than zero");
+      this.reconcilePeriodSec = reconcilePeriodSec;
+      return this;
+    }
+
+    /**
+     * Keep an index of discovered files in given local directory, so that restarts don't wait for a full scan.
+     */
+    public Builder setFileIndexDir(String dir) {
+      if (!StringUtils.isEmpty(dir)) {
+        Preconditions.checkArgument(new File(dir).isAbsolute(), Utils.formatL("dir '{}' must be an absolute path", dir));
+      }
+      this.fileIndexDir = dir;
+      return this;
+    }
+
+    /**
+     * Applies the file discovery options to a newly built spooler.
+     */
+    protected <T extends DirectorySpooler> T configureDiscovery(T spooler) {
+      spooler.useFileSystemEvents = useFileSystemEvents;
+      spooler.reconcilePeriodSec = reconcilePeriodSec;
+      spooler.fileIndexDir = StringUtils.isEmpty(fileIndexDir) ? null : fileIndexDir;
+      return spooler;
+    }
+
     /**
      * Check builder attributes are correctly set to properly build a DirectorySpooler through the
      * {@link Builder#build()} method.
@@ -188,7 +238,7 @@ public class DirectorySpooler {
 
     public DirectorySpooler build() {
       checkArguments();
-      return new DirectorySpooler(
+      return configureDiscovery(new DirectorySpooler(
           context,
           spoolDir,
           maxSpoolFiles,
@@ -203,7 +253,7 @@ public class DirectorySpooler {
           processSubdirectories,
           spoolingPeriodSec,
           fs
-      );
+      ));
     }
   }
 
@@ -285,11 +335,14 @@ public class DirectorySpooler {
 
   protected Meter spoolQueueMeter;
   protected Counter pendingFilesCounter;
+  protected Histogram discoveryLatencyHistogram;
 
   protected volatile boolean running;
 
   volatile FilePurger purger;
   volatile FileFinder finder;
+  volatile FileEventListener listener;
+  private SpoolDirFileIndex fileIndex;
 
   private Set<WrappedFile> filesBeingProcessed;
 
@@ -356,6 +409,17 @@ public class DirectorySpooler {
       spoolQueueMeter = context.createMeter("spoolQueue");
 
       pendingFilesCounter = context.createCounter(PENDING_FILES);
+      discoveryLatencyHistogram = context.createHistogram(DISCOVERY_LATENCY);
+
+      if (fileIndexDir != null) {
+        fileIndex = new SpoolDirFileIndex(
+            fileIndexDir,
+            context.getPipelineId() + "-" + context.getStageInfo().getInstanceName(),
+            spoolDir,
+            pattern,
+            useLastModified
+        );
+      }
 
       if (!waitForPathAppearance) {
         startSpooling();
@@ -370,12 +434,31 @@ public class DirectorySpooler {
   private void startSpooling() throws IOException {
     running = true;
 
-    scheduledExecutor = new SafeScheduledExecutorService(1, "directory-dirspooler");
+    FileEventWatcher watcher = null;
+    if (useFileSystemEvents) {
+      watcher = fs.watch(spoolDirPath, processSubdirectories && useLastModified);
+      if (watcher == null) {
+        LOG.warn("File system events are not available for '{}', new files are found by scanning only", spoolDirPath);
+      }
+    }
 
-    findAndQueueFiles(true, false);
+    // Event listener needs a thread of its own
+    scheduledExecutor = new SafeScheduledExecutorService(watcher == null ? 1 : 2, "directory-dirspooler");
 
     finder = new FileFinder();
-    scheduledExecutor.scheduleAtFixedRate(finder, spoolingPeriodSec, spoolingPeriodSec, TimeUnit.SECONDS);
+    // Continue with the indexed files right away, files added meanwhile are found by the first periodic scan
+    if (!restoreFromIndex()) {
+      findAndQueueFiles(true, false);
+    }
+
+    // With events the scans only catch up on missed events, so they don't need to run as often
+    long scanPeriodSec = watcher == null ? spoolingPeriodSec : reconcilePeriodSec;
+    scheduledExecutor.scheduleAtFixedRate(finder, scanPeriodSec, scanPeriodSec, TimeUnit.SECONDS);
+
+    if (watcher != null) {
+      listener = new FileEventListener(watcher);
+      scheduledExecutor.submit(listener);
+    }
 
     if (postProcessing == FilePostProcessing.ARCHIVE && archiveRetentionMillis > 0) {
       // create and schedule file purger only if the retention time is > 0
@@ -390,6 +473,7 @@ public class DirectorySpooler {
   }
 
   public void destroy() {
+    boolean wasRunning = running;
     running = false;
     try {
       if (scheduledExecutor != null) {
@@ -399,6 +483,45 @@ public class DirectorySpooler {
     } catch (RuntimeException ex) {
       LOG.warn("Error during scheduledExecutor.shutdownNow(), {}", ex.toString(), ex);
     }
+    if (wasRunning) {
+      saveIndex();
+    }
+  }
+
+  /**
+   * Queues files from the file index, returns true if there was a usable index.
+   */
+  private boolean restoreFromIndex() throws IOException {
+    if (fileIndex == null) {
+      return false;
+    }
+    List<String> indexedFiles = fileIndex.load();
+    if (indexedFiles == null) {
+      return false;
+    }
+    List<WrappedFile> files = new ArrayList<>(indexedFiles.size());
+    for (String indexedFile : indexedFiles) {
+      WrappedFile file = fs.getFile(spoolDir, indexedFile);
+      if (fs.exists(file)) {
+        files.add(file);
+      }
+    }
+    queueFiles(files, false);
+    LOG.info("Restored {} of {} files from index '{}'", files.size(), indexedFiles.size(), fileIndex.getIndexFile());
+    return true;
+  }
+
+  private void saveIndex() {
+    if (fileIndex == null || filesQueue == null) {
+      return;
+    }
+    List<WrappedFile> pending = new ArrayList<>(filesBeingProcessed);
+    pending.addAll(filesQueue);
+    try {
+      fileIndex.save(pending);
+    } catch (IOException ex) {
+      LOG.warn("Can't save file index '{}': {}", fileIndex.getIndexFile(), ex.toString(), ex);
+    }
   }
 
   public boolean isRunning() {
@@ -532,12 +655,11 @@ public class DirectorySpooler {
     }
 
     if (!filesQueue.contains(file) && !filesBeingProcessed.contains(file)) {
-      if (currentFile != null) {
-        if (fs.compare(file, currentFile, useLastModified) > 0) {
-          filesQueue.add(file);
-        }
-      } else {
+      if (currentFile == null || fs.compare(file, currentFile, useLastModified) > 0) {
         filesQueue.add(file);
+        if (checkCurrent) {
+          updateDiscoveryLatency(file);
+        }
       }
       spoolQueueMeter.mark(filesQueue.size());
     } else {
@@ -545,6 +667,20 @@ public class DirectorySpooler {
     }
   }
 
+  /**
+   * Time between the last modification of a newly queued file and its discovery.
+   */
+  private void updateDiscoveryLatency(WrappedFile file) {
+    try {
+      long lastModified = fs.getLastModifiedTime(file);
+      if (lastModified > 0) {
+        discoveryLatencyHistogram.update(Math.max(0, System.currentTimeMillis() - lastModified));
+      }
+    } catch (IOException ex) {
+      LOG.trace("Can't get last modified time of '{}': {}", file, ex.toString());
+    }
+  }
+
   private boolean canPoolFiles() {
     if (waitForPathAppearance) {
       try {
@@ -606,6 +742,13 @@ public class DirectorySpooler {
     }
 
     pendingFilesCounter.inc(filesQueue.size() - pendingFilesCounter.getCount());
+    if (next != null) {
+      // let the file system start loading the file that's most likely going to be read after this one
+      WrappedFile following = filesQueue.peek();
+      if (following != null) {
+        fs.prefetch(following);
+      }
+    }
     return next;
   }
 
@@ -677,30 +820,8 @@ public class DirectorySpooler {
 
         fs.addFiles(dir, this.currentFile, matchingFile, includeStartingFile, useLastModified);
 
-        if (matchingFile.size() > 0) {
-          try {
-            // if there are matching files, acquire write lock
-            closeLock.writeLock().lock();
-
-            for (WrappedFile file : matchingFile) {
-              if (!running) {
-                return;
-              }
-
-              if (this.currentFile == null
-                  || (this.initialFile != null && fs.compare(this.currentFile, this.initialFile, useLastModified) == 0)
-                  || fs.compare(file, this.currentFile, useLastModified) > 0) {
-                if (!fs.isDirectory(file)) {
-                  LOG.trace("Found file '{}'", file);
-                  addFileToQueue(file, checkCurrent);
-                }
-              } else {
-                LOG.trace("Discarding file {} because it is already older than currentFile", file.getAbsolutePath());
-              }
-            }
-          } finally {
-            closeLock.writeLock().unlock();
-          }
+        if (!queueFiles(matchingFile, checkCurrent)) {
+          return;
         }
 
       } catch(IOException ex) {
@@ -714,6 +835,39 @@ public class DirectorySpooler {
     LOG.debug("Found '{}' files", filesQueue.size());
   }
 
+  /**
+   * Adds files newer than the current file to the queue, returns false if the spooler was stopped meanwhile.
+   */
+  private boolean queueFiles(Collection<WrappedFile> files, boolean checkCurrent) {
+    if (files.isEmpty()) {
+      return true;
+    }
+    try {
+      // if there are matching files, acquire write lock
+      closeLock.writeLock().lock();
+
+      for (WrappedFile file : files) {
+        if (!running) {
+          return false;
+        }
+
+        if (this.currentFile == null
+            || (this.initialFile != null && fs.compare(this.currentFile, this.initialFile, useLastModified) == 0)
+            || fs.compare(file, this.currentFile, useLastModified) > 0) {
+          if (!fs.isDirectory(file)) {
+            LOG.trace("Found file '{}'", file);
+            addFileToQueue(file, checkCurrent);
+          }
+        } else {
+          LOG.trace("Discarding file {} because it is already older than currentFile", file.getAbsolutePath());
+        }
+      }
+    } finally {
+      closeLock.writeLock().unlock();
+    }
+    return true;
+  }
+
   class FileFinder implements Runnable {
 
     public FileFinder(){
@@ -729,6 +883,51 @@ public class DirectorySpooler {
         LOG.warn("Error while scanning directory '{}' for files newer than '{}': {}", archiveDirPath, currentFile,
             ex.toString(), ex);
       }
+      saveIndex();
+    }
+  }
+
+  /**
+   * Queues files reported by file system events as soon as they appear, falls back to a scan if events were lost.
+   */
+  class FileEventListener implements Runnable {
+    private final FileEventWatcher watcher;
+
+    FileEventListener(FileEventWatcher watcher) {
+      this.watcher = watcher;
+    }
+
+    @Override
+    public void run() {
+      LOG.debug("Watching '{}' for new files", spoolDirPath);
+      try {
+        while (running) {
+          List<WrappedFile> files = watcher.poll(1, TimeUnit.SECONDS);
+          if (files == null) {
+            LOG.warn("File system events for '{}' were lost, scanning the directory", spoolDirPath);
+            finder.run();
+          } else if (!files.isEmpty()) {
+            if (filesQueue.size() >= maxSpoolFiles) {
+              // Files will be picked up by the next scan
+              LOG.debug("Exceeded max number '{}' of spool files, ignoring {} new files", maxSpoolFiles, files.size());
+              continue;
+            }
+            queueFiles(files, true);
+            pendingFilesCounter.inc(filesQueue.size() - pendingFilesCounter.getCount());
+          }
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } catch (Exception ex) {
+        LOG.warn("Error while watching directory '{}', new files will be found by scanning: {}", spoolDirPath,
+            ex.toString(), ex);
+      } finally {
+        try {
+          watcher.close();
+        } catch (IOException ex) {
+          LOG.debug("Error while closing watcher for '{}': {}", spoolDirPath, ex.toString(), ex);
+        }
+      }
     }
   }
 
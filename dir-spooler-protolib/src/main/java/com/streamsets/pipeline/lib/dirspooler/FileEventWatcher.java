@@ -0,0 +1,36 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports files appearing in a watched directory, as provided by {@link WrappedFileSystem#watch(WrappedFile, boolean)}.
+ */
+public interface FileEventWatcher extends Closeable {
+
+  /**
+   * Returns files matching the file pattern that were created in (or moved to) the watched directory since the last
+   * call, waiting up to the given time if there are none. Files are reported only once they are no longer being
+   * modified.
+   *
+   * @return new files, or null if events were lost and the directory has to be scanned to find them
+   */
+  List<WrappedFile> poll(long timeout, TimeUnit unit) throws IOException, InterruptedException;
+}
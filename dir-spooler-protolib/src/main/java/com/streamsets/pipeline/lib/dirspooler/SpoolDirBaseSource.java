@@ -24,6 +24,7 @@ import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
@@ -125,6 +126,15 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
 
     validateInitialFileToProcess(issues);
 
+    if (conf.fileIndexDir != null && !conf.fileIndexDir.isEmpty() && !new File(conf.fileIndexDir).isAbsolute()) {
+      issues.add(getContext().createConfigIssue(
+          GROUP_FILE_CONFIG_NAME,
+          SPOOLDIR_CONFIG_BEAN_PREFIX + "fileIndexDir",
+          Errors.SPOOLDIR_37,
+          conf.fileIndexDir
+      ));
+    }
+
     if (conf.errorArchiveDir != null && !conf.errorArchiveDir.isEmpty()) {
       validateDir(conf.errorArchiveDir,
           GROUPS_POST_PROCESSING_CONFIG_NAME,
@@ -181,7 +191,10 @@ public abstract class SpoolDirBaseSource extends BasePushSource {
             .setPostProcessing(DirectorySpooler.FilePostProcessing.valueOf(conf.postProcessing.name()))
             .waitForPathAppearance(waitForPathToBePresent)
             .processSubdirectories(conf.processSubdirectories)
-            .setSpoolingPeriodSec(conf.spoolingPeriod);
+            .setSpoolingPeriodSec(conf.spoolingPeriod)
+            .useFileSystemEvents(conf.useFileSystemEvents)
+            .setReconcilePeriodSec(conf.reconcilePeriod)
+            .setFileIndexDir(conf.fileIndexDir);
 
         if (conf.postProcessing == PostProcessingOptions.ARCHIVE) {
           builder.setArchiveDir(conf.archiveDir);
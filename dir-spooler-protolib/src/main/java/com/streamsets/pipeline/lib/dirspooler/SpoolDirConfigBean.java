@@ -186,6 +186,46 @@ public class SpoolDirConfigBean {
   )
   public long spoolingPeriod = 5;
 
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.BOOLEAN,
+      defaultValue = "false",
+      label = "Use File System Events",
+      description = "Picks up new files as soon as the file system reports them instead of waiting for the next " +
+          "spooling period. The directory is still scanned every reconciliation period to catch up on missed events.",
+      displayPosition = 62,
+      group = "FILES"
+  )
+  public boolean useFileSystemEvents = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "600",
+      label = "Reconciliation Period (secs)",
+      description = "Time between directory scans that catch up on missed file system events",
+      displayPosition = 63,
+      group = "FILES",
+      dependsOn = "useFileSystemEvents",
+      triggeredByValue = "true",
+      min = 1,
+      max = Integer.MAX_VALUE
+  )
+  public long reconcilePeriod = 600;
+
+  @ConfigDef(
+      required = false,
+      type = ConfigDef.Type.STRING,
+      defaultValue = "",
+      label = "File Index Directory",
+      description = "Absolute path to a local directory where the list of discovered files is kept, so that the " +
+          "origin can resume without scanning the whole directory when the pipeline starts. Files added while the " +
+          "pipeline was stopped are then found by the first periodic scan.",
+      displayPosition = 64,
+      group = "FILES"
+  )
+  public String fileIndexDir = "";
+
   @ConfigDef(
       required = false,
       type = ConfigDef.Type.STRING,
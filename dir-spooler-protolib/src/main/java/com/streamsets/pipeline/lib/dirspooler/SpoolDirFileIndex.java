@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.dirspooler;
+
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * On disk index of the files the spooler discovered but didn't finish yet, so that a restarted spooler can continue
+ * with them right away instead of waiting for a full scan of the spool directory.
+ *
+ * The index is a text file with a header identifying the spool directory, file pattern and ordering, followed by one
+ * path relative to the spool directory per line. It is replaced atomically on every save. An index with a different
+ * header is ignored.
+ */
+final class SpoolDirFileIndex {
+  private static final Logger LOG = LoggerFactory.getLogger(SpoolDirFileIndex.class);
+  private static final String VERSION = "spooler-index-v1";
+
+  private final Path indexFile;
+  private final String spoolDir;
+  private final List<String> header = new ArrayList<>();
+
+  SpoolDirFileIndex(String indexDir, String name, String spoolDir, String pattern, boolean useLastModified) {
+    this.indexFile = Paths.get(indexDir, name.replaceAll("[^A-Za-z0-9._-]", "_") + ".idx");
+    this.spoolDir = spoolDir;
+    header.add(VERSION);
+    header.add(spoolDir);
+    header.add(pattern);
+    header.add(useLastModified ? "TIMESTAMP" : "LEXICOGRAPHICAL");
+  }
+
+  Path getIndexFile() {
+    return indexFile;
+  }
+
+  /**
+   * Returns paths of the indexed files relative to the spool directory, or null if there is no usable index.
+   */
+  List<String> load() {
+    if (!Files.exists(indexFile)) {
+      return null;
+    }
+    try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+      for (String expected : header) {
+        if (!expected.equals(reader.readLine())) {
+          LOG.info("Ignoring file index '{}' created for a different configuration", indexFile);
+          return null;
+        }
+      }
+      List<String> files = new ArrayList<>();
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (!line.isEmpty()) {
+          files.add(line);
+        }
+      }
+      return files;
+    } catch (IOException ex) {
+      LOG.warn("Can't read file index '{}': {}", indexFile, ex.toString(), ex);
+      return null;
+    }
+  }
+
+  void save(Collection<WrappedFile> files) throws IOException {
+    Files.createDirectories(indexFile.getParent());
+    Path tmpFile = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+    try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+      for (String line : header) {
+        writer.write(line);
+        writer.newLine();
+      }
+      for (WrappedFile file : files) {
+        writer.write(relativize(file.getAbsolutePath()));
+        writer.newLine();
+      }
+    }
+    try {
+      Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException ex) {
+      Files.move(tmpFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+    LOG.debug("Saved {} files to index '{}'", files.size(), indexFile);
+  }
+
+  private String relativize(String path) {
+    if (path.startsWith(spoolDir + "/")) {
+      return path.substring(spoolDir.length() + 1);
+    }
+    return path;
+  }
+
+  @Override
+  public String toString() {
+    return Utils.format("SpoolDirFileIndex[file='{}']", indexFile);
+  }
+}
@@ -179,6 +179,26 @@ public interface WrappedFileSystem {
    */
   boolean findDirectoryPathCreationWatcher(List<WrappedFile> spoolDirPath);
 
+  /**
+   * Hints that the given file is going to be read soon, file systems may start loading it in background.
+   *
+   * @param file File to be read next.
+   */
+  default void prefetch(WrappedFile file) {
+  }
+
+  /**
+   * Starts watching a directory for new files matching the file pattern.
+   *
+   * @param dirPath Directory to watch.
+   * @param recursive Whether files in subdirectories should be reported as well.
+   * @return The watcher, or null if the file system doesn't provide change notifications for the directory in which
+   *     case new files can only be found by scanning.
+   */
+  default FileEventWatcher watch(WrappedFile dirPath, boolean recursive) throws IOException {
+    return null;
+  }
+
   /**
    * Returns the FileRef Builder for whole file data format
    *
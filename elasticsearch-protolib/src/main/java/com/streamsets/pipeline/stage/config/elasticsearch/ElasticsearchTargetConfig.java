@@ -164,4 +164,54 @@ public class ElasticsearchTargetConfig extends ElasticsearchConfig {
       group = "ELASTIC_SEARCH"
   )
   public String rawAdditionalProperties;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "5120",
+      label = "Max Bulk Request Size (KB)",
+      description = "Records of a batch are split into bulk requests of at most this size. A single record larger " +
+          "than the limit is sent in a request of its own.",
+      displayPosition = 130,
+      group = "ELASTIC_SEARCH",
+      min = 1
+  )
+  public int maxBulkRequestSizeKB = 5120;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1",
+      label = "Max Concurrent Bulk Requests",
+      description = "Number of bulk requests of a batch that can be in flight at the same time. With more than one " +
+          "request operations on the same document within a batch are not guaranteed to be applied in order.",
+      displayPosition = 140,
+      group = "ELASTIC_SEARCH",
+      min = 1
+  )
+  public int maxConcurrentRequests = 1;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "3",
+      label = "Max Retries",
+      description = "Number of times items rejected with a retryable status (429 or 503) are sent again",
+      displayPosition = 150,
+      group = "ELASTIC_SEARCH",
+      min = 0
+  )
+  public int maxRetries = 3;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "100",
+      label = "Initial Retry Backoff (ms)",
+      description = "Time to wait before the first retry, doubled with every further retry",
+      displayPosition = 160,
+      group = "ELASTIC_SEARCH",
+      min = 0
+  )
+  public long initialRetryBackoffMillis = 100;
 }
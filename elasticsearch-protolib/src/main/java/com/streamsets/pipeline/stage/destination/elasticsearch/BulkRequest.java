@@ -0,0 +1,108 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.elasticsearch;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of a single bulk request serialized into a reusable byte buffer.
+ *
+ * Records are written directly into the buffer and every item remembers where it ends and which record of the
+ * batch it belongs to, so that only the failed items can be sent again without serializing them one more time.
+ * The underlying array is handed over to the HTTP entity without copying.
+ */
+class BulkRequest extends ByteArrayOutputStream {
+
+  private final List<Integer> recordIndexes = new ArrayList<>();
+  private final List<Integer> itemEnds = new ArrayList<>();
+  private int itemStart;
+
+  BulkRequest(int initialCapacity) {
+    super(initialCapacity);
+  }
+
+  /**
+   * Discards everything written since the last completed item, used when a record could not be serialized.
+   */
+  void abortItem() {
+    count = itemStart;
+  }
+
+  /**
+   * Marks everything written since the last completed item as the operation for given record.
+   */
+  void endItem(int recordIndex) {
+    if (count > itemStart) {
+      recordIndexes.add(recordIndex);
+      itemEnds.add(count);
+      itemStart = count;
+    }
+  }
+
+  int getItemCount() {
+    return recordIndexes.size();
+  }
+
+  int getRecordIndex(int item) {
+    return recordIndexes.get(item);
+  }
+
+  List<Integer> getRecordIndexes() {
+    return recordIndexes;
+  }
+
+  /**
+   * Compacts the buffer so that it contains only the given items (in ascending order).
+   */
+  void retainItems(List<Integer> items) {
+    int size = 0;
+    List<Integer> retainedIndexes = new ArrayList<>(items.size());
+    List<Integer> retainedEnds = new ArrayList<>(items.size());
+    for (int item : items) {
+      int start = item == 0 ? 0 : itemEnds.get(item - 1);
+      int length = itemEnds.get(item) - start;
+      // Items only ever move towards the beginning of the buffer, so arraycopy can't overwrite unread data
+      System.arraycopy(buf, start, buf, size, length);
+      size += length;
+      retainedIndexes.add(recordIndexes.get(item));
+      retainedEnds.add(size);
+    }
+    recordIndexes.clear();
+    recordIndexes.addAll(retainedIndexes);
+    itemEnds.clear();
+    itemEnds.addAll(retainedEnds);
+    count = size;
+    itemStart = size;
+  }
+
+  HttpEntity toEntity() {
+    return new ByteArrayEntity(buf, 0, count, ContentType.APPLICATION_JSON);
+  }
+
+  @Override
+  public synchronized void reset() {
+    super.reset();
+    recordIndexes.clear();
+    itemEnds.clear();
+    itemStart = 0;
+  }
+}
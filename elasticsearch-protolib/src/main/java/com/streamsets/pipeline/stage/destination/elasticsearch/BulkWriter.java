@@ -0,0 +1,323 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.elasticsearch;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.lib.elasticsearch.ElasticsearchStageDelegate;
+import org.apache.http.Header;
+import org.apache.http.HttpStatus;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Splits the operations of a batch into size bounded bulk requests and sends them to Elasticsearch.
+ *
+ * Up to maxConcurrentRequests requests are in flight at the same time. Request buffers are pooled and reused across
+ * batches, and since a buffer is only returned to the pool once its request completed, the pool also limits how far
+ * serialization can run ahead of the cluster. Items rejected with 429 or 503 (or whole requests rejected with these
+ * statuses) are sent again with exponential backoff, all other failures are reported back to the caller.
+ */
+class BulkWriter {
+  private static final Logger LOG = LoggerFactory.getLogger(BulkWriter.class);
+  private static final String BULK_ENDPOINT = "/_bulk";
+  private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+  private static final int SC_TOO_MANY_REQUESTS = 429;
+
+  private final ElasticsearchStageDelegate delegate;
+  private final Map<String, String> params;
+  private final int maxRequestSize;
+  private final int maxRetries;
+  private final long initialBackoffMillis;
+  private final BlockingQueue<BulkRequest> pool;
+  private final ExecutorService executor;
+  private final List<Future<BulkResult>> inFlight = new ArrayList<>();
+  private final Timer requestTimer;
+  private final Histogram requestSizeHistogram;
+  private final Meter retriedItemsMeter;
+  private volatile Header[] headers = new Header[0];
+  private BulkRequest current;
+
+  BulkWriter(
+      Stage.Context context,
+      ElasticsearchStageDelegate delegate,
+      Map<String, String> params,
+      int maxRequestSize,
+      int maxConcurrentRequests,
+      int maxRetries,
+      long initialBackoffMillis
+  ) {
+    this.delegate = delegate;
+    this.params = params;
+    this.maxRequestSize = maxRequestSize;
+    this.maxRetries = maxRetries;
+    this.initialBackoffMillis = initialBackoffMillis;
+    // One buffer being filled while the others are in flight
+    this.pool = new ArrayBlockingQueue<>(maxConcurrentRequests + 1);
+    for (int i = 0; i <= maxConcurrentRequests; i++) {
+      pool.add(new BulkRequest(Math.min(maxRequestSize, INITIAL_BUFFER_SIZE)));
+    }
+    this.executor = Executors.newFixedThreadPool(
+        maxConcurrentRequests,
+        new ThreadFactoryBuilder().setNameFormat("elasticsearch-bulk-%d").setDaemon(true).build()
+    );
+    this.requestTimer = context.createTimer("Bulk Requests");
+    this.requestSizeHistogram = context.createHistogram("Bulk Request Size (bytes)");
+    this.retriedItemsMeter = context.createMeter("Retried Bulk Items");
+  }
+
+  /**
+   * Sets headers (e.g. authentication) to be sent with the requests of the upcoming batch.
+   */
+  void setHeaders(Header[] headers) {
+    this.headers = headers;
+  }
+
+  /**
+   * Returns buffer into which the next operation should be serialized, waiting for a free one if needed.
+   */
+  BulkRequest getRequest() throws InterruptedException {
+    if (current == null) {
+      current = pool.take();
+    }
+    return current;
+  }
+
+  /**
+   * Completes the operation written for given record and sends the request once it's big enough.
+   */
+  void endItem(int recordIndex) {
+    current.endItem(recordIndex);
+    if (current.size() >= maxRequestSize) {
+      submit();
+    }
+  }
+
+  /**
+   * Sends what's left and waits for all requests of the batch, results are returned in the order of requests.
+   */
+  List<BulkResult> flush() throws InterruptedException {
+    if (current != null && current.getItemCount() > 0) {
+      submit();
+    }
+    List<BulkResult> results = new ArrayList<>(inFlight.size());
+    try {
+      for (Future<BulkResult> future : inFlight) {
+        try {
+          results.add(future.get());
+        } catch (ExecutionException e) {
+          // send() handles all expected failures on it's own
+          throw new IllegalStateException("Unexpected failure while sending bulk request: " + e.getCause(), e.getCause());
+        }
+      }
+    } finally {
+      inFlight.clear();
+    }
+    return results;
+  }
+
+  /**
+   * Drops the request being built and waits for the ones in flight without looking at their results, used when
+   * the batch is being abandoned. Requests that were already sent are not undone.
+   */
+  void cancel() {
+    if (current != null) {
+      current.reset();
+      pool.add(current);
+      current = null;
+    }
+    for (Future<BulkResult> future : inFlight) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      } catch (ExecutionException e) {
+        LOG.warn("Bulk request of abandoned batch failed: {}", e.getCause(), e.getCause());
+      }
+    }
+    inFlight.clear();
+  }
+
+  void close() {
+    executor.shutdownNow();
+  }
+
+  private void submit() {
+    BulkRequest request = current;
+    current = null;
+    inFlight.add(executor.submit(() -> send(request)));
+  }
+
+  private BulkResult send(BulkRequest request) {
+    BulkResult result = new BulkResult();
+    try {
+      for (int attempt = 0; ; attempt++) {
+        List<Integer> retry = new ArrayList<>();
+        try {
+          Response response = execute(request);
+          parseResponse(request, response, attempt < maxRetries, retry, result);
+        } catch (ResponseException e) {
+          if (attempt >= maxRetries || !isRetryable(e.getResponse().getStatusLine().getStatusCode())) {
+            throw e;
+          }
+          LOG.debug("Bulk request rejected with '{}', retrying", e.getResponse().getStatusLine());
+          for (int i = 0; i < request.getItemCount(); i++) {
+            retry.add(i);
+          }
+        }
+        if (retry.isEmpty()) {
+          return result;
+        }
+        request.retainItems(retry);
+        retriedItemsMeter.mark(retry.size());
+        Thread.sleep(initialBackoffMillis << Math.min(attempt, 20));
+      }
+    } catch (IOException e) {
+      result.setFailure(new ArrayList<>(request.getRecordIndexes()), e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      result.setFailure(new ArrayList<>(request.getRecordIndexes()), new IOException("Interrupted while retrying", e));
+    } finally {
+      request.reset();
+      pool.add(request);
+    }
+    return result;
+  }
+
+  private Response execute(BulkRequest request) throws IOException {
+    requestSizeHistogram.update(request.size());
+    try (Timer.Context ignored = requestTimer.time()) {
+      return delegate.performRequest("POST", BULK_ENDPOINT, params, request.toEntity(), headers);
+    }
+  }
+
+  private static void parseResponse(
+      BulkRequest request,
+      Response response,
+      boolean canRetry,
+      List<Integer> retry,
+      BulkResult result
+  ) throws IOException {
+    JsonObject json;
+    try (Reader reader = new InputStreamReader(response.getEntity().getContent(), StandardCharsets.UTF_8)) {
+      json = new JsonParser().parse(reader).getAsJsonObject();
+    }
+    // The flag is only a shortcut, responses without it are checked item by item
+    JsonElement errors = json.get("errors");
+    if (errors != null && errors.isJsonPrimitive() && !errors.getAsBoolean()) {
+      return;
+    }
+    JsonArray items = json.getAsJsonArray("items");
+    if (items == null) {
+      return;
+    }
+    for (int i = 0; i < items.size(); i++) {
+      JsonObject item = items.get(i).getAsJsonObject().entrySet().iterator().next().getValue().getAsJsonObject();
+      int status = item.get("status").getAsInt();
+      if (status < 400) {
+        continue;
+      }
+      if (canRetry && isRetryable(status)) {
+        retry.add(i);
+      } else {
+        result.addError(request.getRecordIndex(i), getReason(item));
+      }
+    }
+  }
+
+  private static String getReason(JsonObject item) {
+    JsonElement error = item.get("error");
+    // In some old versions, "error" is a simple string not a json object.
+    if (error instanceof JsonObject) {
+      return error.getAsJsonObject().get("reason").getAsString();
+    } else if (error != null && error.isJsonPrimitive()) {
+      return error.getAsString();
+    }
+    // Error would be null if json has no "error" field.
+    return "";
+  }
+
+  private static boolean isRetryable(int status) {
+    return status == SC_TOO_MANY_REQUESTS || status == HttpStatus.SC_SERVICE_UNAVAILABLE;
+  }
+
+  /**
+   * Outcome of a single bulk request: items rejected by Elasticsearch and records that could not be sent at all.
+   */
+  static class BulkResult {
+    private final List<Integer> errorIndexes = new ArrayList<>();
+    private final List<String> errorReasons = new ArrayList<>();
+    private List<Integer> failedIndexes = Collections.emptyList();
+    private IOException failure;
+
+    void addError(int recordIndex, String reason) {
+      errorIndexes.add(recordIndex);
+      errorReasons.add(reason);
+    }
+
+    void setFailure(List<Integer> recordIndexes, IOException failure) {
+      this.failedIndexes = recordIndexes;
+      this.failure = failure;
+    }
+
+    /**
+     * Indexes (within the batch) of records whose operations were rejected.
+     */
+    List<Integer> getErrorIndexes() {
+      return errorIndexes;
+    }
+
+    List<String> getErrorReasons() {
+      return errorReasons;
+    }
+
+    /**
+     * Indexes (within the batch) of records whose request failed as a whole.
+     */
+    List<Integer> getFailedIndexes() {
+      return failedIndexes;
+    }
+
+    IOException getFailure() {
+      return failure;
+    }
+  }
+}
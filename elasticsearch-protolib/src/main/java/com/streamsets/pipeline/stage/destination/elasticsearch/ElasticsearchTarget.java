@@ -16,10 +16,8 @@
 package com.streamsets.pipeline.stage.destination.elasticsearch;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
-import com.google.gson.JsonPrimitive;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.ErrorCode;
 import com.streamsets.pipeline.api.Record;
@@ -46,15 +44,12 @@ import com.streamsets.pipeline.stage.config.elasticsearch.ElasticsearchTargetCon
 import com.streamsets.pipeline.stage.config.elasticsearch.Errors;
 import com.streamsets.pipeline.stage.config.elasticsearch.Groups;
 import org.apache.commons.lang.StringUtils;
-import org.apache.http.HttpEntity;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.elasticsearch.client.Response;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.ZoneId;
@@ -69,6 +64,11 @@ import java.util.TimeZone;
 
 public class ElasticsearchTarget extends BaseTarget {
   private static final Logger LOG = LoggerFactory.getLogger(ElasticsearchTarget.class);
+  private static final byte[] EMPTY = new byte[0];
+  private static final byte[] LINE_END = "\n".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] OBJECT_END = "}\n".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] UPDATE_PREFIX = "{\"doc\":".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] MERGE_PREFIX = "{\"doc_as_upsert\": \"true\", \"doc\":".getBytes(StandardCharsets.UTF_8);
   private final ElasticsearchTargetConfig conf;
   private ELEval timeDriverEval;
   private TimeZone timeZone;
@@ -81,6 +81,8 @@ public class ElasticsearchTarget extends BaseTarget {
   private DataGeneratorFactory generatorFactory;
   private ErrorRecordHandler errorRecordHandler;
   private ElasticsearchStageDelegate delegate;
+  private BulkWriter bulkWriter;
+  private String additionalProperties;
 
   public ElasticsearchTarget(ElasticsearchTargetConfig conf) {
     this.conf = conf;
@@ -207,6 +209,19 @@ public class ElasticsearchTarget extends BaseTarget {
 
     issues = delegate.init("elasticSearchConfig", issues);
 
+    if (issues.isEmpty()) {
+      additionalProperties = addAdditionalProperties();
+      bulkWriter = new BulkWriter(
+          getContext(),
+          delegate,
+          conf.params,
+          (int) Math.min(conf.maxBulkRequestSizeKB * 1024L, Integer.MAX_VALUE - 8),
+          conf.maxConcurrentRequests,
+          conf.maxRetries,
+          conf.initialRetryBackoffMillis
+      );
+    }
+
     generatorFactory = new DataGeneratorFactoryBuilder(getContext(), DataGeneratorFormat.JSON)
         .setMode(Mode.MULTIPLE_OBJECTS)
         .setCharset(Charset.forName(conf.charset))
@@ -217,6 +232,9 @@ public class ElasticsearchTarget extends BaseTarget {
 
   @Override
   public void destroy() {
+    if (bulkWriter != null) {
+      bulkWriter.close();
+    }
     if(delegate != null) {
       delegate.destroy();
     }
@@ -242,126 +260,147 @@ public class ElasticsearchTarget extends BaseTarget {
     return indexEval.eval(elVars, conf.indexTemplate, String.class);
   }
 
+  /**
+   * Writes the batch as a stream of bulk requests, a request is sent as soon as it's full while the rest of the batch
+   * is still being serialized.
+   *
+   * Delivery of a batch isn't atomic: when the batch fails with Stop Pipeline (a record that can't be written or an
+   * operation rejected by Elasticsearch), the requests sent up to that point stay indexed. A failed batch is usually
+   * read again after restart, so operations should be idempotent (e.g. set a document ID) to avoid duplicates.
+   */
   @Override
   public void write(final Batch batch) throws StageException {
     setBatchTime();
     ELVars elVars = getContext().createELVars();
     TimeNowEL.setTimeNowInContext(elVars, getBatchTime());
     Iterator<Record> it = batch.getRecords();
-
-    StringBuilder bulkRequest = new StringBuilder();
+    bulkWriter.setHeaders(delegate.getAuthenticationHeader(conf.securityConfig.securityUser.get()));
 
     //we need to keep the records in order of appearance in case we have indexing errors
     //and error handling is TO_ERROR
     List<Record> records = new ArrayList<>();
+    List<BulkWriter.BulkResult> results = null;
 
-    while (it.hasNext()) {
-      Record record = it.next();
-      records.add(record);
-
-      try {
-        RecordEL.setRecordInContext(elVars, record);
-        String index = getRecordIndex(elVars, record);
-        String type = typeEval.eval(elVars, conf.typeTemplate, String.class);
-        String id = null;
-        if (!StringUtils.isEmpty(conf.docIdTemplate)) {
-          id = docIdEval.eval(elVars, conf.docIdTemplate, String.class);
-        }
-        String parent = null;
-        if (!StringUtils.isEmpty(conf.parentIdTemplate)) {
-          parent = parentIdEval.eval(elVars, conf.parentIdTemplate, String.class);
-        }
-        String routing = null;
-        if (!StringUtils.isEmpty(conf.routingTemplate)) {
-          routing = routingEval.eval(elVars, conf.routingTemplate, String.class);
-        }
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        DataGenerator generator = generatorFactory.getGenerator(baos);
-        generator.write(record);
-        generator.close();
-
-        int opCode = -1;
-        String opType = record.getHeader().getAttribute(OperationType.SDC_OPERATION_TYPE);
-        String recordJson = new String(baos.toByteArray(), StandardCharsets.UTF_8).replace("\n", "");
-        // Check if the operation code from header attribute is valid
-        if (!StringUtils.isEmpty(opType)) {
-          try {
-            opCode = ElasticsearchOperationType.convertToIntCode(opType);
-          } catch (NumberFormatException | UnsupportedOperationException ex) {
-            // Operation obtained from header is not supported. Handle accordingly
-            switch (conf.unsupportedAction) {
-              case DISCARD:
-                LOG.debug("Discarding record with unsupported operation {}", opType);
-                break;
-              case SEND_TO_ERROR:
-                errorRecordHandler.onError(new OnRecordErrorException(record, Errors.ELASTICSEARCH_13, ex.getMessage(), ex));
-                break;
-              case USE_DEFAULT:
-                opCode = conf.defaultOperation.code;
-                break;
-              default: //unknown action
-                errorRecordHandler.onError(new OnRecordErrorException(record, Errors.ELASTICSEARCH_14, ex.getMessage(), ex));
+    try {
+      while (it.hasNext()) {
+        Record record = it.next();
+        int recordIndex = records.size();
+        records.add(record);
+        BulkRequest request = bulkWriter.getRequest();
+
+        try {
+          RecordEL.setRecordInContext(elVars, record);
+          String index = getRecordIndex(elVars, record);
+          String type = typeEval.eval(elVars, conf.typeTemplate, String.class);
+          String id = null;
+          if (!StringUtils.isEmpty(conf.docIdTemplate)) {
+            id = docIdEval.eval(elVars, conf.docIdTemplate, String.class);
+          }
+          String parent = null;
+          if (!StringUtils.isEmpty(conf.parentIdTemplate)) {
+            parent = parentIdEval.eval(elVars, conf.parentIdTemplate, String.class);
+          }
+          String routing = null;
+          if (!StringUtils.isEmpty(conf.routingTemplate)) {
+            routing = routingEval.eval(elVars, conf.routingTemplate, String.class);
+          }
+
+          int opCode = -1;
+          String opType = record.getHeader().getAttribute(OperationType.SDC_OPERATION_TYPE);
+          // Check if the operation code from header attribute is valid
+          if (!StringUtils.isEmpty(opType)) {
+            try {
+              opCode = ElasticsearchOperationType.convertToIntCode(opType);
+            } catch (NumberFormatException | UnsupportedOperationException ex) {
+              // Operation obtained from header is not supported. Handle accordingly
+              switch (conf.unsupportedAction) {
+                case DISCARD:
+                  LOG.debug("Discarding record with unsupported operation {}", opType);
+                  break;
+                case SEND_TO_ERROR:
+                  errorRecordHandler.onError(new OnRecordErrorException(record, Errors.ELASTICSEARCH_13, ex.getMessage(), ex));
+                  break;
+                case USE_DEFAULT:
+                  opCode = conf.defaultOperation.code;
+                  break;
+                default: //unknown action
+                  errorRecordHandler.onError(new OnRecordErrorException(record, Errors.ELASTICSEARCH_14, ex.getMessage(), ex));
+              }
             }
+          } else {
+            // No header attribute set. Use default.
+            opCode = conf.defaultOperation.code;
           }
-        } else {
-          // No header attribute set. Use default.
-          opCode = conf.defaultOperation.code;
+          if (opCode != -1) {
+            writeOperation(request, index, type, id, parent, routing, record, opCode);
+            bulkWriter.endItem(recordIndex);
+          }
+        } catch (IOException ex) {
+          request.abortItem();
+          errorRecordHandler.onError(
+              new OnRecordErrorException(
+                  record,
+                  Errors.ELASTICSEARCH_15,
+                  record.getHeader().getSourceId(),
+                  ex.toString(),
+                  ex
+              )
+          );
         }
-        bulkRequest.append(getOperation(index, type, id, parent, routing, recordJson, opCode));
-      } catch (IOException ex) {
-        errorRecordHandler.onError(
-            new OnRecordErrorException(
-                record,
-                Errors.ELASTICSEARCH_15,
-                record.getHeader().getSourceId(),
-                ex.toString(),
-                ex
-            )
-        );
+      }
+      results = bulkWriter.flush();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new StageException(Errors.ELASTICSEARCH_17, records.size(), ex.toString(), ex);
+    } finally {
+      if (results == null) {
+        bulkWriter.cancel();
       }
     }
 
-    if (!records.isEmpty()) {
-      try {
-        HttpEntity entity = new StringEntity(bulkRequest.toString(), ContentType.APPLICATION_JSON);
-        Response response;
-        response = delegate.performRequest(
-            "POST",
-            "/_bulk",
-            conf.params,
-            entity,
-            delegate.getAuthenticationHeader(conf.securityConfig.securityUser.get())
-        );
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        response.getEntity().writeTo(baos);
-        JsonObject json = new JsonParser().parse(baos.toString()).getAsJsonObject();
-        baos.close();
-
-        // Handle errors in bulk requests individually.
-        boolean errors = json.get("errors").getAsBoolean();
-        if (errors) {
-          List<ErrorItem> errorItems;
-          switch (getContext().getOnErrorRecord()) {
-            case DISCARD:
-              break;
-            case TO_ERROR:
-              errorItems = extractErrorItems(json);
-              for (ErrorItem item : errorItems) {
-                Record record = records.get(item.index);
-                getContext().toError(record, Errors.ELASTICSEARCH_16, record.getHeader().getSourceId(), item.reason);
-              }
-              break;
-            case STOP_PIPELINE:
-              errorItems = extractErrorItems(json);
-              throw new StageException(Errors.ELASTICSEARCH_17, errorItems.size(), "One or more operations failed");
-            default:
-              throw new IllegalStateException(
-                  Utils.format("Unknown OnError value '{}'", getContext().getOnErrorRecord())
+    handleResults(records, results);
+  }
+
+  private void handleResults(List<Record> records, List<BulkWriter.BulkResult> results) throws StageException {
+    for (BulkWriter.BulkResult result : results) {
+      // Handle errors in bulk requests individually.
+      List<Integer> errorIndexes = result.getErrorIndexes();
+      if (!errorIndexes.isEmpty()) {
+        switch (getContext().getOnErrorRecord()) {
+          case DISCARD:
+            break;
+          case TO_ERROR:
+            for (int i = 0; i < errorIndexes.size(); i++) {
+              Record record = records.get(errorIndexes.get(i));
+              getContext().toError(
+                  record,
+                  Errors.ELASTICSEARCH_16,
+                  record.getHeader().getSourceId(),
+                  result.getErrorReasons().get(i)
               );
-          }
+            }
+            break;
+          case STOP_PIPELINE:
+            // Rest of the batch has already been delivered, see write()
+            int errorCount = results.stream().mapToInt(r -> r.getErrorIndexes().size()).sum();
+            throw new StageException(Errors.ELASTICSEARCH_17, errorCount, "One or more operations failed");
+          default:
+            throw new IllegalStateException(
+                Utils.format("Unknown OnError value '{}'", getContext().getOnErrorRecord())
+            );
+        }
+      }
+
+      IOException failure = result.getFailure();
+      if (failure != null) {
+        List<Record> failed = new ArrayList<>(result.getFailedIndexes().size());
+        for (int index : result.getFailedIndexes()) {
+          failed.add(records.get(index));
         }
-      } catch (IOException ex) {
-        errorRecordHandler.onError(records, new StageException(Errors.ELASTICSEARCH_17, records.size(), ex.toString(), ex));
+        errorRecordHandler.onError(
+            failed,
+            new StageException(Errors.ELASTICSEARCH_17, failed.size(), failure.toString(), failure)
+        );
       }
     }
   }
@@ -375,33 +414,61 @@ public class ElasticsearchTarget extends BaseTarget {
     return batchTime;
   }
 
-  private String getOperation(String index, String type, String id, String parent, String routing, String record, int opCode) {
+  private void writeOperation(
+      BulkRequest request,
+      String index,
+      String type,
+      String id,
+      String parent,
+      String routing,
+      Record record,
+      int opCode
+  ) throws IOException {
     StringBuilder op = new StringBuilder();
     switch (opCode) {
       case OperationType.UPSERT_CODE:
         getOperationMetadata("index", index, type, id, parent, routing, op);
-        op.append(String.format("%s%n", record));
+        request.write(toBytes(op));
+        writeDocument(request, record, EMPTY, LINE_END);
         break;
       case OperationType.INSERT_CODE:
         getOperationMetadata("create", index, type, id, parent, routing, op);
-        op.append(String.format("%s%n", record));
+        request.write(toBytes(op));
+        writeDocument(request, record, EMPTY, LINE_END);
         break;
       case OperationType.UPDATE_CODE:
         getOperationMetadata("update", index, type, id, parent, routing, op);
-        op.append(String.format("{\"doc\":%s}%n", record));
+        request.write(toBytes(op));
+        writeDocument(request, record, UPDATE_PREFIX, OBJECT_END);
         break;
       case OperationType.MERGE_CODE:
         getOperationMetadata("update", index, type, id, parent, routing, op);
-        op.append(String.format("{\"doc_as_upsert\": \"true\", \"doc\":%s}%n", record));
+        request.write(toBytes(op));
+        writeDocument(request, record, MERGE_PREFIX, OBJECT_END);
         break;
       case OperationType.DELETE_CODE:
         getOperationMetadata("delete", index, type, id, parent, routing, op);
+        request.write(toBytes(op));
         break;
       default:
         LOG.error("Operation {} not supported", opCode);
         throw new UnsupportedOperationException(String.format("Unsupported Operation: %s", opCode));
     }
-    return op.toString();
+  }
+
+  /**
+   * Serializes record straight into the request, the bulk API requires each document to be on a single line.
+   */
+  private void writeDocument(BulkRequest request, Record record, byte[] prefix, byte[] suffix) throws IOException {
+    request.write(prefix);
+    DataGenerator generator = generatorFactory.getGenerator(new SingleLineOutputStream(request));
+    generator.write(record);
+    generator.close();
+    request.write(suffix);
+  }
+
+  private static byte[] toBytes(StringBuilder sb) {
+    return sb.toString().getBytes(StandardCharsets.UTF_8);
   }
 
   private void getOperationMetadata(String operation, String index, String type, String id, String parent, String routing, StringBuilder sb) {
@@ -416,11 +483,10 @@ public class ElasticsearchTarget extends BaseTarget {
       sb.append(String.format(",\"routing\":\"%s\"", routing));
     }
     // Add additional properties from JSON editor.
-    String additionalProperties = addAdditionalProperties();
     if (!StringUtils.isEmpty(additionalProperties)){
       sb.append(additionalProperties);
     }
-    sb.append(String.format("}}%n"));
+    sb.append("}}\n");
   }
 
   @VisibleForTesting
@@ -435,34 +501,38 @@ public class ElasticsearchTarget extends BaseTarget {
     return sb.toString();
   }
 
-  private List<ErrorItem> extractErrorItems(JsonObject json) {
-    List<ErrorItem> errorItems = new ArrayList<>();
-    JsonArray items = json.getAsJsonArray("items");
-    for (int i = 0; i < items.size(); i++) {
-      JsonObject item = items.get(i).getAsJsonObject().entrySet().iterator().next().getValue().getAsJsonObject();
-      int status = item.get("status").getAsInt();
-      if (status >= 400) {
-        Object error = item.get("error");
-        // In some old versions, "error" is a simple string not a json object.
-        if (error instanceof JsonObject) {
-          errorItems.add(new ErrorItem(i, item.getAsJsonObject("error").get("reason").getAsString()));
-        } else if (error instanceof JsonPrimitive) {
-          errorItems.add(new ErrorItem(i, item.getAsJsonPrimitive("error").getAsString()));
-        } else {
-          // Error would be null if json has no "error" field.
-          errorItems.add(new ErrorItem(i, ""));
+  /**
+   * Drops line breaks on the way to the request buffer and leaves the buffer open when closed.
+   */
+  private static class SingleLineOutputStream extends FilterOutputStream {
+
+    SingleLineOutputStream(OutputStream out) {
+      super(out);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      if (b != '\n') {
+        out.write(b);
+      }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      int start = off;
+      int end = off + len;
+      for (int i = off; i < end; i++) {
+        if (b[i] == '\n') {
+          out.write(b, start, i - start);
+          start = i + 1;
         }
       }
+      out.write(b, start, end - start);
     }
-    return errorItems;
-  }
 
-  private static class ErrorItem {
-    int index;
-    String reason;
-    ErrorItem(int index, String reason) {
-      this.index = index;
-      this.reason = reason;
+    @Override
+    public void close() throws IOException {
+      flush();
     }
   }
 }
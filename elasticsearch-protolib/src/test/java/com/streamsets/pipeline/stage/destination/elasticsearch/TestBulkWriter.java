@@ -0,0 +1,200 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.elasticsearch;
+
+import com.codahale.metrics.ExponentiallyDecayingReservoir;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.lib.elasticsearch.ElasticsearchStageDelegate;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.util.EntityUtils;
+import org.elasticsearch.client.Response;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+
+public class TestBulkWriter {
+
+  private ElasticsearchStageDelegate delegate;
+  private Stage.Context context;
+  private List<String> bodies;
+  private Queue<String> responses;
+  private BulkWriter writer;
+
+  @Before
+  public void setUp() throws Exception {
+    context = Mockito.mock(Stage.Context.class);
+    Mockito.when(context.createTimer(Mockito.anyString())).thenReturn(new Timer());
+    Mockito.when(context.createMeter(Mockito.anyString())).thenReturn(new Meter());
+    Mockito.when(context.createHistogram(Mockito.anyString()))
+        .thenReturn(new Histogram(new ExponentiallyDecayingReservoir()));
+
+    bodies = Collections.synchronizedList(new ArrayList<>());
+    responses = new LinkedList<>();
+    delegate = Mockito.mock(ElasticsearchStageDelegate.class);
+    Mockito.when(delegate.performRequest(
+        Mockito.eq("POST"),
+        Mockito.eq("/_bulk"),
+        Mockito.anyMapOf(String.class, String.class),
+        Mockito.any(HttpEntity.class),
+        Mockito.<Header>anyVararg()
+    )).thenAnswer(invocation -> {
+      // The buffer is reused once the request completes, so the body has to be captured right away
+      bodies.add(EntityUtils.toString((HttpEntity) invocation.getArguments()[3], StandardCharsets.UTF_8));
+      String json;
+      synchronized (responses) {
+        json = responses.isEmpty() ? "{\"errors\":false,\"items\":[]}" : responses.poll();
+      }
+      Response response = Mockito.mock(Response.class);
+      Mockito.when(response.getEntity()).thenReturn(new StringEntity(json, ContentType.APPLICATION_JSON));
+      return response;
+    });
+  }
+
+  @After
+  public void tearDown() {
+    if (writer != null) {
+      writer.close();
+    }
+  }
+
+  private BulkWriter createWriter(int maxRequestSize, int maxConcurrentRequests) {
+    writer = new BulkWriter(
+        context,
+        delegate,
+        Collections.emptyMap(),
+        maxRequestSize,
+        maxConcurrentRequests,
+        3,
+        1
+    );
+    return writer;
+  }
+
+  private void writeItem(int recordIndex) throws Exception {
+    writer.getRequest().write(("item-" + recordIndex + "\n").getBytes(StandardCharsets.UTF_8));
+    writer.endItem(recordIndex);
+  }
+
+  @Test
+  public void testSplitIntoBoundedRequests() throws Exception {
+    createWriter(14, 3);
+    for (int i = 0; i < 5; i++) {
+      writeItem(i);
+    }
+    List<BulkWriter.BulkResult> results = writer.flush();
+
+    // Every item is 7 bytes long, so each request carries two of them
+    Assert.assertEquals(3, results.size());
+    for (BulkWriter.BulkResult result : results) {
+      Assert.assertTrue(result.getErrorIndexes().isEmpty());
+      Assert.assertNull(result.getFailure());
+    }
+    List<String> sorted = new ArrayList<>(bodies);
+    Collections.sort(sorted);
+    Assert.assertEquals(Arrays.asList("item-0\nitem-1\n", "item-2\nitem-3\n", "item-4\n"), sorted);
+  }
+
+  @Test
+  public void testAbortedItemIsNotSent() throws Exception {
+    createWriter(1024, 1);
+    writeItem(0);
+    BulkRequest request = writer.getRequest();
+    request.write("partial".getBytes(StandardCharsets.UTF_8));
+    request.abortItem();
+    writeItem(2);
+    writer.flush();
+
+    Assert.assertEquals(Collections.singletonList("item-0\nitem-2\n"), bodies);
+  }
+
+  @Test
+  public void testRetryOnlyRetryableItems() throws Exception {
+    responses.add("{\"errors\":true,\"items\":[" +
+        "{\"index\":{\"status\":201}}," +
+        "{\"index\":{\"status\":429,\"error\":{\"reason\":\"rejected\"}}}," +
+        "{\"index\":{\"status\":400,\"error\":{\"reason\":\"mapping\"}}}," +
+        "{\"index\":{\"status\":503,\"error\":\"unavailable\"}}" +
+        "]}");
+    createWriter(1024, 1);
+    for (int i = 0; i < 4; i++) {
+      writeItem(i);
+    }
+    List<BulkWriter.BulkResult> results = writer.flush();
+
+    Assert.assertEquals(Arrays.asList("item-0\nitem-1\nitem-2\nitem-3\n", "item-1\nitem-3\n"), bodies);
+    Assert.assertEquals(1, results.size());
+    Assert.assertEquals(Collections.singletonList(2), results.get(0).getErrorIndexes());
+    Assert.assertEquals(Collections.singletonList("mapping"), results.get(0).getErrorReasons());
+    Assert.assertNull(results.get(0).getFailure());
+  }
+
+  @Test
+  public void testResponseWithoutErrorsFlag() throws Exception {
+    responses.add("{\"items\":[{\"index\":{\"status\":201}},{\"index\":{\"status\":400,\"error\":\"mapping\"}}]}");
+    createWriter(1024, 1);
+    writeItem(0);
+    writeItem(1);
+    List<BulkWriter.BulkResult> results = writer.flush();
+
+    Assert.assertEquals(Collections.singletonList(1), results.get(0).getErrorIndexes());
+    Assert.assertEquals(Collections.singletonList("mapping"), results.get(0).getErrorReasons());
+    Assert.assertNull(results.get(0).getFailure());
+  }
+
+  @Test
+  public void testCancelKeepsSentRequests() throws Exception {
+    createWriter(14, 1);
+    for (int i = 0; i < 3; i++) {
+      writeItem(i);
+    }
+    // Batch abandoned after the first request was sent: it stays delivered, the rest is never sent
+    writer.cancel();
+
+    Assert.assertEquals(Collections.singletonList("item-0\nitem-1\n"), bodies);
+  }
+
+  @Test
+  public void testRetriesExhausted() throws Exception {
+    String rejected = "{\"errors\":true,\"items\":[{\"index\":{\"status\":429,\"error\":{\"reason\":\"rejected\"}}}]}";
+    for (int i = 0; i < 4; i++) {
+      responses.add(rejected);
+    }
+    createWriter(1024, 1);
+    writeItem(7);
+    List<BulkWriter.BulkResult> results = writer.flush();
+
+    // Original attempt and three retries
+    Assert.assertEquals(4, bodies.size());
+    Assert.assertEquals(Collections.singletonList(7), results.get(0).getErrorIndexes());
+    Assert.assertEquals(Collections.singletonList("rejected"), results.get(0).getErrorReasons());
+  }
+}
@@ -230,6 +230,19 @@ public class TestGroovyProcessor {
     ScriptingProcessorTestUtil.verifyNestedMap(GroovyDProcessor.class, processor);
   }
 
+  @Test
+  public void testUntouchedFieldsPreserved() throws Exception {
+    Processor processor = new GroovyProcessor(
+        ProcessingMode.BATCH,
+        "for (record in sdc.records) {\n" +
+            "  record.value['touched'] = 'changed'\n" +
+            "  assert record.value['nested']['list'].size() == 2\n" +
+            "  sdc.output.write(record)\n" +
+            "}"
+    );
+    ScriptingProcessorTestUtil.verifyUntouchedFieldsPreserved(GroovyDProcessor.class, processor);
+  }
+
   @Test
   public void testChangeFieldTypeFromScripting() throws Exception {
     final String script = getScript("ChangeFieldTypeScript.groovy");
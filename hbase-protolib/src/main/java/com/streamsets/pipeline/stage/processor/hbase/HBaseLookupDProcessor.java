@@ -26,7 +26,7 @@ import com.streamsets.pipeline.hbase.api.common.processor.Groups;
 import com.streamsets.pipeline.hbase.api.common.processor.HBaseLookupConfig;
 
 @StageDef(
-    version = 3,
+    version = 4,
     label = "HBase Lookup",
     description = "Performs KV lookups to enrich records",
     icon = "hbase.png",
@@ -38,9 +38,11 @@ import com.streamsets.pipeline.hbase.api.common.processor.HBaseLookupConfig;
 
 @ConfigGroups(Groups.class)
 @GenerateResourceBundle
-@HideConfigs(
-  "conf.cache.retryOnCacheMiss"
-)
+@HideConfigs({
+  "conf.cache.retryOnCacheMiss",
+  // Private class loader, stage instances of different pipelines never see each other
+  "conf.cache.shareAcrossPipelines"
+})
 public class HBaseLookupDProcessor extends DProcessor {
   @ConfigDefBean(groups = {"LOOKUP", "HBASE"})
   public HBaseLookupConfig conf;
@@ -17,6 +17,7 @@ package com.streamsets.pipeline.stage.processor.hbase;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Optional;
+import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -222,7 +223,13 @@ public class HBaseLookupProcessor extends BaseProcessor {
             e
         ));
       }
-      cache = LookupUtils.buildCache(store, conf.cache);
+      cache = LookupUtils.buildCache(
+          getContext(),
+          new HBaseUserLoader(store),
+          conf.cache,
+          // Stage runs in a private class loader, so the cache can't be shared across pipelines
+          null
+      );
 
       cacheCleaner = new CacheCleaner(cache, "HBaseLookupProcessor", 10 * 60 * 1000);
     }
@@ -246,9 +253,37 @@ public class HBaseLookupProcessor extends BaseProcessor {
     }
   }
 
+  /**
+   * Runs the loads as the HBase user, needed when values are refreshed in the background.
+   */
+  private class HBaseUserLoader extends CacheLoader<Pair<String, HBaseColumn>, Optional<String>> {
+    private final HBaseStore delegate;
+
+    HBaseUserLoader(HBaseStore delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Optional<String> load(Pair<String, HBaseColumn> key) throws Exception {
+      return hbaseConnectionHelper.getUGI().doAs((PrivilegedExceptionAction<Optional<String>>) () -> delegate.load(key));
+    }
+
+    @Override
+    public Map<Pair<String, HBaseColumn>, Optional<String>> loadAll(
+        Iterable<? extends Pair<String, HBaseColumn>> keys
+    ) throws Exception {
+      return hbaseConnectionHelper.getUGI().doAs(
+          (PrivilegedExceptionAction<Map<Pair<String, HBaseColumn>, Optional<String>>>) () -> delegate.loadAll(keys)
+      );
+    }
+  }
+
   @Override
   public void destroy() {
     super.destroy();
+    if (cache != null) {
+      LookupUtils.releaseCache(cache);
+    }
     if(store != null) {
       try {
         hbaseConnectionHelper.getUGI().doAs((PrivilegedExceptionAction<Void>) () -> {
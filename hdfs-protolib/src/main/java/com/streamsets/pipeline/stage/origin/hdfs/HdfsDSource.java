@@ -34,7 +34,7 @@ import com.streamsets.pipeline.lib.event.NoMoreDataEvent;
 import static com.streamsets.pipeline.config.OriginAvroSchemaSource.SOURCE;
 
 @StageDef(
-    version = 2,
+    version = 3,
     label = "Hadoop FS Standalone",
     description = "Reads files from a Hadoop file system",
     icon="hdfs-multithreaded.png",
@@ -50,6 +50,8 @@ import static com.streamsets.pipeline.config.OriginAvroSchemaSource.SOURCE;
 @ConfigGroups(Groups.class)
 @HideConfigs(value = {
     "conf.allowLateDirectory",
+    "conf.useFileSystemEvents",
+    "conf.reconcilePeriod",
     "conf.dataFormatConfig.verifyChecksum",
     "conf.dataFormatConfig.avroSchemaSource"
 })
@@ -53,4 +53,16 @@ public class TestHdfsSourceUpgrader {
 
     UpgraderTestUtils.assertExists(configs, dataFormatPrefix + "preserveRootElement", false);
   }
+
+  @Test
+  public void testV2ToV3() {
+    Mockito.doReturn(2).when(context).getFromVersion();
+    Mockito.doReturn(3).when(context).getToVersion();
+
+    configs = upgrader.upgrade(configs, context);
+
+    UpgraderTestUtils.assertExists(configs, "conf.useFileSystemEvents", false);
+    UpgraderTestUtils.assertExists(configs, "conf.reconcilePeriod", 600);
+    UpgraderTestUtils.assertExists(configs, "conf.fileIndexDir", "");
+  }
 }
@@ -148,6 +148,7 @@ public enum JdbcErrors implements ErrorCode {
   JDBC_409("Offset column can't contain NULL: {}"),
   JDBC_410("Failed to parse column '{}' to field with value {}."),
   JDBC_411("Filter schema values cannot be empty."),
+  JDBC_412("Key column '{}' is not part of the lookup query result"),
 
   JDBC_500("The JDBC URL must be 'jdbc:<vendor>://<HOST>[:<PORT>][/<DB>]...'"),
   JDBC_501("Connection must be secured, either by SSL encryption or SSH Tunneling"),
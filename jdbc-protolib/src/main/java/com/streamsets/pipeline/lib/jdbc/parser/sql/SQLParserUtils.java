@@ -106,7 +106,7 @@ public class SQLParserUtils {
   /**
    * Format column names based on whether they are case-sensitive
    */
-  private static String formatName(String columnName, boolean caseSensitive) {
+  static String formatName(String columnName, boolean caseSensitive) {
     String returnValue = format(columnName);
     if (caseSensitive) {
       return returnValue;
@@ -117,7 +117,7 @@ public class SQLParserUtils {
   /**
    * Unescapes strings and returns them.
    */
-  private static String formatValue(String value) {
+  static String formatValue(String value) {
     // The value can either be null (if the IS keyword is present before it or just a NULL string with no quotes)
     if (value == null || NULL_STRING.equalsIgnoreCase(value)) {
       return null;
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.jdbc.parser.sql;
+
+import com.streamsets.pipeline.lib.jdbc.OracleCDCOperationCode;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hand written scanner for the INSERT, UPDATE and DELETE statements that LogMiner puts into SQL_REDO.
+ *
+ * LogMiner generates statements of a very regular shape: quoted schema, table and column names, values that are
+ * quoted literals, NULL or (possibly nested) function calls like TO_DATE, and a WHERE clause made of AND-ed
+ * conditions. The scanner handles exactly these shapes in a single pass without building any parse tree. For
+ * anything else {@link #parse} returns null and the caller has to fall back to one of the full parsers. Columns are
+ * formatted the same way the full parser selected by {@link Mode} would format them, so whether a statement went
+ * through the scanner or the fallback never changes the resulting record.
+ */
+public final class SQLRedoScanner {
+
+  /**
+   * Full parser whose output the scanner reproduces.
+   */
+  public enum Mode {
+    /** {@link SQLParserUtils} with the PEG based {@link SQLParser}. */
+    PEG,
+    /** {@link SQLListener} walking the ANTLR parse tree. */
+    LISTENER,
+  }
+
+  private static final String NULL_STRING = "NULL";
+  private static final String ROWID = "ROWID";
+
+  private static final int QUOTED = 0;
+  private static final int FUNCTION = 1;
+  private static final int NULL = 2;
+
+  /**
+   * Signals a statement the scanner doesn't understand, shared and without stack trace as it's only used for flow
+   * control.
+   */
+  private static final class NotSupportedException extends RuntimeException {
+    private static final NotSupportedException INSTANCE = new NotSupportedException();
+
+    private NotSupportedException() {
+      super(null, null, false, false);
+    }
+  }
+
+  private final String sql;
+  private final int length;
+  private final Mode mode;
+  private final boolean allowNulls;
+  private final boolean caseSensitive;
+  private final Set<String> columnsExpected;
+  private final Map<String, String> columns = new HashMap<>();
+  private int pos;
+
+  private SQLRedoScanner(
+      String sql,
+      Mode mode,
+      boolean allowNulls,
+      boolean caseSensitive,
+      Set<String> columnsExpected
+  ) {
+    this.sql = sql;
+    this.length = sql.length();
+    this.mode = mode;
+    this.allowNulls = allowNulls;
+    this.caseSensitive = caseSensitive;
+    this.columnsExpected = columnsExpected;
+  }
+
+  /**
+   * Returns columns (including ROWID if present) of given statement or null if it has to be parsed by the full
+   * parser.
+   *
+   * @param operationCode One of OracleCDCOperationCode constants.
+   */
+  public static Map<String, String> parse(
+      String sql,
+      int operationCode,
+      Mode mode,
+      boolean allowNulls,
+      boolean caseSensitive,
+      Set<String> columnsExpected
+  ) {
+    SQLRedoScanner scanner = new SQLRedoScanner(sql, mode, allowNulls, caseSensitive, columnsExpected);
+    try {
+      switch (operationCode) {
+        case OracleCDCOperationCode.INSERT_CODE:
+          scanner.insert();
+          break;
+        case OracleCDCOperationCode.UPDATE_CODE:
+        case OracleCDCOperationCode.SELECT_FOR_UPDATE_CODE:
+          scanner.update();
+          break;
+        case OracleCDCOperationCode.DELETE_CODE:
+          scanner.delete();
+          break;
+        default:
+          return null;
+      }
+    } catch (NotSupportedException e) {
+      return null;
+    }
+    return scanner.getColumns();
+  }
+
+  private Map<String, String> getColumns() {
+    if (mode == Mode.PEG && allowNulls && columnsExpected != null) {
+      columnsExpected.forEach(col -> columns.putIfAbsent(col, null));
+    }
+    return columns;
+  }
+
+  private void insert() {
+    whiteSpace();
+    keyword("INSERT");
+    whiteSpace();
+    keyword("INTO");
+    whiteSpace();
+    table();
+    whiteSpace();
+    expect('(');
+    whiteSpace();
+    List<String> names = new ArrayList<>();
+    names.add(SQLParserUtils.formatName(columnName(), caseSensitive));
+    while (nextAfterWhiteSpace(',')) {
+      whiteSpace();
+      names.add(SQLParserUtils.formatName(columnName(), caseSensitive));
+    }
+    whiteSpace();
+    expect(')');
+    whiteSpace();
+    keyword("VALUES");
+    whiteSpace();
+    expect('(');
+    whiteSpace();
+    int column = 0;
+    assign(names, column++, value());
+    while (nextAfterWhiteSpace(',')) {
+      whiteSpace();
+      assign(names, column++, value());
+    }
+    expect(')');
+    end();
+    if (column != names.size()) {
+      throw NotSupportedException.INSTANCE;
+    }
+  }
+
+  private void update() {
+    whiteSpace();
+    keyword("UPDATE");
+    whiteSpace();
+    table();
+    whiteSpace();
+    keyword("SET");
+    condition(true);
+    while (nextAfterWhiteSpace(',')) {
+      condition(true);
+    }
+    whiteSpace();
+    whereClause();
+    end();
+  }
+
+  private void delete() {
+    whiteSpace();
+    keyword("DELETE");
+    whiteSpace();
+    keyword("FROM");
+    whiteSpace();
+    table();
+    whiteSpace();
+    whereClause();
+    end();
+  }
+
+  private void whereClause() {
+    if (!sql.regionMatches(true, pos, "WHERE", 0, 5)) {
+      return;
+    }
+    pos += 5;
+    condition(false);
+    while (true) {
+      int start = pos;
+      whiteSpace();
+      if (!sql.regionMatches(true, pos, "AND", 0, 3)) {
+        pos = start;
+        return;
+      }
+      pos += 3;
+      condition(false);
+    }
+  }
+
+  /**
+   * Either an assignment of the SET clause or a condition of the WHERE clause.
+   */
+  private void condition(boolean assignment) {
+    whiteSpace();
+    String name = SQLParserUtils.formatName(columnName(), caseSensitive);
+    whiteSpace();
+    if (pos < length && sql.charAt(pos) == '=') {
+      pos++;
+      whiteSpace();
+      String value = value();
+      whiteSpace();
+      if (assignment) {
+        put(name, value);
+      } else {
+        putIfAbsent(name, value, false);
+      }
+    } else if (!assignment && sql.regionMatches(true, pos, "IS", 0, 2)) {
+      pos += 2;
+      whiteSpace();
+      if (scanValue() != NULL) {
+        throw NotSupportedException.INSTANCE;
+      }
+      whiteSpace();
+      putIfAbsent(name, null, true);
+    } else {
+      throw NotSupportedException.INSTANCE;
+    }
+  }
+
+  private void assign(List<String> names, int column, String value) {
+    if (column >= names.size()) {
+      throw NotSupportedException.INSTANCE;
+    }
+    put(names.get(column), value);
+  }
+
+  private void put(String name, String value) {
+    // The full parsers differ in which occurrence of a duplicated column wins, so leave those to them
+    if (columns.containsKey(name)) {
+      throw NotSupportedException.INSTANCE;
+    }
+    columns.put(name, value);
+  }
+
+  private void putIfAbsent(String name, String value, boolean isNull) {
+    if (columns.containsKey(name)) {
+      return;
+    }
+    // SQLListener only records "IS NULL" conditions for columns known to the table when nulls are allowed
+    if (isNull && mode == Mode.LISTENER && !(allowNulls && columnsExpected != null && columnsExpected.contains(name))) {
+      throw NotSupportedException.INSTANCE;
+    }
+    columns.put(name, value);
+  }
+
+  private String value() {
+    int start = pos;
+    switch (scanValue()) {
+      case QUOTED:
+        return SQLParserUtils.formatValue(sql.substring(start, pos));
+      case FUNCTION:
+        String function = sql.substring(start, pos);
+        // ANTLR's getText() concatenates tokens, dropping all white space outside of literals
+        return SQLParserUtils.formatValue(mode == Mode.LISTENER ? removeWhiteSpace(function) : function);
+      case NULL:
+      default:
+        return null;
+    }
+  }
+
+  private int scanValue() {
+    if (pos >= length) {
+      throw NotSupportedException.INSTANCE;
+    }
+    if (sql.charAt(pos) == '\'') {
+      quoted();
+      return QUOTED;
+    }
+    int start = pos;
+    while (pos < length && isFunctionNameChar(sql.charAt(pos))) {
+      pos++;
+    }
+    if (pos == start) {
+      throw NotSupportedException.INSTANCE;
+    }
+    if (pos < length && sql.charAt(pos) == '(') {
+      arguments();
+      return FUNCTION;
+    }
+    if (pos - start == NULL_STRING.length() && sql.regionMatches(true, start, NULL_STRING, 0, NULL_STRING.length())) {
+      return NULL;
+    }
+    // Unquoted literals are not something LogMiner generates
+    throw NotSupportedException.INSTANCE;
+  }
+
+  private void arguments() {
+    expect('(');
+    if (pos < length && sql.charAt(pos) == ')') {
+      pos++;
+      return;
+    }
+    scanValue();
+    while (nextAfterWhiteSpace(',')) {
+      whiteSpace();
+      scanValue();
+    }
+    expect(')');
+  }
+
+  private void quoted() {
+    pos++;
+    while (pos < length) {
+      if (sql.charAt(pos) == '\'') {
+        if (pos + 1 < length && sql.charAt(pos + 1) == '\'') {
+          pos += 2;
+          continue;
+        }
+        pos++;
+        return;
+      }
+      pos++;
+    }
+    throw NotSupportedException.INSTANCE;
+  }
+
+  private String columnName() {
+    if (sql.regionMatches(true, pos, ROWID, 0, ROWID.length())) {
+      int start = pos;
+      pos += ROWID.length();
+      if (pos < length && isFunctionNameChar(sql.charAt(pos))) {
+        throw NotSupportedException.INSTANCE;
+      }
+      return sql.substring(start, pos);
+    }
+    return identifier();
+  }
+
+  private void table() {
+    identifier();
+    expect('.');
+    identifier();
+  }
+
+  private String identifier() {
+    int start = pos;
+    expect('"');
+    while (pos < length && sql.charAt(pos) != '"') {
+      pos++;
+    }
+    // SQLParser treats '" as an escape sequence inside identifiers
+    if (pos >= length || sql.charAt(pos - 1) == '\'') {
+      throw NotSupportedException.INSTANCE;
+    }
+    pos++;
+    return sql.substring(start, pos);
+  }
+
+  private void end() {
+    whiteSpace();
+    if (pos < length && sql.charAt(pos) == ';') {
+      pos++;
+    }
+    whiteSpace();
+    if (pos != length) {
+      throw NotSupportedException.INSTANCE;
+    }
+  }
+
+  private void keyword(String keyword) {
+    if (!sql.regionMatches(true, pos, keyword, 0, keyword.length())) {
+      throw NotSupportedException.INSTANCE;
+    }
+    pos += keyword.length();
+  }
+
+  private void expect(char c) {
+    if (pos >= length || sql.charAt(pos) != c) {
+      throw NotSupportedException.INSTANCE;
+    }
+    pos++;
+  }
+
+  /**
+   * Consumes white space followed by given character, leaves position untouched if the character doesn't follow.
+   */
+  private boolean nextAfterWhiteSpace(char c) {
+    int start = pos;
+    whiteSpace();
+    if (pos < length && sql.charAt(pos) == c) {
+      pos++;
+      return true;
+    }
+    pos = start;
+    return false;
+  }
+
+  private void whiteSpace() {
+    while (pos < length && isWhiteSpace(sql.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private static String removeWhiteSpace(String function) {
+    StringBuilder sb = new StringBuilder(function.length());
+    boolean quoted = false;
+    for (int i = 0; i < function.length(); i++) {
+      char c = function.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+      }
+      if (quoted || !isWhiteSpace(c)) {
+        sb.append(c);
+      }
+    }
+    return sb.toString();
+  }
+
+  private static boolean isWhiteSpace(char c) {
+    return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f';
+  }
+
+  private static boolean isFunctionNameChar(char c) {
+    return (c >= '0' && c <= '9') || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_';
+  }
+}
@@ -277,7 +277,7 @@ public class OracleCDCConfigBean {
       required = true,
       type = ConfigDef.Type.NUMBER,
       label = "Parsing Thread Pool Size",
-      description = "Number of threads to use to parse",
+      description = "Number of threads to use to parse. Use 0 to use one thread per available processor.",
       displayPosition = 20,
       group = "ADVANCED",
       dependencies = {
@@ -287,10 +287,17 @@ public class OracleCDCConfigBean {
           // so we can't parallelize it
       },
       defaultValue = "1",
-      min = 1
+      min = 0
   )
   public int parseThreadPoolSize;
 
+  /**
+   * Returns number of parsing threads to use, resolving 0 to the number of available processors.
+   */
+  public int getParseThreadPoolSize() {
+    return parseThreadPoolSize > 0 ? parseThreadPoolSize : Runtime.getRuntime().availableProcessors();
+  }
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
@@ -38,6 +38,7 @@ import com.streamsets.pipeline.lib.jdbc.parser.sql.ParseUtil;
 import com.streamsets.pipeline.lib.jdbc.parser.sql.SQLListener;
 import com.streamsets.pipeline.lib.jdbc.parser.sql.SQLParser;
 import com.streamsets.pipeline.lib.jdbc.parser.sql.SQLParserUtils;
+import com.streamsets.pipeline.lib.jdbc.parser.sql.SQLRedoScanner;
 import com.streamsets.pipeline.lib.jdbc.parser.sql.UnparseableSQLException;
 import com.streamsets.pipeline.lib.jdbc.parser.sql.UnsupportedFieldTypeException;
 import com.streamsets.pipeline.lib.operation.OperationType;
@@ -201,6 +202,7 @@ public class OracleCDCSource extends BaseSource {
 
   private boolean sentInitialSchemaEvent = false;
   private File txnBufferLocation;
+  private TransactionSpillLog txnSpillLog;
 
   private PreparedStatement selectFromLogMnrContents;
   private static final int MISSING_LOG_FILE = 1291;
@@ -667,7 +669,7 @@ public class OracleCDCSource extends BaseSource {
                   HashQueue<RecordSequence> records =
                       bufferedRecords.computeIfAbsent(key, x -> {
                         x.setTxnStartTime(tsDate);
-                        return createTransactionBuffer(key.txnId);
+                        return createTransactionBuffer();
                       });
 
                   int nextSeq = records.isEmpty() ? 1 : records.tail().seq + 1;
@@ -721,7 +723,10 @@ public class OracleCDCSource extends BaseSource {
               if (op == ROLLBACK_CODE || scnDecimal.compareTo(lastCommitSCN) < 0) {
                 bufferedRecordsLock.lock();
                 try {
-                  bufferedRecords.remove(key);
+                  HashQueue<RecordSequence> records = bufferedRecords.remove(key);
+                  if (records != null) {
+                    records.close();
+                  }
                   LOG.info(ROLLBACK_MESSAGE, key.txnId);
                 } finally {
                   bufferedRecordsLock.unlock();
@@ -883,12 +888,20 @@ public class OracleCDCSource extends BaseSource {
         attributes.get(SCN) + OFFSET_DELIM + attributes.get(SEQ);
     Record record = getContext().createRecord(id);
     if (configBean.parseQuery) {
-      Map<String, String> columns;
-      if (configBean.useNewParser) {
-        Set<String> columnsExpected = null;
-        if (configBean.allowNulls && table.isNotEmpty()) {
-          columnsExpected = tableSchemas.get(table).keySet();
-        }
+      Set<String> columnsExpected = null;
+      if (configBean.allowNulls && table.isNotEmpty()) {
+        columnsExpected = tableSchemas.get(table).keySet();
+      }
+      // Regular LogMiner statements are scanned directly, the full parsers only see the unusual ones
+      Map<String, String> columns = SQLRedoScanner.parse(
+          sql,
+          operationCode,
+          configBean.useNewParser ? SQLRedoScanner.Mode.PEG : SQLRedoScanner.Mode.LISTENER,
+          configBean.allowNulls,
+          configBean.baseConfigBean.caseSensitive,
+          columnsExpected
+      );
+      if (columns == null && configBean.useNewParser) {
         columns = SQLParserUtils.process(
             sqlParser.get(),
             sql,
@@ -897,7 +910,7 @@ public class OracleCDCSource extends BaseSource {
             configBean.baseConfigBean.caseSensitive,
             columnsExpected
         );
-      } else {
+      } else if (columns == null) {
         // Walk it and attach our sqlListener
         sqlListener.get().reset();
         if (configBean.baseConfigBean.caseSensitive) {
@@ -907,8 +920,8 @@ public class OracleCDCSource extends BaseSource {
         if (configBean.allowNulls) {
           sqlListener.get().allowNulls();
         }
-        if (configBean.allowNulls && table.isNotEmpty()) {
-          sqlListener.get().setColumns(tableSchemas.get(table).keySet());
+        if (columnsExpected != null) {
+          sqlListener.get().setColumns(columnsExpected);
         }
 
         parseTreeWalker.get().walk(sqlListener.get(), ParseUtil.getParserRuleContext(sql, operationCode));
@@ -1568,6 +1581,7 @@ public class OracleCDCSource extends BaseSource {
         }
         Files.createDirectories(txnBufferLocation.toPath());
         LOG.info("Created " + txnBufferLocation.toString());
+        txnSpillLog = new TransactionSpillLog(txnBufferLocation);
       } catch (IOException ex) {
         Throwables.propagate(ex);
       }
@@ -1576,7 +1590,7 @@ public class OracleCDCSource extends BaseSource {
     if (configBean.bufferLocally) {
       if (configBean.parseQuery) {
         parsingExecutor = Executors.newFixedThreadPool(
-            configBean.parseThreadPoolSize,
+            configBean.getParseThreadPoolSize(),
             new ThreadFactoryBuilder().setNameFormat("Oracle CDC Origin Parse Thread - %d").build()
         );
       } else {
@@ -1893,6 +1907,9 @@ public class OracleCDCSource extends BaseSource {
     bufferedRecordsLock.lock();
     try {
       this.bufferedRecords.forEach((x, y) -> y.close());
+      if (txnSpillLog != null) {
+        txnSpillLog.close();
+      }
     } finally {
       bufferedRecordsLock.unlock();
     }
@@ -1976,6 +1993,7 @@ public class OracleCDCSource extends BaseSource {
             }
           }
           txnDiscarded.incrementAndGet();
+          entry.getValue().close();
           iter.remove();
         }
       }
@@ -2009,14 +2027,9 @@ public class OracleCDCSource extends BaseSource {
     this.dataSource = dataSource;
   }
 
-  private HashQueue<RecordSequence> createTransactionBuffer(String txnId) {
-    try {
-      return configBean.bufferLocation == BufferingValues.IN_MEMORY ? new InMemoryHashQueue<>() :
-          new FileBackedHashQueue<>(new File(txnBufferLocation, txnId));
-    } catch (IOException ex) {
-      LOG.error("Error while creating transaction buffer", ex);
-      throw new RuntimeException(ex);
-    }
+  private HashQueue<RecordSequence> createTransactionBuffer() {
+    return configBean.bufferLocation == BufferingValues.IN_MEMORY ? new InMemoryHashQueue<>() :
+        new SpillLogHashQueue(txnSpillLog);
   }
 
   private class TransactionIdKey {
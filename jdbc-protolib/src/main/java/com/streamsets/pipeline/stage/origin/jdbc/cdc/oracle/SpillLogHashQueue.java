@@ -0,0 +1,221 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Transaction buffer that keeps records in a {@link TransactionSpillLog} shared with all other open transactions.
+ *
+ * Only the keys of the records and their location in the log are kept on heap, so memory usage stays bounded
+ * regardless of the size of the transaction. Removed records are released in the log so that segments can be
+ * reclaimed once all transactions that wrote into them were committed or rolled back.
+ */
+class SpillLogHashQueue implements HashQueue<RecordSequence> {
+
+  private final TransactionSpillLog log;
+  private final LinkedHashMap<RsIdSsn, Long> locations = new LinkedHashMap<>();
+  private RecordSequence tail;
+
+  SpillLogHashQueue(TransactionSpillLog log) {
+    this.log = log;
+  }
+
+  @Override
+  public RecordSequence tail() {
+    return tail;
+  }
+
+  @Override
+  public int size() {
+    return locations.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return locations.isEmpty();
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    RecordSequence incoming = (RecordSequence) o;
+    return locations.containsKey(new RsIdSsn(incoming.rsId, incoming.ssn.toString()));
+  }
+
+  @NotNull
+  @Override
+  public Iterator<RecordSequence> iterator() {
+    return new SpillLogHashQueueIterator();
+  }
+
+  @NotNull
+  @Override
+  public Object[] toArray() {
+    throw new UnsupportedOperationException();
+  }
+
+  @NotNull
+  @Override
+  public <T> T[] toArray(@NotNull T[] a) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean add(RecordSequence e) {
+    RsIdSsn key = new RsIdSsn(e.rsId, e.ssn.toString());
+    if (locations.containsKey(key)) {
+      return false;
+    }
+    try {
+      locations.put(key, log.append(serialize(e)));
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    tail = e;
+    return true;
+  }
+
+  @Override
+  public boolean offer(RecordSequence e) {
+    return add(e);
+  }
+
+  @Override
+  public RecordSequence remove() {
+    Iterator<RecordSequence> it = iterator();
+    RecordSequence head = it.next(); // throws expected exception if queue is empty
+    it.remove();
+    return head;
+  }
+
+  @Override
+  public RecordSequence poll() {
+    return isEmpty() ? null : remove();
+  }
+
+  @Override
+  public RecordSequence element() {
+    return iterator().next(); // throws expected exception if queue is empty
+  }
+
+  @Override
+  public RecordSequence peek() {
+    return isEmpty() ? null : element();
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean containsAll(@NotNull Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean addAll(@NotNull Collection<? extends RecordSequence> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean removeAll(@NotNull Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean retainAll(@NotNull Collection<?> c) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clear() {
+    locations.values().forEach(log::release);
+    locations.clear();
+    tail = null;
+  }
+
+  @Override
+  public void close() {
+    clear();
+  }
+
+  @Override
+  public void completeInserts() {
+    try {
+      log.flush();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
+
+  private static byte[] serialize(RecordSequence record) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(record);
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+    return bytes.toByteArray();
+  }
+
+  private RecordSequence read(long location) {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(log.read(location)))) {
+      return (RecordSequence) in.readObject();
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    } catch (ClassNotFoundException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private class SpillLogHashQueueIterator implements Iterator<RecordSequence> {
+
+    private final Iterator<Map.Entry<RsIdSsn, Long>> underlyingIter = locations.entrySet().iterator();
+    private long lastLocation;
+
+    @Override
+    public boolean hasNext() {
+      return underlyingIter.hasNext();
+    }
+
+    @Override
+    public RecordSequence next() {
+      lastLocation = underlyingIter.next().getValue();
+      return read(lastLocation);
+    }
+
+    @Override
+    public void remove() {
+      underlyingIter.remove();
+      log.release(lastLocation);
+      if (locations.isEmpty()) {
+        tail = null;
+      }
+    }
+  }
+}
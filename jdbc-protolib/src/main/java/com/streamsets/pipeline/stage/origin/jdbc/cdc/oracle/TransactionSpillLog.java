@@ -0,0 +1,255 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append only log shared by all on disk transaction buffers of a single origin.
+ *
+ * Entries of all open transactions are appended to the current segment file, each transaction only keeps the
+ * location of its entries (see {@link SpillLogHashQueue}). The log counts live entries per segment and deletes a
+ * segment as soon as all entries in it were released (e.g. the transactions were committed or rolled back) and
+ * writing moved on to a newer segment.
+ *
+ * The location of an entry is a single long - segment number in the upper and offset within the segment in the lower
+ * 32 bits.
+ */
+class TransactionSpillLog implements AutoCloseable {
+  private static final Logger LOG = LoggerFactory.getLogger(TransactionSpillLog.class);
+
+  static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+  private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+  private static final String SEGMENT_PREFIX = "segment-";
+
+  private final Path directory;
+  private final int segmentSize;
+  private final Map<Integer, Segment> segments = new HashMap<>();
+  private final ByteBuffer writeBuffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+  private Segment current;
+  private int nextSegmentId;
+  private boolean closed;
+
+  /**
+   * Single segment file with the number of live entries stored in it.
+   */
+  private static class Segment {
+    final int id;
+    final Path path;
+    final FileChannel channel;
+    int size;
+    int live;
+
+    Segment(int id, Path path) throws IOException {
+      this.id = id;
+      this.path = path;
+      this.channel = FileChannel.open(
+          path,
+          StandardOpenOption.CREATE_NEW,
+          StandardOpenOption.READ,
+          StandardOpenOption.WRITE
+      );
+    }
+  }
+
+  TransactionSpillLog(File directory) throws IOException {
+    this(directory, DEFAULT_SEGMENT_SIZE);
+  }
+
+  TransactionSpillLog(File directory, int segmentSize) throws IOException {
+    this.directory = directory.toPath();
+    this.segmentSize = segmentSize;
+    Files.createDirectories(this.directory);
+  }
+
+  /**
+   * Appends given entry and returns its location.
+   */
+  synchronized long append(byte[] data) throws IOException {
+    checkOpen();
+    int entrySize = Integer.BYTES + data.length;
+    if (current == null || (current.size > 0 && current.size + entrySize > segmentSize)) {
+      roll();
+    }
+    long location = location(current.id, current.size);
+    if (entrySize > writeBuffer.remaining()) {
+      flushWriteBuffer();
+    }
+    if (entrySize > writeBuffer.remaining()) {
+      // Entry is bigger than the write buffer, write it directly
+      ByteBuffer entry = ByteBuffer.allocate(entrySize);
+      entry.putInt(data.length).put(data).flip();
+      writeFully(current, entry, current.size);
+    } else {
+      writeBuffer.putInt(data.length).put(data);
+    }
+    current.size += entrySize;
+    current.live++;
+    return location;
+  }
+
+  /**
+   * Reads entry stored at given location.
+   */
+  synchronized byte[] read(long location) throws IOException {
+    checkOpen();
+    Segment segment = getSegment(location);
+    if (segment == current && writeBuffer.position() > 0) {
+      flushWriteBuffer();
+    }
+    long position = offset(location);
+    ByteBuffer length = ByteBuffer.allocate(Integer.BYTES);
+    readFully(segment, length, position);
+    ByteBuffer data = ByteBuffer.allocate(length.getInt(0));
+    readFully(segment, data, position + Integer.BYTES);
+    return data.array();
+  }
+
+  /**
+   * Marks entry at given location as no longer needed, deleting its segment if it has no more live entries.
+   */
+  synchronized void release(long location) {
+    if (closed) {
+      return;
+    }
+    Segment segment = getSegment(location);
+    segment.live--;
+    if (segment.live == 0 && segment != current) {
+      delete(segment);
+    }
+  }
+
+  /**
+   * Makes sure all appended entries were handed over to the file system.
+   */
+  synchronized void flush() throws IOException {
+    checkOpen();
+    flushWriteBuffer();
+  }
+
+  @VisibleForTesting
+  synchronized int getSegmentCount() {
+    return segments.size();
+  }
+
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    segments.values().forEach(this::closeChannel);
+    segments.clear();
+    current = null;
+    try {
+      FileUtils.deleteDirectory(directory.toFile());
+    } catch (IOException ex) {
+      LOG.warn("Error while deleting transaction spill log {}", directory, ex);
+    }
+  }
+
+  private void roll() throws IOException {
+    if (current != null) {
+      flushWriteBuffer();
+      if (current.live == 0) {
+        delete(current);
+      }
+    }
+    int id = nextSegmentId++;
+    current = new Segment(id, directory.resolve(SEGMENT_PREFIX + id));
+    segments.put(id, current);
+    LOG.debug("Created transaction spill log segment {}", current.path);
+  }
+
+  private void delete(Segment segment) {
+    segments.remove(segment.id);
+    closeChannel(segment);
+    try {
+      Files.deleteIfExists(segment.path);
+      LOG.debug("Deleted transaction spill log segment {}", segment.path);
+    } catch (IOException ex) {
+      LOG.warn("Error while deleting transaction spill log segment {}", segment.path, ex);
+    }
+  }
+
+  private void closeChannel(Segment segment) {
+    try {
+      segment.channel.close();
+    } catch (IOException ex) {
+      LOG.warn("Error while closing transaction spill log segment {}", segment.path, ex);
+    }
+  }
+
+  private void flushWriteBuffer() throws IOException {
+    if (writeBuffer.position() == 0) {
+      return;
+    }
+    writeBuffer.flip();
+    writeFully(current, writeBuffer, current.size - writeBuffer.remaining());
+    writeBuffer.clear();
+  }
+
+  private Segment getSegment(long location) {
+    Segment segment = segments.get((int) (location >>> 32));
+    if (segment == null) {
+      throw new IllegalStateException("Transaction spill log segment for location " + location + " doesn't exist");
+    }
+    return segment;
+  }
+
+  private void checkOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Transaction spill log " + directory + " is closed");
+    }
+  }
+
+  private static void writeFully(Segment segment, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += segment.channel.write(buffer, position);
+    }
+  }
+
+  private static void readFully(Segment segment, ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = segment.channel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException("Unexpected end of transaction spill log segment " + segment.path);
+      }
+      position += read;
+    }
+  }
+
+  private static long location(int segmentId, int offset) {
+    return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static long offset(long location) {
+    return location & 0xFFFFFFFFL;
+  }
+}
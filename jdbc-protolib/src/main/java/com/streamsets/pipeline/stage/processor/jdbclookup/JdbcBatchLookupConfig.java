@@ -0,0 +1,80 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.jdbclookup;
+
+import com.streamsets.pipeline.api.ConfigDef;
+import com.streamsets.pipeline.api.ValueChooserModel;
+import com.streamsets.pipeline.lib.el.RecordEL;
+import com.streamsets.pipeline.stage.processor.kv.LookupMode;
+import com.streamsets.pipeline.stage.processor.kv.LookupModeChooserValues;
+
+public class JdbcBatchLookupConfig {
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.MODEL,
+      label = "Lookup Mode",
+      description = "Per Batch mode collects the keys of all records in the batch and looks them up with IN clause " +
+          "queries. The SQL Query then must not reference records and selects the candidate rows.",
+      defaultValue = "RECORD",
+      displayPosition = 10,
+      group = "#0"
+  )
+  @ValueChooserModel(LookupModeChooserValues.class)
+  public LookupMode mode = LookupMode.RECORD;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.STRING,
+      label = "Key Column",
+      description = "Column of the query result that is matched against the lookup key",
+      dependsOn = "mode",
+      triggeredByValue = "BATCH",
+      displayPosition = 21,
+      group = "#0"
+  )
+  public String keyColumn;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.STRING,
+      label = "Key Expression",
+      description = "Expression evaluating the lookup key of a record",
+      defaultValue = "${record:value('/')}",
+      elDefs = {RecordEL.class},
+      evaluation = ConfigDef.Evaluation.EXPLICIT,
+      dependsOn = "mode",
+      triggeredByValue = "BATCH",
+      displayPosition = 22,
+      group = "#0"
+  )
+  public String keyExpr;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      label = "Max Keys per Query",
+      description = "Maximum number of keys in the IN clause of a single query. Queries of one batch run in parallel.",
+      defaultValue = "500",
+      min = 1,
+      max = 10000,
+      dependsOn = "mode",
+      triggeredByValue = "BATCH",
+      displayPosition = 23,
+      group = "#0"
+  )
+  public int maxKeysPerQuery = 500;
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.jdbclookup;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheLoader;
+import com.google.common.collect.Lists;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.base.OnRecordErrorException;
+import com.streamsets.pipeline.lib.jdbc.DataType;
+import com.streamsets.pipeline.lib.jdbc.JdbcErrors;
+import com.streamsets.pipeline.lib.jdbc.JdbcUtil;
+import com.streamsets.pipeline.lib.jdbc.UnknownTypeAction;
+import com.streamsets.pipeline.lib.jdbc.UtilsProvider;
+import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads lookup values for many keys at once using queries with an IN clause on the key column.
+ *
+ * Keys are split into chunks of at most maxKeysPerQuery keys, chunks are queried in parallel on the executor (each
+ * query uses its own pooled connection). Every requested key is present in the result, keys without any matching
+ * row map to an empty Optional.
+ */
+public class JdbcBatchLookupLoader extends CacheLoader<Object, Optional<List<Map<String, Field>>>> {
+  private static final Logger LOG = LoggerFactory.getLogger(JdbcBatchLookupLoader.class);
+
+  private final DataSource dataSource;
+  private final String query;
+  private final String keyColumn;
+  private final int maxKeysPerQuery;
+  private final ExecutorService executor;
+  private final Map<String, DataType> columnsToTypes;
+  private final int maxClobSize;
+  private final int maxBlobSize;
+  private final ErrorRecordHandler errorRecordHandler;
+  private final Meter selectMeter;
+  private final Timer selectTimer;
+  private final JdbcUtil jdbcUtil;
+  private final AtomicLong roundTrips = new AtomicLong();
+  private final AtomicLong loadedKeys = new AtomicLong();
+
+  public JdbcBatchLookupLoader(
+      Stage.Context context,
+      DataSource dataSource,
+      String query,
+      String keyColumn,
+      int maxKeysPerQuery,
+      ExecutorService executor,
+      Map<String, DataType> columnsToTypes,
+      int maxClobSize,
+      int maxBlobSize,
+      ErrorRecordHandler errorRecordHandler
+  ) {
+    this.dataSource = dataSource;
+    this.query = query;
+    this.keyColumn = keyColumn;
+    this.maxKeysPerQuery = maxKeysPerQuery;
+    this.executor = executor;
+    this.columnsToTypes = columnsToTypes;
+    this.maxClobSize = maxClobSize;
+    this.maxBlobSize = maxBlobSize;
+    this.errorRecordHandler = errorRecordHandler;
+    this.selectMeter = context.createMeter("Select Queries");
+    this.selectTimer = context.createTimer("Select Queries");
+    this.jdbcUtil = UtilsProvider.getJdbcUtil();
+  }
+
+  /**
+   * Number of queries issued so far.
+   */
+  public long getRoundTrips() {
+    return roundTrips.get();
+  }
+
+  /**
+   * Number of keys loaded from the database so far (e.g. cache misses).
+   */
+  public long getLoadedKeys() {
+    return loadedKeys.get();
+  }
+
+  @Override
+  public Optional<List<Map<String, Field>>> load(Object key) throws Exception {
+    return loadAll(Collections.singletonList(key)).get(key);
+  }
+
+  @Override
+  public Map<Object, Optional<List<Map<String, Field>>>> loadAll(Iterable<? extends Object> keys) throws Exception {
+    List<Object> keyList = Lists.newArrayList(keys);
+    List<List<Object>> chunks = Lists.partition(keyList, maxKeysPerQuery);
+    loadedKeys.addAndGet(keyList.size());
+
+    Map<Object, Optional<List<Map<String, Field>>>> values = new HashMap<>();
+    if (chunks.size() == 1 || executor == null) {
+      for (List<Object> chunk : chunks) {
+        values.putAll(lookupValuesForKeys(chunk));
+      }
+    } else {
+      List<Future<Map<Object, Optional<List<Map<String, Field>>>>>> futures = new ArrayList<>(chunks.size());
+      for (List<Object> chunk : chunks) {
+        futures.add(executor.submit(() -> lookupValuesForKeys(chunk)));
+      }
+      try {
+        for (Future<Map<Object, Optional<List<Map<String, Field>>>>> future : futures) {
+          values.putAll(future.get());
+        }
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), StageException.class);
+        throw new IllegalStateException(e.getCause());
+      } finally {
+        for (Future<?> future : futures) {
+          future.cancel(true);
+        }
+      }
+    }
+    return values;
+  }
+
+  private Map<Object, Optional<List<Map<String, Field>>>> lookupValuesForKeys(List<Object> keys) throws StageException {
+    StringBuilder sql = new StringBuilder("SELECT * FROM (")
+        .append(query)
+        .append(") sdc_lookup WHERE ")
+        .append(keyColumn)
+        .append(" IN (");
+    for (int i = 0; i < keys.size(); i++) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+    sql.append(")");
+    String preparedQuery = sql.toString();
+    LOG.debug("Executing SQL: {} for {} keys", preparedQuery, keys.size());
+
+    // Rows are grouped by the normalized key value and by its string form for keys evaluated as strings
+    Map<Object, List<Map<String, Field>>> rowsByKey = new HashMap<>();
+    Map<String, List<Map<String, Field>>> rowsByKeyString = new HashMap<>();
+
+    Timer.Context t = selectTimer.time();
+    try (
+      Connection connection = dataSource.getConnection();
+      PreparedStatement stmt = connection.prepareStatement(preparedQuery)
+    ) {
+      for (int i = 0; i < keys.size(); i++) {
+        stmt.setObject(i + 1, keys.get(i));
+      }
+      roundTrips.incrementAndGet();
+      try (ResultSet resultSet = stmt.executeQuery()) {
+        // Stop timer immediately so that we're calculating only query execution time and not the processing time
+        t.stop();
+        t = null;
+
+        ResultSetMetaData md = resultSet.getMetaData();
+        int numColumns = md.getColumnCount();
+        int keyIndex = findKeyColumn(md);
+        while (resultSet.next()) {
+          Object key = normalizeKey(resultSet.getObject(keyIndex));
+          LinkedHashMap<String, Field> fields = jdbcUtil.resultSetToFields(resultSet,
+              maxClobSize,
+              maxBlobSize,
+              columnsToTypes,
+              errorRecordHandler,
+              UnknownTypeAction.STOP_PIPELINE
+          );
+          if (fields.size() != numColumns) {
+            throw new OnRecordErrorException(JdbcErrors.JDBC_35, fields.size(), numColumns);
+          }
+          if (key != null) {
+            rowsByKey.computeIfAbsent(key, k -> new ArrayList<>()).add(fields);
+            rowsByKeyString.computeIfAbsent(String.valueOf(key), k -> new ArrayList<>()).add(fields);
+          }
+        }
+      }
+    } catch (SQLException e) {
+      LOG.error(JdbcErrors.JDBC_02.getMessage(), preparedQuery, e);
+      throw new OnRecordErrorException(JdbcErrors.JDBC_02, preparedQuery, e.getMessage());
+    } finally {
+      if (t != null) {
+        t.stop();
+      }
+      selectMeter.mark();
+    }
+
+    Map<Object, Optional<List<Map<String, Field>>>> values = new HashMap<>();
+    for (Object key : keys) {
+      List<Map<String, Field>> rows = rowsByKey.get(key);
+      if (rows == null && key instanceof String) {
+        rows = rowsByKeyString.get(key);
+      }
+      values.put(key, rows == null ? Optional.empty() : Optional.of(rows));
+    }
+    return values;
+  }
+
+  private int findKeyColumn(ResultSetMetaData md) throws SQLException, OnRecordErrorException {
+    for (int i = 1; i <= md.getColumnCount(); i++) {
+      if (keyColumn.equalsIgnoreCase(md.getColumnLabel(i))) {
+        return i;
+      }
+    }
+    throw new OnRecordErrorException(JdbcErrors.JDBC_412, keyColumn);
+  }
+
+  /**
+   * Normalizes lookup key so that keys coming from records and from the database compare equal: integral numbers
+   * become longs and decimals lose trailing zeros.
+   */
+  static Object normalizeKey(Object key) {
+    if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+      return ((Number) key).longValue();
+    } else if (key instanceof BigInteger) {
+      return ((BigInteger) key).bitLength() < Long.SIZE ? (Object) ((BigInteger) key).longValue() : key;
+    } else if (key instanceof BigDecimal) {
+      BigDecimal decimal = (BigDecimal) key;
+      if (decimal.signum() == 0) {
+        return 0L;
+      }
+      decimal = decimal.stripTrailingZeros();
+      try {
+        return decimal.longValueExact();
+      } catch (ArithmeticException e) {
+        return decimal;
+      }
+    } else if (key instanceof Character) {
+      return key.toString();
+    }
+    return key;
+  }
+}
@@ -37,7 +37,7 @@ import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
 import java.util.List;
 
 @StageDef(
-    version = 3,
+    version = 5,
     label = "JDBC Lookup",
     description = "Lookup values via JDBC to enrich records.",
     icon = "rdbms.png",
@@ -139,6 +139,9 @@ public class JdbcLookupDProcessor extends DProcessor {
   @ConfigDefBean(groups = "JDBC")
   public CacheConfig cacheConfig = new CacheConfig();
 
+  @ConfigDefBean(groups = "JDBC")
+  public JdbcBatchLookupConfig batchLookupConfig = new JdbcBatchLookupConfig();
+
   @Override
   protected Processor createProcessor() {
     return new JdbcLookupProcessor(
@@ -149,7 +152,8 @@ public class JdbcLookupDProcessor extends DProcessor {
       maxClobSize,
       maxBlobSize,
       getHikariConfigBean(),
-      cacheConfig
+      cacheConfig,
+      batchLookupConfig
     );
   }
 }
@@ -15,6 +15,8 @@
  */
 package com.streamsets.pipeline.stage.processor.jdbclookup;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.google.common.base.Throwables;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
@@ -29,6 +31,7 @@ import com.streamsets.pipeline.api.base.SingleLaneRecordProcessor;
 import com.streamsets.pipeline.api.el.ELEval;
 import com.streamsets.pipeline.api.el.ELEvalException;
 import com.streamsets.pipeline.api.el.ELVars;
+import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.cache.CacheCleaner;
 import com.streamsets.pipeline.lib.el.RecordEL;
 import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
@@ -44,6 +47,7 @@ import com.streamsets.pipeline.stage.common.MissingValuesBehavior;
 import com.streamsets.pipeline.stage.common.MultipleValuesBehavior;
 import com.streamsets.pipeline.stage.destination.jdbc.Groups;
 import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
+import com.streamsets.pipeline.stage.processor.kv.LookupMode;
 import com.streamsets.pipeline.stage.processor.kv.LookupUtils;
 import com.zaxxer.hikari.HikariDataSource;
 import java.util.ArrayList;
@@ -59,9 +63,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
 
 public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
@@ -75,6 +82,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private static final String HIKARI_CONFIG_PREFIX = "hikariConfigBean.";
   private static final String CONNECTION_STRING = HIKARI_CONFIG_PREFIX + "connectionString";
   private static final String COLUMN_MAPPINGS = "columnMappings";
+  private static final String BATCH_LOOKUP_GAUGE_NAME = "Batch Lookup";
   private final CacheConfig cacheConfig;
 
   private ELEval queryEval;
@@ -85,6 +93,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private final int maxClobSize;
   private final int maxBlobSize;
   private final HikariPoolConfigBean hikariConfigBean;
+  private final JdbcBatchLookupConfig batchLookupConfig;
 
   private ErrorRecordHandler errorRecordHandler;
   private HikariDataSource dataSource = null;
@@ -93,6 +102,14 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
   private Map<String, DataType> columnsToTypes = new HashMap<>();
 
   private LoadingCache<String, Optional<List<Map<String, Field>>>> cache;
+  private ELEval keyEval;
+  private String batchQuery;
+  private JdbcBatchLookupLoader batchLoader;
+  private LoadingCache<Object, Optional<List<Map<String, Field>>>> batchCache;
+  private Histogram roundTripsHistogram;
+  private Gauge<Map<String, Object>> batchLookupGauge;
+  private long totalBatchKeys;
+  private long totalBatchHits;
   private Optional<List<Map<String, Field>>> defaultValue;
   private CacheCleaner cacheCleaner;
   private final MissingValuesBehavior missingValuesBehavior;
@@ -110,6 +127,30 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       int maxBlobSize,
       HikariPoolConfigBean hikariConfigBean,
       CacheConfig cacheConfig
+  ) {
+    this(
+        query,
+        columnMappings,
+        multipleValuesBehavior,
+        missingValuesBehavior,
+        maxClobSize,
+        maxBlobSize,
+        hikariConfigBean,
+        cacheConfig,
+        new JdbcBatchLookupConfig()
+    );
+  }
+
+  public JdbcLookupProcessor(
+      String query,
+      List<JdbcFieldColumnMapping> columnMappings,
+      MultipleValuesBehavior multipleValuesBehavior,
+      MissingValuesBehavior missingValuesBehavior,
+      int maxClobSize,
+      int maxBlobSize,
+      HikariPoolConfigBean hikariConfigBean,
+      CacheConfig cacheConfig,
+      JdbcBatchLookupConfig batchLookupConfig
   ) {
     this.query = query;
     this.columnMappings = columnMappings;
@@ -119,6 +160,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     this.maxBlobSize = maxBlobSize;
     this.hikariConfigBean = hikariConfigBean;
     this.cacheConfig = cacheConfig;
+    this.batchLookupConfig = batchLookupConfig;
   }
 
   /** {@inheritDoc} */
@@ -138,6 +180,20 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
 
     issues = hikariConfigBean.validateConfigs(context, issues);
 
+    if (batchLookupConfig.mode == LookupMode.BATCH) {
+      keyEval = getContext().createELEval("keyExpr", RecordEL.class);
+      if (StringUtils.isBlank(batchLookupConfig.keyColumn)) {
+        issues.add(context.createConfigIssue(Groups.JDBC.name(), "batchLookupConfig.keyColumn", JdbcErrors.JDBC_412,
+            batchLookupConfig.keyColumn));
+      }
+      // In batch mode the query is shared by all records and thus can't depend on any of them
+      try {
+        batchQuery = queryEval.eval(getContext().createELVars(), query, String.class);
+      } catch (ELEvalException e) {
+        issues.add(context.createConfigIssue(Groups.JDBC.name(), "query", JdbcErrors.JDBC_01, query, e));
+      }
+    }
+
     if (context.getRunnerId() == 0) {
       if (issues.isEmpty() && null == dataSource) {
         try {
@@ -156,15 +212,6 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       this.defaultValue = calculateDefault(context, issues);
     }
 
-    if (issues.isEmpty()) {
-      cache = buildCache();
-      cacheCleaner = new CacheCleaner(cache, "JdbcLookupProcessor", 10 * 60 * 1000);
-      if (cacheConfig.enabled) {
-        preprocessThreads = Math.min(hikariConfigBean.minIdle, Runtime.getRuntime().availableProcessors()-1);
-        preprocessThreads = Math.max(preprocessThreads, 1);
-      }
-    }
-
     if (context.getRunnerId() == 0) {
       if (issues.isEmpty() && generationExecutor == null) {
         generationExecutor = new SafeScheduledExecutorService(
@@ -178,6 +225,20 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
           "jdbcLookupProcessor.generationExecutor");
     }
 
+    if (issues.isEmpty() && batchLookupConfig.mode == LookupMode.BATCH) {
+      batchCache = buildBatchCache();
+      cacheCleaner = new CacheCleaner(batchCache, "JdbcLookupProcessor", 10 * 60 * 1000);
+      roundTripsHistogram = context.createHistogram("Round Trips per Batch");
+      batchLookupGauge = context.createGauge(BATCH_LOOKUP_GAUGE_NAME);
+    } else if (issues.isEmpty()) {
+      cache = buildCache();
+      cacheCleaner = new CacheCleaner(cache, "JdbcLookupProcessor", 10 * 60 * 1000);
+      if (cacheConfig.enabled) {
+        preprocessThreads = Math.min(hikariConfigBean.minIdle, Runtime.getRuntime().availableProcessors()-1);
+        preprocessThreads = Math.max(preprocessThreads, 1);
+      }
+    }
+
     // If issues is not empty, the UI will inform the user of each configuration issue in the list.
     return issues;
   }
@@ -276,6 +337,13 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       }
     }
 
+    if (cache != null) {
+      LookupUtils.releaseCache(cache);
+    }
+    if (batchCache != null) {
+      LookupUtils.releaseCache(batchCache);
+    }
+
     super.destroy();
   }
 
@@ -320,6 +388,10 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
+    if (batchLookupConfig.mode == LookupMode.BATCH) {
+      doBatchLookup(batch, batchMaker);
+      return;
+    }
     //Cache warming
     if (preprocessThreads > 0) {
       preprocess(batch);
@@ -336,56 +408,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       RecordEL.setRecordInContext(elVars, record);
       String preparedQuery = queryEval.eval(elVars, query, String.class);
       Optional<List<Map<String, Field>>> entry = cache.get(preparedQuery);
-
-      if (!entry.isPresent()) {
-        // No results
-        switch (missingValuesBehavior) {
-          case SEND_TO_ERROR:
-            LOG.error(JdbcErrors.JDBC_04.getMessage(), preparedQuery);
-            errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_04, preparedQuery));
-            break;
-          case PASS_RECORD_ON:
-            batchMaker.addRecord(record);
-            break;
-          default:
-            throw new IllegalStateException("Unknown missing value behavior: " + missingValuesBehavior);
-        }
-      } else {
-        List<Map<String, Field>> values = entry.get();
-        switch (multipleValuesBehavior) {
-          case FIRST_ONLY:
-            setFieldsInRecord(record, values.get(0));
-            batchMaker.addRecord(record);
-            break;
-          case SPLIT_INTO_MULTIPLE_RECORDS:
-            for(Map<String, Field> lookupItem : values) {
-              Record newRecord = getContext().cloneRecord(record);
-              setFieldsInRecord(newRecord, lookupItem);
-              batchMaker.addRecord(newRecord);
-            }
-            break;
-          case ALL_AS_LIST:
-            Map<String, List<Field>> valuesMap = new HashMap<>();
-            for (Map<String, Field> lookupItem : values) {
-              lookupItem.forEach((k, v) -> {
-                if (valuesMap.get(k) == null) {
-                  List<Field> lookupValue = new ArrayList<>();
-                  valuesMap.put(k, lookupValue);
-                }
-                valuesMap.get(k).add(v);
-              });
-            }
-            Map<String, Field> valueMap = new HashMap<>();
-            valuesMap.forEach( (k,v) -> valueMap.put(k, Field.create(v)));
-            setFieldsInRecord(record, valueMap);
-            batchMaker.addRecord(record);
-            break;
-          default:
-            throw new IllegalStateException("Unknown multiple value behavior: " + multipleValuesBehavior);
-        }
-
-      }
-
+      applyLookupValues(record, entry, preparedQuery, batchMaker);
     } catch (ELEvalException e) {
       LOG.error(JdbcErrors.JDBC_01.getMessage(), query, e);
       throw new OnRecordErrorException(record, JdbcErrors.JDBC_01, query);
@@ -397,6 +420,142 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
     }
   }
 
+  /**
+   * Looks up values of all records in the batch at once, each distinct key is queried only once and keys that are
+   * not cached yet are loaded together.
+   */
+  private void doBatchLookup(Batch batch, SingleLaneBatchMaker batchMaker) throws StageException {
+    List<Record> records = new ArrayList<>();
+    List<Object> keys = new ArrayList<>();
+    Set<Object> distinctKeys = new LinkedHashSet<>();
+    Iterator<Record> it = batch.getRecords();
+    while (it.hasNext()) {
+      Record record = it.next();
+      Object key;
+      try {
+        ELVars elVars = getContext().createELVars();
+        RecordEL.setRecordInContext(elVars, record);
+        key = JdbcBatchLookupLoader.normalizeKey(keyEval.eval(elVars, batchLookupConfig.keyExpr, Object.class));
+      } catch (ELEvalException e) {
+        LOG.error(JdbcErrors.JDBC_01.getMessage(), batchLookupConfig.keyExpr, e);
+        errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_01, batchLookupConfig.keyExpr));
+        continue;
+      }
+      if ("".equals(key)) {
+        key = null;
+      }
+      records.add(record);
+      keys.add(key);
+      if (key != null) {
+        distinctKeys.add(key);
+      }
+    }
+
+    long roundTrips = batchLoader.getRoundTrips();
+    long loadedKeys = batchLoader.getLoadedKeys();
+    Map<Object, Optional<List<Map<String, Field>>>> values;
+    try {
+      values = batchCache.getAll(distinctKeys);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof OnRecordErrorException) {
+        // Whole batch goes to error as we don't know which key caused the failure
+        OnRecordErrorException error = (OnRecordErrorException) e.getCause();
+        for (Record record : records) {
+          errorRecordHandler.onError(new OnRecordErrorException(record, error.getErrorCode(), error.getParams()));
+        }
+        return;
+      }
+      Throwables.propagateIfPossible(e.getCause(), StageException.class);
+      throw new IllegalStateException(e); // The cache loader shouldn't throw anything that isn't a StageException.
+    }
+    updateBatchLookupMetrics(
+        distinctKeys.size(),
+        batchLoader.getLoadedKeys() - loadedKeys,
+        batchLoader.getRoundTrips() - roundTrips
+    );
+
+    for (int i = 0; i < records.size(); i++) {
+      Record record = records.get(i);
+      Object key = keys.get(i);
+      try {
+        applyLookupValues(
+            record,
+            key == null ? defaultValue : values.get(key),
+            batchLookupConfig.keyColumn + " = " + key,
+            batchMaker
+        );
+      } catch (OnRecordErrorException error) { // NOSONAR
+        errorRecordHandler.onError(new OnRecordErrorException(record, error.getErrorCode(), error.getParams()));
+      }
+    }
+  }
+
+  private void updateBatchLookupMetrics(long keys, long loadedKeys, long roundTrips) {
+    totalBatchKeys += keys;
+    totalBatchHits += keys - loadedKeys;
+    roundTripsHistogram.update(roundTrips);
+
+    Map<String, Object> gauge = batchLookupGauge.getValue();
+    gauge.put("Keys (last batch)", keys);
+    gauge.put("Round Trips (last batch)", roundTrips);
+    gauge.put("Cache Hit Ratio", totalBatchKeys == 0 ? 0.0 : (double) totalBatchHits / totalBatchKeys);
+  }
+
+  private void applyLookupValues(
+      Record record,
+      Optional<List<Map<String, Field>>> entry,
+      String lookupDescription,
+      SingleLaneBatchMaker batchMaker
+  ) throws StageException {
+    if (!entry.isPresent()) {
+      // No results
+      switch (missingValuesBehavior) {
+        case SEND_TO_ERROR:
+          LOG.error(JdbcErrors.JDBC_04.getMessage(), lookupDescription);
+          errorRecordHandler.onError(new OnRecordErrorException(record, JdbcErrors.JDBC_04, lookupDescription));
+          break;
+        case PASS_RECORD_ON:
+          batchMaker.addRecord(record);
+          break;
+        default:
+          throw new IllegalStateException("Unknown missing value behavior: " + missingValuesBehavior);
+      }
+    } else {
+      List<Map<String, Field>> values = entry.get();
+      switch (multipleValuesBehavior) {
+        case FIRST_ONLY:
+          setFieldsInRecord(record, values.get(0));
+          batchMaker.addRecord(record);
+          break;
+        case SPLIT_INTO_MULTIPLE_RECORDS:
+          for(Map<String, Field> lookupItem : values) {
+            Record newRecord = getContext().cloneRecord(record);
+            setFieldsInRecord(newRecord, lookupItem);
+            batchMaker.addRecord(newRecord);
+          }
+          break;
+        case ALL_AS_LIST:
+          Map<String, List<Field>> valuesMap = new HashMap<>();
+          for (Map<String, Field> lookupItem : values) {
+            lookupItem.forEach((k, v) -> {
+              if (valuesMap.get(k) == null) {
+                List<Field> lookupValue = new ArrayList<>();
+                valuesMap.put(k, lookupValue);
+              }
+              valuesMap.get(k).add(v);
+            });
+          }
+          Map<String, Field> valueMap = new HashMap<>();
+          valuesMap.forEach( (k,v) -> valueMap.put(k, Field.create(v)));
+          setFieldsInRecord(record, valueMap);
+          batchMaker.addRecord(record);
+          break;
+        default:
+          throw new IllegalStateException("Unknown multiple value behavior: " + multipleValuesBehavior);
+      }
+    }
+  }
+
   private void setFieldsInRecord(Record record, Map<String, Field>fields) {
     for (Map.Entry<String, Field> entry : fields.entrySet()) {
       String columnName = entry.getKey();
@@ -429,6 +588,7 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
 
   @SuppressWarnings("unchecked")
   private LoadingCache<String, Optional<List<Map<String, Field>>>> buildCache() {
+    String sharingKey = getSharingKey();
     JdbcLookupLoader loader = new JdbcLookupLoader(
       getContext(),
       dataSource,
@@ -437,6 +597,64 @@ public class JdbcLookupProcessor extends SingleLaneRecordProcessor {
       maxBlobSize,
       errorRecordHandler
     );
-    return LookupUtils.buildCache(loader, cacheConfig, defaultValue);
+    return LookupUtils.buildCache(getContext(), loader, cacheConfig, defaultValue, sharingKey);
+  }
+
+  @SuppressWarnings("unchecked")
+  private LoadingCache<Object, Optional<List<Map<String, Field>>>> buildBatchCache() {
+    String sharingKey = getSharingKey();
+    batchLoader = new JdbcBatchLookupLoader(
+      getContext(),
+      dataSource,
+      batchQuery,
+      batchLookupConfig.keyColumn,
+      batchLookupConfig.maxKeysPerQuery,
+      generationExecutor,
+      columnsToTypes,
+      maxClobSize,
+      maxBlobSize,
+      errorRecordHandler
+    );
+    return LookupUtils.buildCache(
+        getContext(),
+        batchLoader,
+        cacheConfig,
+        defaultValue,
+        sharingKey == null ? null : Utils.format("{}|{}|{}", sharingKey, batchQuery, batchLookupConfig.keyColumn)
+    );
+  }
+
+  /**
+   * Identifies the looked up values when the cache is shared across pipelines, record lookups are keyed by the query.
+   * Returns null (the cache is not shared) if the credentials can't be resolved.
+   */
+  private String getSharingKey() {
+    String credentials;
+    try {
+      String user = null;
+      String password = null;
+      if (hikariConfigBean.useCredentials) {
+        user = hikariConfigBean.getUsername().get();
+        password = hikariConfigBean.getPassword().get();
+      }
+      // Driver properties may carry credentials as well
+      credentials = LookupUtils.getCredentialsKey(
+          user,
+          password,
+          new TreeMap<>(hikariConfigBean.getDriverProperties()).toString()
+      );
+    } catch (StageException e) {
+      LOG.warn("Can't resolve credentials, lookup cache won't be shared across pipelines: {}", e.toString(), e);
+      return null;
+    }
+    return Utils.format(
+        "{}|{}|{}|{}|{}|{}",
+        hikariConfigBean.getConnectionString(),
+        credentials,
+        new TreeMap<>(columnsToTypes),
+        new TreeMap<>(columnsToDefaults),
+        maxClobSize,
+        maxBlobSize
+    );
   }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.jdbc.parser.sql;
+
+import com.google.common.collect.ImmutableSet;
+import com.streamsets.pipeline.lib.jdbc.OracleCDCOperationCode;
+import org.junit.Assert;
+import org.junit.Test;
+import org.parboiled.Parboiled;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class TestSQLRedoScanner {
+
+  private static final Set<String> COLUMNS = ImmutableSet.of("ID", "NAME", "HIREDATE", "SALARY", "LASTLOGIN");
+
+  private static final String INSERT = "insert into \"SYS\".\"MANYCOLS\"(\"ID\",\"NAME\",\"HIREDATE\",\"SALARY\"," +
+      "\"LASTLOGIN\") values ('1','it''s', TO_DATE('21-11-2016 11:34:09', 'DD-MM-YYYY HH24:MI:SS'),'1332.332',NULL)";
+
+  private static final String UPDATE = " update \"SYS\".\"MANYCOLS\" set \"SALARY\" = '1998.483' " +
+      "where \"ID\" = '1' and \"NAME\" IS NULL and" +
+      " \"HIREDATE\" = TO_DATE('21-11-2016 11:34:09', 'DD-MM-YYYY HH24:MI:SS') and " +
+      "\"SALARY\" = '1332.322' and ROWID = 'AAAAxhdjhjsdhaks' ";
+
+  private static final String DELETE = "delete from \"SYS\".\"MANYCOLS\" where \"ID\" = '10' and " +
+      "\"HIREDATE\" = TO_DATE('19-11-2016 11:35:16', 'DD-MM-YYYY HH24:MI:SS') and \"LASTLOGIN\" IS NULL\n";
+
+  @Test
+  public void testInsert() throws Exception {
+    Map<String, String> expected = new HashMap<>();
+    expected.put("ID", "1");
+    expected.put("NAME", "it's");
+    expected.put("HIREDATE", "TO_DATE('21-11-2016 11:34:09', 'DD-MM-YYYY HH24:MI:SS')");
+    expected.put("SALARY", "1332.332");
+    expected.put("LASTLOGIN", null);
+
+    Map<String, String> columns = scan(INSERT, OracleCDCOperationCode.INSERT_CODE, SQLRedoScanner.Mode.PEG);
+    Assert.assertEquals(expected, columns);
+    Assert.assertEquals(peg(INSERT, OracleCDCOperationCode.INSERT_CODE), columns);
+
+    expected.put("HIREDATE", "TO_DATE('21-11-2016 11:34:09','DD-MM-YYYY HH24:MI:SS')");
+    Assert.assertEquals(expected, scan(INSERT, OracleCDCOperationCode.INSERT_CODE, SQLRedoScanner.Mode.LISTENER));
+  }
+
+  @Test
+  public void testUpdate() throws Exception {
+    Map<String, String> expected = new HashMap<>();
+    expected.put("ID", "1");
+    expected.put("NAME", null);
+    expected.put("HIREDATE", "TO_DATE('21-11-2016 11:34:09', 'DD-MM-YYYY HH24:MI:SS')");
+    expected.put("SALARY", "1998.483");
+    expected.put("ROWID", "AAAAxhdjhjsdhaks");
+    expected.put("LASTLOGIN", null);
+
+    Map<String, String> columns = scan(UPDATE, OracleCDCOperationCode.UPDATE_CODE, SQLRedoScanner.Mode.PEG);
+    Assert.assertEquals(expected, columns);
+    Assert.assertEquals(peg(UPDATE, OracleCDCOperationCode.UPDATE_CODE), columns);
+  }
+
+  @Test
+  public void testDelete() throws Exception {
+    Map<String, String> expected = new HashMap<>();
+    expected.put("ID", "10");
+    expected.put("HIREDATE", "TO_DATE('19-11-2016 11:35:16','DD-MM-YYYY HH24:MI:SS')");
+    expected.put("LASTLOGIN", null);
+
+    Assert.assertEquals(expected, scan(DELETE, OracleCDCOperationCode.DELETE_CODE, SQLRedoScanner.Mode.LISTENER));
+  }
+
+  @Test
+  public void testCaseSensitiveNames() {
+    String sql = "insert into \"SYS\".\"T\"(\"Id\") values ('1')";
+    int code = OracleCDCOperationCode.INSERT_CODE;
+    Assert.assertEquals("1", SQLRedoScanner.parse(sql, code, SQLRedoScanner.Mode.PEG, false, true, null).get("Id"));
+    Assert.assertEquals("1", SQLRedoScanner.parse(sql, code, SQLRedoScanner.Mode.PEG, false, false, null).get("ID"));
+  }
+
+  @Test
+  public void testFallback() {
+    // Unquoted values and column names
+    assertFallback("insert into \"SYS\".\"T\"(\"ID\") values (1)", OracleCDCOperationCode.INSERT_CODE);
+    assertFallback("update \"SYS\".\"T\" set NAME = NULL where \"ID\" = '1'", OracleCDCOperationCode.UPDATE_CODE);
+    // Table alias
+    assertFallback("update \"SYS\".\"T\" a set a.\"NAME\" = 'x'", OracleCDCOperationCode.UPDATE_CODE);
+    // Trailing garbage
+    assertFallback("delete from \"SYS\".\"T\" where \"ID\" = '1' or \"ID\" = '2'", OracleCDCOperationCode.DELETE_CODE);
+    // Column count mismatch
+    assertFallback("insert into \"SYS\".\"T\"(\"ID\",\"NAME\") values ('1')", OracleCDCOperationCode.INSERT_CODE);
+    // Duplicate column
+    assertFallback("update \"SYS\".\"T\" set \"ID\" = '1', \"ID\" = '2'", OracleCDCOperationCode.UPDATE_CODE);
+    // Unknown operation
+    assertFallback(INSERT, OracleCDCOperationCode.DDL_CODE);
+
+    // IS NULL of an unknown column is skipped by SQLListener
+    Assert.assertNull(SQLRedoScanner.parse(
+        DELETE, OracleCDCOperationCode.DELETE_CODE, SQLRedoScanner.Mode.LISTENER, false, false, null
+    ));
+  }
+
+  private static void assertFallback(String sql, int code) {
+    for (SQLRedoScanner.Mode mode : SQLRedoScanner.Mode.values()) {
+      Assert.assertNull(sql, SQLRedoScanner.parse(sql, code, mode, true, false, COLUMNS));
+    }
+  }
+
+  private static Map<String, String> scan(String sql, int code, SQLRedoScanner.Mode mode) {
+    return SQLRedoScanner.parse(sql, code, mode, true, false, COLUMNS);
+  }
+
+  private static Map<String, String> peg(String sql, int code) throws Exception {
+    return SQLParserUtils.process(Parboiled.createParser(SQLParser.class), sql, code, true, false, COLUMNS);
+  }
+}
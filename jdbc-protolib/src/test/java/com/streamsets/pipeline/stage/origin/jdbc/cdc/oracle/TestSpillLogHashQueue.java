@@ -0,0 +1,127 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.origin.jdbc.cdc.oracle;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+
+public class TestSpillLogHashQueue {
+
+  @Rule
+  public TemporaryFolder tempFolder = new TemporaryFolder();
+
+  private File directory;
+  private TransactionSpillLog log;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = new File(tempFolder.getRoot(), "spill");
+    // Small segments so that every few records roll over to a new segment
+    log = new TransactionSpillLog(directory, 1024);
+  }
+
+  @After
+  public void tearDown() {
+    log.close();
+  }
+
+  private static RecordSequence record(int seq) {
+    return new RecordSequence(
+        new HashMap<>(ImmutableMap.of("XID", "txn", "SEQ", String.valueOf(seq))),
+        "insert into \"SYS\".\"T\"(\"ID\") values ('" + seq + "')",
+        seq,
+        1,
+        "0x0000" + seq,
+        new BigDecimal(seq),
+        LocalDateTime.of(2020, 1, 1, 0, 0)
+    );
+  }
+
+  @Test
+  public void testQueueOrder() {
+    SpillLogHashQueue queue = new SpillLogHashQueue(log);
+    Assert.assertNull(queue.peek());
+    for (int i = 1; i <= 50; i++) {
+      Assert.assertTrue(queue.add(record(i)));
+    }
+    Assert.assertFalse(queue.add(record(10)));
+    Assert.assertEquals(50, queue.size());
+    Assert.assertEquals(50, queue.tail().seq);
+    Assert.assertTrue(queue.contains(record(25)));
+    Assert.assertEquals(1, queue.peek().seq);
+    queue.completeInserts();
+
+    Iterator<RecordSequence> it = queue.iterator();
+    while (it.hasNext() && it.next().seq <= 5) {
+      it.remove();
+    }
+    for (int i = 6; i <= 50; i++) {
+      RecordSequence record = queue.remove();
+      Assert.assertEquals(i, record.seq);
+      Assert.assertEquals("0x0000" + i, record.rsId);
+      Assert.assertEquals(new BigDecimal(i), record.ssn);
+      Assert.assertEquals(String.valueOf(i), record.headers.get("SEQ"));
+      Assert.assertEquals(LocalDateTime.of(2020, 1, 1, 0, 0), record.timestamp);
+    }
+    Assert.assertTrue(queue.isEmpty());
+    Assert.assertNull(queue.tail());
+    Assert.assertNull(queue.poll());
+  }
+
+  @Test
+  public void testSegmentsReclaimed() {
+    SpillLogHashQueue committed = new SpillLogHashQueue(log);
+    SpillLogHashQueue open = new SpillLogHashQueue(log);
+    for (int i = 1; i <= 30; i++) {
+      committed.add(record(i));
+    }
+    open.add(record(100));
+    for (int i = 31; i <= 60; i++) {
+      committed.add(record(i));
+    }
+    int segments = log.getSegmentCount();
+    Assert.assertTrue(segments > 2);
+
+    // Only the segment still referenced by the open transaction and the one being written remain
+    committed.close();
+    Assert.assertEquals(2, log.getSegmentCount());
+    Assert.assertEquals(2, directory.list().length);
+    Assert.assertEquals(100, open.remove().seq);
+    Assert.assertEquals(1, log.getSegmentCount());
+  }
+
+  @Test
+  public void testCloseDeletesLog() {
+    SpillLogHashQueue queue = new SpillLogHashQueue(log);
+    queue.add(record(1));
+    queue.completeInserts();
+    log.close();
+    Assert.assertFalse(directory.exists());
+    // Closing transactions after the log is gone must not fail
+    queue.close();
+  }
+}
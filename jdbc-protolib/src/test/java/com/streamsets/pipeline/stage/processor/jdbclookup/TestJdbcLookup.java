@@ -31,6 +31,7 @@ import com.streamsets.pipeline.stage.common.MissingValuesBehavior;
 import com.streamsets.pipeline.stage.common.MultipleValuesBehavior;
 import com.streamsets.pipeline.stage.processor.kv.CacheConfig;
 import com.streamsets.pipeline.stage.processor.kv.EvictionPolicyType;
+import com.streamsets.pipeline.stage.processor.kv.LookupMode;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -762,4 +763,157 @@ public class TestJdbcLookup {
       processorRunner.runDestroy();
     }
   }
+
+  private ProcessorRunner createBatchLookupRunner(
+      String keyColumn,
+      String keyExpr,
+      MultipleValuesBehavior multipleValuesBehavior
+  ) throws Exception {
+    List<JdbcFieldColumnMapping> columnMappings = ImmutableList.of(new JdbcFieldColumnMapping("P_ID", "/p_id"));
+
+    JdbcLookupDProcessor processor = createProcessor();
+    processor.batchLookupConfig.mode = LookupMode.BATCH;
+    processor.batchLookupConfig.keyColumn = keyColumn;
+    processor.batchLookupConfig.keyExpr = keyExpr;
+    processor.batchLookupConfig.maxKeysPerQuery = 2;
+
+    return new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("query", "SELECT P_ID, FIRST_NAME FROM TEST.TEST_TABLE")
+        .addConfiguration("columnMappings", columnMappings)
+        .addConfiguration("multipleValuesBehavior", multipleValuesBehavior)
+        .addConfiguration("missingValuesBehavior", MissingValuesBehavior.PASS_RECORD_ON)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addOutputLane("lane")
+        .build();
+  }
+
+  private Record createNameRecord(String firstName) {
+    Record record = RecordCreator.create();
+    LinkedHashMap<String, Field> fields = new LinkedHashMap<>();
+    fields.put("first_name", Field.create(firstName));
+    record.set(Field.create(fields));
+    return record;
+  }
+
+  @Test
+  public void testBatchLookupSplitIntoMultipleRecords() throws Exception {
+    ProcessorRunner processorRunner = createBatchLookupRunner(
+        "FIRST_NAME",
+        "${record:value('/first_name')}",
+        MultipleValuesBehavior.SPLIT_INTO_MULTIPLE_RECORDS
+    );
+
+    List<Record> records = ImmutableList.of(
+        createNameRecord("Adam"),
+        createNameRecord("Jon"),
+        createNameRecord("Girish"),
+        createNameRecord("Nobody"),
+        createNameRecord("Adam")
+    );
+    processorRunner.runInit();
+    try {
+      StageRunner.Output output = processorRunner.runProcess(records);
+      List<Record> lane = output.getRecords().get("lane");
+      Assert.assertEquals(7, lane.size());
+      Assert.assertEquals(1, lane.get(0).get("/p_id").getValueAsInteger());
+      Assert.assertEquals("Jon", lane.get(1).get("/first_name").getValueAsString());
+      Assert.assertEquals("Jon", lane.get(2).get("/first_name").getValueAsString());
+      Assert.assertEquals("Nobody", lane.get(5).get("/first_name").getValueAsString());
+      Assert.assertFalse(lane.get(5).has("/p_id"));
+      Assert.assertEquals(1, lane.get(6).get("/p_id").getValueAsInteger());
+      Assert.assertTrue(processorRunner.getErrorRecords().isEmpty());
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  @Test
+  public void testBatchLookupNumericKey() throws Exception {
+    ProcessorRunner processorRunner = createBatchLookupRunner(
+        "P_ID",
+        "${record:value('/id')}",
+        MultipleValuesBehavior.FIRST_ONLY
+    );
+
+    List<Record> records = new ArrayList<>();
+    for (int id : new int[] {5, 1, 3, 42}) {
+      Record record = RecordCreator.create();
+      LinkedHashMap<String, Field> fields = new LinkedHashMap<>();
+      fields.put("id", Field.create(id));
+      record.set(Field.create(fields));
+      records.add(record);
+    }
+
+    processorRunner.runInit();
+    try {
+      StageRunner.Output output = processorRunner.runProcess(records);
+      List<Record> lane = output.getRecords().get("lane");
+      Assert.assertEquals(4, lane.size());
+      Assert.assertEquals(5, lane.get(0).get("/p_id").getValueAsInteger());
+      Assert.assertEquals("Girish", lane.get(0).get("/FIRST_NAME").getValueAsString());
+      Assert.assertEquals(1, lane.get(1).get("/p_id").getValueAsInteger());
+      Assert.assertEquals(3, lane.get(2).get("/p_id").getValueAsInteger());
+      Assert.assertFalse(lane.get(3).has("/p_id"));
+    } finally {
+      processorRunner.runDestroy();
+    }
+  }
+
+  private ProcessorRunner createSharedCacheRunner(String user, String password) {
+    JdbcLookupDProcessor processor = createProcessor();
+    processor.hikariConfigBean.username = () -> user;
+    processor.hikariConfigBean.password = () -> password;
+    processor.cacheConfig.enabled = true;
+    processor.cacheConfig.shareAcrossPipelines = true;
+
+    return new ProcessorRunner.Builder(JdbcLookupDProcessor.class, processor)
+        .addConfiguration("query", listQuery)
+        .addConfiguration("columnMappings", ImmutableList.of(new JdbcFieldColumnMapping("P_ID", "[2]")))
+        .addConfiguration("multipleValuesBehavior", MultipleValuesBehavior.FIRST_ONLY)
+        .addConfiguration("missingValuesBehavior", MissingValuesBehavior.SEND_TO_ERROR)
+        .addConfiguration("maxClobSize", 1000)
+        .addConfiguration("maxBlobSize", 1000)
+        .addOutputLane("lane")
+        .build();
+  }
+
+  private int lookupAdam(ProcessorRunner runner) throws Exception {
+    Record record = RecordCreator.create();
+    record.set(Field.create(ImmutableList.of(Field.create("Adam"), Field.create("Kunicki"))));
+    return runner.runProcess(ImmutableList.of(record)).getRecords().get("lane").get(0).get("[2]").getValueAsInteger();
+  }
+
+  @Test
+  public void testCacheSharedAcrossPipelinesOnlyWithSameCredentials() throws Exception {
+    try (Statement statement = connection.createStatement()) {
+      statement.execute("CREATE USER IF NOT EXISTS OTHER PASSWORD 'other' ADMIN");
+    }
+    // Each runner has its own stage runner shared map, just like stages of different pipelines
+    ProcessorRunner pipeline1 = createSharedCacheRunner(username, password);
+    ProcessorRunner pipeline2 = createSharedCacheRunner(username, password);
+    ProcessorRunner otherUser = createSharedCacheRunner("OTHER", "other");
+    pipeline1.runInit();
+    pipeline2.runInit();
+    otherUser.runInit();
+    try {
+      Assert.assertEquals(1, lookupAdam(pipeline1));
+
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("UPDATE TEST.TEST_TABLE SET P_ID = 10 WHERE P_ID = 1");
+      }
+
+      // Served from the cache loaded by the first pipeline
+      Assert.assertEquals(1, lookupAdam(pipeline2));
+      // Different user never sees values cached for another one
+      Assert.assertEquals(10, lookupAdam(otherUser));
+    } finally {
+      pipeline1.runDestroy();
+      pipeline2.runDestroy();
+      otherUser.runDestroy();
+      try (Statement statement = connection.createStatement()) {
+        statement.execute("DROP USER IF EXISTS OTHER");
+      }
+    }
+  }
 }
@@ -223,6 +223,12 @@ public class JythonProcessor extends AbstractScriptingProcessor {
       }
     }
 
+    @Override
+    protected boolean supportsLazyRecordViews() {
+      // Scripts expect Python dictionaries and lists
+      return false;
+    }
+
     @Override
     public Object createMap(boolean isListMap) {
       return new PyDictionaryMapInfo(isListMap);
@@ -15,6 +15,7 @@
  */
 package com.streamsets.pipeline.stage.destination.kafka;
 
+import com.codahale.metrics.Timer;
 import com.streamsets.pipeline.api.Batch;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
@@ -27,6 +28,7 @@ import com.streamsets.pipeline.api.lineage.LineageSpecificAttribute;
 import com.streamsets.pipeline.kafka.api.PartitionStrategy;
 import com.streamsets.pipeline.kafka.api.SdcKafkaProducer;
 import com.streamsets.pipeline.lib.generator.DataGenerator;
+import com.streamsets.pipeline.lib.generator.DataGeneratorFactory;
 import com.streamsets.pipeline.lib.kafka.KafkaErrors;
 import com.streamsets.pipeline.lib.kafka.exception.KafkaConnectionException;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
@@ -36,7 +38,6 @@ import com.streamsets.pipeline.stage.destination.lib.ToOriginResponseConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -57,6 +58,11 @@ public class KafkaTarget extends BaseTarget {
   private SdcKafkaProducer kafkaProducer;
   private ErrorRecordHandler errorRecordHandler;
   private Set<String> accessedTopic;
+  private DataGeneratorFactory generatorFactory;
+  private MessageBuffer messageBuffer;
+  private Timer serializationTimer;
+  private Timer producerQueueTimer;
+  private Timer acknowledgementTimer;
 
   public KafkaTarget(KafkaTargetConfig conf, ToOriginResponseConfig responseConf) {
     this.conf = conf;
@@ -72,6 +78,11 @@ public class KafkaTarget extends BaseTarget {
     kafkaProducer = conf.getKafkaProducer();
     errorRecordHandler = new DefaultErrorRecordHandler(getContext());
     accessedTopic = new HashSet<>();
+    generatorFactory = conf.dataGeneratorFormatConfig.getDataGeneratorFactory();
+    messageBuffer = new MessageBuffer();
+    serializationTimer = getContext().createTimer("Serialization");
+    producerQueueTimer = getContext().createTimer("Producer Queue");
+    acknowledgementTimer = getContext().createTimer("Delivery Acknowledgement");
     return issues;
   }
 
@@ -98,6 +109,7 @@ public class KafkaTarget extends BaseTarget {
     }
   }
 
+  @SuppressWarnings("unchecked")
   private void writeOneMessagePerBatch(Batch batch, List<Record> responseRecords) throws StageException {
     int count = 0;
     //Map of topic->(partition->Records)
@@ -143,6 +155,9 @@ public class KafkaTarget extends BaseTarget {
       }
     }
     if (!perTopic.isEmpty()) {
+      // Messages for all partitions are enqueued first and acknowledgements are awaited only once for the whole batch
+      List<List<Record>> enqueuedLists = new ArrayList<>();
+      List<Object> enqueuedPartitions = new ArrayList<>();
       for( Map.Entry<String, Map<Object, List<Record>>> topicEntry : perTopic.entrySet()) {
         String entryTopic = topicEntry.getKey();
         Map<Object, List<Record>> perPartition = topicEntry.getValue();
@@ -151,21 +166,25 @@ public class KafkaTarget extends BaseTarget {
           for (Map.Entry<Object, List<Record>> entry : perPartition.entrySet()) {
             Object partition = entry.getKey();
             List<Record> list = entry.getValue();
-            ByteArrayOutputStream baos = new ByteArrayOutputStream(1024 * list.size());
             Record currentRecord = null;
             try {
-              DataGenerator generator = conf.dataGeneratorFormatConfig.getDataGeneratorFactory()
-                .getGenerator(baos);
-              for (Record record : list) {
-                currentRecord = record;
-                generator.write(record);
-                count++;
+              byte[] bytes;
+              try (Timer.Context ignored = serializationTimer.time()) {
+                messageBuffer.reset();
+                DataGenerator generator = generatorFactory.getGenerator(messageBuffer);
+                for (Record record : list) {
+                  currentRecord = record;
+                  generator.write(record);
+                }
+                currentRecord = null;
+                generator.close();
+                bytes = messageBuffer.toByteArray();
               }
-              currentRecord = null;
-              generator.close();
-              byte[] bytes = baos.toByteArray();
               // multiple records squashed.. so using partition as the message key
-              kafkaProducer.enqueueMessage(entryTopic, bytes, partition);
+              enqueueMessage(entryTopic, bytes, partition);
+              enqueuedLists.add(list);
+              enqueuedPartitions.add(partition);
+              count += list.size();
             } catch (StageException ex) {
               errorRecordHandler.onError(
                   list,
@@ -175,8 +194,7 @@ public class KafkaTarget extends BaseTarget {
                   )
               );
             } catch (IOException ex) {
-              //clear the message list
-              kafkaProducer.clearMessages();
+              // Nothing was enqueued for this partition, the message is only enqueued once fully serialized
               String sourceId = (currentRecord == null) ? "<NONE>" : currentRecord.getHeader().getSourceId();
               errorRecordHandler.onError(
                   list,
@@ -191,33 +209,39 @@ public class KafkaTarget extends BaseTarget {
                   )
               );
             }
-            try {
-              responseRecords.addAll(kafkaProducer.write(getContext()));
-            } catch (StageException ex) {
-              if (ex.getErrorCode().getCode().equals(KafkaErrors.KAFKA_69.name())) {
-                List<Exception> failedRecordException = (List<Exception>) ex.getParams()[1];
-                Exception error = failedRecordException.get(0);
-                errorRecordHandler.onError(
-                    list,
-                    new StageException(
-                        KafkaErrors.KAFKA_60,
-                        "<NONE>",
-                        batch.getSourceEntity(),
-                        batch.getSourceOffset(),
-                        partition,
-                        error.toString(),
-                        error
-                    )
-                );
-              } else {
-                throw ex;
-              }
-            }
-            recordCounter += count;
-            LOG.debug("Wrote {} records in this batch.", count);
           }
         }
       }
+      try {
+        responseRecords.addAll(awaitAcknowledgement());
+      } catch (StageException ex) {
+        if (ex.getErrorCode().getCode().equals(KafkaErrors.KAFKA_69.name())) {
+          List<Integer> failedMessageIndices = (List<Integer>) ex.getParams()[0];
+          List<Exception> failedMessageExceptions = (List<Exception>) ex.getParams()[1];
+          for (int i = 0; i < failedMessageIndices.size(); i++) {
+            int messageIndex = failedMessageIndices.get(i);
+            List<Record> list = enqueuedLists.get(messageIndex);
+            Exception error = failedMessageExceptions.get(i);
+            count -= list.size();
+            errorRecordHandler.onError(
+                list,
+                new StageException(
+                    KafkaErrors.KAFKA_60,
+                    "<NONE>",
+                    batch.getSourceEntity(),
+                    batch.getSourceOffset(),
+                    enqueuedPartitions.get(messageIndex),
+                    error.toString(),
+                    error
+                )
+            );
+          }
+        } else {
+          throw ex;
+        }
+      }
+      recordCounter += count;
+      LOG.debug("Wrote {} records in this batch.", count);
     }
   }
 
@@ -239,7 +263,7 @@ public class KafkaTarget extends BaseTarget {
           messageKey = conf.getPartitionKey(record, topic);
         }
 
-        kafkaProducer.enqueueMessage(topic, serializeRecord(record), messageKey);
+        enqueueMessage(topic, serializeRecord(record), messageKey);
         count++;
         sendLineageEventIfNeeded(topic);
       } catch (KafkaConnectionException ex) {
@@ -268,7 +292,7 @@ public class KafkaTarget extends BaseTarget {
       }
     }
     try {
-      responseRecords.addAll(kafkaProducer.write(getContext()));
+      responseRecords.addAll(awaitAcknowledgement());
     } catch (StageException ex) {
       if (ex.getErrorCode().getCode().equals(KafkaErrors.KAFKA_69.name())) {
         List<Integer> failedRecordIndices = (List<Integer>) ex.getParams()[0];
@@ -294,12 +318,29 @@ public class KafkaTarget extends BaseTarget {
     LOG.debug("Wrote {} records in this batch.", count);
   }
 
-  private Object serializeRecord(Record record) throws StageException, IOException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
-    DataGenerator generator = conf.dataGeneratorFormatConfig.getDataGeneratorFactory().getGenerator(baos);
-    generator.write(record);
-    generator.close();
-    return baos.toByteArray();
+  private byte[] serializeRecord(Record record) throws StageException, IOException {
+    try (Timer.Context ignored = serializationTimer.time()) {
+      messageBuffer.reset();
+      DataGenerator generator = generatorFactory.getGenerator(messageBuffer);
+      generator.write(record);
+      generator.close();
+      return messageBuffer.toByteArray();
+    }
+  }
+
+  /**
+   * Hands the message over to the producer, the call only blocks when the producer's buffer is full.
+   */
+  private void enqueueMessage(String topic, byte[] message, Object messageKey) {
+    try (Timer.Context ignored = producerQueueTimer.time()) {
+      kafkaProducer.enqueueMessage(topic, message, messageKey);
+    }
+  }
+
+  private List<Record> awaitAcknowledgement() throws StageException {
+    try (Timer.Context ignored = acknowledgementTimer.time()) {
+      return kafkaProducer.write(getContext());
+    }
   }
 
   @Override
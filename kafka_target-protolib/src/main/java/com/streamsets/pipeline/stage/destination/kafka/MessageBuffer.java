@@ -0,0 +1,46 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.kafka;
+
+import java.io.ByteArrayOutputStream;
+
+/**
+ * Scratch buffer that messages are serialized into before they are handed over to the producer.
+ *
+ * The buffer is reused for all messages of the stage instance (and thus of a single pipeline runner thread), so
+ * serializing a message costs a single exactly sized array instead of a growing stream per message. Buffers that
+ * grew unusually large are released rather than being kept around forever.
+ */
+class MessageBuffer extends ByteArrayOutputStream {
+  static final int INITIAL_SIZE = 1024;
+  static final int MAX_RETAINED_SIZE = 1024 * 1024;
+
+  MessageBuffer() {
+    super(INITIAL_SIZE);
+  }
+
+  int capacity() {
+    return buf.length;
+  }
+
+  @Override
+  public synchronized void reset() {
+    super.reset();
+    if (buf.length > MAX_RETAINED_SIZE) {
+      buf = new byte[INITIAL_SIZE];
+    }
+  }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.destination.kafka;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class TestMessageBuffer {
+
+  @Test
+  public void testReuse() throws Exception {
+    MessageBuffer buffer = new MessageBuffer();
+    buffer.write("first message".getBytes(StandardCharsets.UTF_8));
+    byte[] first = buffer.toByteArray();
+
+    buffer.reset();
+    buffer.write("second".getBytes(StandardCharsets.UTF_8));
+    byte[] second = buffer.toByteArray();
+
+    // Returned messages are exactly sized copies that don't change when the buffer is reused
+    Assert.assertEquals("first message", new String(first, StandardCharsets.UTF_8));
+    Assert.assertEquals("second", new String(second, StandardCharsets.UTF_8));
+    Assert.assertEquals(MessageBuffer.INITIAL_SIZE, buffer.capacity());
+  }
+
+  @Test
+  public void testLargeBufferIsReleased() throws Exception {
+    MessageBuffer buffer = new MessageBuffer();
+    buffer.write(new byte[MessageBuffer.MAX_RETAINED_SIZE / 2]);
+    buffer.reset();
+    Assert.assertTrue(buffer.capacity() >= MessageBuffer.MAX_RETAINED_SIZE / 2);
+
+    buffer.write(new byte[MessageBuffer.MAX_RETAINED_SIZE + 1]);
+    buffer.reset();
+    Assert.assertEquals(MessageBuffer.INITIAL_SIZE, buffer.capacity());
+  }
+}
@@ -24,7 +24,7 @@ import com.streamsets.pipeline.api.StageDef;
 import com.streamsets.pipeline.api.base.configurablestage.DProcessor;
 
 @StageDef(
-    version = 3,
+    version = 4,
     label = "Kudu Lookup",
     description = "Performs KV lookups to enrich records",
     icon = "kudu.png",
@@ -36,9 +36,11 @@ import com.streamsets.pipeline.api.base.configurablestage.DProcessor;
 
 @ConfigGroups(Groups.class)
 @GenerateResourceBundle
-@HideConfigs(
-  "conf.cache.retryOnCacheMiss"
-)
+@HideConfigs({
+  "conf.cache.retryOnCacheMiss",
+  // Private class loader, stage instances of different pipelines never see each other
+  "conf.cache.shareAcrossPipelines"
+})
 public class KuduLookupDProcessor extends DProcessor {
   @ConfigDefBean(groups = {"LOOKUP", "KUDU"})
   public KuduLookupConfig conf;
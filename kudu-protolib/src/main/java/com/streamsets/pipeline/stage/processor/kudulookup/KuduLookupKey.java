@@ -17,6 +17,7 @@ package com.streamsets.pipeline.stage.processor.kudulookup;
 
 import com.streamsets.pipeline.api.Field;
 import java.util.Map;
+import java.util.Objects;
 
 public class KuduLookupKey {
 
@@ -28,4 +29,20 @@ public class KuduLookupKey {
     this.columns = columns;
   }
 
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    KuduLookupKey that = (KuduLookupKey) o;
+    return Objects.equals(tableName, that.tableName) && Objects.equals(columns, that.columns);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(tableName, columns);
+  }
 }
@@ -20,6 +20,7 @@ import com.codahale.metrics.Timer;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.Lists;
 import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
@@ -41,16 +42,26 @@ import org.apache.kudu.client.RowResultIterator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 
 public class KuduLookupLoader extends CacheLoader<KuduLookupKey, List<Map<String, Field>>> {
   private static final Logger LOG = LoggerFactory.getLogger(KuduLookupLoader.class);
 
+  static final int MAX_KEYS_PER_SCAN = 1000;
+  // IN list predicates are available since Kudu 1.3, older stage libraries look up keys one by one
+  private static final boolean IN_LIST_PREDICATES = hasInListPredicates();
+
   private final AsyncKuduClient kuduClient;
   private final Meter selectMeter;
   private final Timer selectTimer;
@@ -108,12 +119,7 @@ public class KuduLookupLoader extends CacheLoader<KuduLookupKey, List<Map<String
     AsyncKuduScanner scanner = null;
     Timer.Context t = selectTimer.time();
 
-    KuduTable kuduTable = null;
-    try {
-      kuduTable = tableCache.get(key.tableName);
-    } catch (ExecutionException ex) {
-      throw new OnRecordErrorException(Errors.KUDU_03, ex.getMessage(), ex);
-    }
+    KuduTable kuduTable = getTable(key.tableName);
 
     // Scanner is not reusable. Need to build per record.
     AsyncKuduScanner.AsyncKuduScannerBuilder scannerBuilder = kuduClient.newScannerBuilder(kuduTable)
@@ -135,55 +141,12 @@ public class KuduLookupLoader extends CacheLoader<KuduLookupKey, List<Map<String
       while (scanner.hasMoreRows()) {
         RowResultIterator results = scanner.nextRows().join();
         while (results.hasNext()) {
-          RowResult result = results.next();
-          if (LOG.isDebugEnabled()) {
-            LOG.debug("Found row: {}", result.toStringLongFormat());
-          }
-          LinkedHashMap<String, Field> fields = new LinkedHashMap<>(outputColumnToField.size());
-          for (Map.Entry<String, String> column : outputColumnToField.entrySet()) {
-            Field field = null;
-            Type type = null;
-            String columnName = column.getKey();
-            if (result.isNull(columnName)){
-              // No record in necessary column. Apply default value or send to error
-              if (conf.ignoreMissing) {
-                // Apply default value only when default value is configured
-                if (!outputDefault.get(columnName).isEmpty()) {
-                  ColumnSchema columnSchema = schema.getColumn(columnName);
-                  field = Field.create(
-                      KuduUtils.convertFromKuduType(columnSchema.getType()),
-                      outputDefault.get(columnName)
-                  );
-                }
-              } else {
-                // Can't ignore missing value thus send to error
-                throw new OnRecordErrorException(Errors.KUDU_35, columnName);
-              }
-            } else {
-              type = result.getColumnType(column.getKey());
-              field = KuduUtils.createField(result, columnName, type);
-            }
-            if (field != null) {
-              fields.put(column.getValue(), field);
-            }
-          }
-          lookupItems.add(fields);
+          lookupItems.add(createFields(results.next(), schema));
         }
       }
       // No data found. Apply default if 'pass to next stage' is set and default value is configured
       if (lookupItems.isEmpty() && conf.missingLookupBehavior == MissingValuesBehavior.PASS_RECORD_ON) {
-        Map<String, Field> addDefaults = new HashMap<>();
-        for (Map.Entry<String, String> output: outputColumnToField.entrySet()) {
-          ColumnSchema columnSchema = schema.getColumn(output.getKey());
-          if (!outputDefault.get(output.getKey()).isEmpty()) {
-            addDefaults.put(output.getValue(), Field.create(
-                KuduUtils.convertFromKuduType(columnSchema.getType()),
-                outputDefault.get(output.getKey())
-                )
-            );
-          }
-        }
-        lookupItems.add(addDefaults);
+        lookupItems.add(createDefaults(schema));
       }
     } catch (KuduException e) {
       // Exception executing query
@@ -202,6 +165,297 @@ public class KuduLookupLoader extends CacheLoader<KuduLookupKey, List<Map<String
     return lookupItems;
   }
 
+  /**
+   * Looks up many keys with a single scan per table and chunk of keys, using IN list predicates on the key columns.
+   *
+   * Rows are attributed back to the keys by the values of their key columns. Keys whose values can't be used in a
+   * predicate, or whose rows can't be converted, are left out of the result so that they are loaded (and their errors
+   * reported) individually.
+   */
+  @Override
+  public Map<KuduLookupKey, List<Map<String, Field>>> loadAll(
+      Iterable<? extends KuduLookupKey> keys
+  ) throws Exception {
+    if (!IN_LIST_PREDICATES || keyColumns.isEmpty()) {
+      // Kudu client before 1.3 doesn't have IN list predicates, keys can only be looked up one at a time
+      throw new UnsupportedOperationException();
+    }
+
+    Map<String, List<KuduLookupKey>> keysByTable = new LinkedHashMap<>();
+    for (KuduLookupKey key : keys) {
+      keysByTable.computeIfAbsent(key.tableName, tableName -> new ArrayList<>()).add(key);
+    }
+
+    Map<KuduLookupKey, List<Map<String, Field>>> values = new HashMap<>();
+    for (Map.Entry<String, List<KuduLookupKey>> entry : keysByTable.entrySet()) {
+      KuduTable kuduTable = getTable(entry.getKey());
+      for (List<KuduLookupKey> chunk : Lists.partition(entry.getValue(), MAX_KEYS_PER_SCAN)) {
+        values.putAll(lookupValuesForKeys(kuduTable, chunk));
+      }
+    }
+    return values;
+  }
+
+  private Map<KuduLookupKey, List<Map<String, Field>>> lookupValuesForKeys(
+      KuduTable kuduTable,
+      List<KuduLookupKey> keys
+  ) throws Exception {
+    Schema schema = kuduTable.getSchema();
+    List<ColumnSchema> keySchemas = new ArrayList<>(keyColumns.size());
+    try {
+      for (String keyColumn : keyColumns) {
+        keySchemas.add(schema.getColumn(keyColumn));
+      }
+    } catch (IllegalArgumentException ex) {
+      // Key column doesn't exist, individual lookups will report it
+      return Collections.emptyMap();
+    }
+
+    // Keys are indexed by the values of their key columns in the same form as they are read from the rows
+    Map<List<Object>, List<KuduLookupKey>> keysByValues = new HashMap<>();
+    List<Set<Object>> inLists = new ArrayList<>(keyColumns.size());
+    for (int i = 0; i < keyColumns.size(); i++) {
+      inLists.add(new LinkedHashSet<>());
+    }
+    for (KuduLookupKey key : keys) {
+      List<Object> predicateValues = new ArrayList<>(keyColumns.size());
+      for (int i = 0; i < keyColumns.size(); i++) {
+        Object value = toPredicateValue(key.columns.get(keyColumns.get(i)), keySchemas.get(i).getType());
+        if (value == null) {
+          break;
+        }
+        predicateValues.add(value);
+      }
+      if (predicateValues.size() < keyColumns.size()) {
+        continue;
+      }
+      List<Object> comparableValues = new ArrayList<>(predicateValues.size());
+      for (int i = 0; i < predicateValues.size(); i++) {
+        inLists.get(i).add(predicateValues.get(i));
+        comparableValues.add(toComparable(predicateValues.get(i)));
+      }
+      keysByValues.computeIfAbsent(comparableValues, v -> new ArrayList<>()).add(key);
+    }
+    if (keysByValues.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    Set<String> columns = new LinkedHashSet<>(projectColumns);
+    columns.addAll(keyColumns);
+    AsyncKuduScanner.AsyncKuduScannerBuilder scannerBuilder = kuduClient.newScannerBuilder(kuduTable)
+        .setProjectedColumnNames(new ArrayList<>(columns));
+    for (int i = 0; i < keyColumns.size(); i++) {
+      scannerBuilder.addPredicate(KuduPredicate.newInListPredicate(keySchemas.get(i), new ArrayList<>(inLists.get(i))));
+    }
+
+    Map<List<Object>, List<Map<String, Field>>> rowsByValues = new HashMap<>();
+    Set<List<Object>> failedValues = new HashSet<>();
+    AsyncKuduScanner scanner = null;
+    Timer.Context t = selectTimer.time();
+    try {
+      try {
+        scanner = scannerBuilder.build();
+      } catch (IllegalArgumentException ex) {
+        // Thrown here if mapping config has columns that don't exist in the table. Worth stopping pipeline
+        throw new StageException(Errors.KUDU_02, ex);
+      }
+      while (scanner.hasMoreRows()) {
+        RowResultIterator results = scanner.nextRows().join();
+        while (results.hasNext()) {
+          RowResult result = results.next();
+          List<Object> rowValues = new ArrayList<>(keyColumns.size());
+          for (int i = 0; i < keyColumns.size(); i++) {
+            rowValues.add(getComparableValue(result, keyColumns.get(i), keySchemas.get(i).getType()));
+          }
+          if (!keysByValues.containsKey(rowValues)) {
+            // Combination of the IN lists that wasn't asked for
+            continue;
+          }
+          try {
+            rowsByValues.computeIfAbsent(rowValues, v -> new ArrayList<>()).add(createFields(result, schema));
+          } catch (OnRecordErrorException ex) {
+            failedValues.add(rowValues);
+          }
+        }
+      }
+    } catch (KuduException e) {
+      // Exception executing query
+      LOG.error(Errors.KUDU_03.getMessage(), e.toString(), e);
+      throw new StageException(Errors.KUDU_03, e.toString(), e);
+    } finally {
+      if (scanner != null) {
+        scanner.close();
+      }
+      t.stop();
+      selectMeter.mark();
+    }
+
+    Map<KuduLookupKey, List<Map<String, Field>>> values = new HashMap<>();
+    for (Map.Entry<List<Object>, List<KuduLookupKey>> entry : keysByValues.entrySet()) {
+      if (failedValues.contains(entry.getKey())) {
+        continue;
+      }
+      List<Map<String, Field>> rows = rowsByValues.get(entry.getKey());
+      for (KuduLookupKey key : entry.getValue()) {
+        List<Map<String, Field>> lookupItems = new ArrayList<>();
+        if (rows != null) {
+          lookupItems.addAll(rows);
+        } else if (conf.missingLookupBehavior == MissingValuesBehavior.PASS_RECORD_ON) {
+          lookupItems.add(createDefaults(schema));
+        }
+        values.put(key, lookupItems);
+      }
+    }
+    return values;
+  }
+
+  private KuduTable getTable(String tableName) throws OnRecordErrorException {
+    try {
+      return tableCache.get(tableName);
+    } catch (ExecutionException ex) {
+      throw new OnRecordErrorException(Errors.KUDU_03, ex.getMessage(), ex);
+    }
+  }
+
+  private Map<String, Field> createFields(RowResult result, Schema schema) throws OnRecordErrorException {
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Found row: {}", result.toStringLongFormat());
+    }
+    LinkedHashMap<String, Field> fields = new LinkedHashMap<>(outputColumnToField.size());
+    for (Map.Entry<String, String> column : outputColumnToField.entrySet()) {
+      Field field = null;
+      Type type = null;
+      String columnName = column.getKey();
+      if (result.isNull(columnName)){
+        // No record in necessary column. Apply default value or send to error
+        if (conf.ignoreMissing) {
+          // Apply default value only when default value is configured
+          if (!outputDefault.get(columnName).isEmpty()) {
+            ColumnSchema columnSchema = schema.getColumn(columnName);
+            field = Field.create(
+                KuduUtils.convertFromKuduType(columnSchema.getType()),
+                outputDefault.get(columnName)
+            );
+          }
+        } else {
+          // Can't ignore missing value thus send to error
+          throw new OnRecordErrorException(Errors.KUDU_35, columnName);
+        }
+      } else {
+        type = result.getColumnType(column.getKey());
+        field = KuduUtils.createField(result, columnName, type);
+      }
+      if (field != null) {
+        fields.put(column.getValue(), field);
+      }
+    }
+    return fields;
+  }
+
+  private Map<String, Field> createDefaults(Schema schema) {
+    Map<String, Field> addDefaults = new HashMap<>();
+    for (Map.Entry<String, String> output: outputColumnToField.entrySet()) {
+      ColumnSchema columnSchema = schema.getColumn(output.getKey());
+      if (!outputDefault.get(output.getKey()).isEmpty()) {
+        addDefaults.put(output.getValue(), Field.create(
+            KuduUtils.convertFromKuduType(columnSchema.getType()),
+            outputDefault.get(output.getKey())
+            )
+        );
+      }
+    }
+    return addDefaults;
+  }
+
+  /**
+   * Converts the field to the value expected by IN list predicate on a column of given type, same conversions as in
+   * addPredicate() are applied. Returns null if the field can't be used in a predicate.
+   */
+  private static Object toPredicateValue(Field field, Type type) {
+    if (field == null || field.getValue() == null) {
+      return null;
+    }
+    try {
+      switch (type) {
+        case STRING:
+          return field.getValueAsString().isEmpty() ? null : field.getValueAsString();
+        case INT8:
+          long byteValue = field.getValueAsLong();
+          return byteValue == (byte) byteValue ? Byte.valueOf((byte) byteValue) : null;
+        case INT16:
+          long shortValue = field.getValueAsLong();
+          return shortValue == (short) shortValue ? Short.valueOf((short) shortValue) : null;
+        case INT32:
+          long intValue = field.getValueAsLong();
+          return intValue == (int) intValue ? Integer.valueOf((int) intValue) : null;
+        case INT64:
+          return field.getValueAsLong();
+        case BOOL:
+          return field.getValueAsBoolean();
+        case BINARY:
+          return field.getValueAsByteArray();
+        case UNIXTIME_MICROS:
+          return field.getValueAsDatetime().getTime() * 1000L;
+        default:
+          if ("DECIMAL".equals(type.name())) {
+            return field.getValueAsDecimal();
+          }
+          return null;
+      }
+    } catch (IllegalArgumentException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Returns value of the key column in the same form as toComparable() returns for predicate values.
+   */
+  private static Object getComparableValue(RowResult result, String column, Type type) {
+    if (result.isNull(column)) {
+      return null;
+    }
+    switch (type) {
+      case STRING:
+        return result.getString(column);
+      case INT8:
+        return (long) result.getByte(column);
+      case INT16:
+        return (long) result.getShort(column);
+      case INT32:
+        return (long) result.getInt(column);
+      case INT64:
+      case UNIXTIME_MICROS:
+        return result.getLong(column);
+      case BOOL:
+        return result.getBoolean(column);
+      case BINARY:
+        return ByteBuffer.wrap(result.getBinaryCopy(column));
+      default:
+        // DECIMAL
+        return toComparable(result.getDecimal(column));
+    }
+  }
+
+  private static Object toComparable(Object value) {
+    if (value instanceof Byte || value instanceof Short || value instanceof Integer) {
+      return ((Number) value).longValue();
+    } else if (value instanceof byte[]) {
+      return ByteBuffer.wrap((byte[]) value);
+    } else if (value instanceof BigDecimal) {
+      return ((BigDecimal) value).stripTrailingZeros();
+    }
+    return value;
+  }
+
+  private static boolean hasInListPredicates() {
+    try {
+      KuduPredicate.class.getMethod("newInListPredicate", ColumnSchema.class, List.class);
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
   private void addPredicate(Field field, AsyncKuduScanner.AsyncKuduScannerBuilder scannerBuilder, KuduTable kuduTable, String keyColumn)
       throws StageException
   {
@@ -26,7 +26,9 @@ import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.api.base.SingleLaneProcessor;
 import com.streamsets.pipeline.api.base.SingleLaneRecordProcessor;
 import com.streamsets.pipeline.api.el.ELEval;
+import com.streamsets.pipeline.api.el.ELEvalException;
 import com.streamsets.pipeline.api.el.ELVars;
+import com.streamsets.pipeline.api.impl.Utils;
 import com.streamsets.pipeline.lib.cache.CacheCleaner;
 import com.streamsets.pipeline.lib.el.ELUtils;
 import com.streamsets.pipeline.lib.el.RecordEL;
@@ -44,6 +46,10 @@ import org.apache.kudu.client.OperationResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.ArrayList;
 import java.util.List;
@@ -73,6 +79,8 @@ public class KuduLookupProcessor extends SingleLaneRecordProcessor {
   private ELVars tableNameVars;
 
   private LoadingCache<KuduLookupKey, List<Map<String, Field>>> cache;
+  private final Map<Record, KuduLookupKey> batchKeys = new IdentityHashMap<>();
+  private Map<KuduLookupKey, List<Map<String, Field>>> batchValues = Collections.emptyMap();
   private CacheCleaner cacheCleaner;
 
   public KuduLookupProcessor(KuduLookupConfig conf) {
@@ -185,7 +193,8 @@ public class KuduLookupProcessor extends SingleLaneRecordProcessor {
 
     if (issues.isEmpty()) {
       store = new KuduLookupLoader(getContext(), kuduClient, keyColumns, columnToField, conf);
-      cache = LookupUtils.buildCache(store, conf.cache);
+      // Stage runs in a private class loader, so the cache can't be shared across pipelines
+      cache = LookupUtils.buildCache(getContext(), store, conf.cache, null);
       cacheCleaner = new CacheCleaner(cache, "KuduLookupProcessor", 10 * 60 * 1000);
     }
     return issues;
@@ -195,6 +204,9 @@ public class KuduLookupProcessor extends SingleLaneRecordProcessor {
   @Override
   public void destroy() {
     super.destroy();
+    if (cache != null) {
+      LookupUtils.releaseCache(cache);
+    }
     if (kuduSession != null) {
       try {
         List<OperationResponse> result = kuduSession.close().join();
@@ -225,23 +237,59 @@ public class KuduLookupProcessor extends SingleLaneRecordProcessor {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
-    super.process(batch, batchMaker);
+
+    // Resolve all distinct keys of the batch at once, the loader scans for many keys with a single IN list scan
+    Iterator<Record> it = batch.getRecords();
+    while (it.hasNext()) {
+      Record record = it.next();
+      try {
+        batchKeys.put(record, generateLookupKey(record, getTableName(record)));
+      } catch (OnRecordErrorException | ELEvalException e) {
+        // Reported when the record itself is processed
+        LOG.trace("Can't generate lookup key for record {}: {}", record.getHeader().getSourceId(), e.toString());
+      }
+    }
+    try {
+      batchValues = batchKeys.isEmpty() ? Collections.emptyMap() : cache.getAll(new LinkedHashSet<>(batchKeys.values()));
+    } catch (ExecutionException | RuntimeException e) {
+      // Records will be looked up one by one so that the failure is reported only for the records it belongs to
+      LOG.debug("Bulk lookup of {} keys failed, falling back to individual lookups: {}", batchKeys.size(), e.toString(), e);
+      batchValues = Collections.emptyMap();
+    }
+
+    try {
+      super.process(batch, batchMaker);
+    } finally {
+      batchKeys.clear();
+      batchValues = Collections.emptyMap();
+    }
   }
 
-  /** {@inheritDoc} */
-  @Override
-  protected void process(Record record, SingleLaneProcessor.SingleLaneBatchMaker batchMaker) throws StageException {
+  private String getTableName(Record record) throws ELEvalException {
     RecordEL.setRecordInContext(tableNameVars, record);
     String tableName = tableNameEval.eval(tableNameVars, conf.kuduTableTemplate, String.class);
     if (!conf.caseSensitive) {
       tableName = tableName.toLowerCase();
     }
+    return tableName;
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  protected void process(Record record, SingleLaneProcessor.SingleLaneBatchMaker batchMaker) throws StageException {
+    KuduLookupKey key = batchKeys.get(record);
+    String tableName = key != null ? key.tableName : getTableName(record);
     LOG.trace("Processing record:{}  TableName={}", record.toString(), tableName);
 
     try {
       try {
-        KuduLookupKey key = generateLookupKey(record, tableName);
-        List<Map<String, Field>> values = cache.get(key);
+        if (key == null) {
+          key = generateLookupKey(record, tableName);
+        }
+        List<Map<String, Field>> values = batchValues.get(key);
+        if (values == null) {
+          values = cache.get(key);
+        }
         if (values.isEmpty()) {
           // No record found
           if (conf.missingLookupBehavior == MissingValuesBehavior.SEND_TO_ERROR) {
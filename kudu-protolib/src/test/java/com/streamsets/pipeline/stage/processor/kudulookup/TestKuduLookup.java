@@ -15,6 +15,8 @@
  */
 package com.streamsets.pipeline.stage.processor.kudulookup;
 
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Field;
 import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.OnRecordError;
@@ -105,6 +107,16 @@ public class TestKuduLookup {
     }
   }
 
+  @Test
+  public void testLookupKeysOfSameValuesAreEqual() {
+    // Records with the same key values share the cached (and bulk loaded) lookup values
+    KuduLookupKey key = new KuduLookupKey(tableName, ImmutableMap.of("key", Field.create(1)));
+    Assert.assertEquals(key, new KuduLookupKey(tableName, ImmutableMap.of("key", Field.create(1))));
+    Assert.assertEquals(key.hashCode(), new KuduLookupKey(tableName, ImmutableMap.of("key", Field.create(1))).hashCode());
+    Assert.assertNotEquals(key, new KuduLookupKey(tableName, ImmutableMap.of("key", Field.create(2))));
+    Assert.assertNotEquals(key, new KuduLookupKey("other", ImmutableMap.of("key", Field.create(1))));
+  }
+
   private ProcessorRunner getProcessorRunner(String tableName) {
     KuduLookupProcessor processor = getKuduLookupConfig(tableName);
     return getProcessorRunner(processor);
@@ -46,6 +46,21 @@ public class CacheConfig {
   )
   public long maxSize = -1;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      label = "Maximum Cache Size (MB)",
+      min = -1,
+      defaultValue = "-1",
+      description = "Maximum estimated memory used by cached values. If exceeded, oldest values are evicted to make room." +
+          " Takes precedence over the maximum number of entries. Default value is -1 which is unlimited",
+      dependsOn = "enabled",
+      triggeredByValue = "true",
+      displayPosition = 115,
+      group = "#0"
+  )
+  public long maxMemoryMB = -1;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
@@ -86,6 +101,22 @@ public class CacheConfig {
   @ValueChooserModel(TimeUnitChooserValues.class)
   public TimeUnit timeUnit = TimeUnit.SECONDS;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      label = "Refresh Before Expiration",
+      defaultValue = "false",
+      description = "Select to reload cached values in the background shortly before they expire, so that frequently" +
+          " used values are not looked up synchronously again",
+      displayPosition = 145,
+      dependencies = {
+          @Dependency(configName = "enabled", triggeredByValues = "true"),
+          @Dependency(configName = "evictionPolicyType", triggeredByValues = "EXPIRE_AFTER_WRITE")
+      },
+      group = "#0"
+  )
+  public boolean refreshAhead = false;
+
     @ConfigDef(
       required = true,
       type = ConfigDef.Type.BOOLEAN,
@@ -100,4 +131,17 @@ public class CacheConfig {
       group = "#0"
   )
   public boolean retryOnCacheMiss = false;
+
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.BOOLEAN,
+      label = "Share Cache Across Pipelines",
+      defaultValue = "false",
+      description = "The cache is always shared by all pipeline runners. Select to also share it with the same stage" +
+          " in other pipelines that use the same connection, credentials, lookup and cache configuration.",
+      displayPosition = 160,
+      dependencies = @Dependency(configName = "enabled", triggeredByValues = "true"),
+      group = "#0"
+  )
+  public boolean shareAcrossPipelines = false;
 }
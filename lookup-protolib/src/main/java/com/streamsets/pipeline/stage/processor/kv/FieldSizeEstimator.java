@@ -0,0 +1,100 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.streamsets.pipeline.api.Field;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Rough estimate of the heap occupied by cached lookup keys and values, used to weigh cache entries.
+ *
+ * The numbers are approximations for a 64-bit JVM with compressed oops, they are meant to keep the cache within the
+ * configured bounds rather than to be exact.
+ */
+final class FieldSizeEstimator {
+  private static final int OBJECT = 16;
+  private static final int REFERENCE = 8;
+  private static final int FIELD = 32;
+  private static final int STRING = 40;
+  private static final int COLLECTION = 24;
+  private static final int MAP = 48;
+  private static final int MAP_ENTRY = 32;
+  private static final int UNKNOWN = 64;
+
+  private FieldSizeEstimator() {}
+
+  static long estimate(Object value) {
+    if (value == null) {
+      return 0;
+    } else if (value instanceof Field) {
+      return FIELD + estimateFieldValue((Field) value);
+    } else if (value instanceof String) {
+      return STRING + 2L * ((String) value).length();
+    } else if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+      return OBJECT;
+    } else if (value instanceof byte[]) {
+      return OBJECT + ((byte[]) value).length;
+    } else if (value instanceof Optional) {
+      return OBJECT + estimate(((Optional<?>) value).orElse(null));
+    } else if (value instanceof com.google.common.base.Optional) {
+      return OBJECT + estimate(((com.google.common.base.Optional<?>) value).orNull());
+    } else if (value instanceof Map) {
+      long size = MAP;
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        size += MAP_ENTRY + estimate(entry.getKey()) + estimate(entry.getValue());
+      }
+      return size;
+    } else if (value instanceof Map.Entry) {
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) value;
+      return COLLECTION + estimate(entry.getKey()) + estimate(entry.getValue());
+    } else if (value instanceof Collection) {
+      long size = COLLECTION;
+      for (Object item : (Collection<?>) value) {
+        size += REFERENCE + estimate(item);
+      }
+      return size;
+    }
+    return UNKNOWN;
+  }
+
+  private static long estimateFieldValue(Field field) {
+    if (field.getValue() == null) {
+      return 0;
+    }
+    switch (field.getType()) {
+      case STRING:
+      case MAP:
+      case LIST_MAP:
+      case LIST:
+      case BYTE_ARRAY:
+        return estimate(field.getValue());
+      case DATE:
+      case DATETIME:
+      case TIME:
+        return OBJECT + REFERENCE;
+      case DECIMAL:
+      case ZONED_DATETIME:
+      case FILE_REF:
+        return UNKNOWN;
+      default:
+        // Boxed primitives
+        return OBJECT;
+    }
+  }
+}
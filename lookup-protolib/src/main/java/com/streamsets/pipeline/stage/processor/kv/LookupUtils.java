@@ -15,9 +15,13 @@
  */
 package com.streamsets.pipeline.stage.processor.kv;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.streamsets.pipeline.api.Stage;
 import com.streamsets.pipeline.api.impl.Utils;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
@@ -25,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
 public class LookupUtils {
@@ -56,6 +61,94 @@ public class LookupUtils {
     );
   }
 
+  /**
+   * Builds cache for given stage instance that shares its entries with all other runners of the same stage and, if
+   * enabled in the configuration, with the same stage in other pipelines. Statistics are always collected and published
+   * in the "Lookup Cache" stage gauge.
+   *
+   * The cache must be released with {@link #releaseCache(Cache)} when the stage is destroyed.
+   *
+   * @param sharingKey Identification of the looked up data (connection, credentials, see
+   *                   {@link #getCredentialsKey(String, String...)}, and any configuration that changes the loaded
+   *                   values) or null if the cache can't be shared across pipelines, for example because the stage
+   *                   runs in a private class loader.
+   */
+  @NotNull
+  public static<Key, Value> LoadingCache<Key, Value> buildCache(
+    Stage.Context context,
+    CacheLoader<Key, Value> cacheLoader,
+    CacheConfig conf,
+    String sharingKey
+  ) {
+    if(conf.retryOnCacheMiss) {
+      throw new IllegalArgumentException("This stage does not support retry on cache miss feature.");
+    }
+
+    return buildSharedCache(context, cacheLoader, conf, sharingKey);
+  }
+
+  /**
+   * Shared variant of {@link #buildCache(CacheLoader, CacheConfig, Optional)}, see
+   * {@link #buildCache(Stage.Context, CacheLoader, CacheConfig, String)}.
+   */
+  @NotNull
+  @SuppressWarnings("unchecked")
+  public static<Key, Value> LoadingCache<Key, Optional<Value>> buildCache(
+    Stage.Context context,
+    CacheLoader<Key, Optional<Value>> cacheLoader,
+    CacheConfig conf,
+    Optional<Value> defaultValue,
+    String sharingKey
+  ) {
+    return new OptionalLoadingCache(
+      !conf.retryOnCacheMiss,
+      buildSharedCache(context, cacheLoader, conf, sharingKey),
+      defaultValue
+    );
+  }
+
+  /**
+   * Returns identification of the user a stage connects as, it must be part of the sharing key so that pipelines
+   * connecting as different users never share cached values. Secrets are only included as a hash.
+   *
+   * @param user User name, may be null.
+   * @param secrets Passwords or any other values that authenticate the user, null values are allowed.
+   */
+  public static String getCredentialsKey(String user, String... secrets) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    for (String secret : secrets) {
+      hasher.putBytes((secret == null ? "" : secret).getBytes(StandardCharsets.UTF_8)).putByte((byte) 0);
+    }
+    return Utils.format("{}|{}", user, hasher.hash());
+  }
+
+  /**
+   * Releases cache built by this class, caches that are not shared are simply ignored.
+   */
+  public static void releaseCache(Cache<?, ?> cache) {
+    if (cache instanceof OptionalLoadingCache) {
+      cache = ((OptionalLoadingCache<?, ?>) cache).getDelegate();
+    }
+    if (cache instanceof SharedLoadingCache) {
+      ((SharedLoadingCache<?, ?>) cache).close();
+    }
+  }
+
+  private static<Key, Value> LoadingCache<Key, Value> buildSharedCache(
+    Stage.Context context,
+    CacheLoader<Key, Value> cacheLoader,
+    CacheConfig conf,
+    String sharingKey
+  ) {
+    // Different stages may look up unrelated data with the same connection
+    String key = sharingKey == null ? null : Utils.format("{}|{}", cacheLoader.getClass().getName(), sharingKey);
+    return new SharedLoadingCache<>(
+      SharedLookupCache.acquire(context, conf, key),
+      cacheLoader,
+      context.createGauge(SharedLoadingCache.GAUGE_NAME)
+    );
+  }
+
   private static CacheBuilder createBuilder(CacheConfig conf) {
     CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
 
@@ -68,16 +161,15 @@ public class LookupUtils {
 
     // recordStats is available only in Guava 12.0 and above, but
     // CDH still uses guava 11.0. Hence the reflection.
-    if(LOG.isDebugEnabled()) {
-      try {
-        Method m = CacheBuilder.class.getMethod("recordStats");
-        if (m != null) {
-          m.invoke(cacheBuilder);
-        }
-      } catch (NoSuchMethodException|IllegalAccessException|InvocationTargetException e) {
-        // We're intentionally ignoring any reflection errors as we might be running
-        // with old guava on class path.
+    try {
+      Method m = CacheBuilder.class.getMethod("recordStats");
+      if (m != null) {
+        m.invoke(cacheBuilder);
       }
+    } catch (NoSuchMethodException|IllegalAccessException|InvocationTargetException e) {
+      // We're intentionally ignoring any reflection errors as we might be running
+      // with old guava on class path.
+      LOG.trace("Can't enable cache statistics", e);
     }
 
     // CacheBuilder doesn't support specifying type thus suffers from erasure, so
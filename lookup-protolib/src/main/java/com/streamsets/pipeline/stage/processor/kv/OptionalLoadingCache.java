@@ -73,7 +73,11 @@ public class OptionalLoadingCache<Key, Value> implements LoadingCache<Key, Optio
 
   @Override
   public ImmutableMap<Key, Optional<Value>> getAll(Iterable<? extends Key> keys) throws ExecutionException {
-    throw new UnsupportedOperationException("getAll");
+    ImmutableMap.Builder<Key, Optional<Value>> builder = ImmutableMap.builder();
+    for (Map.Entry<Key, Optional<Value>> entry : delegate.getAll(keys).entrySet()) {
+      builder.put(entry.getKey(), valueOrDefault(entry.getKey(), entry.getValue()));
+    }
+    return builder.build();
   }
 
   @Override
@@ -147,4 +151,8 @@ public class OptionalLoadingCache<Key, Value> implements LoadingCache<Key, Optio
   public void cleanUp() {
     delegate.cleanUp();
   }
+
+  LoadingCache<Key, Optional<Value>> getDelegate() {
+    return delegate;
+  }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.cache.AbstractLoadingCache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Stage instance view of a {@link SharedLookupCache}. Missing values are loaded with this instance's loader and the
+ * shared statistics are periodically published to this instance's "Lookup Cache" gauge.
+ */
+final class SharedLoadingCache<Key, Value> extends AbstractLoadingCache<Key, Value> {
+  static final String GAUGE_NAME = "Lookup Cache";
+  private static final long METRICS_UPDATE_INTERVAL = 1000;
+
+  private final SharedLookupCache shared;
+  private final CacheLoader<Object, Object> loader;
+  private final Gauge<Map<String, Object>> gauge;
+  private volatile long lastMetricsUpdate;
+  private boolean closed;
+
+  @SuppressWarnings("unchecked")
+  SharedLoadingCache(SharedLookupCache shared, CacheLoader<Key, Value> loader, Gauge<Map<String, Object>> gauge) {
+    this.shared = shared;
+    this.loader = (CacheLoader<Object, Object>) loader;
+    this.gauge = gauge;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Value get(Key key) throws ExecutionException {
+    try {
+      return (Value) shared.get(key, loader);
+    } finally {
+      updateMetrics(false);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public ImmutableMap<Key, Value> getAll(Iterable<? extends Key> keys) throws ExecutionException {
+    try {
+      return (ImmutableMap<Key, Value>) shared.getAll(keys, loader);
+    } finally {
+      updateMetrics(false);
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Value get(Key key, Callable<? extends Value> valueLoader) throws ExecutionException {
+    try {
+      return (Value) shared.get(key, new CacheLoader<Object, Object>() {
+        @Override
+        public Object load(Object ignored) throws Exception {
+          return valueLoader.call();
+        }
+      });
+    } finally {
+      updateMetrics(false);
+    }
+  }
+
+  @Nullable
+  @Override
+  @SuppressWarnings("unchecked")
+  public Value getIfPresent(Object key) {
+    try {
+      return (Value) shared.getIfPresent(key);
+    } finally {
+      updateMetrics(false);
+    }
+  }
+
+  @Override
+  public void refresh(Key key) {
+    shared.refresh(key, loader);
+  }
+
+  @Override
+  public void put(Key key, Value value) {
+    shared.put(key, value);
+  }
+
+  @Override
+  public void invalidate(Object key) {
+    shared.invalidate(key);
+  }
+
+  @Override
+  public void invalidateAll(Iterable<?> keys) {
+    shared.invalidateAll(keys);
+  }
+
+  @Override
+  public void invalidateAll() {
+    shared.invalidateAll();
+  }
+
+  @Override
+  public long size() {
+    return shared.size();
+  }
+
+  @Override
+  public CacheStats stats() {
+    return shared.stats();
+  }
+
+  @Override
+  public void cleanUp() {
+    shared.cleanUp();
+    updateMetrics(true);
+  }
+
+  /**
+   * Publishes final statistics and releases this instance's reference to the shared cache.
+   */
+  synchronized void close() {
+    if (!closed) {
+      closed = true;
+      updateMetrics(true);
+      shared.release();
+    }
+  }
+
+  private void updateMetrics(boolean force) {
+    long now = System.currentTimeMillis();
+    if (force || now - lastMetricsUpdate >= METRICS_UPDATE_INTERVAL) {
+      lastMetricsUpdate = now;
+      shared.reportTo(gauge.getValue());
+    }
+  }
+}
@@ -0,0 +1,424 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.impl.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lookup cache tier shared by all runners of a stage and optionally by the same stage in several pipelines.
+ *
+ * Entries live in a single Guava cache, but every stage instance accesses them through its own
+ * {@link SharedLoadingCache} and hence values are always loaded with the loader (connection, metrics and error
+ * handling) of the stage instance that asked for them. Statistics are always collected.
+ */
+final class SharedLookupCache {
+  private static final Logger LOG = LoggerFactory.getLogger(SharedLookupCache.class);
+
+  // Key in the stage runner shared map for the cache that is shared by all runners of the stage
+  static final String RUNNER_SHARED_KEY = "lookupUtils.sharedCache";
+  // Entries are refreshed in the background once they have lived for this fraction of the expiration time
+  static final double REFRESH_AHEAD_FACTOR = 0.75;
+  private static final int REFRESH_THREADS = 2;
+  private static final double BYTES_PER_MB = 1024 * 1024;
+
+  // Caches shared across pipelines, keyed by the sharing key and cache configuration. Only stages loaded by the same
+  // class loader see each other here, stages with a private class loader must not ask for sharing.
+  private static final Map<String, Object> PIPELINE_SHARED = new HashMap<>();
+
+  private final Cache<Object, CachedValue> cache;
+  private final Ticker ticker;
+  private final long refreshAfterNanos;
+  private final Map<String, Object> owner;
+  private final String ownerKey;
+  private int references;
+  private ExecutorService refreshExecutor;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder loadFailures = new LongAdder();
+  private final LongAdder loadTimeNanos = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder weight = new LongAdder();
+
+  static final class CachedValue {
+    final Object value;
+    final long loadedAt;
+    final int weight;
+    final AtomicBoolean refreshing = new AtomicBoolean();
+
+    CachedValue(Object value, long loadedAt, int weight) {
+      this.value = value;
+      this.loadedAt = loadedAt;
+      this.weight = weight;
+    }
+  }
+
+  /**
+   * Returns shared cache for given stage instance, creating it if this is the first instance asking for it. Every
+   * call must be paired with {@link #release()}.
+   */
+  static SharedLookupCache acquire(Stage.Context context, CacheConfig conf, String sharingKey) {
+    Map<String, Object> owner;
+    String key;
+    if (conf.enabled && conf.shareAcrossPipelines && sharingKey != null) {
+      owner = PIPELINE_SHARED;
+      key = Utils.format("{}|{}", sharingKey, describe(conf));
+    } else {
+      owner = context.getStageRunnerSharedMap();
+      key = RUNNER_SHARED_KEY;
+    }
+
+    synchronized (owner) {
+      SharedLookupCache shared = (SharedLookupCache) owner.get(key);
+      if (shared == null) {
+        shared = new SharedLookupCache(conf, Ticker.systemTicker(), owner, key);
+        owner.put(key, shared);
+      }
+      shared.references++;
+      return shared;
+    }
+  }
+
+  @VisibleForTesting
+  @SuppressWarnings("unchecked")
+  SharedLookupCache(CacheConfig conf, Ticker ticker, Map<String, Object> owner, String ownerKey) {
+    this.ticker = ticker;
+    this.owner = owner;
+    this.ownerKey = ownerKey;
+
+    CacheBuilder cacheBuilder = CacheBuilder.newBuilder()
+        .ticker(ticker)
+        .removalListener((RemovalListener<Object, CachedValue>) notification -> {
+          CachedValue removed = notification.getValue();
+          if (removed != null) {
+            weight.add(-removed.weight);
+          }
+          if (notification.wasEvicted()) {
+            evictions.increment();
+          }
+        });
+
+    long refreshAfter = -1;
+    if (!conf.enabled) {
+      // Disabled cache still goes through the same code path so that statistics are available
+      cacheBuilder.maximumSize(0);
+    } else {
+      if (conf.maxMemoryMB > 0) {
+        cacheBuilder
+            .maximumWeight((long) (conf.maxMemoryMB * BYTES_PER_MB))
+            .weigher((Weigher<Object, CachedValue>) (key, value) -> value.weight);
+      } else if (conf.maxSize >= 0) {
+        cacheBuilder.maximumSize(conf.maxSize);
+      }
+
+      if (conf.evictionPolicyType == EvictionPolicyType.EXPIRE_AFTER_ACCESS) {
+        cacheBuilder.expireAfterAccess(conf.expirationTime, conf.timeUnit);
+      } else if (conf.evictionPolicyType == EvictionPolicyType.EXPIRE_AFTER_WRITE) {
+        cacheBuilder.expireAfterWrite(conf.expirationTime, conf.timeUnit);
+        if (conf.refreshAhead && conf.expirationTime > 0) {
+          refreshAfter = (long) (conf.timeUnit.toNanos(conf.expirationTime) * REFRESH_AHEAD_FACTOR);
+          refreshExecutor = Executors.newFixedThreadPool(
+              REFRESH_THREADS,
+              new ThreadFactoryBuilder().setNameFormat("Lookup Cache Refresh-%d").setDaemon(true).build()
+          );
+        }
+      } else {
+        throw new IllegalArgumentException(
+            Utils.format("Unrecognized EvictionPolicyType: '{}'", conf.evictionPolicyType)
+        );
+      }
+    }
+
+    this.refreshAfterNanos = refreshAfter;
+    this.cache = cacheBuilder.build();
+  }
+
+  private static String describe(CacheConfig conf) {
+    return Utils.format(
+        "{}|{}|{}|{}|{}|{}",
+        conf.maxSize,
+        conf.maxMemoryMB,
+        conf.evictionPolicyType,
+        conf.expirationTime,
+        conf.timeUnit,
+        conf.refreshAhead
+    );
+  }
+
+  /**
+   * Drops one reference, the last one invalidates all entries and removes the cache from its owner.
+   */
+  void release() {
+    synchronized (owner) {
+      if (--references == 0) {
+        owner.remove(ownerKey);
+        if (refreshExecutor != null) {
+          refreshExecutor.shutdownNow();
+        }
+        cache.invalidateAll();
+      }
+    }
+  }
+
+  Object get(Object key, CacheLoader<Object, Object> loader) throws ExecutionException {
+    CachedValue cached = cache.getIfPresent(key);
+    if (cached != null) {
+      hits.increment();
+      refreshIfStale(key, cached, loader);
+      return cached.value;
+    }
+    misses.increment();
+    return cache.get(key, () -> load(key, loader)).value;
+  }
+
+  Object getIfPresent(Object key) {
+    CachedValue cached = cache.getIfPresent(key);
+    if (cached == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return cached.value;
+  }
+
+  /**
+   * Returns values for all given keys, the ones that are not cached are loaded with a single loadAll() call if the
+   * loader supports it.
+   */
+  ImmutableMap<Object, Object> getAll(Iterable<?> keys, CacheLoader<Object, Object> loader) throws ExecutionException {
+    Set<Object> distinct = new LinkedHashSet<>();
+    Map<Object, Object> found = new HashMap<>();
+    Set<Object> missing = new LinkedHashSet<>();
+    for (Object key : keys) {
+      if (!distinct.add(key)) {
+        continue;
+      }
+      CachedValue cached = cache.getIfPresent(key);
+      if (cached != null) {
+        hits.increment();
+        refreshIfStale(key, cached, loader);
+        found.put(key, cached.value);
+      } else {
+        misses.increment();
+        missing.add(key);
+      }
+    }
+
+    if (!missing.isEmpty()) {
+      found.putAll(loadAll(missing, loader));
+    }
+
+    ImmutableMap.Builder<Object, Object> result = ImmutableMap.builder();
+    for (Object key : distinct) {
+      Object value = found.get(key);
+      if (value == null) {
+        // Loader didn't return this key (or doesn't support bulk loads), resolve it individually
+        value = cache.get(key, () -> load(key, loader)).value;
+      }
+      result.put(key, value);
+    }
+    return result.build();
+  }
+
+  void refresh(Object key, CacheLoader<Object, Object> loader) {
+    try {
+      cache.put(key, load(key, loader));
+      refreshes.increment();
+    } catch (Exception e) {
+      LOG.debug("Can't refresh lookup cache entry for key '{}': {}", key, e.toString(), e);
+    }
+  }
+
+  void put(Object key, Object value) {
+    cache.put(key, newValue(key, value));
+  }
+
+  void invalidate(Object key) {
+    cache.invalidate(key);
+  }
+
+  void invalidateAll(Iterable<?> keys) {
+    cache.invalidateAll(keys);
+  }
+
+  void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  void cleanUp() {
+    cache.cleanUp();
+  }
+
+  CacheStats stats() {
+    return new CacheStats(
+        hits.sum(),
+        misses.sum(),
+        loads.sum(),
+        loadFailures.sum(),
+        loadTimeNanos.sum(),
+        evictions.sum()
+    );
+  }
+
+  /**
+   * Publishes current statistics into given stage gauge.
+   */
+  void reportTo(Map<String, Object> gauge) {
+    long hitCount = hits.sum();
+    long requestCount = hitCount + misses.sum();
+    long loadCount = loads.sum() + loadFailures.sum();
+    gauge.put("Hits", hitCount);
+    gauge.put("Misses", requestCount - hitCount);
+    gauge.put("Hit Ratio", requestCount == 0 ? 0.0 : (double) hitCount / requestCount);
+    gauge.put("Average Load Time (ms)", loadCount == 0 ? 0.0 : loadTimeNanos.sum() / 1_000_000.0 / loadCount);
+    gauge.put("Load Failures", loadFailures.sum());
+    gauge.put("Refreshes", refreshes.sum());
+    gauge.put("Evictions", evictions.sum());
+    gauge.put("Entries", cache.size());
+    gauge.put("Estimated Size (MB)", weight.sum() / BYTES_PER_MB);
+  }
+
+  @VisibleForTesting
+  int getReferences() {
+    synchronized (owner) {
+      return references;
+    }
+  }
+
+  @VisibleForTesting
+  static Map<String, Object> getPipelineSharedCaches() {
+    return PIPELINE_SHARED;
+  }
+
+  private CachedValue load(Object key, CacheLoader<Object, Object> loader) throws Exception {
+    long start = ticker.read();
+    boolean success = false;
+    try {
+      Object value = loader.load(key);
+      if (value == null) {
+        throw new CacheLoader.InvalidCacheLoadException(Utils.format("Loader returned null for key '{}'", key));
+      }
+      success = true;
+      return newValue(key, value);
+    } finally {
+      loadTimeNanos.add(ticker.read() - start);
+      if (success) {
+        loads.increment();
+      } else {
+        loadFailures.increment();
+      }
+    }
+  }
+
+  private Map<Object, Object> loadAll(Set<Object> keys, CacheLoader<Object, Object> loader) throws ExecutionException {
+    long start = ticker.read();
+    Map<Object, Object> loaded;
+    try {
+      loaded = loader.loadAll(keys);
+    } catch (UnsupportedOperationException e) {
+      // Loader can only load individual keys
+      return Collections.emptyMap();
+    } catch (RuntimeException e) {
+      loadFailures.increment();
+      throw new UncheckedExecutionException(e);
+    } catch (Exception e) {
+      loadFailures.increment();
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      throw new ExecutionException(e);
+    } finally {
+      loadTimeNanos.add(ticker.read() - start);
+    }
+    loads.increment();
+
+    Map<Object, Object> values = new LinkedHashMap<>();
+    for (Map.Entry<Object, Object> entry : loaded.entrySet()) {
+      if (entry.getKey() != null && entry.getValue() != null) {
+        cache.put(entry.getKey(), newValue(entry.getKey(), entry.getValue()));
+        values.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return values;
+  }
+
+  private CachedValue newValue(Object key, Object value) {
+    int size = (int) Math.min(Integer.MAX_VALUE, FieldSizeEstimator.estimate(key) + FieldSizeEstimator.estimate(value));
+    weight.add(size);
+    return new CachedValue(value, ticker.read(), size);
+  }
+
+  private void refreshIfStale(Object key, CachedValue cached, CacheLoader<Object, Object> loader) {
+    if (refreshAfterNanos < 0
+        || ticker.read() - cached.loadedAt < refreshAfterNanos
+        || !cached.refreshing.compareAndSet(false, true)) {
+      return;
+    }
+
+    try {
+      refreshExecutor.submit(() -> {
+        try {
+          // Only replace the entry if it wasn't invalidated or replaced in the meantime
+          CachedValue fresh = load(key, loader);
+          if (cache.asMap().replace(key, cached, fresh)) {
+            refreshes.increment();
+          } else {
+            weight.add(-fresh.weight);
+          }
+        } catch (Exception e) {
+          LOG.debug("Can't refresh lookup cache entry for key '{}': {}", key, e.toString(), e);
+          cached.refreshing.set(false);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      // Cache is being released
+      cached.refreshing.set(false);
+    }
+  }
+}
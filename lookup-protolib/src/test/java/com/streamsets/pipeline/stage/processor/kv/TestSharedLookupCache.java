@@ -0,0 +1,252 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv;
+
+import com.codahale.metrics.Gauge;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Stage;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class TestSharedLookupCache {
+
+  private static class CountingLoader extends CacheLoader<String, String> {
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger bulkLoads = new AtomicInteger();
+    private volatile String suffix = "";
+
+    @Override
+    public String load(String key) {
+      loads.incrementAndGet();
+      return key.toUpperCase() + suffix;
+    }
+
+    @Override
+    public Map<String, String> loadAll(Iterable<? extends String> keys) {
+      bulkLoads.incrementAndGet();
+      Map<String, String> values = new HashMap<>();
+      for (String key : keys) {
+        values.put(key, key.toUpperCase() + suffix);
+      }
+      return values;
+    }
+  }
+
+  private static class FakeTicker extends Ticker {
+    private final AtomicLong nanos = new AtomicLong();
+
+    @Override
+    public long read() {
+      return nanos.get();
+    }
+
+    void advance(long time, TimeUnit unit) {
+      nanos.addAndGet(unit.toNanos(time));
+    }
+  }
+
+  private final Map<String, Object> gauge = new ConcurrentHashMap<>();
+
+  @After
+  public void tearDown() {
+    SharedLookupCache.getPipelineSharedCaches().clear();
+  }
+
+  private Stage.Context createContext(Map<String, Object> runnerSharedMap) {
+    Stage.Context context = Mockito.mock(Stage.Context.class);
+    Mockito.when(context.getStageRunnerSharedMap()).thenReturn(runnerSharedMap);
+    Gauge<Map<String, Object>> stageGauge = () -> gauge;
+    Mockito.when(context.createGauge(Mockito.anyString())).thenReturn(stageGauge);
+    return context;
+  }
+
+  private static CacheConfig createConfig() {
+    CacheConfig conf = new CacheConfig();
+    conf.enabled = true;
+    conf.evictionPolicyType = EvictionPolicyType.EXPIRE_AFTER_WRITE;
+    conf.expirationTime = 10;
+    conf.timeUnit = TimeUnit.SECONDS;
+    return conf;
+  }
+
+  @Test
+  public void testSharedByRunners() throws Exception {
+    Map<String, Object> runnerSharedMap = new HashMap<>();
+    CountingLoader loader1 = new CountingLoader();
+    CountingLoader loader2 = new CountingLoader();
+    LoadingCache<String, String> runner1 = LookupUtils.buildCache(createContext(runnerSharedMap), loader1, createConfig(), null);
+    LoadingCache<String, String> runner2 = LookupUtils.buildCache(createContext(runnerSharedMap), loader2, createConfig(), null);
+
+    Assert.assertEquals("A", runner1.get("a"));
+    Assert.assertEquals("A", runner2.get("a"));
+    Assert.assertEquals("B", runner2.get("b"));
+    Assert.assertEquals(1, loader1.loads.get());
+    Assert.assertEquals(1, loader2.loads.get());
+
+    Assert.assertEquals(1, runner1.stats().hitCount());
+    Assert.assertEquals(2, runner1.stats().missCount());
+    Assert.assertEquals(2, runner2.size());
+
+    LookupUtils.releaseCache(runner1);
+    Assert.assertEquals(1L, gauge.get("Hits"));
+    Assert.assertEquals(2L, gauge.get("Misses"));
+    Assert.assertEquals(2L, gauge.get("Entries"));
+    Assert.assertTrue((Double) gauge.get("Estimated Size (MB)") > 0);
+    Assert.assertTrue(runnerSharedMap.containsKey(SharedLookupCache.RUNNER_SHARED_KEY));
+
+    LookupUtils.releaseCache(runner2);
+    Assert.assertTrue(runnerSharedMap.isEmpty());
+  }
+
+  @Test
+  public void testGetAllLoadsMissingKeysTogether() throws Exception {
+    CountingLoader loader = new CountingLoader();
+    LoadingCache<String, String> cache = LookupUtils.buildCache(createContext(new HashMap<>()), loader, createConfig(), null);
+
+    Assert.assertEquals("A", cache.get("a"));
+    Map<String, String> values = cache.getAll(ImmutableList.of("c", "a", "b", "c"));
+    Assert.assertEquals(ImmutableList.of("c", "a", "b"), ImmutableList.copyOf(values.keySet()));
+    Assert.assertEquals(ImmutableMap.of("a", "A", "b", "B", "c", "C"), values);
+    Assert.assertEquals(1, loader.loads.get());
+    Assert.assertEquals(1, loader.bulkLoads.get());
+
+    Assert.assertEquals(values, cache.getAll(ImmutableList.of("a", "b", "c")));
+    Assert.assertEquals(1, loader.bulkLoads.get());
+    LookupUtils.releaseCache(cache);
+  }
+
+  @Test
+  public void testSharedAcrossPipelines() throws Exception {
+    CacheConfig conf = createConfig();
+    conf.shareAcrossPipelines = true;
+    CountingLoader loader = new CountingLoader();
+    LoadingCache<String, String> pipeline1 = LookupUtils.buildCache(createContext(new HashMap<>()), loader, conf, "db1");
+    LoadingCache<String, String> pipeline2 = LookupUtils.buildCache(createContext(new HashMap<>()), loader, conf, "db1");
+    LoadingCache<String, String> otherDb = LookupUtils.buildCache(createContext(new HashMap<>()), loader, conf, "db2");
+
+    pipeline1.get("a");
+    pipeline2.get("a");
+    Assert.assertEquals(1, loader.loads.get());
+    otherDb.get("a");
+    Assert.assertEquals(2, loader.loads.get());
+    Assert.assertEquals(2, SharedLookupCache.getPipelineSharedCaches().size());
+
+    LookupUtils.releaseCache(pipeline1);
+    LookupUtils.releaseCache(pipeline2);
+    LookupUtils.releaseCache(otherDb);
+    Assert.assertTrue(SharedLookupCache.getPipelineSharedCaches().isEmpty());
+  }
+
+  @Test
+  public void testCredentialsKey() {
+    String key = LookupUtils.getCredentialsKey("user", "secret");
+    Assert.assertEquals(key, LookupUtils.getCredentialsKey("user", "secret"));
+    Assert.assertFalse(key.contains("secret"));
+    Assert.assertNotEquals(key, LookupUtils.getCredentialsKey("other", "secret"));
+    Assert.assertNotEquals(key, LookupUtils.getCredentialsKey("user", "other"));
+    Assert.assertNotEquals(
+        LookupUtils.getCredentialsKey(null, "ab", "c"),
+        LookupUtils.getCredentialsKey(null, "a", "bc")
+    );
+  }
+
+  @Test
+  public void testBoundedByEstimatedSize() throws Exception {
+    CacheConfig conf = createConfig();
+    conf.maxMemoryMB = 1;
+    LoadingCache<String, Field> cache = LookupUtils.buildCache(
+        createContext(new HashMap<>()),
+        new CacheLoader<String, Field>() {
+          @Override
+          public Field load(String key) {
+            // Roughly 200KB per value
+            return Field.create(new String(new char[100 * 1024]));
+          }
+        },
+        conf,
+        null
+    );
+
+    for (int i = 0; i < 20; i++) {
+      cache.get("key" + i);
+    }
+    Assert.assertTrue(cache.size() < 6);
+    Assert.assertTrue(cache.stats().evictionCount() > 14);
+    LookupUtils.releaseCache(cache);
+  }
+
+  @Test
+  public void testRefreshAhead() throws Exception {
+    CacheConfig conf = createConfig();
+    conf.refreshAhead = true;
+    FakeTicker ticker = new FakeTicker();
+    Map<String, Object> runnerSharedMap = new HashMap<>();
+    SharedLookupCache shared = new SharedLookupCache(conf, ticker, runnerSharedMap, SharedLookupCache.RUNNER_SHARED_KEY);
+    runnerSharedMap.put(SharedLookupCache.RUNNER_SHARED_KEY, shared);
+    CountingLoader loader = new CountingLoader();
+    LoadingCache<String, String> cache = new SharedLoadingCache<>(shared, loader, () -> gauge);
+
+    Assert.assertEquals("A", cache.get("a"));
+
+    // Not stale yet
+    ticker.advance(5, TimeUnit.SECONDS);
+    Assert.assertEquals("A", cache.get("a"));
+    Assert.assertEquals(1, loader.loads.get());
+
+    // Stale value is still returned while it's being reloaded in the background
+    loader.suffix = "2";
+    ticker.advance(3, TimeUnit.SECONDS);
+    Assert.assertEquals("A", cache.get("a"));
+    long deadline = System.currentTimeMillis() + 10000;
+    while (!"A2".equals(cache.getIfPresent("a")) && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals("A2", cache.get("a"));
+    Assert.assertEquals(2, loader.loads.get());
+
+    // Refreshed entry didn't expire with the original one
+    ticker.advance(5, TimeUnit.SECONDS);
+    Assert.assertEquals("A2", cache.getIfPresent("a"));
+    LookupUtils.releaseCache(cache);
+    Assert.assertTrue(runnerSharedMap.isEmpty());
+  }
+
+  @Test
+  public void testEstimate() {
+    Assert.assertEquals(0, FieldSizeEstimator.estimate(null));
+    long small = FieldSizeEstimator.estimate(Field.create("a"));
+    long large = FieldSizeEstimator.estimate(Field.create(new String(new char[1000])));
+    Assert.assertTrue(large - small >= 1000);
+
+    Map<String, Field> row = ImmutableMap.of("name", Field.create("a"), "id", Field.create(1));
+    long list = FieldSizeEstimator.estimate(java.util.Optional.of(ImmutableList.of(row, row)));
+    Assert.assertTrue(list > 2 * FieldSizeEstimator.estimate(row));
+  }
+}
@@ -22,6 +22,7 @@ import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.api.base.SingleLaneProcessor;
 import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.inference.InferenceScheduler;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import ml.combust.mleap.core.types.BasicType;
@@ -55,6 +56,7 @@ public class MLeapProcessor extends SingleLaneProcessor {
   private LeapFrameBuilder leapFrameBuilder;
   private LeapFrameSupport leapFrameSupport;
   private ErrorRecordHandler errorRecordHandler;
+  private InferenceScheduler scheduler;
 
   MLeapProcessor(MLeapProcessorConfigBean conf) {
     this.conf = conf;
@@ -131,26 +133,44 @@ public class MLeapProcessor extends SingleLaneProcessor {
         ));
       }
 
+      scheduler = new InferenceScheduler(getContext(), conf.recordsPerInference);
     }
     return configIssues;
   }
 
   @Override
   public void process(Batch batch, SingleLaneBatchMaker batchMaker) throws StageException {
-    // MLeap supports scoring multiple point simultaneously (better performance) so processing batch instead of
-    // record by record like it is done in other ML Evaluator processors
+    // MLeap supports scoring multiple point simultaneously (better performance) so processing chunks of records
+    // instead of record by record like it is done in other ML Evaluator processors
     List<Record> records = new ArrayList<>();
     batch.getRecords().forEachRemaining(records::add);
-    DefaultLeapFrame inputLeapFrame = convertRecordsToLeapFrame(records);
-    DefaultLeapFrame outputLeapFrame;
-    try {
-      outputLeapFrame = mLeapPipeline.transform(inputLeapFrame).get();
-    } catch (Exception ex) {
-      LOG.error(Utils.format(Errors.MLEAP_05.getMessage(), ex.getMessage()), ex);
-      errorRecordHandler.onError(records, new StageException(Errors.MLEAP_05, ex.toString()));
-      return;
-    }
-    processTransformOutput(records, batchMaker, outputLeapFrame);
+    scheduler.process(records, new InferenceScheduler.Evaluator<DefaultLeapFrame, DefaultLeapFrame>() {
+      @Override
+      public DefaultLeapFrame prepare(List<Record> records) throws StageException {
+        DefaultLeapFrame inputLeapFrame = convertRecordsToLeapFrame(records);
+        return records.isEmpty() ? null : inputLeapFrame;
+      }
+
+      @Override
+      public DefaultLeapFrame infer(DefaultLeapFrame inputLeapFrame) {
+        return mLeapPipeline.transform(inputLeapFrame).get();
+      }
+
+      @Override
+      public void complete(
+          List<Record> records,
+          DefaultLeapFrame inputLeapFrame,
+          DefaultLeapFrame outputLeapFrame
+      ) throws StageException {
+        processTransformOutput(records, batchMaker, outputLeapFrame);
+      }
+
+      @Override
+      public void fail(List<Record> records, DefaultLeapFrame inputLeapFrame, Exception ex) throws StageException {
+        LOG.error(Utils.format(Errors.MLEAP_05.getMessage(), ex.getMessage()), ex);
+        errorRecordHandler.onError(records, new StageException(Errors.MLEAP_05, ex.toString()));
+      }
+    });
   }
 
   private DefaultLeapFrame convertRecordsToLeapFrame(List<Record> records) throws StageException {
@@ -200,9 +220,10 @@ public class MLeapProcessor extends SingleLaneProcessor {
     StructType outputSchema = outputFrame.schema();
     List<StructField> structFieldList = leapFrameSupport.getFields(outputSchema);
 
-    for(Record record: records) {
+    for (int r = 0; r < records.size(); r++) {
+      Record record = records.get(r);
       LinkedHashMap<String, Field> outputFieldMap = new LinkedHashMap<>();
-      Row mLeapOutputRow = outputRows.get(0);
+      Row mLeapOutputRow = outputRows.get(r);
       try {
         int i = 0;
         for (StructField structField: structFieldList) {
@@ -283,6 +304,9 @@ public class MLeapProcessor extends SingleLaneProcessor {
   @Override
   public void destroy() {
     super.destroy();
+    if (scheduler != null) {
+      scheduler.destroy();
+    }
     if (mLeapPipeline != null) {
       mLeapPipeline.close();
     }
@@ -74,4 +74,16 @@ public class MLeapProcessorConfigBean {
   @FieldSelectorModel(singleValued = true)
   public String outputField = "/output";
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1000",
+      label = "Records per Inference",
+      description = "Maximum number of records scored by one model transformation",
+      displayPosition = 50,
+      group = "MLEAP",
+      min = 1
+  )
+  public int recordsPerInference = 1000;
+
 }
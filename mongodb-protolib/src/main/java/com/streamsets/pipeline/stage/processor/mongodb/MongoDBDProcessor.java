@@ -26,7 +26,7 @@ import com.streamsets.pipeline.api.base.configurablestage.DProcessor;
 import com.streamsets.pipeline.stage.common.mongodb.Groups;
 
 @StageDef(
-        version = 1,
+        version = 2,
         label = "MongoDB Lookup",
         description = "Performs KV lookups to enrich records",
         icon = "mongodb.png",
@@ -36,9 +36,11 @@ import com.streamsets.pipeline.stage.common.mongodb.Groups;
 )
 @ConfigGroups(Groups.class)
 @GenerateResourceBundle
-@HideConfigs(
-        "configBean.cacheConfig.retryOnCacheMiss"
-)
+@HideConfigs({
+        "configBean.cacheConfig.retryOnCacheMiss",
+        // Private class loader, stage instances of different pipelines never see each other
+        "configBean.cacheConfig.shareAcrossPipelines"
+})
 public class MongoDBDProcessor extends DProcessor  {
   @ConfigDefBean(groups = {"MONGODB", "LOOKUP", "CREDENTIALS", "ADVANCED"})
   public MongoDBProcessorConfigBean configBean;
@@ -16,6 +16,7 @@
 package com.streamsets.pipeline.stage.processor.mongodb;
 
 import com.google.common.cache.CacheLoader;
+import com.google.common.collect.Lists;
 import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
@@ -29,13 +30,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Loads lookup results for filter documents.
+ *
+ * Bulk loads combine up to MAX_KEYS_PER_QUERY filters into a single find: an $in on the field when all filters use
+ * the same single field and an $or otherwise. Returned documents are attributed back to the filters by comparing the
+ * filter values with the document values. Whenever a returned document can't be attributed with certainty (arrays,
+ * collations, ...) the filters of the whole chunk are left out of the result so that they get loaded individually.
+ */
 public class MongoDBLookupLoader extends CacheLoader<Document, Optional<List<Map<String, Field>>>> {
 
+  static final int MAX_KEYS_PER_QUERY = 1000;
+
+  // value of a document field that can't be compared with filter values, distinct from null which matches filters
+  // looking for a null or missing field
+  private static final Object NOT_COMPARABLE = new Object();
+
   private MongoCollection<Document> mongoCollection;
   private static final Logger LOG = LoggerFactory.getLogger(MongoDBLookupLoader.class);
 
@@ -49,6 +67,136 @@ public class MongoDBLookupLoader extends CacheLoader<Document, Optional<List<Map
     return lookupValuesForRecord(key);
   }
 
+  @Override
+  public Map<Document, Optional<List<Map<String, Field>>>> loadAll(Iterable<? extends Document> keys) throws Exception {
+    Map<Document, Optional<List<Map<String, Field>>>> values = new HashMap<>();
+    for (List<? extends Document> chunk : Lists.partition(Lists.newArrayList(keys), MAX_KEYS_PER_QUERY)) {
+      if (chunk.size() == 1) {
+        values.put(chunk.get(0), lookupValuesForRecord(chunk.get(0)));
+      } else {
+        values.putAll(lookupValuesForChunk(chunk));
+      }
+    }
+    return values;
+  }
+
+  private Map<Document, Optional<List<Map<String, Field>>>> lookupValuesForChunk(
+      List<? extends Document> keys
+  ) throws StageException {
+    // Filters are grouped by the fields they use, within a group they are indexed by their normalized values
+    Map<List<String>, Map<List<Object>, List<Document>>> groups = new LinkedHashMap<>();
+    for (Document key : keys) {
+      List<String> fields = new ArrayList<>(key.keySet());
+      groups.computeIfAbsent(fields, f -> new HashMap<>())
+          .computeIfAbsent(normalize(key.values()), v -> new ArrayList<>())
+          .add(key);
+    }
+
+    Document filter;
+    if (groups.size() == 1 && groups.keySet().iterator().next().size() == 1) {
+      String field = groups.keySet().iterator().next().get(0);
+      List<Object> in = new ArrayList<>(keys.size());
+      for (Document key : keys) {
+        in.add(key.get(field));
+      }
+      filter = new Document(field, new Document("$in", in));
+    } else {
+      filter = new Document("$or", keys);
+    }
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Going to lookup {} keys with: {}", keys.size(), filter.toJson());
+    }
+
+    Map<Document, List<Map<String, Field>>> lookupItems = new HashMap<>();
+    for (Document key : keys) {
+      lookupItems.put(key, new ArrayList<>());
+    }
+    boolean attributable = true;
+    try (MongoCursor<Document> ite = mongoCollection.find(filter).iterator()) {
+      while (ite.hasNext()) {
+        Document result = ite.next();
+        Map<String, Field> fields;
+        try {
+          fields = MongoDBUtil.createFieldFromDocument(result);
+        } catch (IOException io) {
+          LOG.error(Errors.MONGODB_06.getMessage(), mongoCollection, result.toJson());
+          throw new OnRecordErrorException(Errors.MONGODB_10, result.toJson());
+        }
+
+        boolean matched = false;
+        for (Map.Entry<List<String>, Map<List<Object>, List<Document>>> group : groups.entrySet()) {
+          List<Object> resultValues = new ArrayList<>(group.getKey().size());
+          for (String field : group.getKey()) {
+            resultValues.add(getValue(result, field));
+          }
+          if (resultValues.contains(NOT_COMPARABLE)) {
+            // Can't tell which filters the document matched
+            matched = false;
+            break;
+          }
+          List<Document> matchingKeys = group.getValue().get(normalize(resultValues));
+          if (matchingKeys != null) {
+            matched = true;
+            for (Document key : matchingKeys) {
+              lookupItems.get(key).add(fields);
+            }
+          }
+        }
+        if (!matched) {
+          attributable = false;
+          break;
+        }
+      }
+    }
+
+    if (!attributable) {
+      LOG.debug("Can't attribute bulk lookup results to {} keys, they will be looked up individually", keys.size());
+      return new HashMap<>();
+    }
+
+    Map<Document, Optional<List<Map<String, Field>>>> values = new HashMap<>();
+    for (Map.Entry<Document, List<Map<String, Field>>> entry : lookupItems.entrySet()) {
+      values.put(entry.getKey(), entry.getValue().isEmpty() ? Optional.empty() : Optional.of(entry.getValue()));
+    }
+    return values;
+  }
+
+  /**
+   * Returns value of given (possibly dotted) field of the document, null if it's missing and NOT_COMPARABLE if the
+   * path goes through an array as such values can't be compared directly.
+   */
+  private static Object getValue(Document document, String field) {
+    Object value = document;
+    for (String name : field.split("\\.")) {
+      if (value instanceof List) {
+        return NOT_COMPARABLE;
+      }
+      if (!(value instanceof Document)) {
+        return null;
+      }
+      value = ((Document) value).get(name);
+    }
+    return value instanceof List ? NOT_COMPARABLE : value;
+  }
+
+  /**
+   * MongoDB compares numbers by their value regardless of their type, so do we.
+   */
+  private static List<Object> normalize(Iterable<Object> values) {
+    List<Object> normalized = new ArrayList<>();
+    for (Object value : values) {
+      if (value instanceof Number) {
+        try {
+          value = new BigDecimal(value.toString()).stripTrailingZeros();
+        } catch (NumberFormatException e) {
+          // NaN, Infinity - keep as is
+        }
+      }
+      normalized.add(value);
+    }
+    return normalized;
+  }
+
   private Optional<List<Map<String, Field>>> lookupValuesForRecord(Document doc) throws StageException {
     List<Map<String, Field>> lookupItems = new ArrayList<>();
     if (LOG.isTraceEnabled()) {
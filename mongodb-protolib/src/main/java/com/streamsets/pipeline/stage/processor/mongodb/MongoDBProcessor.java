@@ -40,11 +40,15 @@ import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.concurrent.ExecutionException;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.LinkedHashMap;
+import java.util.Set;
 
 public class MongoDBProcessor extends SingleLaneRecordProcessor {
   private static final Logger LOG = LoggerFactory.getLogger(MongoDBProcessor.class);
@@ -55,6 +59,7 @@ public class MongoDBProcessor extends SingleLaneRecordProcessor {
   private MongoCollection<Document> mongoCollection;
   private LoadingCache<Document, Optional<List<Map<String, Field>>>> cache;
   private CacheCleaner cacheCleaner;
+  private Map<Document, Optional<List<Map<String, Field>>>> batchValues = Collections.emptyMap();
 
   protected MongoDBProcessor(MongoDBProcessorConfigBean config) {
     configBean= config;
@@ -88,7 +93,13 @@ public class MongoDBProcessor extends SingleLaneRecordProcessor {
     }
 
     MongoDBLookupLoader lookupLoader = new MongoDBLookupLoader(mongoCollection);
-    cache = LookupUtils.buildCache(lookupLoader, configBean.cacheConfig);
+    cache = LookupUtils.buildCache(
+        getContext(),
+        lookupLoader,
+        configBean.cacheConfig,
+        // Stage runs in a private class loader, so the cache can't be shared across pipelines
+        null
+    );
     cacheCleaner = new CacheCleaner(cache, "MongoDBProcessor", 10 * 60 * 1000);
     return issues;
   }
@@ -99,32 +110,45 @@ public class MongoDBProcessor extends SingleLaneRecordProcessor {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
-    // MongoDB's Java driver doesn't support bulk lookup. So perform lookup per record
-    super.process(batch, batchMaker);
+    // Resolve all distinct filters of the batch at once, the loader combines them into as few queries as possible
+    Set<Document> queries = new LinkedHashSet<>();
+    Iterator<Record> it = batch.getRecords();
+    while (it.hasNext()) {
+      Document query = createQuery(it.next());
+      if (!query.isEmpty()) {
+        queries.add(query);
+      }
+    }
+    try {
+      batchValues = queries.isEmpty() ? Collections.emptyMap() : cache.getAll(queries);
+    } catch (ExecutionException | RuntimeException e) {
+      // Records will be looked up one by one so that the failure is reported only for the records it belongs to
+      LOG.debug("Bulk lookup of {} keys failed, falling back to individual lookups: {}", queries.size(), e.toString(), e);
+      batchValues = Collections.emptyMap();
+    }
+    try {
+      super.process(batch, batchMaker);
+    } finally {
+      batchValues = Collections.emptyMap();
+    }
   }
 
   @Override
   protected void process(Record record, SingleLaneBatchMaker batchMaker) throws StageException {
-    // Construct a document for lookup filter
-    Document query = new Document();
-    for (MongoDBFieldColumnMapping mapping: configBean.fieldMapping) {
-      // if record doesn't have a field specified in the mapping, or value is null,
-      // exclude the field from filter, instead of sending to error.
-      if (record.has(mapping.sdcField) && record.get(mapping.sdcField) != null) {
-        query.append(mapping.keyName, record.get(mapping.sdcField).getValue());
-      }
-    }
+    Document query = createQuery(record);
     // If all of the filters are missing in record, we cannot perform lookup.
     if (query.isEmpty()) {
       throw new OnRecordErrorException(Errors.MONGODB_42, record);
     }
 
-    Optional<List<Map<String, Field>>> entry;
-    try {
-      entry = cache.get(query);
-    } catch (ExecutionException e) {
-      Throwables.propagateIfPossible(e.getCause(), StageException.class);
-      throw new IllegalStateException(e); // The cache loader shouldn't throw anything that isn't a StageException.
+    Optional<List<Map<String, Field>>> entry = batchValues.get(query);
+    if (entry == null) {
+      try {
+        entry = cache.get(query);
+      } catch (ExecutionException e) {
+        Throwables.propagateIfPossible(e.getCause(), StageException.class);
+        throw new IllegalStateException(e); // The cache loader shouldn't throw anything that isn't a StageException.
+      }
     }
 
     if (entry.isPresent()) {
@@ -160,6 +184,24 @@ public class MongoDBProcessor extends SingleLaneRecordProcessor {
     }
   }
 
+  /**
+   * Construct a document for lookup filter
+   * @param record Record to look up
+   * @return Filter document, empty if none of the mapped fields is present in the record
+   */
+  private Document createQuery(Record record) {
+    Document query = new Document();
+    for (MongoDBFieldColumnMapping mapping: configBean.fieldMapping) {
+      // if record doesn't have a field specified in the mapping, or value is null,
+      // exclude the field from filter, instead of sending to error.
+      Field field = record.get(mapping.sdcField);
+      if (field != null) {
+        query.append(mapping.keyName, field.getValue());
+      }
+    }
+    return query;
+  }
+
   /**
    * Set the lookup reuslt in the result field
    * @param record Lookup result
@@ -171,6 +213,9 @@ public class MongoDBProcessor extends SingleLaneRecordProcessor {
 
   @Override
   public void destroy() {
+    if (cache != null) {
+      LookupUtils.releaseCache(cache);
+    }
     IOUtils.closeQuietly(mongoClient);
     super.destroy();
   }
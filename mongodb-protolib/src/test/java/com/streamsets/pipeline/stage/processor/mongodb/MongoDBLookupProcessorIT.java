@@ -35,6 +35,7 @@ import org.testcontainers.containers.GenericContainer;
 import com.google.common.collect.ImmutableList;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
@@ -126,4 +127,65 @@ public class MongoDBLookupProcessorIT {
     Record result = output.get(0);
     Assert.assertEquals("StreamSets", result.get("/lookupResult/name").getValueAsString());
   }
+
+  @Test
+  public void testBatchLookup() throws StageException {
+    MongoDBProcessor processor = builder.resultField("/lookupResult")
+        .addFieldMapping(new MongoDBFieldColumnMapping("id", "/id"))
+        .build();
+
+    ProcessorRunner runner = new ProcessorRunner.Builder(MongoDBDProcessor.class, processor)
+        .addOutputLane("mongo").build();
+    runner.runInit();
+
+    List<Record> records = new ArrayList<>();
+    // Same id as a different numeric type has to be attributed correctly as well
+    for (Field id : ImmutableList.of(Field.create(1), Field.create(2), Field.create(1L), Field.create(3))) {
+      Record record = RecordCreator.create();
+      Map<String, Field> map = new HashMap<>();
+      map.put("id", id);
+      record.set(Field.create(map));
+      records.add(record);
+    }
+    List<Record> output = runner.runProcess(records).getRecords().get("mongo");
+
+    // Missing values are passed on by default
+    Assert.assertEquals(4, output.size());
+    Assert.assertEquals("StreamSets", output.get(0).get("/lookupResult/name").getValueAsString());
+    Assert.assertEquals("MongoDB", output.get(1).get("/lookupResult/name").getValueAsString());
+    Assert.assertEquals("StreamSets", output.get(2).get("/lookupResult/name").getValueAsString());
+    Assert.assertFalse(output.get(3).has("/lookupResult"));
+  }
+
+  @Test
+  public void testBatchLookupWithArrayAndNull() throws StageException {
+    testCollection.insertOne(
+        new Document()
+            .append("id", ImmutableList.of(5, 6))
+            .append("name", "Array")
+    );
+
+    MongoDBProcessor processor = builder.resultField("/lookupResult")
+        .addFieldMapping(new MongoDBFieldColumnMapping("id", "/id"))
+        .build();
+
+    ProcessorRunner runner = new ProcessorRunner.Builder(MongoDBDProcessor.class, processor)
+        .addOutputLane("mongo").build();
+    runner.runInit();
+
+    List<Record> records = new ArrayList<>();
+    // Document with an array id must not be attributed to the null filter
+    for (Field id : ImmutableList.of(Field.create(5), Field.create(Field.Type.INTEGER, null))) {
+      Record record = RecordCreator.create();
+      Map<String, Field> map = new HashMap<>();
+      map.put("id", id);
+      record.set(Field.create(map));
+      records.add(record);
+    }
+    List<Record> output = runner.runProcess(records).getRecords().get("mongo");
+
+    Assert.assertEquals(2, output.size());
+    Assert.assertEquals("Array", output.get(0).get("/lookupResult/name").getValueAsString());
+    Assert.assertFalse(output.get(1).has("/lookupResult"));
+  }
 }
@@ -48,6 +48,30 @@ public class RedisLookupConfig {
   )
   public int connectionTimeout = 60;
 
+  @ConfigDef(
+      type = ConfigDef.Type.NUMBER,
+      label = "Pipeline Depth",
+      description = "Maximum number of keys resolved in a single MGET or pipelined round trip during batch lookups.",
+      defaultValue = "1000",
+      required = true,
+      min = 1,
+      group = "REDIS",
+      displayPosition = 30
+  )
+  public int pipelineDepth = 1000;
+
+  @ConfigDef(
+      type = ConfigDef.Type.NUMBER,
+      label = "Parallel Connections",
+      description = "Number of connections used in parallel to resolve keys of a single batch.",
+      defaultValue = "4",
+      required = true,
+      min = 1,
+      group = "REDIS",
+      displayPosition = 40
+  )
+  public int parallelConnections = 4;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
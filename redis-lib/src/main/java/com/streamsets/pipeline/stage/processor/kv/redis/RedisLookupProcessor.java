@@ -102,7 +102,7 @@ public class RedisLookupProcessor extends BaseProcessor {
       error = new DefaultErrorRecordHandler(getContext());
       keyExprEval = getContext().createELEval("keyExpr");
       store = new RedisStore(conf);
-      cache = LookupUtils.buildCache(store, conf.cache);
+      cache = LookupUtils.buildCache(getContext(), store, conf.cache, conf.uri);
 
       cacheCleaner = new CacheCleaner(cache, "RedisLookupProcessor", 10 * 60 * 1000);
     }
@@ -300,6 +300,9 @@ public class RedisLookupProcessor extends BaseProcessor {
   @Override
   public void destroy() {
     super.destroy();
+    if (cache != null) {
+      LookupUtils.releaseCache(cache);
+    }
     if (store != null) {
       try {
         store.close();
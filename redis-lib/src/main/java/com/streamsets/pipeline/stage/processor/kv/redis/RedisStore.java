@@ -17,31 +17,52 @@ package com.streamsets.pipeline.stage.processor.kv.redis;
 
 import com.google.common.cache.CacheLoader;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.streamsets.pipeline.lib.redis.DataType;
 import org.apache.commons.lang3.tuple.Pair;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
 
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RedisStore extends CacheLoader<Pair<String, DataType>, LookupValue> {
   private final RedisLookupConfig conf;
   private final JedisPool pool;
+  private final ExecutorService executor;
 
   public RedisStore(RedisLookupConfig conf) {
     this.conf = conf;
 
     final JedisPoolConfig poolConfig = new JedisPoolConfig();
     poolConfig.setBlockWhenExhausted(true);
+    poolConfig.setMaxTotal(Math.max(poolConfig.getMaxTotal(), conf.parallelConnections));
 
     pool = new JedisPool(poolConfig, URI.create(conf.uri), conf.connectionTimeout * 1000); // connectionTimeout value is in seconds
+
+    if (conf.parallelConnections > 1) {
+      executor = Executors.newFixedThreadPool(
+          conf.parallelConnections,
+          new ThreadFactoryBuilder().setNameFormat("redis-lookup-%d").setDaemon(true).build()
+      );
+    } else {
+      executor = null;
+    }
   }
 
   @Override
@@ -92,12 +113,105 @@ public class RedisStore extends CacheLoader<Pair<String, DataType>, LookupValue>
     return values;
   }
 
+  /**
+   * Resolves all given keys, returned values are in the same order as the keys.
+   *
+   * Keys are grouped by their data type and split into chunks of at most pipelineDepth keys. Strings are resolved with
+   * a single MGET per chunk, all other types are sent in one pipelined round trip per chunk. Chunks are processed in
+   * parallel on up to parallelConnections connections.
+   */
   public List<LookupValue> get(List<Pair<String, DataType>> keys) {
-    List<LookupValue> result = new ArrayList<>();
-    for(Pair<String, DataType> key : keys) {
-      result.add(get(key));
+    if (keys.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    // Indexes of the keys, grouped by data type
+    Map<DataType, List<Integer>> byType = new EnumMap<>(DataType.class);
+    for (int i = 0; i < keys.size(); i++) {
+      byType.computeIfAbsent(keys.get(i).getRight(), t -> new ArrayList<>()).add(i);
+    }
+
+    List<List<Integer>> chunks = new ArrayList<>();
+    for (List<Integer> indexes : byType.values()) {
+      chunks.addAll(Lists.partition(indexes, Math.max(1, conf.pipelineDepth)));
+    }
+
+    LookupValue[] result = new LookupValue[keys.size()];
+    if (executor == null || chunks.size() == 1) {
+      for (List<Integer> chunk : chunks) {
+        getChunk(keys, chunk, result);
+      }
+    } else {
+      List<Future<?>> futures = new ArrayList<>(chunks.size());
+      for (List<Integer> chunk : chunks) {
+        futures.add(executor.submit(() -> getChunk(keys, chunk, result)));
+      }
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new JedisException("Interrupted while waiting for batch lookup", e);
+        } catch (ExecutionException e) {
+          if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
+          }
+          throw new JedisException(e.getCause());
+        }
+      }
+    }
+    return Arrays.asList(result);
+  }
+
+  /**
+   * Resolves keys on given indexes (all of them having the same data type) in one round trip.
+   */
+  @SuppressWarnings("unchecked")
+  private void getChunk(List<Pair<String, DataType>> keys, List<Integer> indexes, LookupValue[] result) {
+    DataType type = keys.get(indexes.get(0)).getRight();
+    try (Jedis jedis = pool.getResource()) {
+      if (type == DataType.STRING) {
+        String[] names = new String[indexes.size()];
+        for (int i = 0; i < names.length; i++) {
+          names[i] = keys.get(indexes.get(i)).getLeft();
+        }
+        List<String> values = jedis.mget(names);
+        for (int i = 0; i < names.length; i++) {
+          result[indexes.get(i)] = new LookupValue(values.get(i), type);
+        }
+        return;
+      }
+
+      Pipeline pipeline = jedis.pipelined();
+      List<Response<?>> responses = new ArrayList<>(indexes.size());
+      for (Integer index : indexes) {
+        String key = keys.get(index).getLeft();
+        switch (type) {
+          case LIST:
+            responses.add(pipeline.lrange(key, 0, -1));
+            break;
+          case HASH:
+            responses.add(pipeline.hgetAll(key));
+            break;
+          case SET:
+            responses.add(pipeline.smembers(key));
+            break;
+          default:
+            responses.add(null);
+        }
+      }
+      pipeline.sync();
+
+      for (int i = 0; i < indexes.size(); i++) {
+        Response<?> response = responses.get(i);
+        Object value = response == null ? null : response.get();
+        if (type == DataType.HASH && value != null && !(value instanceof HashMap)) {
+          // Record conversion expects the same map type as returned by non pipelined HGETALL
+          value = new HashMap<>((Map<String, String>) value);
+        }
+        result[indexes.get(i)] = response == null ? null : new LookupValue(value, type);
+      }
     }
-    return result;
   }
 
   public void put(String key, String value) {
@@ -139,6 +253,9 @@ public class RedisStore extends CacheLoader<Pair<String, DataType>, LookupValue>
   }
 
   public void close() throws Exception {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
     pool.close();
   }
 
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.processor.kv.redis;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.streamsets.pipeline.lib.redis.DataType;
+import com.streamsets.pipeline.stage.origin.redis.RandomPortFinder;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import redis.clients.jedis.Jedis;
+import redis.embedded.RedisServer;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestRedisStore {
+  private static final String REDIS_URI_TEMPLATE = "redis://localhost:%d/0";
+  private RedisServer redisServer;
+  private int redisPort;
+
+  @Before
+  public void setUp() throws Exception {
+    redisPort = RandomPortFinder.find();
+    redisServer = new RedisServer(redisPort);
+    redisServer.start();
+
+    try (Jedis jedis = new Jedis(URI.create(String.format(REDIS_URI_TEMPLATE, redisPort)))) {
+      for (int i = 0; i < 25; i++) {
+        jedis.set("string" + i, "value" + i);
+      }
+      jedis.rpush("list", "a", "b", "c");
+      jedis.hmset("hash", ImmutableMap.of("k1", "v1", "k2", "v2"));
+      jedis.sadd("set", "x", "y");
+    }
+  }
+
+  @After
+  public void tearDown() {
+    redisServer.stop();
+  }
+
+  private RedisLookupConfig getConfig(int pipelineDepth, int parallelConnections) {
+    RedisLookupConfig conf = new RedisLookupConfig();
+    conf.uri = String.format(REDIS_URI_TEMPLATE, redisPort);
+    conf.pipelineDepth = pipelineDepth;
+    conf.parallelConnections = parallelConnections;
+    return conf;
+  }
+
+  @Test
+  public void testBatchedGetPreservesOrder() throws Exception {
+    List<Pair<String, DataType>> keys = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      keys.add(Pair.of("string" + i, DataType.STRING));
+      if (i == 10) {
+        keys.add(Pair.of("list", DataType.LIST));
+        keys.add(Pair.of("hash", DataType.HASH));
+        keys.add(Pair.of("set", DataType.SET));
+        keys.add(Pair.of("missing", DataType.HASH));
+      }
+    }
+
+    for (int connections : new int[] {1, 4}) {
+      RedisStore store = new RedisStore(getConfig(7, connections));
+      try {
+        List<LookupValue> values = store.get(keys);
+        Assert.assertEquals(keys.size(), values.size());
+        for (int i = 0; i < keys.size(); i++) {
+          Assert.assertEquals(keys.get(i).getRight(), values.get(i).getType());
+          Assert.assertEquals(store.get(keys.get(i)).getValue(), values.get(i).getValue());
+        }
+
+        Assert.assertEquals("value0", values.get(0).getValue());
+        Assert.assertNull(values.get(keys.size() - 1).getValue());
+        Assert.assertEquals(ImmutableList.of("a", "b", "c"), values.get(11).getValue());
+        Assert.assertEquals(ImmutableMap.of("k1", "v1", "k2", "v2"), values.get(12).getValue());
+        Assert.assertTrue(values.get(12).getValue() instanceof HashMap);
+        Assert.assertEquals(ImmutableSet.of("x", "y"), values.get(13).getValue());
+        Assert.assertTrue(((Map) values.get(14).getValue()).isEmpty());
+      } finally {
+        store.close();
+      }
+    }
+  }
+
+  @Test
+  public void testLoadAll() throws Exception {
+    RedisStore store = new RedisStore(getConfig(2, 2));
+    try {
+      Map<Pair<String, DataType>, LookupValue> values = store.loadAll(ImmutableList.of(
+          Pair.of("string1", DataType.STRING),
+          Pair.of("string2", DataType.STRING),
+          Pair.of("string3", DataType.STRING),
+          Pair.of("set", DataType.SET)
+      ));
+      Assert.assertEquals(4, values.size());
+      Assert.assertEquals("value3", values.get(Pair.of("string3", DataType.STRING)).getValue());
+      Assert.assertEquals(ImmutableSet.of("x", "y"), values.get(Pair.of("set", DataType.SET)).getValue());
+    } finally {
+      store.close();
+    }
+  }
+}
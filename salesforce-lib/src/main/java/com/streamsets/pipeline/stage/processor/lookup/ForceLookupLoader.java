@@ -17,6 +17,7 @@ package com.streamsets.pipeline.stage.processor.lookup;
 
 import com.google.common.cache.CacheLoader;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.sforce.soap.partner.QueryResult;
 import com.sforce.soap.partner.fault.ApiFault;
 import com.sforce.soap.partner.sobject.SObject;
@@ -30,14 +31,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+/**
+ * Loads results of SOQL lookup queries.
+ *
+ * Bulk loads merge simple queries of the form SELECT ... FROM ... WHERE field = 'value' that differ only in the value
+ * into chunks of SELECT ... WHERE field IN ('value1', 'value2', ...) queries. Returned records are attributed back
+ * to the original queries by the value of the field, so the field has to be selected. Queries that can't be merged,
+ * or whose results can't be attributed with certainty, are left out of the result to be loaded individually.
+ */
 class ForceLookupLoader extends CacheLoader<String, Optional<List<Map<String, Field>>>> {
   private static final Logger LOG = LoggerFactory.getLogger(ForceLookupLoader.class);
   private static final String COUNT = "count";
+  private static final Pattern EQUALITY_QUERY = Pattern.compile(
+      "^\\s*(SELECT\\s+([^()]+?)\\s+FROM\\s+\\w+\\s+WHERE\\s+)(\\w+)\\s*=\\s*'([^'\\\\]+)'\\s*$",
+      Pattern.CASE_INSENSITIVE | Pattern.DOTALL
+  );
+  static final int MAX_KEYS_PER_QUERY = 200;
 
   private final ForceLookupProcessor processor;
 
@@ -50,7 +69,108 @@ class ForceLookupLoader extends CacheLoader<String, Optional<List<Map<String, Fi
     return lookupValuesForRecord(key);
   }
 
+  @Override
+  public Map<String, Optional<List<Map<String, Field>>>> loadAll(Iterable<? extends String> keys) throws Exception {
+    // Mergeable queries grouped by their part up to the value, then by the value
+    Map<String, Map<String, List<String>>> groups = new LinkedHashMap<>();
+    Map<String, String> groupFields = new HashMap<>();
+    for (String key : keys) {
+      Matcher matcher = EQUALITY_QUERY.matcher(key);
+      if (matcher.matches() && isSelected(matcher.group(2), matcher.group(3))) {
+        String queryPrefix = matcher.group(1) + matcher.group(3);
+        groupFields.put(queryPrefix, matcher.group(3));
+        groups.computeIfAbsent(queryPrefix, g -> new LinkedHashMap<>())
+            .computeIfAbsent(matcher.group(4), v -> new ArrayList<>())
+            .add(key);
+      }
+    }
+
+    Map<String, Optional<List<Map<String, Field>>>> values = new HashMap<>();
+    for (Map.Entry<String, Map<String, List<String>>> group : groups.entrySet()) {
+      if (group.getValue().size() < 2) {
+        continue;
+      }
+      // SOQL compares strings case insensitively, values that differ only in case can't be told apart in the results
+      Map<String, String> valuesByLowerCase = new HashMap<>();
+      Set<String> ambiguous = new HashSet<>();
+      for (String value : group.getValue().keySet()) {
+        String previous = valuesByLowerCase.put(value.toLowerCase(), value);
+        if (previous != null) {
+          ambiguous.add(previous.toLowerCase());
+        }
+      }
+      List<String> mergeable = new ArrayList<>();
+      for (String value : group.getValue().keySet()) {
+        if (!ambiguous.contains(value.toLowerCase())) {
+          mergeable.add(value);
+        }
+      }
+      String field = groupFields.get(group.getKey());
+      for (List<String> chunk : Lists.partition(mergeable, MAX_KEYS_PER_QUERY)) {
+        values.putAll(lookupValuesForChunk(group.getKey(), field, chunk, group.getValue()));
+      }
+    }
+    return values;
+  }
+
+  private Map<String, Optional<List<Map<String, Field>>>> lookupValuesForChunk(
+      String queryPrefix,
+      String field,
+      List<String> chunk,
+      Map<String, List<String>> queriesByValue
+  ) throws StageException {
+    StringBuilder query = new StringBuilder(queryPrefix).append(" IN (");
+    for (int i = 0; i < chunk.size(); i++) {
+      query.append(i == 0 ? "'" : ", '").append(chunk.get(i)).append("'");
+    }
+    query.append(")");
+
+    Map<String, List<Map<String, Field>>> lookupItems = new HashMap<>();
+    for (String value : chunk) {
+      lookupItems.put(value, new ArrayList<>());
+    }
+    for (Map<String, Field> item : runQuery(query.toString())) {
+      Field value = null;
+      for (Map.Entry<String, Field> entry : item.entrySet()) {
+        if (entry.getKey().equalsIgnoreCase(field)) {
+          value = entry.getValue();
+        }
+      }
+      List<Map<String, Field>> items = (value == null || value.getValue() == null)
+          ? null
+          : lookupItems.get(value.getValueAsString());
+      if (items == null) {
+        LOG.debug("Can't attribute results of '{}', {} queries will be run individually", query, chunk.size());
+        return new HashMap<>();
+      }
+      items.add(item);
+    }
+
+    Map<String, Optional<List<Map<String, Field>>>> values = new HashMap<>();
+    for (Map.Entry<String, List<Map<String, Field>>> entry : lookupItems.entrySet()) {
+      for (String key : queriesByValue.get(entry.getKey())) {
+        values.put(key, entry.getValue().isEmpty() ? Optional.empty() : Optional.of(entry.getValue()));
+      }
+    }
+    return values;
+  }
+
+  private static boolean isSelected(String fieldList, String field) {
+    for (String selected : fieldList.split(",")) {
+      if (selected.trim().equalsIgnoreCase(field)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Optional<List<Map<String, Field>>> lookupValuesForRecord(String preparedQuery) throws StageException {
+    List<Map<String, Field>> lookupItems = runQuery(preparedQuery);
+    // If no lookup items were found, use defaults
+    return lookupItems.isEmpty() ? Optional.empty() : Optional.of(lookupItems);
+  }
+
+  private List<Map<String, Field>> runQuery(String preparedQuery) throws StageException {
     List<Map<String, Field>> lookupItems = new ArrayList<>();
 
     try {
@@ -67,18 +187,13 @@ class ForceLookupLoader extends CacheLoader<String, Optional<List<Map<String, Fi
         queryResult = processor.partnerConnection.queryMore(queryResult.getQueryLocator());
         addResult(lookupItems, queryResult);
       }
-
-      // If no lookup items were found, use defaults
-      if(lookupItems.isEmpty()) {
-        return Optional.empty();
-      }
     } catch (ConnectionException e) {
       String message = (e instanceof ApiFault) ? ((ApiFault)e).getExceptionMessage() : e.getMessage();
       LOG.error(Errors.FORCE_17.getMessage(), preparedQuery, message, e);
       throw new OnRecordErrorException(Errors.FORCE_17, preparedQuery, message, e);
     }
 
-    return Optional.of(lookupItems);
+    return lookupItems;
   }
 
   private void addResult(List<Map<String, Field>> lookupItems, QueryResult queryResult) throws StageException {
@@ -18,7 +18,6 @@ package com.streamsets.pipeline.stage.processor.lookup;
 import com.google.common.base.Strings;
 import com.google.common.base.Throwables;
 import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -57,7 +56,7 @@ import com.streamsets.pipeline.lib.salesforce.SoapRecordCreator;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import com.streamsets.pipeline.stage.origin.salesforce.Groups;
-import com.streamsets.pipeline.stage.processor.kv.EvictionPolicyType;
+import com.streamsets.pipeline.stage.processor.kv.LookupUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,10 +64,13 @@ import org.slf4j.LoggerFactory;
 import javax.xml.namespace.QName;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -89,6 +91,8 @@ public class ForceLookupProcessor extends SingleLaneRecordProcessor {
   Map<String, DataType> columnsToTypes = new HashMap<>();
 
   private Cache<String, Optional<List<Map<String, Field>>>> cache;
+  private final Map<Record, String> batchQueries = new IdentityHashMap<>();
+  private Map<String, Optional<List<Map<String, Field>>>> batchValues = Collections.emptyMap();
 
   PartnerConnection partnerConnection;
   private ErrorRecordHandler errorRecordHandler;
@@ -413,7 +417,62 @@ public class ForceLookupProcessor extends SingleLaneRecordProcessor {
       // No records - take the opportunity to clean up the cache so that we don't hold on to memory indefinitely
       cacheCleaner.periodicCleanUp();
     }
-    super.process(batch, batchMaker);
+    prepareBatchQueries(batch);
+    try {
+      super.process(batch, batchMaker);
+    } finally {
+      batchQueries.clear();
+      batchValues = Collections.emptyMap();
+    }
+  }
+
+  /**
+   * Runs all distinct queries of the batch at once so that the loader can merge them into fewer round trips. The
+   * loader relies on the metadata of the current record creator, so this is done only if all queries are for the
+   * same object type.
+   */
+  @SuppressWarnings("unchecked")
+  private void prepareBatchQueries(Batch batch) {
+    SoapRecordCreator batchRecordCreator = null;
+    Iterator<Record> it = batch.getRecords();
+    while (it.hasNext()) {
+      Record record = it.next();
+      try {
+        batchQueries.put(record, prepareQuery(record));
+        if (batchRecordCreator == null) {
+          batchRecordCreator = recordCreator;
+        } else if (batchRecordCreator != recordCreator) {
+          LOG.debug("Batch queries multiple object types, looking up records individually");
+          batchQueries.clear();
+          return;
+        }
+      } catch (StageException e) {
+        // Reported when the record itself is processed
+        LOG.trace("Can't prepare query for record {}: {}", record.getHeader().getSourceId(), e.toString());
+      }
+    }
+    if (batchQueries.isEmpty()) {
+      return;
+    }
+    try {
+      batchValues = ((LoadingCache<String, Optional<List<Map<String, Field>>>>)cache)
+          .getAll(new LinkedHashSet<>(batchQueries.values()));
+    } catch (ExecutionException | RuntimeException e) {
+      // Records will be looked up one by one so that the failure is reported only for the records it belongs to
+      LOG.debug("Bulk lookup of {} queries failed, falling back to individual lookups: {}",
+          batchQueries.size(),
+          e.toString(),
+          e
+      );
+      batchValues = Collections.emptyMap();
+    }
+  }
+
+  private String prepareQuery(Record record) throws StageException {
+    ELVars elVars = getContext().createELVars();
+    RecordEL.setRecordInContext(elVars, record);
+    TimeNowEL.setTimeNowInContext(elVars, new Date());
+    return prepareQuery(queryEval.eval(elVars, conf.soqlQuery, String.class));
   }
 
   @SuppressWarnings("unchecked")
@@ -422,13 +481,16 @@ public class ForceLookupProcessor extends SingleLaneRecordProcessor {
       Record record, SingleLaneBatchMaker batchMaker
   ) throws StageException {
     try {
-      ELVars elVars = getContext().createELVars();
-      RecordEL.setRecordInContext(elVars, record);
-      TimeNowEL.setTimeNowInContext(elVars, new Date());
-      String preparedQuery = prepareQuery(queryEval.eval(elVars, conf.soqlQuery, String.class));
-      // Need this ugly cast since there isn't a way to do a simple
-      // get with the Cache interface
-      Optional<List<Map<String, Field>>> entry = ((LoadingCache<String, Optional<List<Map<String, Field>>>>)cache).get(preparedQuery);
+      String preparedQuery = batchQueries.get(record);
+      if (preparedQuery == null) {
+        preparedQuery = prepareQuery(record);
+      }
+      Optional<List<Map<String, Field>>> entry = batchValues.get(preparedQuery);
+      if (entry == null) {
+        // Need this ugly cast since there isn't a way to do a simple
+        // get with the Cache interface
+        entry = ((LoadingCache<String, Optional<List<Map<String, Field>>>>)cache).get(preparedQuery);
+      }
 
       if (!entry.isPresent()) {
         // No results
@@ -495,38 +557,47 @@ public class ForceLookupProcessor extends SingleLaneRecordProcessor {
     return preparedQuery;
   }
 
-  @SuppressWarnings("unchecked")
   private Cache<String, Optional<List<Map<String, Field>>>> buildCache() {
-    CacheBuilder cacheBuilder = CacheBuilder.newBuilder();
-
-    if (!conf.cacheConfig.enabled) {
-      return (conf.lookupMode == QUERY)
-          ? cacheBuilder.maximumSize(0).build(new ForceLookupLoader(this))
-          : cacheBuilder.maximumSize(0).build();
-    }
+    // Retrieve lookups don't use the loader, they put the retrieved records to the cache directly
+    return LookupUtils.buildCache(getContext(), new ForceLookupLoader(this), conf.cacheConfig, getSharingKey());
+  }
 
-    if (conf.cacheConfig.maxSize == -1) {
-      conf.cacheConfig.maxSize = Long.MAX_VALUE;
+  /**
+   * Identifies the looked up values when the cache is shared across pipelines, queries are part of the lookup key.
+   * Returns null (the cache is not shared) if the credentials can't be resolved.
+   */
+  private String getSharingKey() {
+    String credentials;
+    try {
+      // Records visible to the lookup depend on the Salesforce user
+      credentials = LookupUtils.getCredentialsKey(conf.username.get(), conf.password.get());
+    } catch (StageException e) {
+      LOG.warn("Can't resolve credentials, lookup cache won't be shared across pipelines: {}", e.toString(), e);
+      return null;
     }
-
-    if(LOG.isDebugEnabled()) {
-      cacheBuilder.recordStats();
+    StringBuilder mappings = new StringBuilder();
+    for (ForceSDCFieldMapping mapping : conf.fieldMappings) {
+      mappings.append(mapping.salesforceField).append(':').append(mapping.sdcField).append(':')
+          .append(mapping.dataType).append(':').append(mapping.defaultValue).append(',');
     }
+    return Utils.format(
+        "{}|{}|{}|{}|{}|{}|{}|{}",
+        conf.authEndpoint,
+        credentials,
+        conf.apiVersion,
+        conf.lookupMode,
+        conf.queryAll,
+        conf.sObjectType,
+        conf.retrieveFields,
+        mappings
+    );
+  }
 
-    // CacheBuilder doesn't support specifying type thus suffers from erasure, so
-    // we build it with this if / else logic.
-    if (conf.cacheConfig.evictionPolicyType == EvictionPolicyType.EXPIRE_AFTER_ACCESS) {
-      cacheBuilder.maximumSize(conf.cacheConfig.maxSize).expireAfterAccess(conf.cacheConfig.expirationTime, conf.cacheConfig.timeUnit);
-    } else if (conf.cacheConfig.evictionPolicyType == EvictionPolicyType.EXPIRE_AFTER_WRITE) {
-      cacheBuilder.maximumSize(conf.cacheConfig.maxSize).expireAfterWrite(conf.cacheConfig.expirationTime, conf.cacheConfig.timeUnit);
-    } else {
-      throw new IllegalArgumentException(Utils.format("Unrecognized EvictionPolicyType: '{}'",
-          conf.cacheConfig.evictionPolicyType
-      ));
+  @Override
+  public void destroy() {
+    if (cache != null) {
+      LookupUtils.releaseCache(cache);
     }
-
-    return (conf.lookupMode == QUERY)
-        ? cacheBuilder.build(new ForceLookupLoader(this))
-        : cacheBuilder.build();
+    super.destroy();
   }
 }
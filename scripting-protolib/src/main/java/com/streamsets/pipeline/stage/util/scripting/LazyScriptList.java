@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.util.scripting;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Copy-on-write script view of a LIST field, see {@link LazyScriptMap}.
+ */
+class LazyScriptList extends AbstractList<Object> implements LazyScriptView, RandomAccess {
+
+  private final ScriptObjectFactory factory;
+  private final Field source;
+  private ArrayList<Object> delegate;
+
+  LazyScriptList(ScriptObjectFactory factory, Field source) {
+    this.factory = factory;
+    this.source = source;
+  }
+
+  private List<Object> delegate() {
+    if (delegate == null) {
+      List<Field> fields = source.getValueAsList();
+      delegate = new ArrayList<>(fields.size());
+      for (Field field : fields) {
+        delegate.add(factory.lazyFieldToScript(field));
+      }
+    }
+    return delegate;
+  }
+
+  @Override
+  public Field getSource() {
+    return source;
+  }
+
+  @Override
+  public Field toField(ScriptObjectFactory factory, Record record, String path) {
+    if (delegate == null) {
+      return source;
+    }
+    List<Field> fields = source.getValueAsList();
+    boolean changed = delegate.size() != fields.size();
+    List<Field> fieldList = new ArrayList<>(delegate.size());
+    for (int i = 0; i < delegate.size(); i++) {
+      Field original = i < fields.size() ? fields.get(i) : null;
+      Field field = factory.scriptToField(original, delegate.get(i), record, factory.composeArrayPath(path, i));
+      changed |= field != original;
+      fieldList.add(field);
+    }
+    return changed ? Field.create(fieldList) : source;
+  }
+
+  @Override
+  public Object get(int index) {
+    return delegate().get(index);
+  }
+
+  @Override
+  public int size() {
+    return delegate().size();
+  }
+
+  @Override
+  public Object set(int index, Object element) {
+    return delegate().set(index, element);
+  }
+
+  @Override
+  public void add(int index, Object element) {
+    delegate().add(index, element);
+  }
+
+  @Override
+  public Object remove(int index) {
+    return delegate().remove(index);
+  }
+
+  @Override
+  public void clear() {
+    delegate().clear();
+  }
+}
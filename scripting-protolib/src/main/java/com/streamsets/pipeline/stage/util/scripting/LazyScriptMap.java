@@ -0,0 +1,132 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.util.scripting;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Copy-on-write script view of a MAP or LIST_MAP field.
+ *
+ * Entries are converted to script objects on first access to the map (nested maps and lists become views themselves)
+ * and all changes are done on that copy, so the underlying field is never modified.
+ */
+class LazyScriptMap extends AbstractMap<Object, Object> implements LazyScriptView, ScriptObjectFactory.MapInfo {
+
+  private final ScriptObjectFactory factory;
+  private final Field source;
+  private LinkedHashMap<Object, Object> delegate;
+
+  LazyScriptMap(ScriptObjectFactory factory, Field source) {
+    this.factory = factory;
+    this.source = source;
+  }
+
+  private Map<Object, Object> delegate() {
+    if (delegate == null) {
+      Map<String, Field> fields = source.getValueAsMap();
+      delegate = new LinkedHashMap<>(fields.size() * 4 / 3 + 1);
+      for (Map.Entry<String, Field> entry : fields.entrySet()) {
+        delegate.put(entry.getKey(), factory.lazyFieldToScript(entry.getValue()));
+      }
+    }
+    return delegate;
+  }
+
+  @Override
+  public boolean isListMap() {
+    return source.getType() == Field.Type.LIST_MAP;
+  }
+
+  @Override
+  public Field getSource() {
+    return source;
+  }
+
+  @Override
+  public Field toField(ScriptObjectFactory factory, Record record, String path) {
+    if (delegate == null) {
+      return source;
+    }
+    Map<String, Field> fields = source.getValueAsMap();
+    Iterator<String> originalKeys = fields.keySet().iterator();
+    boolean changed = delegate.size() != fields.size();
+    LinkedHashMap<String, Field> fieldMap = new LinkedHashMap<>();
+    for (Map.Entry<Object, Object> entry : delegate.entrySet()) {
+      String key = entry.getKey().toString();
+      Field original = fields.get(key);
+      Field field = factory.scriptToField(original, entry.getValue(), record, factory.composeMapPath(path, key));
+      // Order matters for list-maps, so a re-inserted entry is a change too
+      changed |= field != original || !originalKeys.hasNext() || !key.equals(originalKeys.next());
+      fieldMap.put(key, field);
+    }
+    if (!changed) {
+      return source;
+    }
+    return isListMap() ? Field.createListMap(fieldMap) : Field.create(fieldMap);
+  }
+
+  @Override
+  public int size() {
+    return delegate().size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return delegate().containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    return delegate().containsValue(value);
+  }
+
+  @Override
+  public Object get(Object key) {
+    return delegate().get(key);
+  }
+
+  @Override
+  public Object put(Object key, Object value) {
+    return delegate().put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    return delegate().remove(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate().clear();
+  }
+
+  @Override
+  public Set<Object> keySet() {
+    return delegate().keySet();
+  }
+
+  @Override
+  public Set<Entry<Object, Object>> entrySet() {
+    return delegate().entrySet();
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.stage.util.scripting;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+
+/**
+ * Script value backed by a record field that is only converted to script objects when the script accesses it.
+ */
+interface LazyScriptView {
+
+  /**
+   * Returns the field this view was created for.
+   */
+  Field getSource();
+
+  /**
+   * Converts the view back to a field, returning the source field itself if the script didn't change anything.
+   */
+  Field toField(ScriptObjectFactory factory, Record record, String path);
+}
@@ -26,6 +26,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -58,7 +59,7 @@ public class ScriptObjectFactory {
 
     Object scriptValue = null;
     if (record.get() != null) {
-      scriptValue = fieldToScript(record.get());
+      scriptValue = supportsLazyRecordViews() ? lazyFieldToScript(record.get()) : fieldToScript(record.get());
     }
     return new NativeScriptRecord(record, scriptValue);
   }
@@ -71,8 +72,10 @@ public class ScriptObjectFactory {
 
     NativeScriptRecord nativeScriptRecord = (NativeScriptRecord) scriptRecord;
     Record record = nativeScriptRecord.sdcRecord;
-    Field field = scriptToField(nativeScriptRecord.value, record, "");
-    record.set(field);
+    Field field = scriptToField(record.get(), nativeScriptRecord.value, record, "");
+    if (field != record.get()) {
+      record.set(field);
+    }
     // Update Record Header Attributes
     updateRecordHeader(nativeScriptRecord.attributes, record);
     return record;
@@ -130,6 +133,69 @@ public class ScriptObjectFactory {
     return elements;
   }
 
+  /**
+   * Whether records can be passed to the script as lazy copy-on-write views instead of converting the whole record
+   * upfront. Views are plain Java maps and lists, so factories that convert into other script native types (see
+   * {@link #createMap(boolean)} and {@link #createArray(List)}) have to return false.
+   */
+  protected boolean supportsLazyRecordViews() {
+    return true;
+  }
+
+  /**
+   * Same as {@link #fieldToScript(Field)}, but maps and lists are only converted once the script accesses them.
+   */
+  protected Object lazyFieldToScript(Field field) {
+    if (field != null && field.getValue() != null) {
+      switch (field.getType()) {
+        case MAP:
+        case LIST_MAP:
+          return new LazyScriptMap(this, field);
+        case LIST:
+          return new LazyScriptList(this, field);
+        default:
+          break;
+      }
+    }
+    return fieldToScript(field);
+  }
+
+  /**
+   * Converts script object that was created from given original field (null for new values) back to a field. The
+   * original field is returned as is when the script didn't change it.
+   */
+  Field scriptToField(Field original, Object scriptObject, Record record, String path) {
+    if (original != null) {
+      if (scriptObject instanceof LazyScriptView && ((LazyScriptView) scriptObject).getSource() == original) {
+        return ((LazyScriptView) scriptObject).toField(this, record, path);
+      }
+      if (isUnchanged(original, scriptObject)) {
+        return original;
+      }
+    }
+    // Views placed anywhere else are converted like any other map or list so that fields are never shared
+    return scriptToField(scriptObject, record, path);
+  }
+
+  private static boolean isUnchanged(Field original, Object scriptObject) {
+    Object value = original.getValue();
+    if (value == null || scriptObject == null) {
+      return value == scriptObject;
+    }
+    switch (original.getType()) {
+      case MAP:
+      case LIST_MAP:
+      case LIST:
+        return false;
+      case FILE_REF:
+        return scriptObject instanceof ScriptFileRefImpl && ((ScriptFileRefImpl) scriptObject).fileRef == value;
+      case BYTE_ARRAY:
+        return scriptObject instanceof byte[] && Arrays.equals((byte[]) value, (byte[]) scriptObject);
+      default:
+        return value.getClass() == scriptObject.getClass() && value.equals(scriptObject);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   protected Object fieldToScript(Field field) {
     Object scriptObject = null;
@@ -611,6 +611,47 @@ public class ScriptingProcessorTestUtil {
     Assert.assertNull(outRec.get().getValueAsMap().get("row2").getValue());
   }
 
+  /**
+   * Script is expected to set "/touched" to "changed" and leave all other fields alone.
+   */
+  public static <C extends Processor> void verifyUntouchedFieldsPreserved(Class<C> clazz, Processor processor)
+      throws StageException {
+    ProcessorRunner runner = new ProcessorRunner.Builder(clazz, processor)
+        .addOutputLane("lane")
+        .build();
+    runner.runInit();
+
+    Record record = RecordCreator.create();
+    Map<String, Field> nested = new LinkedHashMap<>();
+    nested.put("x", Field.create(1));
+    nested.put("list", Field.create(Arrays.asList(Field.create("a"), Field.create("b"))));
+    Field withAttribute = Field.create("value");
+    withAttribute.setAttribute("attr", "attrValue");
+    Map<String, Field> map = new LinkedHashMap<>();
+    map.put("date", Field.createDate(new Date()));
+    map.put("attribute", withAttribute);
+    map.put("nested", Field.createListMap(new LinkedHashMap<>(nested)));
+    map.put("touched", Field.create("original"));
+    record.set(Field.create(map));
+
+    StageRunner.Output output;
+    try {
+      output = runner.runProcess(Collections.singletonList(record));
+    } finally {
+      runner.runDestroy();
+    }
+
+    assertEquals(1, output.getRecords().get("lane").size());
+    Record outRec = output.getRecords().get("lane").get(0);
+    assertEquals("changed", outRec.get("/touched").getValueAsString());
+    // Fields the script didn't change keep their exact type and attributes
+    assertEquals(Field.Type.DATE, outRec.get("/date").getType());
+    assertEquals(map.get("date").getValue(), outRec.get("/date").getValue());
+    assertEquals("attrValue", outRec.get("/attribute").getAttribute("attr"));
+    assertEquals(Field.Type.LIST_MAP, outRec.get("/nested").getType());
+    assertEquals(Field.createListMap(new LinkedHashMap<>(nested)), outRec.get("/nested"));
+  }
+
   public static <C extends Processor> void verifyTypedFieldWithNullValue(
       Class<C> clazz,
       Processor processor,
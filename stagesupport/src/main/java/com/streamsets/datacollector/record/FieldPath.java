@@ -0,0 +1,213 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.datacollector.record;
+
+import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.impl.Utils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiled field path that can be repeatedly resolved against records without any string parsing.
+ *
+ * Stages that access the same field paths on every record should compile them once (typically in init()) and then
+ * use methods on this class instead of the String based methods on {@link Record}. The semantics of the methods are
+ * the same as for {@link Record#get(String)}, {@link Record#set(String, Field)}, {@link Record#has(String)} and
+ * {@link Record#delete(String)}, but no intermediate lists are allocated while walking the field tree.
+ *
+ * Instances are immutable and thus safe to be shared across threads.
+ */
+public final class FieldPath {
+
+  private final String path;
+  private final PathElement[] elements;
+  private final List<PathElement> elementList;
+
+  private FieldPath(String path, List<PathElement> elements) {
+    this.path = path;
+    this.elements = elements.toArray(new PathElement[elements.size()]);
+    this.elementList = Collections.unmodifiableList(Arrays.asList(this.elements));
+  }
+
+  /**
+   * Compile given (single quote escaped) field path.
+   *
+   * @throws IllegalArgumentException If the field path is not valid
+   */
+  public static FieldPath compile(String fieldPath) {
+    Utils.checkNotNull(fieldPath, "fieldPath");
+    return new FieldPath(fieldPath, PathElement.parse(fieldPath, true));
+  }
+
+  /**
+   * Returns the original (uncompiled) field path.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Returns parsed elements of this path, first element is always {@link PathElement#ROOT}.
+   */
+  public List<PathElement> getElements() {
+    return elementList;
+  }
+
+  /**
+   * Equivalent of {@link Record#get(String)}.
+   */
+  public Field get(Record record) {
+    return resolve(record.get(), elements.length - 1);
+  }
+
+  /**
+   * Equivalent of {@link Record#has(String)}.
+   */
+  public boolean has(Record record) {
+    return get(record) != null;
+  }
+
+  /**
+   * Equivalent of {@link Record#set(String, Field)}.
+   */
+  public Field set(Record record, Field newField) {
+    int last = elements.length - 1;
+    if (last == 0) {
+      return record.set(newField);
+    }
+
+    // Walk as deep as possible while remembering the parent of the deepest field that exists
+    Field parent = null;
+    Field current = record.get();
+    int depth = current == null ? -1 : 0;
+    while (current != null && depth < last) {
+      Field next = child(current, elements[depth + 1]);
+      if (next == null) {
+        break;
+      }
+      parent = current;
+      current = next;
+      depth++;
+    }
+
+    if (depth == last) {
+      // Field exists, replace it in it's parent
+      return doSet(parent, elements[last], newField);
+    } else if (depth == last - 1) {
+      // Parent exists, add the new field into it
+      return doSet(current, elements[last], newField);
+    } else {
+      throw new IllegalArgumentException(Utils.format("Field-path '{}' not reachable", path));
+    }
+  }
+
+  /**
+   * Equivalent of {@link Record#delete(String)}.
+   */
+  public Field delete(Record record) {
+    int last = elements.length - 1;
+    if (last == 0) {
+      Field root = record.get();
+      if (root != null) {
+        record.set(null);
+      }
+      return root;
+    }
+
+    Field parent = resolve(record.get(), last - 1);
+    if (parent == null || child(parent, elements[last]) == null) {
+      return null;
+    }
+
+    PathElement element = elements[last];
+    switch (element.getType()) {
+      case MAP:
+        return parent.getValueAsMap().remove(element.getName());
+      case LIST:
+        return parent.getValueAsList().remove(element.getIndex());
+      case FIELD_EXPRESSION:
+      default:
+        throw new IllegalStateException("Unexpected field type " + element.getType());
+    }
+  }
+
+  /**
+   * Returns field at given depth of this path (0 being the root field) or null if it doesn't exist.
+   */
+  private Field resolve(Field root, int depth) {
+    Field current = root;
+    for (int i = 1; current != null && i <= depth; i++) {
+      current = child(current, elements[i]);
+    }
+    return current;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Field child(Field current, PathElement element) {
+    switch (element.getType()) {
+      case MAP:
+        if (current.getType().isOneOf(Field.Type.MAP, Field.Type.LIST_MAP)) {
+          Map<String, Field> map = current.getValueAsMap();
+          if (map != null) {
+            return map.get(element.getName());
+          }
+        }
+        return null;
+      case LIST:
+        if (current.getType().isOneOf(Field.Type.LIST, Field.Type.LIST_MAP)) {
+          List<Field> list = current.getValueAsList();
+          if (list != null && list.size() > element.getIndex()) {
+            return list.get(element.getIndex());
+          }
+        }
+        return null;
+      case ROOT:
+      case FIELD_EXPRESSION:
+      default:
+        return null;
+    }
+  }
+
+  private static Field doSet(Field parent, PathElement element, Field newField) {
+    //Note that this is not the real type of the field, this is how the parser interpreted the fieldPath
+    switch (element.getType()) {
+      case MAP:
+        return parent.getValueAsMap().put(element.getName(), newField);
+      case LIST:
+        List<Field> list = parent.getValueAsList();
+        if (element.getIndex() == list.size()) {
+          //add at end
+          list.add(newField);
+          return null;
+        }
+        //replace existing value
+        return list.set(element.getIndex(), newField);
+      case FIELD_EXPRESSION:
+      case ROOT:
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Utils.format("FieldPath[path='{}']", path);
+  }
+}
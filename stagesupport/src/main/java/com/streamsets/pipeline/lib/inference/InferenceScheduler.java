@@ -0,0 +1,210 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.inference;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.StageException;
+import com.streamsets.pipeline.api.impl.Utils;
+import com.streamsets.pipeline.lib.executor.SafeScheduledExecutorService;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates records with a machine learning model in chunks of bounded size.
+ * <p/>
+ * Model inference runs on a dedicated thread while the calling thread converts the next chunk of records to model
+ * input, results are handed back to the calling thread in the order of the records. Latency of each inference and
+ * the number of evaluated records are published as stage metrics.
+ * <p/>
+ * Instances are meant to be used by a single stage instance, from its pipeline thread.
+ */
+public final class InferenceScheduler {
+
+  public static final String LATENCY_METRIC = "Inference";
+  public static final String RECORDS_METRIC = "Inference Records";
+
+  // one chunk being evaluated and one waiting for the inference thread
+  private static final int MAX_CHUNKS_IN_FLIGHT = 2;
+
+  /**
+   * Model specific part of the evaluation.
+   *
+   * @param <I> model input
+   * @param <O> model output
+   */
+  public interface Evaluator<I, O> {
+
+    /**
+     * Converts records to model input, called on the calling thread. Records that can't be converted must be handled
+     * as errors and removed from the list.
+     *
+     * @return model input, or null if there is nothing left to evaluate
+     */
+    I prepare(List<Record> records) throws StageException;
+
+    /**
+     * Runs the model, called on the inference thread.
+     */
+    O infer(I input) throws Exception;
+
+    /**
+     * Writes the model output to the records, called on the calling thread.
+     */
+    void complete(List<Record> records, I input, O output) throws StageException;
+
+    /**
+     * Handles records whose inference failed, called on the calling thread.
+     */
+    void fail(List<Record> records, I input, Exception exception) throws StageException;
+
+    /**
+     * Releases resources held by model input and output (output is null if inference failed), called once per chunk
+     * after it has been completed or failed.
+     */
+    default void release(I input, O output) {
+    }
+  }
+
+  private final int recordsPerInference;
+  private final ExecutorService executor;
+  private final Timer latencyTimer;
+  private final Meter recordsMeter;
+
+  /**
+   * Creates an <code>InferenceScheduler</code>.
+   *
+   * @param context stage context to create metrics with.
+   * @param recordsPerInference maximum number of records evaluated by one model inference.
+   */
+  public InferenceScheduler(Stage.Context context, int recordsPerInference) {
+    Utils.checkArgument(recordsPerInference > 0, "recordsPerInference must be greater than zero");
+    this.recordsPerInference = recordsPerInference;
+    this.executor = new SafeScheduledExecutorService(1, "inference-" + context.getStageInfo().getInstanceName());
+    this.latencyTimer = context.createTimer(LATENCY_METRIC);
+    this.recordsMeter = context.createMeter(RECORDS_METRIC);
+  }
+
+  public int getRecordsPerInference() {
+    return recordsPerInference;
+  }
+
+  /**
+   * Evaluates given records, returns once all of them have been completed or failed.
+   */
+  public <I, O> void process(List<Record> records, Evaluator<I, O> evaluator) throws StageException {
+    Deque<Chunk<I, O>> inFlight = new ArrayDeque<>(MAX_CHUNKS_IN_FLIGHT);
+    try {
+      for (int start = 0; start < records.size(); start += recordsPerInference) {
+        List<Record> chunkRecords = new ArrayList<>(
+            records.subList(start, Math.min(records.size(), start + recordsPerInference))
+        );
+        // converting while the previous chunk is being evaluated
+        I input = evaluator.prepare(chunkRecords);
+        if (input == null) {
+          continue;
+        }
+        if (inFlight.size() >= MAX_CHUNKS_IN_FLIGHT) {
+          complete(inFlight.poll(), evaluator);
+        }
+        inFlight.add(new Chunk<>(chunkRecords, input, executor.submit(() -> infer(evaluator, input))));
+      }
+      while (!inFlight.isEmpty()) {
+        complete(inFlight.poll(), evaluator);
+      }
+    } finally {
+      // only if completing a chunk failed, chunks still in flight must not leak
+      for (Chunk<I, O> chunk : inFlight) {
+        O output = null;
+        try {
+          output = chunk.result.get().output;
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+          // NOP
+        }
+        evaluator.release(chunk.input, output);
+      }
+    }
+  }
+
+  /**
+   * Stops the inference thread.
+   */
+  public void destroy() {
+    executor.shutdownNow();
+  }
+
+  // failures are returned rather than thrown, they are expected and handled by the evaluator
+  private <I, O> Result<O> infer(Evaluator<I, O> evaluator, I input) {
+    try (Timer.Context ignored = latencyTimer.time()) {
+      return new Result<>(evaluator.infer(input), null);
+    } catch (Exception ex) {
+      return new Result<>(null, ex);
+    }
+  }
+
+  private <I, O> void complete(Chunk<I, O> chunk, Evaluator<I, O> evaluator) throws StageException {
+    O output = null;
+    try {
+      Result<O> result = chunk.result.get();
+      if (result.exception == null) {
+        output = result.output;
+        recordsMeter.mark(chunk.records.size());
+        evaluator.complete(chunk.records, chunk.input, output);
+      } else {
+        evaluator.fail(chunk.records, chunk.input, result.exception);
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      evaluator.fail(chunk.records, chunk.input, ex);
+    } catch (ExecutionException ex) {
+      evaluator.fail(chunk.records, chunk.input, ex);
+    } finally {
+      evaluator.release(chunk.input, output);
+    }
+  }
+
+  private static class Chunk<I, O> {
+    private final List<Record> records;
+    private final I input;
+    private final Future<Result<O>> result;
+
+    Chunk(List<Record> records, I input, Future<Result<O>> result) {
+      this.records = records;
+      this.input = input;
+      this.result = result;
+    }
+  }
+
+  private static class Result<O> {
+    private final O output;
+    private final Exception exception;
+
+    Result(O output, Exception exception) {
+      this.output = output;
+      this.exception = exception;
+    }
+  }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2020 StreamSets Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.streamsets.pipeline.lib.inference;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.streamsets.pipeline.api.Record;
+import com.streamsets.pipeline.api.Stage;
+import com.streamsets.pipeline.api.StageException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class TestInferenceScheduler {
+
+  private Timer timer;
+  private Meter meter;
+  private InferenceScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    timer = new Timer();
+    meter = new Meter();
+    Stage.Info info = Mockito.mock(Stage.Info.class);
+    Mockito.when(info.getInstanceName()).thenReturn("evaluator");
+    Stage.Context context = Mockito.mock(Stage.Context.class);
+    Mockito.when(context.getStageInfo()).thenReturn(info);
+    Mockito.when(context.createTimer(InferenceScheduler.LATENCY_METRIC)).thenReturn(timer);
+    Mockito.when(context.createMeter(InferenceScheduler.RECORDS_METRIC)).thenReturn(meter);
+    scheduler = new InferenceScheduler(context, 3);
+  }
+
+  @After
+  public void tearDown() {
+    scheduler.destroy();
+  }
+
+  private static List<Record> createRecords(int count) {
+    List<Record> records = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      records.add(Mockito.mock(Record.class));
+    }
+    return records;
+  }
+
+  /**
+   * Evaluates a chunk into its size, chunks containing the poisoned record fail.
+   */
+  private static class CountingEvaluator implements InferenceScheduler.Evaluator<List<Record>, Integer> {
+    private final Record poisoned;
+    private final Record invalid;
+    private final List<Record> completed = new ArrayList<>();
+    private final List<Record> failed = new ArrayList<>();
+    private final List<Integer> outputs = new ArrayList<>();
+    private final List<String> inferenceThreads = new ArrayList<>();
+    private int released;
+
+    CountingEvaluator(Record poisoned, Record invalid) {
+      this.poisoned = poisoned;
+      this.invalid = invalid;
+    }
+
+    @Override
+    public List<Record> prepare(List<Record> records) {
+      records.remove(invalid);
+      return records.isEmpty() ? null : new ArrayList<>(records);
+    }
+
+    @Override
+    public Integer infer(List<Record> input) {
+      synchronized (inferenceThreads) {
+        inferenceThreads.add(Thread.currentThread().getName());
+      }
+      if (input.contains(poisoned)) {
+        throw new IllegalStateException("poisoned");
+      }
+      return input.size();
+    }
+
+    @Override
+    public void complete(List<Record> records, List<Record> input, Integer output) {
+      Assert.assertEquals(records, input);
+      completed.addAll(records);
+      outputs.add(output);
+    }
+
+    @Override
+    public void fail(List<Record> records, List<Record> input, Exception exception) {
+      Assert.assertEquals("poisoned", exception.getMessage());
+      failed.addAll(records);
+    }
+
+    @Override
+    public void release(List<Record> input, Integer output) {
+      released++;
+    }
+  }
+
+  @Test
+  public void testChunksInOrder() throws StageException {
+    List<Record> records = createRecords(8);
+    CountingEvaluator evaluator = new CountingEvaluator(null, null);
+    scheduler.process(records, evaluator);
+
+    Assert.assertEquals(records, evaluator.completed);
+    Assert.assertEquals(3, (int) evaluator.outputs.get(0));
+    Assert.assertEquals(3, (int) evaluator.outputs.get(1));
+    Assert.assertEquals(2, (int) evaluator.outputs.get(2));
+    Assert.assertEquals(3, evaluator.released);
+    for (String thread : evaluator.inferenceThreads) {
+      Assert.assertNotEquals(Thread.currentThread().getName(), thread);
+    }
+
+    Assert.assertEquals(3, timer.getCount());
+    Assert.assertEquals(8, meter.getCount());
+  }
+
+  @Test
+  public void testFailedChunk() throws StageException {
+    List<Record> records = createRecords(7);
+    CountingEvaluator evaluator = new CountingEvaluator(records.get(4), records.get(6));
+    scheduler.process(records, evaluator);
+
+    Assert.assertEquals(records.subList(0, 3), evaluator.completed);
+    Assert.assertEquals(records.subList(3, 6), evaluator.failed);
+    // last chunk contained only the invalid record and was never evaluated
+    Assert.assertEquals(2, evaluator.released);
+    Assert.assertEquals(2, timer.getCount());
+    Assert.assertEquals(3, meter.getCount());
+  }
+
+  @Test
+  public void testEmpty() throws StageException {
+    CountingEvaluator evaluator = new CountingEvaluator(null, null);
+    scheduler.process(Collections.emptyList(), evaluator);
+    Assert.assertTrue(evaluator.completed.isEmpty());
+    Assert.assertEquals(0, evaluator.released);
+    Assert.assertEquals(0, timer.getCount());
+  }
+}
@@ -21,6 +21,7 @@ public enum Errors implements ErrorCode {
   TENSOR_FLOW_01("Model Path cannot be empty : {}"),
   TENSOR_FLOW_02("Error loading saved model : {}"),
   TENSOR_FLOW_03("The record '{}' does not include the field '{}'."),
+  TENSOR_FLOW_04("Error evaluating model : {}"),
   ;
 
   private final String message;
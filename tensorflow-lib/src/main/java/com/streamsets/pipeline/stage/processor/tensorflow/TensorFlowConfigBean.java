@@ -83,6 +83,21 @@ public class TensorFlowConfigBean {
   )
   public boolean useEntireBatch = false;
 
+  @ConfigDef(
+      required = true,
+      type = ConfigDef.Type.NUMBER,
+      defaultValue = "1",
+      label = "Records per Inference",
+      description = "Maximum number of records evaluated by one model inference. Values greater than 1 require a " +
+          "model whose inputs and outputs have the records as their first dimension.",
+      displayPosition = 55,
+      group = "TENSOR_FLOW",
+      dependsOn = "useEntireBatch",
+      triggeredByValue = "false",
+      min = 1
+  )
+  public int recordsPerInference = 1;
+
   @ConfigDef(
       required = true,
       type = ConfigDef.Type.MODEL,
@@ -24,7 +24,7 @@ import com.streamsets.pipeline.api.StageDef;
 import com.streamsets.pipeline.api.base.configurablestage.DProcessor;
 
 @StageDef(
-    version=1,
+    version=2,
     label="TensorFlow Evaluator",
     description="Uses TensorFlow models to generate predictions or classifications of data",
     icon="tensorflow.png",
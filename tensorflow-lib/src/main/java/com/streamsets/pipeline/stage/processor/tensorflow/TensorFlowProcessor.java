@@ -24,11 +24,14 @@ import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.StageException;
 import com.streamsets.pipeline.api.base.OnRecordErrorException;
 import com.streamsets.pipeline.api.base.SingleLaneProcessor;
+import com.streamsets.pipeline.lib.inference.InferenceScheduler;
 import com.streamsets.pipeline.stage.common.DefaultErrorRecordHandler;
 import com.streamsets.pipeline.stage.common.ErrorRecordHandler;
 import com.streamsets.pipeline.stage.processor.tensorflow.typesupport.TensorDataTypeSupport;
 import com.streamsets.pipeline.stage.processor.tensorflow.typesupport.TensorTypeSupporter;
 import org.apache.commons.lang3.tuple.Pair;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.tensorflow.SavedModelBundle;
 import org.tensorflow.Session;
 import org.tensorflow.Tensor;
@@ -36,6 +39,8 @@ import org.tensorflow.TensorFlowException;
 
 import java.io.File;
 import java.nio.Buffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -43,12 +48,15 @@ import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public final class TensorFlowProcessor extends SingleLaneProcessor {
+  private static final Logger LOG = LoggerFactory.getLogger(TensorFlowProcessor.class);
 
   private final TensorFlowConfigBean conf;
   private SavedModelBundle savedModel;
   private Session session;
   private Map<Pair<String, Integer>, TensorInputConfig> inputConfigMap = new LinkedHashMap<>();
   private ErrorRecordHandler errorRecordHandler;
+  private InferenceScheduler scheduler;
+  private RecordEvaluator recordEvaluator;
 
   TensorFlowProcessor(TensorFlowConfigBean conf) {
     this.conf = conf;
@@ -94,6 +102,11 @@ public final class TensorFlowProcessor extends SingleLaneProcessor {
 
     errorRecordHandler = new DefaultErrorRecordHandler(getContext());
 
+    if (!conf.useEntireBatch) {
+      scheduler = new InferenceScheduler(getContext(), conf.recordsPerInference);
+      recordEvaluator = new RecordEvaluator();
+    }
+
     return issues;
   }
 
@@ -140,39 +153,13 @@ public final class TensorFlowProcessor extends SingleLaneProcessor {
   }
 
   public void processUseRecordByRecord(Batch batch, SingleLaneBatchMaker singleLaneBatchMaker) throws StageException {
-    Iterator<Record> it = batch.getRecords();
-    while (it.hasNext()) {
-      Record record = it.next();
-      Session.Runner runner = this.session.runner();
-
-      Map<Pair<String, Integer>, Tensor> inputs = null;
-      try {
-        inputs = convertRecord(record, conf.inputConfigs);
-      } catch (OnRecordErrorException ex) {
-        errorRecordHandler.onError(ex);
-        continue;
-      }
-
-      try {
-        for (Map.Entry<Pair<String, Integer>, Tensor> inputMapEntry : inputs.entrySet()) {
-          runner.feed(inputMapEntry.getKey().getLeft(),
-              inputMapEntry.getKey().getRight(),
-              inputMapEntry.getValue()
-          );
-        }
-
-        for (TensorConfig outputConfig : conf.outputConfigs) {
-          runner.fetch(outputConfig.operation, outputConfig.index);
-        }
-
-        List<Tensor<?>> tensorOutput = runner.run();
-        LinkedHashMap<String, Field> outputTensorFieldMap = createOutputFieldValue(tensorOutput);
-        record.set(conf.outputField, Field.create(outputTensorFieldMap));
-        singleLaneBatchMaker.addRecord(record);
-
-      } finally {
-        inputs.values().forEach(Tensor::close);
-      }
+    List<Record> records = new ArrayList<>();
+    batch.getRecords().forEachRemaining(records::add);
+    recordEvaluator.batchMaker = singleLaneBatchMaker;
+    try {
+      scheduler.process(records, recordEvaluator);
+    } finally {
+      recordEvaluator.batchMaker = null;
     }
   }
 
@@ -250,30 +237,6 @@ public final class TensorFlowProcessor extends SingleLaneProcessor {
     return inputs;
   }
 
-  private Map<Pair<String, Integer>, Tensor> convertRecord(
-      Record r,
-      List<TensorInputConfig> inputConfigs
-  ) throws OnRecordErrorException {
-    Map<Pair<String, Integer>, Buffer> inputBuffer = new LinkedHashMap<>();
-    int numberOfRecords = 1;
-    for (TensorInputConfig inputConfig : inputConfigs) {
-      Pair<String, Integer> key = Pair.of(inputConfig.operation, inputConfig.index);
-      long[] inputSize = (conf.useEntireBatch)?
-          new long[]{1, numberOfRecords, inputConfig.fields.size()}
-          : new long[]{numberOfRecords, inputConfig.fields.size()};
-
-      TensorDataTypeSupport dtSupport = TensorTypeSupporter.INSTANCE.getTensorDataTypeSupport(inputConfig.tensorDataType);
-      Buffer b = inputBuffer.computeIfAbsent(
-          key,
-          k -> dtSupport.allocateBuffer(inputSize)
-      );
-
-      writeRecord(r, inputConfig.fields, b, dtSupport);
-    }
-    return createInputTensor(inputBuffer, numberOfRecords);
-  }
-
-
   private LinkedHashMap<String, Field> createOutputFieldValue(List<Tensor<?>> tensorOutput) {
     LinkedHashMap<String, Field> outputTensorFieldMap = new LinkedHashMap<>();
     final AtomicInteger tensorIncrementor = new AtomicInteger(0);
@@ -287,8 +250,179 @@ public final class TensorFlowProcessor extends SingleLaneProcessor {
     return outputTensorFieldMap;
   }
 
+  /**
+   * Evaluates records one by one or in chunks of conf.recordsPerInference records. A chunk is fed to the model as
+   * one tensor per input with the records as the first dimension, the first dimension of every output is then split
+   * back to the records.
+   */
+  private class RecordEvaluator
+      implements InferenceScheduler.Evaluator<Map<Pair<String, Integer>, Tensor>, List<Tensor<?>>> {
+
+    // Tensors copy their data, so the same buffers can be refilled for every chunk
+    private final Map<Pair<String, Integer>, Buffer> inputBuffers = new LinkedHashMap<>();
+    private SingleLaneBatchMaker batchMaker;
+
+    @Override
+    public Map<Pair<String, Integer>, Tensor> prepare(List<Record> records) throws StageException {
+      Iterator<Record> it = records.iterator();
+      while (it.hasNext()) {
+        Record record = it.next();
+        String missingField = getMissingField(record);
+        if (missingField != null) {
+          errorRecordHandler.onError(new OnRecordErrorException(record,
+              Errors.TENSOR_FLOW_03,
+              record.getHeader().getSourceId(),
+              missingField
+          ));
+          it.remove();
+        }
+      }
+      if (records.isEmpty()) {
+        return null;
+      }
+
+      for (TensorInputConfig inputConfig : conf.inputConfigs) {
+        Pair<String, Integer> key = Pair.of(inputConfig.operation, inputConfig.index);
+        TensorDataTypeSupport dtSupport = TensorTypeSupporter.INSTANCE.getTensorDataTypeSupport(
+            inputConfig.tensorDataType
+        );
+        Buffer b = inputBuffers.computeIfAbsent(
+            key,
+            k -> dtSupport.allocateBuffer(new long[]{scheduler.getRecordsPerInference(), inputConfig.fields.size()})
+        );
+        b.clear();
+        for (Record record : records) {
+          writeRecord(record, inputConfig.fields, b, dtSupport);
+        }
+      }
+      return createInputTensor(inputBuffers, records.size());
+    }
+
+    @Override
+    public List<Tensor<?>> infer(Map<Pair<String, Integer>, Tensor> inputs) {
+      Session.Runner runner = session.runner();
+      for (Map.Entry<Pair<String, Integer>, Tensor> inputMapEntry : inputs.entrySet()) {
+        runner.feed(inputMapEntry.getKey().getLeft(),
+            inputMapEntry.getKey().getRight(),
+            inputMapEntry.getValue()
+        );
+      }
+
+      for (TensorConfig outputConfig : conf.outputConfigs) {
+        runner.fetch(outputConfig.operation, outputConfig.index);
+      }
+
+      return runner.run();
+    }
+
+    @Override
+    public void complete(
+        List<Record> records,
+        Map<Pair<String, Integer>, Tensor> inputs,
+        List<Tensor<?>> tensorOutput
+    ) throws StageException {
+      if (records.size() == 1) {
+        addRecord(records.get(0), createOutputFieldValue(tensorOutput));
+        return;
+      }
+
+      for (Tensor<?> t : tensorOutput) {
+        if (t.numDimensions() == 0 || t.shape()[0] != records.size()) {
+          // the model doesn't have records as its first dimension, each record has to be evaluated separately
+          evaluateOneByOne(records);
+          return;
+        }
+      }
+
+      List<LinkedHashMap<String, Field>> outputTensorFieldMaps = new ArrayList<>(records.size());
+      for (int i = 0; i < records.size(); i++) {
+        outputTensorFieldMaps.add(new LinkedHashMap<>());
+      }
+      for (int i = 0; i < conf.outputConfigs.size(); i++) {
+        TensorConfig outputConfig = conf.outputConfigs.get(i);
+        Tensor t = tensorOutput.get(i);
+        TensorDataTypeSupport dtSupport = TensorTypeSupporter.INSTANCE.getTensorDataTypeSupport(t.dataType());
+        List<Field> values = dtSupport.createFieldFromTensor(t).getValueAsList();
+        int valuesPerRecord = values.size() / records.size();
+        for (int r = 0; r < records.size(); r++) {
+          outputTensorFieldMaps.get(r).put(
+              outputConfig.operation + "_" + outputConfig.index,
+              Field.create(
+                  Field.Type.LIST,
+                  new ArrayList<>(values.subList(r * valuesPerRecord, (r + 1) * valuesPerRecord))
+              )
+          );
+        }
+      }
+      for (int r = 0; r < records.size(); r++) {
+        addRecord(records.get(r), outputTensorFieldMaps.get(r));
+      }
+    }
+
+    @Override
+    public void fail(
+        List<Record> records,
+        Map<Pair<String, Integer>, Tensor> inputs,
+        Exception exception
+    ) throws StageException {
+      if (records.size() > 1) {
+        // the model might not accept more records at once, the records themselves are evaluated separately
+        LOG.debug("Evaluating {} records one by one after chunk evaluation failed: {}",
+            records.size(),
+            exception.toString(),
+            exception
+        );
+        evaluateOneByOne(records);
+      } else if (exception instanceof RuntimeException) {
+        throw (RuntimeException) exception;
+      } else {
+        throw new StageException(Errors.TENSOR_FLOW_04, exception.toString(), exception);
+      }
+    }
+
+    @Override
+    public void release(Map<Pair<String, Integer>, Tensor> inputs, List<Tensor<?>> tensorOutput) {
+      inputs.values().forEach(Tensor::close);
+      if (tensorOutput != null) {
+        tensorOutput.forEach(Tensor::close);
+      }
+    }
+
+    private void evaluateOneByOne(List<Record> records) throws StageException {
+      for (Record record : records) {
+        Map<Pair<String, Integer>, Tensor> inputs = prepare(new ArrayList<>(Collections.singletonList(record)));
+        List<Tensor<?>> tensorOutput = null;
+        try {
+          tensorOutput = infer(inputs);
+          addRecord(record, createOutputFieldValue(tensorOutput));
+        } finally {
+          release(inputs, tensorOutput);
+        }
+      }
+    }
+
+    private String getMissingField(Record record) {
+      for (TensorInputConfig inputConfig : conf.inputConfigs) {
+        for (String fieldName : inputConfig.fields) {
+          if (!record.has(fieldName)) {
+            return fieldName;
+          }
+        }
+      }
+      return null;
+    }
+
+    private void addRecord(Record record, LinkedHashMap<String, Field> outputTensorFieldMap) {
+      record.set(conf.outputField, Field.create(outputTensorFieldMap));
+      batchMaker.addRecord(record);
+    }
+  }
+
   @Override
   public void destroy() {
+    if (scheduler != null) {
+      scheduler.destroy();
+    }
     if (this.savedModel != null) {
       this.savedModel.close();
     }
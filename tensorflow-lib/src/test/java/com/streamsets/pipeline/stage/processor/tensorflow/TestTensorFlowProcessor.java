@@ -16,6 +16,7 @@
 package com.streamsets.pipeline.stage.processor.tensorflow;
 
 import com.streamsets.pipeline.api.Field;
+import com.streamsets.pipeline.api.OnRecordError;
 import com.streamsets.pipeline.api.Processor;
 import com.streamsets.pipeline.api.Record;
 import com.streamsets.pipeline.api.Stage;
@@ -28,6 +29,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.tensorflow.DataType;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -155,4 +157,88 @@ public class TestTensorFlowProcessor {
     Assert.assertEquals(2, expandDimsField.getValueAsLong());
   }
 
+  @Test
+  public void testProcessRecordsPerInference() throws StageException {
+    Processor tensorFlowProcessor  = new TestTensorFlowProcessorBuilder()
+        .modelPath(irisModelPath)
+        .modelTags(Collections.singletonList("serve"))
+        .useEntireBatch(false)
+        .recordsPerInference(2)
+        .addInputConfigs(
+            "PetalLength",
+            0,
+            Collections.singletonList("/petalLength"),
+            Collections.singletonList(1),
+            DataType.FLOAT
+        )
+        .addInputConfigs(
+            "PetalWidth",
+            0,
+            Collections.singletonList("/petalWidth"),
+            Collections.singletonList(1),
+            DataType.FLOAT
+        )
+        .addInputConfigs(
+            "SepalLength",
+            0,
+            Collections.singletonList("/sepalLength"),
+            Collections.singletonList(1),
+            DataType.FLOAT
+        )
+        .addInputConfigs(
+            "SepalWidth",
+            0,
+            Collections.singletonList("/sepalWidth"),
+            Collections.singletonList(1),
+            DataType.FLOAT
+        )
+        .addOutputConfigs("dnn/head/predictions/ExpandDims",0, DataType.FLOAT)
+        .addOutputConfigs("dnn/head/predictions/probabilities",0, DataType.FLOAT)
+        .outputField("/output")
+        .build();
+
+    ProcessorRunner runner = new ProcessorRunner.Builder(TensorFlowDProcessor.class, tensorFlowProcessor)
+        .addOutputLane("a")
+        .setOnRecordError(OnRecordError.TO_ERROR)
+        .build();
+
+    runner.runInit();
+
+    List<Record> records = new ArrayList<>();
+    records.add(createIrisRecord(6.4f, 2.8f, 5.6f, 2.2f));
+    records.add(createIrisRecord(5.0f, 2.3f, 3.3f, 1.0f));
+    Record incomplete = RecordCreator.create();
+    incomplete.set(Field.create(new LinkedHashMap<>()));
+    records.add(incomplete);
+    records.add(createIrisRecord(6.4f, 2.8f, 5.6f, 2.2f));
+
+    StageRunner.Output output = runner.runProcess(records);
+    List<Record> outputRecords = output.getRecords().get("a");
+    Assert.assertEquals(3, outputRecords.size());
+    Assert.assertEquals(1, runner.getErrorRecords().size());
+
+    for (Record record : outputRecords) {
+      Assert.assertEquals(1, record.get("/output/'dnn/head/predictions/ExpandDims_0'").getValueAsList().size());
+      Assert.assertEquals(3, record.get("/output/'dnn/head/predictions/probabilities_0'").getValueAsList().size());
+    }
+    // same features, same prediction
+    Assert.assertEquals(
+        outputRecords.get(0).get("/output/'dnn/head/predictions/ExpandDims_0'[0]").getValueAsLong(),
+        outputRecords.get(2).get("/output/'dnn/head/predictions/ExpandDims_0'[0]").getValueAsLong()
+    );
+    Assert.assertEquals(2, outputRecords.get(0).get("/output/'dnn/head/predictions/ExpandDims_0'[0]").getValueAsLong());
+
+    runner.runDestroy();
+  }
+
+  private static Record createIrisRecord(float petalLength, float petalWidth, float sepalLength, float sepalWidth) {
+    Record record = RecordCreator.create();
+    LinkedHashMap<String, Field> field = new LinkedHashMap<>();
+    field.put("petalLength", Field.create(petalLength));
+    field.put("petalWidth", Field.create(petalWidth));
+    field.put("sepalLength", Field.create(sepalLength));
+    field.put("sepalWidth", Field.create(sepalWidth));
+    record.set(Field.createListMap(field));
+    return record;
+  }
 }
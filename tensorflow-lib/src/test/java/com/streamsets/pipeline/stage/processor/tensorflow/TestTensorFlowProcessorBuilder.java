@@ -45,6 +45,11 @@ class TestTensorFlowProcessorBuilder {
     return this;
   }
 
+  TestTensorFlowProcessorBuilder recordsPerInference(int recordsPerInference){
+    conf.recordsPerInference = recordsPerInference;
+    return this;
+  }
+
   TestTensorFlowProcessorBuilder outputField(String outputField){
     conf.outputField = outputField;
     return this;